@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.PriorityChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Send/receive throughput of the core channel implementations.
+ * <p>
+ * Subscribable channels are measured by the cost of a {@code send()} to a no-op
+ * subscriber; pollable channels by a {@code send()} followed by a {@code receive()}
+ * on the same thread, so the queue never grows.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChannelBenchmark {
+
+	private AnnotationConfigApplicationContext applicationContext;
+
+	private DirectChannel directChannel;
+
+	private ExecutorChannel executorChannel;
+
+	private QueueChannel queueChannel;
+
+	private PriorityChannel priorityChannel;
+
+	private Message<?> message;
+
+	@Setup
+	public void setup() {
+		this.applicationContext = new AnnotationConfigApplicationContext(ContextConfiguration.class);
+		this.directChannel = this.applicationContext.getBean("directChannel", DirectChannel.class);
+		this.executorChannel = this.applicationContext.getBean("executorChannel", ExecutorChannel.class);
+		this.queueChannel = this.applicationContext.getBean("queueChannel", QueueChannel.class);
+		this.priorityChannel = this.applicationContext.getBean("priorityChannel", PriorityChannel.class);
+		this.message = MessageBuilder.withPayload("benchmark").build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.applicationContext.close();
+	}
+
+	@Benchmark
+	public boolean directChannelSend() {
+		return this.directChannel.send(this.message);
+	}
+
+	@Benchmark
+	public boolean executorChannelSend() {
+		return this.executorChannel.send(this.message);
+	}
+
+	@Benchmark
+	public Message<?> queueChannelSendReceive() {
+		this.queueChannel.send(this.message);
+		return this.queueChannel.receive(0);
+	}
+
+	@Benchmark
+	public Message<?> priorityChannelSendReceive() {
+		this.priorityChannel.send(this.message);
+		return this.priorityChannel.receive(0);
+	}
+
+	@Configuration
+	@EnableIntegration
+	public static class ContextConfiguration {
+
+		@Bean
+		public DirectChannel directChannel() {
+			return new DirectChannel();
+		}
+
+		@Bean
+		public ThreadPoolTaskExecutor benchmarkExecutor() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(4);
+			executor.setQueueCapacity(10000);
+			executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+			return executor;
+		}
+
+		@Bean
+		public ExecutorChannel executorChannel() {
+			return new ExecutorChannel(benchmarkExecutor());
+		}
+
+		@Bean
+		public QueueChannel queueChannel() {
+			return new QueueChannel();
+		}
+
+		@Bean
+		public PriorityChannel priorityChannel() {
+			return new PriorityChannel();
+		}
+
+		@Bean
+		@ServiceActivator(inputChannel = "directChannel")
+		public MessageHandler directChannelHandler() {
+			return m -> { };
+		}
+
+		@Bean
+		@ServiceActivator(inputChannel = "executorChannel")
+		public MessageHandler executorChannelHandler() {
+			return m -> { };
+		}
+
+	}
+
+}
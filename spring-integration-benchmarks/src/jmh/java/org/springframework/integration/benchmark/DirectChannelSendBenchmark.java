@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Steady-state {@link DirectChannel#send(Message)} cost with and without channel features.
+ * <p>
+ * Run with the {@code gc} profiler (the module default): for the {@code plain} configuration,
+ * where no interceptors, message history, datatypes or metrics apply, the channel delegates
+ * straight to its dispatcher and {@code gc.alloc.rate.norm} must be {@code 0} bytes per operation.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DirectChannelSendBenchmark {
+
+	@Param({ "plain", "interceptor", "counts" })
+	public String configuration;
+
+	private DirectChannel channel;
+
+	private Message<?> message;
+
+	private long handled;
+
+	@Setup
+	public void setup() {
+		this.channel = new DirectChannel();
+		this.channel.setBeanName("benchmarkChannel");
+		if ("interceptor".equals(this.configuration)) {
+			this.channel.addInterceptor(new ChannelInterceptor() {
+
+				@Override
+				public Message<?> preSend(Message<?> message, MessageChannel channel) {
+					return message;
+				}
+
+			});
+		}
+		else if ("counts".equals(this.configuration)) {
+			this.channel.setCountsEnabled(true);
+		}
+		this.channel.afterPropertiesSet();
+		this.channel.subscribe(m -> this.handled++);
+		this.message = new GenericMessage<>("benchmark");
+	}
+
+	@Benchmark
+	public boolean send() {
+		return this.channel.send(this.message);
+	}
+
+}
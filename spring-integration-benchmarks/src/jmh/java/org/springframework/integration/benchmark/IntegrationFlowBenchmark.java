@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * End-to-end throughput of a typical stateless Java DSL {@link IntegrationFlow}:
+ * a chain of transformers, a filter, a header enricher and a service activator
+ * connected with implicit direct channels.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IntegrationFlowBenchmark {
+
+	private AnnotationConfigApplicationContext applicationContext;
+
+	private MessageChannel input;
+
+	private Message<?> message;
+
+	@Setup
+	public void setup() {
+		this.applicationContext = new AnnotationConfigApplicationContext(ContextConfiguration.class);
+		this.input = this.applicationContext.getBean("statelessFlow.input", MessageChannel.class);
+		this.message = MessageBuilder.withPayload("benchmark").build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.applicationContext.close();
+	}
+
+	@Benchmark
+	public boolean statelessFlow() {
+		return this.input.send(this.message);
+	}
+
+	@Configuration
+	@EnableIntegration
+	public static class ContextConfiguration {
+
+		@Bean
+		public IntegrationFlow statelessFlow() {
+			return f -> f
+					.<String, String>transform(String::toUpperCase)
+					.<String>filter(p -> !p.isEmpty())
+					.enrichHeaders(h -> h.header("benchmark", true))
+					.<String, Integer>transform(String::length)
+					.<Integer>handle((p, h) -> p * 2)
+					.<Integer, String>transform(Object::toString)
+					.channel("nullChannel");
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.transformer.HeaderEnricher;
+import org.springframework.integration.transformer.support.ExpressionEvaluatingHeaderValueMessageProcessor;
+import org.springframework.integration.transformer.support.HeaderValueMessageProcessor;
+import org.springframework.integration.transformer.support.StaticHeaderValueMessageProcessor;
+import org.springframework.messaging.Message;
+
+/**
+ * {@link MessageBuilder} and {@link HeaderEnricher} costs depending on the number
+ * of headers carried by the message.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageBuilderBenchmark {
+
+	@Param({ "0", "10", "40" })
+	public int headerCount;
+
+	private Message<?> message;
+
+	private HeaderEnricher staticHeaderEnricher;
+
+	private HeaderEnricher expressionHeaderEnricher;
+
+	@Setup
+	public void setup() {
+		MessageBuilder<String> builder = MessageBuilder.withPayload("benchmark");
+		for (int i = 0; i < this.headerCount; i++) {
+			builder.setHeader("header" + i, "value" + i);
+		}
+		this.message = builder.build();
+
+		Map<String, HeaderValueMessageProcessor<?>> staticHeaders = new HashMap<>();
+		staticHeaders.put("static", new StaticHeaderValueMessageProcessor<>("value"));
+		this.staticHeaderEnricher = new HeaderEnricher(staticHeaders);
+		this.staticHeaderEnricher.afterPropertiesSet();
+
+		Map<String, HeaderValueMessageProcessor<?>> expressionHeaders = new HashMap<>();
+		expressionHeaders.put("expression",
+				new ExpressionEvaluatingHeaderValueMessageProcessor<>("payload.length()", Integer.class));
+		this.expressionHeaderEnricher = new HeaderEnricher(expressionHeaders);
+		this.expressionHeaderEnricher.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public Message<?> buildFromPayload() {
+		return MessageBuilder.withPayload("benchmark").build();
+	}
+
+	@Benchmark
+	public Message<?> copyWithOneHeaderChanged() {
+		return MessageBuilder.fromMessage(this.message)
+				.setHeader("changed", Boolean.TRUE)
+				.build();
+	}
+
+	@Benchmark
+	public Message<?> enrichStaticHeader() {
+		return this.staticHeaderEnricher.transform(this.message);
+	}
+
+	@Benchmark
+	public Message<?> enrichExpressionHeader() {
+		return this.expressionHeaderEnricher.transform(this.message);
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.integration.support.DefaultMessageBuilderFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * Header-heavy flows with and without the
+ * {@link DefaultMessageBuilderFactory#setPersistentHeaders(boolean) persistent headers}:
+ * a message passes through a number of hops, each changing one header and
+ * building a new message.
+ *
+ * @author agent
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersistentHeadersBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean persistentHeaders;
+
+	@Param({ "10", "40" })
+	public int headerCount;
+
+	@Param({ "1", "25" })
+	public int hops;
+
+	private DefaultMessageBuilderFactory messageBuilderFactory;
+
+	private Message<?> message;
+
+	@Setup
+	public void setup() {
+		this.messageBuilderFactory = new DefaultMessageBuilderFactory();
+		this.messageBuilderFactory.setPersistentHeaders(this.persistentHeaders);
+		MessageBuilder<String> builder = this.messageBuilderFactory.withPayload("benchmark");
+		for (int i = 0; i < this.headerCount; i++) {
+			builder.setHeader("header" + i, "value" + i);
+		}
+		this.message = builder.build();
+	}
+
+	@Benchmark
+	public Message<?> changeOneHeaderPerHop() {
+		Message<?> message = this.message;
+		for (int i = 0; i < this.hops; i++) {
+			message = this.messageBuilderFactory.fromMessage(message)
+					.setHeader("hop", i)
+					.build();
+		}
+		return message;
+	}
+
+	@Benchmark
+	public Message<?> addOneHeaderPerHop() {
+		Message<?> message = this.message;
+		for (int i = 0; i < this.hops; i++) {
+			message = this.messageBuilderFactory.fromMessage(message)
+					.setHeader("hop" + i, i)
+					.build();
+		}
+		return message;
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.util.MpmcArrayBlockingQueue;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Contended {@link QueueChannel} throughput for the different queue implementations:
+ * 16 producer threads share the channel with 4 consumer threads.
+ * Non-blocking sends and receives are used, so the numbers reflect the queue
+ * rather than the parking behavior.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueueBenchmark {
+
+	@Param({ "linked", "array", "mpmc" })
+	public String queueType;
+
+	@Param({ "1024" })
+	public int capacity;
+
+	private QueueChannel channel;
+
+	private Message<?> message;
+
+	@Setup
+	public void setup() {
+		BlockingQueue<Message<?>> queue;
+		switch (this.queueType) {
+			case "linked":
+				queue = new LinkedBlockingQueue<>(this.capacity);
+				break;
+			case "array":
+				queue = new ArrayBlockingQueue<>(this.capacity);
+				break;
+			default:
+				queue = new MpmcArrayBlockingQueue<>(this.capacity);
+		}
+		this.channel = new QueueChannel(queue);
+		this.channel.setBeanName("benchmarkChannel");
+		this.channel.afterPropertiesSet();
+		this.message = new GenericMessage<>("benchmark");
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(16)
+	public boolean send() {
+		return this.channel.send(this.message, 0);
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(4)
+	public Message<?> receive() {
+		return this.channel.receive(0);
+	}
+
+}
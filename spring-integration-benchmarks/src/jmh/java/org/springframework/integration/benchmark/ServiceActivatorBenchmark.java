@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.UseSpelInvoker;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
+import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * Service activator invocation cost for the different ways a target can be called:
+ * an {@code InvocableHandlerMethod} (reflective) POJO method, a SpEL-invoked POJO method,
+ * a plain SpEL expression and a Java lambda.
+ * Each flow replies to the {@code nullChannel}, so only the invocation plumbing is measured.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ServiceActivatorBenchmark {
+
+	private AnnotationConfigApplicationContext applicationContext;
+
+	private MessageChannel reflectiveInput;
+
+	private MessageChannel spelInvokerInput;
+
+	private MessageChannel expressionInput;
+
+	private MessageChannel lambdaInput;
+
+	private Message<?> message;
+
+	@Setup
+	public void setup() {
+		this.applicationContext = new AnnotationConfigApplicationContext(ContextConfiguration.class);
+		this.reflectiveInput = this.applicationContext.getBean("reflective.input", MessageChannel.class);
+		this.spelInvokerInput = this.applicationContext.getBean("spelInvoker.input", MessageChannel.class);
+		this.expressionInput = this.applicationContext.getBean("expression.input", MessageChannel.class);
+		this.lambdaInput = this.applicationContext.getBean("lambda.input", MessageChannel.class);
+		this.message = MessageBuilder.withPayload("benchmark").build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.applicationContext.close();
+	}
+
+	@Benchmark
+	public boolean reflective() {
+		return this.reflectiveInput.send(this.message);
+	}
+
+	@Benchmark
+	public boolean spelInvoker() {
+		return this.spelInvokerInput.send(this.message);
+	}
+
+	@Benchmark
+	public boolean expression() {
+		return this.expressionInput.send(this.message);
+	}
+
+	@Benchmark
+	public boolean lambda() {
+		return this.lambdaInput.send(this.message);
+	}
+
+	@Configuration
+	@EnableIntegration
+	public static class ContextConfiguration {
+
+		@Bean
+		public UpperCaseService upperCaseService() {
+			return new UpperCaseService();
+		}
+
+		@Bean
+		public IntegrationFlow reflective() {
+			return f -> f
+					.handle(upperCaseService(), "upperCase")
+					.channel("nullChannel");
+		}
+
+		@Bean
+		public IntegrationFlow spelInvoker() {
+			return f -> f
+					.handle(upperCaseService(), "upperCaseWithSpel")
+					.channel("nullChannel");
+		}
+
+		@Bean
+		public IntegrationFlow expression() {
+			return f -> f
+					.handle(new ServiceActivatingHandler(
+							new ExpressionEvaluatingMessageProcessor<>("payload.toUpperCase()")))
+					.channel("nullChannel");
+		}
+
+		@Bean
+		public IntegrationFlow lambda() {
+			return f -> f
+					.<String>handle((p, h) -> p.toUpperCase())
+					.channel("nullChannel");
+		}
+
+	}
+
+	public static class UpperCaseService {
+
+		public String upperCase(String payload) {
+			return payload.toUpperCase();
+		}
+
+		@UseSpelInvoker
+		public String upperCaseWithSpel(String payload) {
+			return payload.toUpperCase();
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.scheduling.TimingWheelTaskScheduler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Scheduling (and canceling) timeouts with the {@link ThreadPoolTaskScheduler} and the
+ * {@link TimingWheelTaskScheduler}: each timeout is due in 100 to 1100 milliseconds and
+ * every other one is canceled before it expires, like reply or group timeouts which are
+ * mostly canceled.
+ *
+ * @author agent
+ *
+ * @since 5.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskSchedulerBenchmark {
+
+	@Param({ "threadPool", "timingWheel" })
+	public String schedulerType;
+
+	private TaskScheduler taskScheduler;
+
+	@Setup
+	public void setup() {
+		if ("threadPool".equals(this.schedulerType)) {
+			ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+			threadPoolTaskScheduler.setPoolSize(10);
+			threadPoolTaskScheduler.afterPropertiesSet();
+			this.taskScheduler = threadPoolTaskScheduler;
+		}
+		else {
+			this.taskScheduler = new TimingWheelTaskScheduler();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		((DisposableBean) this.taskScheduler).destroy();
+	}
+
+	@Benchmark
+	public ScheduledFuture<?> scheduleAndCancelHalf() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		ScheduledFuture<?> future = this.taskScheduler.schedule(() -> { },
+				new Date(System.currentTimeMillis() + 100 + random.nextInt(1000)));
+		if (random.nextBoolean()) {
+			future.cancel(false);
+		}
+		return future;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,8 +52,8 @@ import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.integration.store.SimpleMessageStore;
-import org.springframework.integration.support.locks.DefaultLockRegistry;
 import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.integration.support.locks.StripedLockRegistry;
 import org.springframework.integration.util.UUIDConverter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -120,7 +120,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 
 	private volatile boolean sequenceAware = false;
 
-	private volatile LockRegistry lockRegistry = new DefaultLockRegistry();
+	private volatile LockRegistry lockRegistry = new StripedLockRegistry();
 
 	private boolean lockRegistrySet = false;
 
@@ -385,6 +385,15 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		return this.lockRegistrySet;
 	}
 
+	/**
+	 * The {@link StripedLockRegistry} accepts the group {@link UUID} itself as a key;
+	 * other (possibly distributed) registries get its {@code String} representation.
+	 */
+	private Lock obtainGroupLock(UUID groupUuid) {
+		LockRegistry lockRegistry = this.lockRegistry;
+		return lockRegistry.obtain(lockRegistry instanceof StripedLockRegistry ? groupUuid : groupUuid.toString());
+	}
+
 	protected long getMinimumTimeoutForEmptyGroups() {
 		return this.minimumTimeoutForEmptyGroups;
 	}
@@ -411,7 +420,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		}
 
 		UUID groupIdUuid = UUIDConverter.getUUID(correlationKey);
-		Lock lock = this.lockRegistry.obtain(groupIdUuid.toString());
+		Lock lock = obtainGroupLock(groupIdUuid);
 
 		lock.lockInterruptibly();
 		try {
@@ -423,7 +432,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 							+ correlationKey + "].");
 				}
 			}
-			MessageGroup messageGroup = this.messageStore.getMessageGroup(correlationKey);
+			MessageGroup messageGroup = retrieveMessageGroup(correlationKey);
 			if (this.sequenceAware) {
 				messageGroup = new SequenceAwareMessageGroup(messageGroup);
 			}
@@ -432,7 +441,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 				if (this.logger.isTraceEnabled()) {
 					this.logger.trace("Adding message to group [ " + messageGroup + "]");
 				}
-				messageGroup = this.store(correlationKey, message);
+				messageGroup = this.store(correlationKey, message, messageGroup);
 
 				if (this.releaseStrategy.canRelease(messageGroup)) {
 					Collection<Message<?>> completedMessages = null;
@@ -470,7 +479,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		UUID groupUuid = UUIDConverter.getUUID(groupId);
 		ScheduledFuture<?> scheduledFuture = getTaskScheduler()
 				.schedule(() -> {
-					Lock lock = this.lockRegistry.obtain(groupUuid.toString());
+					Lock lock = obtainGroupLock(groupUuid);
 
 					try {
 						lock.lockInterruptibly();
@@ -582,7 +591,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 
 		Object correlationKey = group.getGroupId();
 		// UUIDConverter is no-op if already converted
-		Lock lock = this.lockRegistry.obtain(UUIDConverter.getUUID(correlationKey).toString());
+		Lock lock = obtainGroupLock(UUIDConverter.getUUID(correlationKey));
 		boolean removeGroup = true;
 		try {
 			lock.lockInterruptibly();
@@ -613,7 +622,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 				 * for reaping if it's empty (and both timestamps are unaltered).
 				 */
 				if (!group.isComplete()) {
-					groupNow = this.messageStore.getMessageGroup(correlationKey);
+					groupNow = retrieveMessageGroup(correlationKey);
 				}
 				long lastModifiedNow = groupNow.getLastModified();
 				int groupSize = groupNow.size();
@@ -689,11 +698,37 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 		return new IntegrationMessageHeaderAccessor(lastReleasedMessage).getSequenceNumber();
 	}
 
+	/**
+	 * Retrieve the group for the correlation key from the message store, before adding
+	 * a message to it and before its forced completion.
+	 * Subclasses may return a view of the stored group.
+	 * @param correlationKey the correlation key.
+	 * @return the message group.
+	 * @since 5.1
+	 */
+	protected MessageGroup retrieveMessageGroup(Object correlationKey) {
+		return this.messageStore.getMessageGroup(correlationKey);
+	}
+
 	protected MessageGroup store(Object correlationKey, Message<?> message) {
 		this.groupIds.add(correlationKey);
 		return this.messageStore.addMessageToGroup(correlationKey, message);
 	}
 
+	/**
+	 * Store the message into the group, which has just been obtained from
+	 * {@link #retrieveMessageGroup(Object)} (possibly wrapped) under the group lock.
+	 * Delegates to {@link #store(Object, Message)} by default.
+	 * @param correlationKey the correlation key.
+	 * @param message the message to store.
+	 * @param messageGroup the current group.
+	 * @return the group after the message is stored.
+	 * @since 5.1
+	 */
+	protected MessageGroup store(Object correlationKey, Message<?> message, MessageGroup messageGroup) {
+		return store(correlationKey, message);
+	}
+
 	protected void expireGroup(Object correlationKey, MessageGroup group) {
 		if (this.logger.isInfoEnabled()) {
 			this.logger.info("Expiring MessageGroup with correlationKey[" + correlationKey + "]");
@@ -798,6 +833,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 
 		private final SimpleMessageGroup sourceGroup;
 
+		private final AggregatingMessageHandler.FoldedMessageGroup foldedGroup;
+
 		public SequenceAwareMessageGroup(MessageGroup messageGroup) {
 			/*
 			 * Since this group is temporary, and never added to, we simply use the
@@ -812,6 +849,12 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 			else {
 				this.sourceGroup = null;
 			}
+			if (messageGroup instanceof AggregatingMessageHandler.FoldedMessageGroup) {
+				this.foldedGroup = (AggregatingMessageHandler.FoldedMessageGroup) messageGroup;
+			}
+			else {
+				this.foldedGroup = null;
+			}
 		}
 
 		/**
@@ -834,12 +877,21 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageP
 					messageSequenceSize = 0;
 				}
 				return messageSequenceSize.equals(getSequenceSize())
-						&& !(this.sourceGroup != null ? this.sourceGroup.containsSequence(messageSequenceNumber)
-						: containsSequenceNumber(this.getMessages(), messageSequenceNumber));
+						&& !containsSequence(messageSequenceNumber);
 			}
 			return true;
 		}
 
+		private boolean containsSequence(Integer messageSequenceNumber) {
+			if (this.foldedGroup != null) {
+				// the folded messages are gone; their sequence numbers are kept in the accumulation
+				return this.foldedGroup.containsSequence(messageSequenceNumber);
+			}
+			return this.sourceGroup != null
+					? this.sourceGroup.containsSequence(messageSequenceNumber)
+					: containsSequenceNumber(this.getMessages(), messageSequenceNumber);
+		}
+
 		private boolean containsSequenceNumber(Collection<Message<?>> messages, Integer messageSequenceNumber) {
 			for (Message<?> member : messages) {
 				if (messageSequenceNumber.equals(member.getHeaders().get(
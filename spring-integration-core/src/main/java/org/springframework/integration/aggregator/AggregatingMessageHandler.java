@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.integration.aggregator;
 
 import java.util.Collection;
 
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.aggregator.FoldingMessageGroupProcessor.Accumulation;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.SimpleMessageStore;
@@ -27,6 +29,12 @@ import org.springframework.messaging.Message;
  * Aggregator specific implementation of {@link AbstractCorrelatingMessageHandler}.
  * Will remove {@link MessageGroup}s in the {@linkplain #afterRelease}
  * only if 'expireGroupsUponCompletion' flag is set to 'true'.
+ * <p>
+ * With a {@link FoldingMessageGroupProcessor} as the output processor, each message is
+ * folded into the accumulation message of its group on arrival, so the store keeps only
+ * that message per group; the {@link ReleaseStrategy} sees a group whose
+ * {@link MessageGroup#size() size} is the number of folded messages and a message with a
+ * sequence number which has already been folded is discarded as a duplicate.
  *
  * @author Oleg Zhurakousky
  * @author Artem Bilan
@@ -62,6 +70,43 @@ public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler
 		this.expireGroupsUponCompletion = expireGroupsUponCompletion;
 	}
 
+	@Override
+	protected MessageGroup retrieveMessageGroup(Object correlationKey) {
+		MessageGroup messageGroup = super.retrieveMessageGroup(correlationKey);
+		return isFolding() ? new FoldedMessageGroup(messageGroup) : messageGroup;
+	}
+
+	@Override
+	protected MessageGroup store(Object correlationKey, Message<?> message) {
+		if (!isFolding()) {
+			return super.store(correlationKey, message);
+		}
+		return store(correlationKey, message, retrieveMessageGroup(correlationKey));
+	}
+
+	/**
+	 * Fold the message into the accumulation message of the group, replacing it in the
+	 * store, when the output processor is a {@link FoldingMessageGroupProcessor}.
+	 * The accumulation is taken from the group already retrieved for the message, so a
+	 * fold costs a removal and an addition in the store.
+	 */
+	@Override
+	protected MessageGroup store(Object correlationKey, Message<?> message, MessageGroup messageGroup) {
+		if (!isFolding()) {
+			return super.store(correlationKey, message, messageGroup);
+		}
+		Message<?> accumulation = FoldedMessageGroup.accumulation(messageGroup);
+		Message<?> folded = ((FoldingMessageGroupProcessor<?, ?, ?>) getOutputProcessor()).fold(accumulation, message);
+		if (accumulation != null) {
+			getMessageStore().removeMessagesFromGroup(correlationKey, accumulation);
+		}
+		return new FoldedMessageGroup(super.store(correlationKey, folded));
+	}
+
+	private boolean isFolding() {
+		return getOutputProcessor() instanceof FoldingMessageGroupProcessor;
+	}
+
 	@Override
 	protected boolean isExpireGroupsUponCompletion() {
 		return this.expireGroupsUponCompletion;
@@ -70,6 +115,8 @@ public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler
 	/**
 	 * Complete the group and remove all its messages.
 	 * If the {@link #expireGroupsUponCompletion} is true, then remove group fully.
+	 * Otherwise the group is completed and its messages are removed with a single
+	 * {@link MessageGroupStore#completeGroupAndRemoveMessages(Object, Collection)} call.
 	 * @param messageGroup the group to clean up.
 	 * @param completedMessages The completed messages. Ignored in this implementation.
 	 */
@@ -77,19 +124,147 @@ public class AggregatingMessageHandler extends AbstractCorrelatingMessageHandler
 	protected void afterRelease(MessageGroup messageGroup, Collection<Message<?>> completedMessages) {
 		Object groupId = messageGroup.getGroupId();
 		MessageGroupStore messageStore = getMessageStore();
-		messageStore.completeGroup(groupId);
 
 		if (this.expireGroupsUponCompletion) {
+			messageStore.completeGroup(groupId);
 			remove(messageGroup);
 		}
+		else if (messageStore instanceof SimpleMessageStore) {
+			messageStore.completeGroup(groupId);
+			((SimpleMessageStore) messageStore).clearMessageGroup(groupId);
+		}
 		else {
-			if (messageStore instanceof SimpleMessageStore) {
-				((SimpleMessageStore) messageStore).clearMessageGroup(groupId);
+			messageStore.completeGroupAndRemoveMessages(groupId, messageGroup.getMessages());
+		}
+	}
+
+	/**
+	 * A view of a group of accumulation messages, which reports the number of messages
+	 * folded into them as its size and rejects the sequence numbers already folded.
+	 */
+	static final class FoldedMessageGroup implements MessageGroup {
+
+		private final MessageGroup delegate;
+
+		FoldedMessageGroup(MessageGroup delegate) {
+			this.delegate = delegate;
+		}
+
+		static Message<?> accumulation(MessageGroup group) {
+			for (Message<?> member : group.getMessages()) {
+				if (member.getPayload() instanceof Accumulation) {
+					return member;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Return true if a message with this sequence number has been folded into the group.
+		 * @param sequenceNumber the sequence number.
+		 * @return true if it has been folded.
+		 */
+		boolean containsSequence(int sequenceNumber) {
+			for (Message<?> message : this.delegate.getMessages()) {
+				Object payload = message.getPayload();
+				if (payload instanceof Accumulation && ((Accumulation) payload).containsSequence(sequenceNumber)) {
+					return true;
+				}
 			}
-			else {
-				messageStore.removeMessagesFromGroup(groupId, messageGroup.getMessages());
+			return false;
+		}
+
+		@Override
+		public boolean canAdd(Message<?> message) {
+			int sequenceNumber = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+			return this.delegate.canAdd(message) && (sequenceNumber <= 0 || !containsSequence(sequenceNumber));
+		}
+
+		@Override
+		public void add(Message<?> messageToAdd) {
+			this.delegate.add(messageToAdd);
+		}
+
+		@Override
+		public boolean remove(Message<?> messageToRemove) {
+			return this.delegate.remove(messageToRemove);
+		}
+
+		@Override
+		public Collection<Message<?>> getMessages() {
+			return this.delegate.getMessages();
+		}
+
+		@Override
+		public Object getGroupId() {
+			return this.delegate.getGroupId();
+		}
+
+		@Override
+		public int getLastReleasedMessageSequenceNumber() {
+			return this.delegate.getLastReleasedMessageSequenceNumber();
+		}
+
+		@Override
+		public void setLastReleasedMessageSequenceNumber(int sequenceNumber) {
+			this.delegate.setLastReleasedMessageSequenceNumber(sequenceNumber);
+		}
+
+		@Override
+		public boolean isComplete() {
+			return this.delegate.isComplete();
+		}
+
+		@Override
+		public void complete() {
+			this.delegate.complete();
+		}
+
+		@Override
+		public int getSequenceSize() {
+			return this.delegate.getSequenceSize();
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (Message<?> message : this.delegate.getMessages()) {
+				Object payload = message.getPayload();
+				size += payload instanceof Accumulation ? ((Accumulation) payload).getCount() : 1;
 			}
+			return size;
+		}
+
+		@Override
+		public Message<?> getOne() {
+			return this.delegate.getOne();
+		}
+
+		@Override
+		public long getTimestamp() {
+			return this.delegate.getTimestamp();
+		}
+
+		@Override
+		public long getLastModified() {
+			return this.delegate.getLastModified();
+		}
+
+		@Override
+		public void setLastModified(long lastModified) {
+			this.delegate.setLastModified(lastModified);
+		}
+
+		@Override
+		public void clear() {
+			this.delegate.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "FoldedMessageGroup [" + this.delegate + "]";
 		}
+
 	}
 
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.aggregator;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.stream.Collector;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A {@link MessageGroupProcessor} which aggregates the payloads of the group with a
+ * {@link Collector}: the {@link Collector#supplier() initial state}, the
+ * {@link Collector#accumulator() fold} of each payload into it, the
+ * {@link Collector#combiner() combination} of two states and the
+ * {@link Collector#finisher() finish} to the output payload.
+ * <p>
+ * When used as the output processor of an {@link AggregatingMessageHandler}, the messages
+ * are folded into the running state as they arrive and the group in the store holds only
+ * a single message with an {@link Accumulation} payload (which carries the headers of the
+ * first message of the group and the sequence numbers folded so far), instead of all the
+ * messages until the release.
+ * The state therefore must be {@link Serializable} for persistent message stores; for
+ * JSON-serializing stores, it must be a JSON type and the
+ * {@code org.springframework.integration.aggregator} package (and the package of the
+ * state) must be trusted by the mapper.
+ * <p>
+ * When the group contains regular messages (e.g. when used with another handler),
+ * their payloads are folded on release, as usual.
+ *
+ * @param <T> the payload type.
+ * @param <A> the accumulation (state) type.
+ * @param <R> the result type.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class FoldingMessageGroupProcessor<T, A, R> extends AbstractAggregatingMessageGroupProcessor {
+
+	private final Collector<T, A, R> collector;
+
+	/**
+	 * Create an instance based on the provided {@link Collector}, e.g.
+	 * {@code Collectors.summingLong(Long::longValue)}.
+	 * @param collector the collector.
+	 */
+	public FoldingMessageGroupProcessor(Collector<T, A, R> collector) {
+		Assert.notNull(collector, "'collector' must not be null");
+		this.collector = collector;
+	}
+
+	/**
+	 * Fold the payload of the message into the state carried by the accumulation message,
+	 * or into a new initial state, if there is no accumulation yet.
+	 * @param accumulation the current accumulation message, if any.
+	 * @param message the message to fold.
+	 * @return the new accumulation message.
+	 */
+	@SuppressWarnings("unchecked")
+	public Message<Accumulation> fold(@Nullable Message<?> accumulation, Message<?> message) {
+		A state;
+		int count;
+		BitSet sequences;
+		Message<?> headersSource;
+		if (accumulation != null) {
+			Accumulation current = (Accumulation) accumulation.getPayload();
+			state = (A) current.getState();
+			count = current.getCount();
+			sequences = BitSet.valueOf(current.getSequences());
+			headersSource = accumulation;
+		}
+		else {
+			state = this.collector.supplier().get();
+			count = 0;
+			sequences = new BitSet();
+			headersSource = message;
+		}
+		this.collector.accumulator().accept(state, (T) message.getPayload());
+		int sequenceNumber = new IntegrationMessageHeaderAccessor(message).getSequenceNumber();
+		if (sequenceNumber > 0) {
+			sequences.set(sequenceNumber);
+		}
+		return getMessageBuilderFactory()
+				.withPayload(new Accumulation(state, count + 1, sequences.toLongArray()))
+				.copyHeaders(headersSource.getHeaders())
+				.build();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Object aggregatePayloads(MessageGroup group, Map<String, Object> headers) {
+		A result = null;
+		for (Message<?> message : group.getMessages()) {
+			Object payload = message.getPayload();
+			if (payload instanceof Accumulation) {
+				A state = (A) ((Accumulation) payload).getState();
+				result = result != null ? this.collector.combiner().apply(result, state) : state;
+			}
+			else {
+				if (result == null) {
+					result = this.collector.supplier().get();
+				}
+				this.collector.accumulator().accept(result, (T) payload);
+			}
+		}
+		if (result == null) {
+			result = this.collector.supplier().get();
+		}
+		return this.collector.finisher().apply(result);
+	}
+
+	/**
+	 * The payload of the message kept in the group instead of the folded messages:
+	 * the running state, the number of messages folded into it and their sequence numbers.
+	 */
+	public static final class Accumulation implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object state;
+
+		private final int count;
+
+		private final long[] sequences;
+
+		@JsonCreator
+		Accumulation(@JsonProperty("state") Object state, @JsonProperty("count") int count,
+				@JsonProperty("sequences") long[] sequences) {
+
+			this.state = state;
+			this.count = count;
+			this.sequences = sequences != null ? sequences : new long[0];
+		}
+
+		public Object getState() {
+			return this.state;
+		}
+
+		public int getCount() {
+			return this.count;
+		}
+
+		/**
+		 * Return the sequence numbers of the folded messages, as a bit set in the
+		 * {@link BitSet#toLongArray()} format.
+		 * @return the sequence numbers bits.
+		 */
+		public long[] getSequences() {
+			return this.sequences.clone();
+		}
+
+		/**
+		 * Return true if a message with this sequence number has been folded.
+		 * @param sequenceNumber the sequence number.
+		 * @return true if it has been folded.
+		 */
+		public boolean containsSequence(int sequenceNumber) {
+			int word = sequenceNumber >>> 6;
+			return sequenceNumber >= 0 && word < this.sequences.length
+					&& (this.sequences[word] & (1L << sequenceNumber)) != 0;
+		}
+
+		@Override
+		public String toString() {
+			return "Accumulation [state=" + this.state + ", count=" + this.count + "]";
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,10 +24,13 @@ import java.util.List;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.messaging.Message;
 
 /**
  * This class implements all the strategy interfaces needed for a default resequencer.
+ * For a {@link SimpleMessageGroup} the contiguous run of sequence numbers is obtained
+ * from the group's sequence index without sorting the messages.
  *
  * @author Iwein Fuld
  * @author Dave Syer
@@ -39,6 +42,13 @@ public class ResequencingMessageGroupProcessor implements MessageGroupProcessor
 	private final Comparator<Message<?>> comparator = new MessageSequenceComparator();
 
 	public Object processMessageGroup(MessageGroup group) {
+		if (group instanceof SimpleMessageGroup) {
+			List<Message<?>> partialSequence = ((SimpleMessageGroup) group).getContiguousSequence();
+			if (partialSequence != null) {
+				return partialSequence.size() > 0 ? partialSequence : null;
+			}
+		}
+
 		Collection<Message<?>> messages = group.getMessages();
 
 		if (messages.size() > 0) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -95,6 +95,7 @@ public class ResequencingMessageHandler extends AbstractCorrelatingMessageHandle
 		else {
 			Object groupId = messageGroup.getGroupId();
 			MessageGroupStore messageStore = getMessageStore();
+			boolean completed = false;
 			if (completedMessages != null) {
 				int lastReleasedSequenceNumber = findLastReleasedSequenceNumber(groupId, completedMessages);
 				messageStore.setLastReleasedSequenceNumberForGroup(groupId, lastReleasedSequenceNumber);
@@ -102,11 +103,15 @@ public class ResequencingMessageHandler extends AbstractCorrelatingMessageHandle
 						&& completedMessages.size() == messageGroup.size()) {
 					((SimpleMessageStore) messageStore).clearMessageGroup(groupId);
 				}
+				else if (timeout) {
+					messageStore.completeGroupAndRemoveMessages(groupId, completedMessages);
+					completed = true;
+				}
 				else {
 					messageStore.removeMessagesFromGroup(groupId, completedMessages);
 				}
 			}
-			if (timeout) {
+			if (timeout && !completed) {
 				messageStore.completeGroup(groupId);
 			}
 		}
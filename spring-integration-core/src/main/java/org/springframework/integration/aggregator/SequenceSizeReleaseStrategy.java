@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.messaging.Message;
 
 /**
@@ -69,7 +70,9 @@ public class SequenceSizeReleaseStrategy implements ReleaseStrategy {
 	 * Flag that determines if partial sequences are allowed. If true then as soon as
 	 * enough messages arrive that can be ordered they will be released, provided they
 	 * all have sequence numbers greater than those already released.
-	 * This can be an expensive operation for large groups.
+	 * This can be an expensive operation for large groups, unless they are
+	 * {@link SimpleMessageGroup}s (e.g. from the {@code SimpleMessageStore}), which index
+	 * their messages by sequence number.
 	 * @param releasePartialSequences true when partial sequences should be released.
 	 */
 	public void setReleasePartialSequences(boolean releasePartialSequences) {
@@ -86,10 +89,15 @@ public class SequenceSizeReleaseStrategy implements ReleaseStrategy {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Considering partial release of group [" + messageGroup + "]");
 			}
-			Collection<Message<?>> messages = messageGroup.getMessages();
-			Message<?> minMessage = Collections.min(messages, this.comparator);
-
-			int nextSequenceNumber = new IntegrationMessageHeaderAccessor(minMessage).getSequenceNumber();
+			int nextSequenceNumber = -1;
+			if (messageGroup instanceof SimpleMessageGroup) {
+				nextSequenceNumber = ((SimpleMessageGroup) messageGroup).getLowestSequenceNumber();
+			}
+			if (nextSequenceNumber < 0) {
+				Collection<Message<?>> messages = messageGroup.getMessages();
+				Message<?> minMessage = Collections.min(messages, this.comparator);
+				nextSequenceNumber = new IntegrationMessageHeaderAccessor(minMessage).getSequenceNumber();
+			}
 			int lastReleasedMessageSequence = messageGroup.getLastReleasedMessageSequenceNumber();
 
 			if (nextSequenceNumber - lastReleasedMessageSequence == 1) {
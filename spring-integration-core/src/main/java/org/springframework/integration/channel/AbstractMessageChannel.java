@@ -75,6 +75,8 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 
 	private volatile boolean shouldTrack = false;
 
+	private volatile int historySamplingRate = 1;
+
 	private volatile Class<?>[] datatypes = new Class<?>[0];
 
 	private volatile String fullChannelName;
@@ -89,6 +91,13 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 
 	private volatile AbstractMessageChannelMetrics channelMetrics = new DefaultMessageChannelMetrics();
 
+	/**
+	 * Precomputed from the message history, datatypes and metrics settings;
+	 * {@code true} when none of them apply to this channel, so a send without
+	 * interceptors can go straight to {@link #doSend(Message, long)}.
+	 */
+	private volatile boolean plainSend = true;
+
 	private MetricsCaptor metricsCaptor;
 
 	private TimerFacade successTimer;
@@ -107,6 +116,12 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 	@Override
 	public void setShouldTrack(boolean shouldTrack) {
 		this.shouldTrack = shouldTrack;
+		updateSendStrategy();
+	}
+
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historySamplingRate = samplingRate;
 	}
 
 	@Override
@@ -126,6 +141,7 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 			this.statsEnabled = false;
 			this.managementOverrides.statsConfigured = true;
 		}
+		updateSendStrategy();
 	}
 
 	@Override
@@ -142,6 +158,7 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 		this.statsEnabled = statsEnabled;
 		this.channelMetrics.setFullStatsEnabled(statsEnabled);
 		this.managementOverrides.statsConfigured = true;
+		updateSendStrategy();
 	}
 
 	@Override
@@ -184,6 +201,7 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 	public void setDatatypes(Class<?>... datatypes) {
 		this.datatypes = (datatypes != null && datatypes.length > 0)
 				? datatypes : new Class<?>[0];
+		updateSendStrategy();
 	}
 
 	/**
@@ -362,6 +380,11 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 		}
 
 		this.fullChannelName = null;
+		updateSendStrategy();
+	}
+
+	private void updateSendStrategy() {
+		this.plainSend = !this.shouldTrack && this.datatypes.length == 0 && !this.countsEnabled;
 	}
 
 	/**
@@ -410,8 +433,19 @@ public abstract class AbstractMessageChannel extends IntegrationObjectSupport
 	public boolean send(Message<?> message, long timeout) {
 		Assert.notNull(message, "message must not be null");
 		Assert.notNull(message.getPayload(), "message payload must not be null");
+		if (this.plainSend && this.interceptors.getSize() == 0 && !(this.loggingEnabled && logger.isDebugEnabled())) {
+			try {
+				return doSend(message, timeout);
+			}
+			catch (Exception e) {
+				throw IntegrationUtils.wrapInDeliveryExceptionIfNecessary(message,
+						() -> "failed to send Message to channel '" + this.getComponentName() + "'", e);
+			}
+		}
 		if (this.shouldTrack) {
-			message = MessageHistory.write(message, this, this.getMessageBuilderFactory());
+			// only message sources sample; a message without a history here is not sampled
+			message = MessageHistory.write(message, this, this.getMessageBuilderFactory(),
+					this.historySamplingRate > 1 ? 0 : 1);
 		}
 
 		Deque<ChannelInterceptor> interceptorStack = null;
@@ -17,15 +17,16 @@
 package org.springframework.integration.channel;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 
 import org.springframework.integration.support.management.PollableChannelManagement;
 import org.springframework.integration.support.management.metrics.CounterFacade;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.PollableChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -37,7 +38,7 @@ import org.springframework.util.CollectionUtils;
  * @author Artem Bilan
  */
 public abstract class AbstractPollableChannel extends AbstractMessageChannel
-		implements PollableChannel, PollableChannelManagement, ExecutorChannelInterceptorAware {
+		implements BatchPollableChannel, PollableChannelManagement, ExecutorChannelInterceptorAware {
 
 	private volatile int executorInterceptorsSize;
 
@@ -127,17 +128,7 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 		}
 		catch (RuntimeException e) {
 			if (countsEnabled && !counted) {
-				if (getMetricsCaptor() != null) {
-					getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
-							.tag("name", getComponentName() == null ? "unknown" : getComponentName())
-							.tag("type", "channel")
-							.tag("result", "failure")
-							.tag("exception", e.getClass().getSimpleName())
-							.description("Messages received")
-							.build()
-							.increment();
-				}
-				getMetrics().afterError();
+				receiveError(e);
 			}
 			if (!CollectionUtils.isEmpty(interceptorStack)) {
 				interceptorList.afterReceiveCompletion(null, this, e, interceptorStack);
@@ -146,6 +137,70 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 		}
 	}
 
+	/**
+	 * Receive up to {@code maxMessages} messages from this channel, waiting up to the
+	 * timeout for the first one only. When interceptors are configured, each message
+	 * is received (and intercepted) individually via {@link #receive(long)};
+	 * otherwise the whole batch is obtained with a single
+	 * {@link #doReceive(int, long)} call.
+	 * @param maxMessages the maximum number of messages to receive.
+	 * @param timeout the timeout in milliseconds for the first message.
+	 * @return the received messages; never null.
+	 * @since 5.1
+	 */
+	@Override
+	public List<Message<?>> receive(int maxMessages, long timeout) {
+		Assert.isTrue(maxMessages > 0, "'maxMessages' must be greater than 0");
+		if (getInterceptors().getSize() > 0) {
+			List<Message<?>> messages = new ArrayList<>();
+			Message<?> message = receive(timeout);
+			while (message != null) {
+				messages.add(message);
+				if (messages.size() >= maxMessages) {
+					break;
+				}
+				message = receive(0);
+			}
+			return messages;
+		}
+		boolean countsEnabled = isCountsEnabled();
+		try {
+			List<Message<?>> messages = doReceive(maxMessages, timeout);
+			if (countsEnabled) {
+				for (int i = 0; i < messages.size(); i++) {
+					if (getMetricsCaptor() != null) {
+						incrementReceiveCounter();
+					}
+					getMetrics().afterReceive();
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("postReceive on channel '" + this + "', messages: " + messages);
+			}
+			return messages;
+		}
+		catch (RuntimeException e) {
+			if (countsEnabled) {
+				receiveError(e);
+			}
+			throw e;
+		}
+	}
+
+	private void receiveError(RuntimeException e) {
+		if (getMetricsCaptor() != null) {
+			getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
+					.tag("name", getComponentName() == null ? "unknown" : getComponentName())
+					.tag("type", "channel")
+					.tag("result", "failure")
+					.tag("exception", e.getClass().getSimpleName())
+					.description("Messages received")
+					.build()
+					.increment();
+		}
+		getMetrics().afterError();
+	}
+
 	private void incrementReceiveCounter() {
 		if (this.receiveCounter == null) {
 			this.receiveCounter = getMetricsCaptor().counterBuilder(RECEIVE_COUNTER_NAME)
@@ -220,4 +275,27 @@ public abstract class AbstractPollableChannel extends AbstractMessageChannel
 	 */
 	protected abstract Message<?> doReceive(long timeout);
 
+	/**
+	 * Receive up to {@code maxMessages} messages; the timeout applies to the first
+	 * message only, the rest are received with a 0 timeout. Subclasses backed by a
+	 * store that can hand over several messages at once should override this
+	 * method.
+	 * @param maxMessages the maximum number of messages to receive.
+	 * @param timeout The timeout.
+	 * @return The messages; never null.
+	 * @since 5.1
+	 */
+	protected List<Message<?>> doReceive(int maxMessages, long timeout) {
+		List<Message<?>> messages = new ArrayList<>();
+		Message<?> message = doReceive(timeout);
+		while (message != null) {
+			messages.add(message);
+			if (messages.size() >= maxMessages) {
+				break;
+			}
+			message = doReceive(0);
+		}
+		return messages;
+	}
+
 }
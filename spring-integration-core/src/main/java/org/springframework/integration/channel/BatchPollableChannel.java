@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.channel;
+
+import java.util.List;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.PollableChannel;
+
+/**
+ * A {@link PollableChannel} that can hand over several messages in a single
+ * receive operation.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public interface BatchPollableChannel extends PollableChannel {
+
+	/**
+	 * Receive up to {@code maxMessages} messages from this channel. If the channel
+	 * contains no messages, this method will block until the allotted timeout
+	 * elapses; once the first message is available, the method returns it together
+	 * with those that are already present, without waiting for more. If the
+	 * specified timeout is 0, the method will return immediately. If less than zero,
+	 * it will block indefinitely.
+	 * @param maxMessages the maximum number of messages to receive; must be positive.
+	 * @param timeout the timeout in milliseconds.
+	 * @return the received messages, in the order in which a sequence of
+	 * {@link #receive(long)} calls would have returned them; empty if no message
+	 * is available within the allotted time or the receiving thread is interrupted.
+	 */
+	List<Message<?>> receive(int maxMessages, long timeout);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,9 @@ import org.springframework.integration.dispatcher.LoadBalancingStrategy;
 import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
 import org.springframework.integration.dispatcher.UnicastingDispatcher;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.management.metrics.MetricsCaptor;
+import org.springframework.integration.util.AdaptiveConcurrencyLimiter;
+import org.springframework.integration.util.ConcurrencyLimitingTaskExecutor;
 import org.springframework.integration.util.ErrorHandlingTaskExecutor;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.util.Assert;
@@ -51,6 +54,8 @@ public class ExecutorChannel extends AbstractExecutorChannel {
 
 	private volatile LoadBalancingStrategy loadBalancingStrategy;
 
+	private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
 	/**
 	 * Create an ExecutorChannel that delegates to the provided
 	 * {@link Executor} when dispatching Messages.
@@ -92,6 +97,17 @@ public class ExecutorChannel extends AbstractExecutorChannel {
 		getDispatcher().setFailover(failover);
 	}
 
+	/**
+	 * Limit the number of messages handed to the executor and not handled yet with
+	 * the provided {@link AdaptiveConcurrencyLimiter}: the sender waits for a permit,
+	 * and the limit adapts to the observed handler latency.
+	 * @param concurrencyLimiter the concurrency limiter.
+	 * @since 5.1
+	 */
+	public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
 	@Override
 	protected UnicastingDispatcher getDispatcher() {
 		return (UnicastingDispatcher) this.dispatcher;
@@ -107,6 +123,9 @@ public class ExecutorChannel extends AbstractExecutorChannel {
 					new BeanFactoryChannelResolver(this.getBeanFactory()));
 			this.executor = new ErrorHandlingTaskExecutor(this.executor, errorHandler);
 		}
+		if (this.concurrencyLimiter != null) {
+			this.executor = new ConcurrencyLimitingTaskExecutor(this.executor, this.concurrencyLimiter);
+		}
 		UnicastingDispatcher unicastingDispatcher = new UnicastingDispatcher(this.executor);
 		unicastingDispatcher.setFailover(this.failover);
 		if (this.maxSubscribers == null) {
@@ -130,4 +149,12 @@ public class ExecutorChannel extends AbstractExecutorChannel {
 		this.dispatcher = unicastingDispatcher;
 	}
 
+	@Override
+	public void registerMetricsCaptor(MetricsCaptor metricsCaptor) {
+		super.registerMetricsCaptor(metricsCaptor);
+		if (this.concurrencyLimiter != null) {
+			this.concurrencyLimiter.registerMetricsCaptor(metricsCaptor, "channel", getComponentName());
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,24 +16,42 @@
 
 package org.springframework.integration.channel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
-import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.SignalType;
+import reactor.util.concurrent.Queues;
 
 /**
  * The {@link AbstractMessageChannel} implementation for the
  * Reactive Streams {@link Publisher} based on the Project Reactor {@link Flux}.
+ * <p>
+ * The {@link Publisher}s provided via {@link #subscribeTo(Publisher)} are requested
+ * only as much as the subscribers of this channel demand (the demand is split between
+ * them), so the back-pressure is propagated to them (e.g. to the reactive reply of an
+ * upstream async handler). The messages sent with {@link #send(Message)} are not
+ * back-pressured: they are handled according to the
+ * {@link #FluxMessageChannel(FluxSink.OverflowStrategy) overflow strategy}. Since they
+ * consume the same demand, the messages the publishers then emit beyond the demand left
+ * are held back and count towards the next demand before more is requested from the
+ * publishers.
  *
  * @author Artem Bilan
  * @author Gary Russell
@@ -45,15 +63,39 @@ public class FluxMessageChannel extends AbstractMessageChannel
 
 	private final List<Subscriber<? super Message<?>>> subscribers = new ArrayList<>();
 
-	private final Map<Publisher<Message<?>>, ConnectableFlux<Message<?>>> publishers = new ConcurrentHashMap<>();
+	private final Map<Publisher<Message<?>>, UpstreamSubscriber> publishers = new ConcurrentHashMap<>();
 
 	private final Flux<Message<?>> flux;
 
+	private final AtomicLong unassignedDemand = new AtomicLong();
+
+	private final AtomicInteger nextPublisher = new AtomicInteger();
+
+	private final Queue<Message<?>> pendingUpstreamMessages = new ArrayDeque<>();
+
 	private FluxSink<Message<?>> sink;
 
 	public FluxMessageChannel() {
+		this(FluxSink.OverflowStrategy.IGNORE);
+	}
+
+	/**
+	 * Instantiate a channel with the provided strategy for the messages sent while
+	 * the subscribers have no demand. Defaults to
+	 * {@link FluxSink.OverflowStrategy#IGNORE IGNORE}: an overflow of the (bounded)
+	 * subscriber queue is reported as an error. Note that
+	 * {@link FluxSink.OverflowStrategy#BUFFER BUFFER} buffers without limit.
+	 * @param overflowStrategy the overflow strategy.
+	 * @since 5.1
+	 */
+	public FluxMessageChannel(FluxSink.OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "'overflowStrategy' must not be null");
 		this.flux =
-				Flux.<Message<?>>create(emitter -> this.sink = emitter, FluxSink.OverflowStrategy.IGNORE)
+				Flux.<Message<?>>create(emitter -> {
+							this.sink = emitter;
+							emitter.onRequest(this::requestFromPublishers);
+						},
+						overflowStrategy)
 						.publish()
 						.autoConnect();
 	}
@@ -74,22 +116,138 @@ public class FluxMessageChannel extends AbstractMessageChannel
 				.retry()
 				.subscribe(subscriber);
 
-		this.publishers.values().forEach(ConnectableFlux::connect);
+		this.publishers.values().forEach(UpstreamSubscriber::connect);
 	}
 
 	@Override
 	public void subscribeTo(Publisher<Message<?>> publisher) {
-		ConnectableFlux<Message<?>> connectableFlux =
-				Flux.from(publisher)
-						.doOnComplete(() -> this.publishers.remove(publisher))
-						.doOnNext(this::send)
-						.publish();
-
-		this.publishers.put(publisher, connectableFlux);
+		UpstreamSubscriber upstreamSubscriber = new UpstreamSubscriber(publisher);
+		this.publishers.put(publisher, upstreamSubscriber);
 
 		if (!this.subscribers.isEmpty()) {
-			connectableFlux.connect();
+			upstreamSubscriber.connect();
+		}
+	}
+
+	private void requestFromPublishers(long n) {
+		// the 'publish()' operator requests no more than its prefetch
+		long demand = Math.min(n, Queues.SMALL_BUFFER_SIZE);
+		synchronized (this.pendingUpstreamMessages) {
+			while (demand > 0 && !this.pendingUpstreamMessages.isEmpty()) {
+				send(this.pendingUpstreamMessages.poll());
+				demand--;
+			}
+		}
+		if (demand > 0) {
+			distributeDemand(demand);
 		}
 	}
 
+	/**
+	 * Send a message emitted by an upstream publisher, or hold it back if the demand
+	 * it was requested for has been consumed by the messages sent with
+	 * {@link #send(Message)} in the meantime.
+	 */
+	private void sendFromUpstream(Message<?> message) {
+		synchronized (this.pendingUpstreamMessages) {
+			if (this.pendingUpstreamMessages.isEmpty() && this.sink.requestedFromDownstream() > 0) {
+				send(message);
+			}
+			else {
+				this.pendingUpstreamMessages.add(message);
+			}
+		}
+	}
+
+	/**
+	 * Split the demand between the subscribed upstream publishers, starting from the
+	 * next one in turn; kept until the next subscription if there is no one yet.
+	 */
+	private void distributeDemand(long demand) {
+		List<UpstreamSubscriber> upstreams = new ArrayList<>();
+		for (UpstreamSubscriber upstream : this.publishers.values()) {
+			if (upstream.subscribed) {
+				upstreams.add(upstream);
+			}
+		}
+		int size = upstreams.size();
+		if (size == 0) {
+			this.unassignedDemand.accumulateAndGet(demand, (current, n) -> Math.min(current + n,
+					Queues.SMALL_BUFFER_SIZE));
+			return;
+		}
+		long share = demand / size;
+		long remainder = demand % size;
+		int start = Math.floorMod(this.nextPublisher.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			long n = share + (i < remainder ? 1 : 0);
+			if (n > 0) {
+				upstreams.get((start + i) % size).requestUpstream(n);
+			}
+		}
+	}
+
+	/**
+	 * Sends the messages from an upstream {@link Publisher} to this channel,
+	 * requesting them according to the demand of the channel's subscribers.
+	 */
+	private final class UpstreamSubscriber extends BaseSubscriber<Message<?>> {
+
+		private final Publisher<Message<?>> publisher;
+
+		private final AtomicBoolean connected = new AtomicBoolean();
+
+		private final AtomicLong outstanding = new AtomicLong();
+
+		private volatile boolean subscribed;
+
+		UpstreamSubscriber(Publisher<Message<?>> publisher) {
+			this.publisher = publisher;
+		}
+
+		void connect() {
+			if (this.connected.compareAndSet(false, true)) {
+				this.publisher.subscribe(this);
+			}
+		}
+
+		void requestUpstream(long n) {
+			this.outstanding.addAndGet(n);
+			request(n);
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			this.subscribed = true;
+			long demand = FluxMessageChannel.this.unassignedDemand.getAndSet(0);
+			if (demand > 0) {
+				distributeDemand(demand);
+			}
+		}
+
+		@Override
+		protected void hookOnNext(Message<?> message) {
+			this.outstanding.decrementAndGet();
+			sendFromUpstream(message);
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			FluxMessageChannel.this.logger.error("Error from the upstream publisher of ["
+					+ FluxMessageChannel.this + "]", throwable);
+		}
+
+		@Override
+		protected void hookFinally(SignalType type) {
+			this.subscribed = false;
+			FluxMessageChannel.this.publishers.remove(this.publisher);
+			// hand over the demand this publisher will not fulfil any more
+			long demand = this.outstanding.getAndSet(0);
+			if (demand > 0 && type != SignalType.CANCEL) {
+				distributeDemand(demand);
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.dispatcher.LoadBalancingStrategy;
+import org.springframework.integration.dispatcher.PartitionedDispatcher;
+import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
+import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.management.metrics.GaugeFacade;
+import org.springframework.integration.support.management.metrics.MetricsCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * An {@link AbstractExecutorChannel} which hashes a partition key of each message onto
+ * one of a fixed number of single-threaded partitions (lanes): messages with the same
+ * key are handled in order, messages with different keys are handled in parallel.
+ * <p>
+ * The partition key is the {@code correlationId} header by default; it can be
+ * provided as a {@link Function}, a header name or a SpEL {@link Expression}. A message
+ * with a {@code null} partition key is rejected.
+ * <p>
+ * The partition queues are unbounded by default; when a
+ * {@link #setQueueCapacity(int) queueCapacity} is set, a message sent to a full
+ * partition is rejected with a {@link org.springframework.messaging.MessageDeliveryException}.
+ * <p>
+ * Like the {@link ExecutorChannel}, this channel does not support a shared
+ * transactional context between sender and handler. The partition threads are
+ * stopped, and the partition gauges removed, when the channel is destroyed.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class PartitionedChannel extends AbstractExecutorChannel implements DisposableBean {
+
+	/**
+	 * The name of the gauge for the number of messages waiting in a partition.
+	 */
+	public static final String PARTITION_QUEUE_GAUGE_NAME = METER_PREFIX + "channel.partition.queue";
+
+	private final int partitionCount;
+
+	private Function<Message<?>, ?> partitionKeyFunction;
+
+	private Expression partitionKeyExpression;
+
+	private ThreadFactory threadFactory;
+
+	private int queueCapacity = Integer.MAX_VALUE;
+
+	private ErrorHandler errorHandler;
+
+	private boolean failover = true;
+
+	private LoadBalancingStrategy loadBalancingStrategy = new RoundRobinLoadBalancingStrategy();
+
+	private final List<GaugeFacade> partitionGauges = new ArrayList<>();
+
+	/**
+	 * Create a channel with the provided number of partitions, using the
+	 * {@code correlationId} header as the partition key.
+	 * @param partitionCount the number of partitions.
+	 */
+	public PartitionedChannel(int partitionCount) {
+		this(partitionCount, message -> message.getHeaders().get(IntegrationMessageHeaderAccessor.CORRELATION_ID));
+	}
+
+	/**
+	 * Create a channel with the provided number of partitions and partition key function.
+	 * @param partitionCount the number of partitions.
+	 * @param partitionKeyFunction the function to obtain the partition key from a message.
+	 */
+	public PartitionedChannel(int partitionCount, Function<Message<?>, ?> partitionKeyFunction) {
+		super(null);
+		Assert.isTrue(partitionCount > 0, "'partitionCount' must be greater than 0");
+		Assert.notNull(partitionKeyFunction, "'partitionKeyFunction' must not be null");
+		this.partitionCount = partitionCount;
+		this.partitionKeyFunction = partitionKeyFunction;
+		this.dispatcher = new PartitionedDispatcher(partitionCount, partitionKeyFunction);
+	}
+
+	/**
+	 * Use the value of the provided header as the partition key.
+	 * @param headerName the header name.
+	 */
+	public void setPartitionKeyHeader(String headerName) {
+		Assert.hasText(headerName, "'headerName' must not be empty");
+		this.partitionKeyFunction = message -> message.getHeaders().get(headerName);
+		this.partitionKeyExpression = null;
+	}
+
+	/**
+	 * Use the result of the provided expression, evaluated against the message,
+	 * as the partition key.
+	 * @param partitionKeyExpression the expression.
+	 */
+	public void setPartitionKeyExpression(Expression partitionKeyExpression) {
+		Assert.notNull(partitionKeyExpression, "'partitionKeyExpression' must not be null");
+		this.partitionKeyExpression = partitionKeyExpression;
+	}
+
+	/**
+	 * Set the {@link ThreadFactory} for the partition threads. By default, the threads
+	 * are named after the channel.
+	 * @param threadFactory the thread factory.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		Assert.notNull(threadFactory, "'threadFactory' must not be null");
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Set the maximum number of messages waiting to be handled in each partition.
+	 * When a partition is full, the message is rejected. Unbounded by default.
+	 * @param queueCapacity the capacity of each partition queue.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be greater than 0");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Provide an {@link ErrorHandler} strategy for handling Exceptions that occur
+	 * downstream from this channel. By default, a {@link MessagePublishingErrorHandler}
+	 * is used.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Specify whether the channel's partition dispatchers should have failover enabled.
+	 * By default, they will. Set this value to 'false' to disable it.
+	 * @param failover The failover boolean.
+	 */
+	public void setFailover(boolean failover) {
+		this.failover = failover;
+	}
+
+	/**
+	 * Provide a {@link LoadBalancingStrategy} for the subscribers of each partition.
+	 * By default, a round-robin strategy is used; {@code null} means the subscribers are
+	 * always tried in their order.
+	 * @param loadBalancingStrategy The load balancing strategy implementation.
+	 */
+	public void setLoadBalancingStrategy(LoadBalancingStrategy loadBalancingStrategy) {
+		this.loadBalancingStrategy = loadBalancingStrategy;
+	}
+
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+	/**
+	 * Return the number of messages waiting to be handled in the provided partition.
+	 * @param partition the partition index.
+	 * @return the queue size.
+	 */
+	public int getQueueSize(int partition) {
+		return getDispatcher().getQueueSize(partition);
+	}
+
+	@Override
+	protected PartitionedDispatcher getDispatcher() {
+		return (PartitionedDispatcher) this.dispatcher;
+	}
+
+	@Override
+	public final void onInit() throws Exception {
+		Assert.state(getDispatcher().getHandlerCount() == 0, "You cannot subscribe() until the channel "
+				+ "bean is fully initialized by the framework. Do not subscribe in a @Bean definition");
+		super.onInit();
+		Function<Message<?>, ?> keyFunction = this.partitionKeyFunction;
+		if (this.partitionKeyExpression != null) {
+			Expression expression = this.partitionKeyExpression;
+			EvaluationContext evaluationContext = ExpressionUtils.createStandardEvaluationContext(getBeanFactory());
+			keyFunction = message -> expression.getValue(evaluationContext, message);
+		}
+		PartitionedDispatcher partitionedDispatcher = new PartitionedDispatcher(this.partitionCount, keyFunction);
+		partitionedDispatcher.setThreadFactory(this.threadFactory != null
+				? this.threadFactory
+				: new CustomizableThreadFactory(
+						(getComponentName() == null ? "partitioned-channel" : getComponentName()) + "-partition-"));
+		partitionedDispatcher.setQueueCapacity(this.queueCapacity);
+		partitionedDispatcher.setErrorHandler(this.errorHandler != null
+				? this.errorHandler
+				: new MessagePublishingErrorHandler(new BeanFactoryChannelResolver(getBeanFactory())));
+		partitionedDispatcher.setFailover(this.failover);
+		partitionedDispatcher.setLoadBalancingStrategy(this.loadBalancingStrategy);
+		if (this.maxSubscribers == null) {
+			this.maxSubscribers =
+					getIntegrationProperty(IntegrationProperties.CHANNELS_MAX_UNICAST_SUBSCRIBERS, Integer.class);
+		}
+		partitionedDispatcher.setMaxSubscribers(this.maxSubscribers);
+		partitionedDispatcher.setMessageHandlingTaskDecorator(task -> {
+			if (PartitionedChannel.this.executorInterceptorsSize > 0) {
+				return new MessageHandlingTask(task);
+			}
+			else {
+				return task;
+			}
+		});
+		this.dispatcher = partitionedDispatcher;
+	}
+
+	@Override
+	public void registerMetricsCaptor(MetricsCaptor metricsCaptor) {
+		super.registerMetricsCaptor(metricsCaptor);
+		for (int i = 0; i < this.partitionCount; i++) {
+			int partition = i;
+			this.partitionGauges.add(metricsCaptor.gaugeBuilder(PARTITION_QUEUE_GAUGE_NAME, this,
+					(c) -> getQueueSize(partition))
+					.tag("type", "channel")
+					.tag("name", getComponentName() == null ? "unknown" : getComponentName())
+					.tag("partition", Integer.toString(partition))
+					.description("The number of messages waiting in the partition")
+					.build());
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		getDispatcher().shutdown();
+		this.partitionGauges.forEach(GaugeFacade::remove);
+		this.partitionGauges.clear();
+	}
+
+}
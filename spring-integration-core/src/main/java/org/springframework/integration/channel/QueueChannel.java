@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.springframework.integration.core.MessageSelector;
 import org.springframework.integration.support.management.QueueChannelManagement;
+import org.springframework.integration.util.MpmcArrayBlockingQueue;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
@@ -64,9 +65,27 @@ public class QueueChannel extends AbstractPollableChannel implements QueueChanne
 	 * @param capacity The capacity.
 	 */
 	public QueueChannel(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Create a channel with the specified queue capacity, optionally backed by a
+	 * lock-free {@link MpmcArrayBlockingQueue} instead of a {@link LinkedBlockingQueue}.
+	 * The lock-free queue does not allocate a node per message and avoids put/take lock
+	 * contention when many producers and consumers share the channel.
+	 * {@link #purge(MessageSelector)} removes the messages in place, but their slots (and
+	 * so the capacity) are only reclaimed when the consumers reach them.
+	 *
+	 * @param capacity The capacity.
+	 * @param lockFree true to use a {@link MpmcArrayBlockingQueue}.
+	 * @since 5.1
+	 */
+	public QueueChannel(int capacity, boolean lockFree) {
 		Assert.isTrue(capacity > 0, "The capacity must be a positive integer. " +
 				"For a zero-capacity alternative, consider using a 'RendezvousChannel'.");
-		this.queue = new LinkedBlockingQueue<Message<?>>(capacity);
+		this.queue = lockFree
+				? new MpmcArrayBlockingQueue<Message<?>>(capacity)
+				: new LinkedBlockingQueue<Message<?>>(capacity);
 	}
 
 	/**
@@ -145,6 +164,39 @@ public class QueueChannel extends AbstractPollableChannel implements QueueChanne
 		}
 	}
 
+	/**
+	 * Drain up to {@code maxMessages} from a {@link BlockingQueue} with a single
+	 * {@link BlockingQueue#drainTo(java.util.Collection, int)} call, waiting for the first
+	 * message if the queue is empty.
+	 * @since 5.1
+	 */
+	@Override
+	protected List<Message<?>> doReceive(int maxMessages, long timeout) {
+		if (this.queue instanceof BlockingQueue) {
+			BlockingQueue<Message<?>> blockingQueue = (BlockingQueue<Message<?>>) this.queue;
+			List<Message<?>> messages = new ArrayList<>();
+			blockingQueue.drainTo(messages, maxMessages);
+			if (messages.isEmpty() && timeout != 0) {
+				try {
+					Message<?> message = timeout > 0
+							? blockingQueue.poll(timeout, TimeUnit.MILLISECONDS)
+							: blockingQueue.take();
+					if (message != null) {
+						messages.add(message);
+						if (maxMessages > 1) {
+							blockingQueue.drainTo(messages, maxMessages - 1);
+						}
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return messages;
+		}
+		return super.doReceive(maxMessages, timeout);
+	}
+
 	@Override
 	public List<Message<?>> clear() {
 		List<Message<?>> clearedMessages = new ArrayList<Message<?>>();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015-2016 the original author or authors.
+ * Copyright 2015-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.integration.support.MutableMessageHeaders;
+import org.springframework.integration.support.PersistentMessageHeaders;
 import org.springframework.messaging.MessageHeaders;
 
 import com.esotericsoftware.kryo.Registration;
@@ -36,6 +37,8 @@ public class MessageKryoRegistrar extends AbstractKryoRegistrar {
 
 	private volatile int mutableMessageHeadersRegistrationId = RegistrationIds.DEFAULT_MUTABLE_MESSAGEHEADERS_ID;
 
+	private volatile int persistentMessageHeadersRegistrationId = RegistrationIds.DEFAULT_PERSISTENT_MESSAGEHEADERS_ID;
+
 	/**
 	 * Set the registration id for {@code MessageHeaders}.
 	 * @param messageHeadersRegistrationId the id, default 41.
@@ -52,6 +55,16 @@ public class MessageKryoRegistrar extends AbstractKryoRegistrar {
 		this.mutableMessageHeadersRegistrationId = mutableMessageHeadersRegistrationId;
 	}
 
+	/**
+	 * Set the registration id for {@code PersistentMessageHeaders}; they are decoded as
+	 * {@code MessageHeaders}.
+	 * @param persistentMessageHeadersRegistrationId the id, default 43.
+	 * @since 5.1
+	 */
+	public void setPersistentMessageHeadersRegistrationId(int persistentMessageHeadersRegistrationId) {
+		this.persistentMessageHeadersRegistrationId = persistentMessageHeadersRegistrationId;
+	}
+
 
 	@Override
 	public List<Registration> getRegistrations() {
@@ -59,7 +72,9 @@ public class MessageKryoRegistrar extends AbstractKryoRegistrar {
 				new Registration(MessageHeaders.class, new MessageHeadersSerializer(),
 						this.messageHeadersRegistrationId),
 				new Registration(MutableMessageHeaders.class, new MutableMessageHeadersSerializer(),
-						this.mutableMessageHeadersRegistrationId));
+						this.mutableMessageHeadersRegistrationId),
+				new Registration(PersistentMessageHeaders.class, new MessageHeadersSerializer(),
+						this.persistentMessageHeadersRegistrationId));
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,7 @@ import org.springframework.integration.endpoint.EventDrivenConsumer;
 import org.springframework.integration.endpoint.PollingConsumer;
 import org.springframework.integration.endpoint.ReactiveStreamsConsumer;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.integration.handler.ReactiveMessageHandlerAdapter;
 import org.springframework.integration.handler.advice.HandleMessageAdvice;
 import org.springframework.integration.scheduling.PollerMetadata;
 import org.springframework.messaging.MessageChannel;
@@ -125,6 +126,15 @@ public class ConsumerEndpointFactoryBean
 		this.pollerMetadata = pollerMetadata;
 	}
 
+	/**
+	 * Return the configured {@link PollerMetadata}, if any.
+	 * @return the poller metadata or null.
+	 * @since 5.1
+	 */
+	public PollerMetadata getPollerMetadata() {
+		return this.pollerMetadata;
+	}
+
 	/**
 	 * Specify the {@link DestinationResolver} strategy to use.
 	 * The default is a BeanFactoryChannelResolver.
@@ -145,6 +155,15 @@ public class ConsumerEndpointFactoryBean
 		this.autoStartup = autoStartup;
 	}
 
+	/**
+	 * Return the explicitly configured {@code autoStartup} flag, if any.
+	 * @return the flag or null.
+	 * @since 5.1
+	 */
+	public Boolean getAutoStartup() {
+		return this.autoStartup;
+	}
+
 	public void setPhase(int phase) {
 		this.phase = phase;
 		this.isPhaseSet = true;
@@ -154,6 +173,15 @@ public class ConsumerEndpointFactoryBean
 		this.role = role;
 	}
 
+	/**
+	 * Return the configured role, if any.
+	 * @return the role or null.
+	 * @since 5.1
+	 */
+	public String getRole() {
+		return this.role;
+	}
+
 	@Override
 	public void setBeanName(String beanName) {
 		this.beanName = beanName;
@@ -288,6 +316,7 @@ public class ConsumerEndpointFactoryBean
 							+ "', and no default poller is available within the context.");
 				}
 				pollingConsumer.setTaskExecutor(this.pollerMetadata.getTaskExecutor());
+				pollingConsumer.setConcurrencyLimiter(this.pollerMetadata.getConcurrencyLimiter());
 				pollingConsumer.setTrigger(this.pollerMetadata.getTrigger());
 				pollingConsumer.setAdviceChain(this.pollerMetadata.getAdviceChain());
 				pollingConsumer.setMaxMessagesPerPoll(this.pollerMetadata.getMaxMessagesPerPoll());
@@ -295,12 +324,17 @@ public class ConsumerEndpointFactoryBean
 				pollingConsumer.setErrorHandler(this.pollerMetadata.getErrorHandler());
 
 				pollingConsumer.setReceiveTimeout(this.pollerMetadata.getReceiveTimeout());
+				pollingConsumer.setReceiveBatchSize(this.pollerMetadata.getReceiveBatchSize());
 				pollingConsumer.setTransactionSynchronizationFactory(
 						this.pollerMetadata.getTransactionSynchronizationFactory());
 				pollingConsumer.setBeanClassLoader(this.beanClassLoader);
 				pollingConsumer.setBeanFactory(this.beanFactory);
 				this.endpoint = pollingConsumer;
 			}
+			else if (this.handler instanceof ReactiveMessageHandlerAdapter) {
+				this.endpoint = new ReactiveStreamsConsumer(channel,
+						((ReactiveMessageHandlerAdapter) this.handler).getDelegate());
+			}
 			else {
 				this.endpoint = new ReactiveStreamsConsumer(channel, this.handler);
 			}
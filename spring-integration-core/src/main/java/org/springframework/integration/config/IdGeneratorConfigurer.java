@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,18 +23,30 @@ import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ApplicationContextEvent;
 import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
 import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.IdGenerator;
 import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
+ * Establishes the {@link IdGenerator} bean of the application context as the
+ * {@link MessageHeaders} id generator. Starting with version 5.1, when there is no such
+ * bean, the generator can be configured with the
+ * {@link IntegrationProperties#ID_GENERATOR} integration property (a class name,
+ * e.g. {@code org.springframework.integration.support.IdGenerators.ThreadLocalIdGenerator}).
+ *
  * @author Oleg Zhurakousky
  * @author Mark Fisher
  * @author Gary Russell
@@ -57,6 +69,14 @@ public final class IdGeneratorConfigurer implements ApplicationListener<Applicat
 					IdGeneratorConfigurer.generatorContextId.add(context.getId());
 				}
 			}
+			else {
+				String idGeneratorClassName = IntegrationContextUtils.getIntegrationProperties(context)
+						.getProperty(IntegrationProperties.ID_GENERATOR);
+				if (StringUtils.hasText(idGeneratorClassName)
+						&& this.setIdGenerator(context, idGeneratorClassName.trim())) {
+					IdGeneratorConfigurer.generatorContextId.add(context.getId());
+				}
+			}
 		}
 		else if (event instanceof ContextClosedEvent) {
 			if (IdGeneratorConfigurer.generatorContextId.contains(context.getId())) {
@@ -74,6 +94,45 @@ public final class IdGeneratorConfigurer implements ApplicationListener<Applicat
 			if (this.logger.isDebugEnabled()) {
 				this.logger.debug("using custom MessageHeaders.IdGenerator [" + idGeneratorBean.getClass() + "]");
 			}
+			return setIdGenerator(idGeneratorBean);
+		}
+		catch (NoSuchBeanDefinitionException e) {
+			// No custom IdGenerator. We will use the default.
+			int idBeans = context.getBeansOfType(IdGenerator.class).size();
+			if (idBeans > 1 && this.logger.isWarnEnabled()) {
+				this.logger.warn("Found too many 'IdGenerator' beans (" + idBeans + ") " +
+						"Will use the existing UUID strategy.");
+			}
+			else if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Unable to locate MessageHeaders.IdGenerator. Will use the existing UUID strategy.");
+			}
+			return false;
+		}
+	}
+
+	private boolean setIdGenerator(ApplicationContext context, String idGeneratorClassName) {
+		Class<?> idGeneratorClass;
+		try {
+			idGeneratorClass = ClassUtils.forName(idGeneratorClassName, context.getClassLoader());
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			throw new BeanInitializationException("Failed to load the IdGenerator class [" + idGeneratorClassName
+					+ "] configured by the '" + IntegrationProperties.ID_GENERATOR + "' property", e);
+		}
+		if (!IdGenerator.class.isAssignableFrom(idGeneratorClass)) {
+			throw new BeanInitializationException("The '" + IntegrationProperties.ID_GENERATOR + "' property must be "
+					+ "the class name of an IdGenerator, not [" + idGeneratorClassName + "]");
+		}
+		IdGenerator currentIdGenerator = IdGeneratorConfigurer.theIdGenerator;
+		if (currentIdGenerator != null && currentIdGenerator.getClass() == idGeneratorClass) {
+			// established by another context with the same properties
+			return true;
+		}
+		return setIdGenerator((IdGenerator) BeanUtils.instantiateClass(idGeneratorClass));
+	}
+
+	private boolean setIdGenerator(IdGenerator idGeneratorBean) {
+		try {
 			Field idGeneratorField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
 			ReflectionUtils.makeAccessible(idGeneratorField);
 			IdGenerator currentIdGenerator = (IdGenerator) ReflectionUtils.getField(idGeneratorField, null);
@@ -102,18 +161,6 @@ public final class IdGeneratorConfigurer implements ApplicationListener<Applicat
 			ReflectionUtils.setField(idGeneratorField, null, idGeneratorBean);
 			IdGeneratorConfigurer.theIdGenerator = idGeneratorBean;
 		}
-		catch (NoSuchBeanDefinitionException e) {
-			// No custom IdGenerator. We will use the default.
-			int idBeans = context.getBeansOfType(IdGenerator.class).size();
-			if (idBeans > 1 && this.logger.isWarnEnabled()) {
-				this.logger.warn("Found too many 'IdGenerator' beans (" + idBeans + ") " +
-						"Will use the existing UUID strategy.");
-			}
-			else if (this.logger.isDebugEnabled()) {
-				this.logger.debug("Unable to locate MessageHeaders.IdGenerator. Will use the existing UUID strategy.");
-			}
-			return false;
-		}
 		catch (IllegalStateException e) {
 			// thrown from ReflectionUtils
 			if (this.logger.isWarnEnabled()) {
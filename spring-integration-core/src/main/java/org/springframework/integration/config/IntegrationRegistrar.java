@@ -491,7 +491,9 @@ public class IntegrationRegistrar implements ImportBeanDefinitionRegistrar, Bean
 			BeanDefinitionBuilder mbfBuilder = BeanDefinitionBuilder
 					.genericBeanDefinition(DefaultMessageBuilderFactory.class)
 					.addPropertyValue("readOnlyHeaders",
-							IntegrationProperties.getExpressionFor(IntegrationProperties.READ_ONLY_HEADERS));
+							IntegrationProperties.getExpressionFor(IntegrationProperties.READ_ONLY_HEADERS))
+					.addPropertyValue("persistentHeaders",
+							IntegrationProperties.getExpressionFor(IntegrationProperties.PERSISTENT_HEADERS));
 			registry.registerBeanDefinition(
 					IntegrationUtils.INTEGRATION_MESSAGE_BUILDER_FACTORY_BEAN_NAME,
 					mbfBuilder.getBeanDefinition());
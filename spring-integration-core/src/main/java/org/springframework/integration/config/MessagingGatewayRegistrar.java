@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2017 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -135,7 +135,11 @@ public class MessagingGatewayRegistrar implements ImportBeanDefinitionRegistrar
 		if (StringUtils.hasText(errorChannel)) {
 			gatewayProxyBuilder.addPropertyValue("errorChannelName", errorChannel);
 		}
-		if (asyncExecutor == null || AnnotationConstants.NULL.equals(asyncExecutor)) {
+		BeanDefinition asyncExecutorDefinition = (BeanDefinition) gatewayAttributes.get("asyncExecutorDefinition");
+		if (asyncExecutorDefinition != null) {
+			gatewayProxyBuilder.addPropertyValue("asyncExecutor", asyncExecutorDefinition);
+		}
+		else if (asyncExecutor == null || AnnotationConstants.NULL.equals(asyncExecutor)) {
 			gatewayProxyBuilder.addPropertyValue("asyncExecutor", null);
 		}
 		else if (StringUtils.hasText(asyncExecutor)) {
@@ -144,6 +148,10 @@ public class MessagingGatewayRegistrar implements ImportBeanDefinitionRegistrar
 		if (StringUtils.hasText(mapper)) {
 			gatewayProxyBuilder.addPropertyReference("mapper", mapper);
 		}
+		String nonBlockingReplies = (String) gatewayAttributes.get("nonBlockingReplies");
+		if (StringUtils.hasText(nonBlockingReplies)) {
+			gatewayProxyBuilder.addPropertyValue("nonBlockingReplies", nonBlockingReplies);
+		}
 
 		gatewayProxyBuilder.addPropertyValue("defaultRequestTimeoutExpressionString",
 				gatewayAttributes.get("defaultRequestTimeout"));
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -193,6 +193,7 @@ public class SourcePollingChannelAdapterFactoryBean implements FactoryBean<Sourc
 				spca.setSendTimeout(this.sendTimeout);
 			}
 			spca.setTaskExecutor(this.pollerMetadata.getTaskExecutor());
+			spca.setConcurrencyLimiter(this.pollerMetadata.getConcurrencyLimiter());
 			spca.setAdviceChain(this.pollerMetadata.getAdviceChain());
 			spca.setTrigger(this.pollerMetadata.getTrigger());
 			spca.setErrorHandler(this.pollerMetadata.getErrorHandler());
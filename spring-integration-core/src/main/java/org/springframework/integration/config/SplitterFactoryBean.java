@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.integration.config;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.expression.Expression;
 import org.springframework.integration.handler.AbstractMessageProducingHandler;
 import org.springframework.integration.splitter.AbstractMessageSplitter;
@@ -41,6 +43,12 @@ public class SplitterFactoryBean extends AbstractStandardMessageHandlerFactoryBe
 
 	private volatile String delimiters;
 
+	private Executor taskExecutor;
+
+	private Integer maxInFlight;
+
+	private Boolean ordered;
+
 	public void setApplySequence(boolean applySequence) {
 		this.applySequence = applySequence;
 	}
@@ -49,6 +57,18 @@ public class SplitterFactoryBean extends AbstractStandardMessageHandlerFactoryBe
 		this.delimiters = delimiters;
 	}
 
+	public void setTaskExecutor(Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
 	@Override
 	protected MessageHandler createMethodInvokingHandler(Object targetObject, String targetMethodName) {
 		Assert.notNull(targetObject, "targetObject must not be null");
@@ -94,7 +114,8 @@ public class SplitterFactoryBean extends AbstractStandardMessageHandlerFactoryBe
 	@Override
 	protected boolean canBeUsedDirect(AbstractMessageProducingHandler handler) {
 		return handler instanceof AbstractMessageSplitter
-				|| (this.applySequence == null && this.delimiters == null);
+				|| (this.applySequence == null && this.delimiters == null && this.taskExecutor == null
+						&& this.maxInFlight == null && this.ordered == null);
 	}
 
 	@Override
@@ -106,6 +127,9 @@ public class SplitterFactoryBean extends AbstractStandardMessageHandlerFactoryBe
 					+ "an AbstractReplyProducingMessageHandler, but not an AbstractMessageSplitter");
 			Assert.isNull(this.delimiters, "Cannot set delimiters if the referenced bean is not an "
 					+ "an AbstractReplyProducingMessageHandler, but not an AbstractMessageSplitter");
+			Assert.isTrue(this.taskExecutor == null && this.maxInFlight == null && this.ordered == null,
+					"Cannot set taskExecutor, maxInFlight or ordered if the referenced bean is "
+							+ "an AbstractReplyProducingMessageHandler, but not an AbstractMessageSplitter");
 		}
 		else {
 			AbstractMessageSplitter splitter = (AbstractMessageSplitter) handler;
@@ -118,6 +142,15 @@ public class SplitterFactoryBean extends AbstractStandardMessageHandlerFactoryBe
 			if (this.applySequence != null) {
 				splitter.setApplySequence(this.applySequence);
 			}
+			if (this.taskExecutor != null) {
+				splitter.setTaskExecutor(this.taskExecutor);
+			}
+			if (this.maxInFlight != null) {
+				splitter.setMaxInFlight(this.maxInFlight);
+			}
+			if (this.ordered != null) {
+				splitter.setOrdered(this.ordered);
+			}
 		}
 	}
 
@@ -411,12 +411,14 @@ public abstract class AbstractMethodAnnotationPostProcessor<T extends Annotation
 					"and no default poller is available within the context.");
 		}
 		pollingEndpoint.setTaskExecutor(pollerMetadata.getTaskExecutor());
+		pollingEndpoint.setConcurrencyLimiter(pollerMetadata.getConcurrencyLimiter());
 		pollingEndpoint.setTrigger(pollerMetadata.getTrigger());
 		pollingEndpoint.setAdviceChain(pollerMetadata.getAdviceChain());
 		pollingEndpoint.setMaxMessagesPerPoll(pollerMetadata.getMaxMessagesPerPoll());
 		pollingEndpoint.setErrorHandler(pollerMetadata.getErrorHandler());
 		if (pollingEndpoint instanceof PollingConsumer) {
 			((PollingConsumer) pollingEndpoint).setReceiveTimeout(pollerMetadata.getReceiveTimeout());
+			((PollingConsumer) pollingEndpoint).setReceiveBatchSize(pollerMetadata.getReceiveBatchSize());
 		}
 		pollingEndpoint.setTransactionSynchronizationFactory(pollerMetadata.getTransactionSynchronizationFactory());
 	}
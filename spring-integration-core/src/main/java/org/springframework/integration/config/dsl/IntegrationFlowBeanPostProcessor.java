@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.integration.config.dsl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -37,9 +40,12 @@ import org.springframework.core.io.DescriptiveResource;
 import org.springframework.integration.channel.AbstractMessageChannel;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.FixedSubscriberChannel;
+import org.springframework.integration.channel.interceptor.GlobalChannelInterceptorWrapper;
 import org.springframework.integration.config.ConsumerEndpointFactoryBean;
 import org.springframework.integration.config.IntegrationConfigUtils;
 import org.springframework.integration.config.SourcePollingChannelAdapterFactoryBean;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
 import org.springframework.integration.core.MessageSource;
 import org.springframework.integration.dsl.ComponentsRegistration;
 import org.springframework.integration.dsl.ConsumerEndpointSpec;
@@ -50,8 +56,16 @@ import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.integration.dsl.SourcePollingChannelAdapterSpec;
 import org.springframework.integration.dsl.StandardIntegrationFlow;
 import org.springframework.integration.dsl.support.MessageChannelReference;
+import org.springframework.integration.filter.MessageFilter;
 import org.springframework.integration.gateway.AnnotationGatewayProxyFactoryBean;
+import org.springframework.integration.handler.AbstractMessageProducingHandler;
+import org.springframework.integration.handler.BridgeHandler;
+import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.integration.history.MessageHistoryConfigurer;
 import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.integration.support.utils.PatternMatchUtils;
+import org.springframework.integration.transformer.MessageTransformingHandler;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -61,6 +75,14 @@ import org.springframework.util.StringUtils;
  * A {@link BeanPostProcessor} to parse {@link IntegrationFlow} beans and
  * register their components as beans in the provided {@link BeanFactory},
  * if necessary.
+ * <p>
+ * When the {@link IntegrationProperties#FLOWS_FUSE_ENDPOINTS} integration property is
+ * {@code true}, the implicit {@link DirectChannel}s between consecutive endpoints of the
+ * flow are replaced with {@link FixedSubscriberChannel}s, if the subscribed endpoint is a
+ * transformer, filter, service activator or bridge. The producing endpoint then invokes
+ * the next handler directly, without the dispatcher, interceptors and metrics of the channel.
+ * Channels matched by a global channel interceptor and endpoints with a poller, a role or
+ * no auto startup are never fused; neither is anything when the message history is enabled.
  *
  * @author Artem Bilan
  * @author Gary Russell
@@ -72,6 +94,8 @@ public class IntegrationFlowBeanPostProcessor
 
 	private ConfigurableListableBeanFactory beanFactory;
 
+	private Boolean fuseEndpoints;
+
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
 		Assert.isInstanceOf(ConfigurableListableBeanFactory.class, beanFactory,
@@ -122,6 +146,10 @@ public class IntegrationFlowBeanPostProcessor
 		int channelNameIndex = 0;
 
 		Map<Object, String> integrationComponents = flow.getIntegrationComponents();
+		if (isFuseEndpoints()) {
+			integrationComponents =
+					fuseEndpoints(integrationComponents, flow.getImplicitInputChannels(), flowNamePrefix);
+		}
 		Map<Object, String> targetIntegrationComponents = new LinkedHashMap<>(integrationComponents.size());
 
 		for (Map.Entry<Object, String> entry : integrationComponents.entrySet()) {
@@ -263,6 +291,78 @@ public class IntegrationFlowBeanPostProcessor
 		return flow;
 	}
 
+	private boolean isFuseEndpoints() {
+		if (this.fuseEndpoints == null) {
+			this.fuseEndpoints =
+					Boolean.parseBoolean(IntegrationContextUtils.getIntegrationProperties(this.beanFactory)
+							.getProperty(IntegrationProperties.FLOWS_FUSE_ENDPOINTS));
+		}
+		return this.fuseEndpoints;
+	}
+
+	/**
+	 * Replace each implicit input channel, which is preceded in the flow by an endpoint
+	 * producing to it, with a {@link FixedSubscriberChannel} for the handler of the next
+	 * endpoint, if that one can be fused.
+	 * Nothing is fused when the message history is enabled, since the fused channels
+	 * wouldn't be tracked.
+	 * @param integrationComponents the flow components.
+	 * @param implicitInputChannels the channels created implicitly by the flow definition.
+	 * @param flowNamePrefix the prefix for the generated channel bean names.
+	 * @return the flow components with the fused channels.
+	 */
+	private Map<Object, String> fuseEndpoints(Map<Object, String> integrationComponents,
+			Set<MessageChannel> implicitInputChannels, String flowNamePrefix) {
+
+		if (implicitInputChannels.isEmpty()
+				|| this.beanFactory.getBeanNamesForType(MessageHistoryConfigurer.class, false, false).length > 0) {
+
+			return integrationComponents;
+		}
+		Collection<GlobalChannelInterceptorWrapper> globalChannelInterceptors =
+				this.beanFactory.getBeansOfType(GlobalChannelInterceptorWrapper.class, false, false).values();
+		String noAutoStartup = IntegrationContextUtils.getIntegrationProperties(this.beanFactory)
+				.getProperty(IntegrationProperties.ENDPOINTS_NO_AUTO_STARTUP);
+		String[] noAutoStartupPatterns =
+				StringUtils.trimArrayElements(StringUtils.commaDelimitedListToStringArray(noAutoStartup));
+		List<Object> components = new ArrayList<>(integrationComponents.keySet());
+		Map<Object, String> fusedIntegrationComponents = new LinkedHashMap<>(integrationComponents.size());
+		int channelNameIndex = 0;
+		for (int i = 0; i < components.size(); i++) {
+			Object component = components.get(i);
+			String name = integrationComponents.get(component);
+			// the same bean names as generated by the processStandardIntegrationFlow()
+			String channelBeanName = null;
+			if ((component instanceof AbstractMessageChannel
+							&& ((AbstractMessageChannel) component).getComponentName() == null && name == null)
+					|| (component instanceof FixedSubscriberChannel
+							&& "Unnamed fixed subscriber channel"
+									.equals(((FixedSubscriberChannel) component).getComponentName()))) {
+
+				channelBeanName = flowNamePrefix + "channel" +
+						BeanFactoryUtils.GENERATED_BEAN_NAME_SEPARATOR + channelNameIndex++;
+			}
+			if (i > 0 && implicitInputChannels.contains(component) && channelBeanName != null
+					&& ((DirectChannel) component).getChannelInterceptors().isEmpty()
+					&& !isIntercepted(channelBeanName, globalChannelInterceptors)
+					&& components.get(i - 1) instanceof ConsumerEndpointSpec) {
+
+				MessageHandler producer = ((ConsumerEndpointSpec<?, ?>) components.get(i - 1)).get().getT2();
+				ConsumerEndpointSpec<?, ?> consumer = nextEndpoint(components, i + 1);
+				if (producer instanceof AbstractMessageProducingHandler && consumer != null
+						&& canBeFused(consumer, noAutoStartupPatterns)) {
+
+					FixedSubscriberChannel fusedChannel = new FixedSubscriberChannel(consumer.get().getT2());
+					((AbstractMessageProducingHandler) producer).setOutputChannel(fusedChannel);
+					consumer.get().getT1().setInputChannel(fusedChannel);
+					component = fusedChannel;
+				}
+			}
+			fusedIntegrationComponents.put(component, name);
+		}
+		return fusedIntegrationComponents;
+	}
+
 	private Object processIntegrationFlowImpl(IntegrationFlow flow, String beanName) {
 		IntegrationFlowBuilder flowBuilder = IntegrationFlows.from(beanName + ".input");
 		flow.configure(flowBuilder);
@@ -334,6 +434,58 @@ public class IntegrationFlowBeanPostProcessor
 		return id;
 	}
 
+	private static ConsumerEndpointSpec<?, ?> nextEndpoint(List<Object> components, int from) {
+		for (int i = from; i < components.size(); i++) {
+			Object component = components.get(i);
+			if (component instanceof ConsumerEndpointSpec) {
+				return (ConsumerEndpointSpec<?, ?>) component;
+			}
+			else if (component instanceof MessageChannel || component instanceof MessageChannelReference) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isIntercepted(String channelBeanName,
+			Collection<GlobalChannelInterceptorWrapper> globalChannelInterceptors) {
+
+		for (GlobalChannelInterceptorWrapper interceptor : globalChannelInterceptors) {
+			String[] patterns = StringUtils.trimArrayElements(interceptor.getPatterns());
+			if (Boolean.TRUE.equals(PatternMatchUtils.smartMatch(channelBeanName, patterns))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An endpoint can be fused if its handler is a transformer, filter, service activator
+	 * or bridge, and if it doesn't need its own lifecycle: no poller, no role and not
+	 * excluded from the auto startup (explicitly or by the
+	 * {@link IntegrationProperties#ENDPOINTS_NO_AUTO_STARTUP} patterns).
+	 */
+	private static boolean canBeFused(ConsumerEndpointSpec<?, ?> endpointSpec, String[] noAutoStartupPatterns) {
+		ConsumerEndpointFactoryBean endpoint = endpointSpec.get().getT1();
+		if (endpoint.getPollerMetadata() != null || StringUtils.hasText(endpoint.getRole())
+				|| Boolean.FALSE.equals(endpoint.getAutoStartup())) {
+
+			return false;
+		}
+		if (endpoint.getAutoStartup() == null && noAutoStartupPatterns.length > 0) {
+			String id = endpointSpec.getId();
+			// an endpoint with a generated bean name can't be matched upfront
+			if (id == null || org.springframework.util.PatternMatchUtils.simpleMatch(noAutoStartupPatterns, id)) {
+				return false;
+			}
+		}
+		MessageHandler handler = endpointSpec.get().getT2();
+		return handler instanceof MessageTransformingHandler
+				|| handler instanceof MessageFilter
+				|| handler instanceof ServiceActivatingHandler
+				|| handler instanceof BridgeHandler;
+	}
+
 	private static boolean isLambda(Object o) {
 		Class<?> aClass = o.getClass();
 		return aClass.isSynthetic() && !aClass.isAnonymousClass() && !aClass.isLocalClass();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -71,6 +71,12 @@ public class GatewayParser implements BeanDefinitionParser {
 		else {
 			gatewayAttributes.put("asyncExecutor", null);
 		}
+		BeanDefinition virtualThreadExecutor = IntegrationNamespaceUtils.createVirtualThreadTaskExecutorIfEnabled(
+				element, "async-executor", "gateway-", parserContext);
+		if (virtualThreadExecutor != null) {
+			gatewayAttributes.put("asyncExecutorDefinition", virtualThreadExecutor);
+		}
+		gatewayAttributes.put("nonBlockingReplies", element.getAttribute("non-blocking-replies"));
 
 		gatewayAttributes.put("mapper", element.getAttribute("mapper"));
 		gatewayAttributes.put("defaultReplyTimeout",
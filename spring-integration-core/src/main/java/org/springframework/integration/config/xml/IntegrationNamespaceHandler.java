@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ public class IntegrationNamespaceHandler extends AbstractIntegrationNamespaceHan
 	public void init() {
 		registerBeanDefinitionParser("channel", new PointToPointChannelParser());
 		registerBeanDefinitionParser("publish-subscribe-channel", new PublishSubscribeChannelParser());
+		registerBeanDefinitionParser("partitioned-channel", new PartitionedChannelParser());
 		registerBeanDefinitionParser("service-activator", new ServiceActivatorParser());
 		registerBeanDefinitionParser("transformer", new TransformerParser());
 		registerBeanDefinitionParser("enricher", new EnricherParser());
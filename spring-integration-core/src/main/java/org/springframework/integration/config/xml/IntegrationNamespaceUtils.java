@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,6 +48,7 @@ import org.springframework.integration.config.IntegrationConfigUtils;
 import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.endpoint.AbstractPollingEndpoint;
 import org.springframework.integration.transaction.TransactionHandleMessageAdvice;
+import org.springframework.integration.util.VirtualThreadTaskExecutor;
 import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
 import org.springframework.transaction.interceptor.MatchAlwaysTransactionAttributeSource;
 import org.springframework.transaction.interceptor.TransactionInterceptor;
@@ -675,4 +676,32 @@ public abstract class IntegrationNamespaceUtils {
 		return builder.getBeanDefinition();
 	}
 
+	/**
+	 * Create a {@link VirtualThreadTaskExecutor} bean definition if the element has a
+	 * {@code virtual-threads="true"} attribute. The attribute is mutually exclusive with
+	 * the provided executor reference attribute.
+	 * @param element The element.
+	 * @param executorAttribute The name of the executor reference attribute.
+	 * @param threadNamePrefix The prefix for the thread names.
+	 * @param parserContext The parser context.
+	 * @return The bean definition or null if virtual threads are not requested.
+	 * @since 5.1
+	 */
+	public static BeanDefinition createVirtualThreadTaskExecutorIfEnabled(Element element, String executorAttribute,
+			String threadNamePrefix, ParserContext parserContext) {
+
+		String virtualThreads = element.getAttribute("virtual-threads");
+		if (!"true".equals(virtualThreads.trim())) {
+			return null;
+		}
+		if (StringUtils.hasText(element.getAttribute(executorAttribute))) {
+			parserContext.getReaderContext().error("The 'virtual-threads' and '" + executorAttribute
+					+ "' attributes are mutually exclusive.", element);
+			return null;
+		}
+		return BeanDefinitionBuilder.genericBeanDefinition(VirtualThreadTaskExecutor.class)
+				.addConstructorArgValue(threadNamePrefix)
+				.getBeanDefinition();
+	}
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.config.xml;
+
+import org.w3c.dom.Element;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.integration.channel.PartitionedChannel;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parser for the &lt;partitioned-channel&gt; element.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class PartitionedChannelParser extends AbstractChannelParser {
+
+	@Override
+	protected BeanDefinitionBuilder buildBeanDefinition(Element element, ParserContext parserContext) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(PartitionedChannel.class);
+		builder.addConstructorArgValue(element.getAttribute("partition-count"));
+		BeanDefinition expressionDef =
+				IntegrationNamespaceUtils.createExpressionDefIfAttributeDefined("partition-key-expression", element);
+		if (expressionDef != null) {
+			if (StringUtils.hasText(element.getAttribute("partition-key-header"))) {
+				parserContext.getReaderContext()
+						.error("'partition-key-header' and 'partition-key-expression' are mutually exclusive",
+								element);
+			}
+			builder.addPropertyValue("partitionKeyExpression", expressionDef);
+		}
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "partition-key-header");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "thread-factory");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "queue-capacity");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "error-handler");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "load-balancer-ref",
+				"loadBalancingStrategy");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "failover");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "max-subscribers");
+		return builder;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.integration.config.xml;
 
 import org.w3c.dom.Element;
 
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.TypedStringValue;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.ParserContext;
@@ -69,6 +70,14 @@ public class PointToPointChannelParser extends AbstractChannelParser {
 									" when providing a 'message-store' to a custom MessageGroupStore.",
 							element);
 				}
+				String lockFree = queueElement.getAttribute("lock-free");
+				if (StringUtils.hasText(lockFree)) {
+					if (!hasCapacity) {
+						parserContext.getReaderContext().error(
+								"The 'lock-free' attribute requires the 'capacity' attribute.", element);
+					}
+					builder.addConstructorArgValue(lockFree);
+				}
 			}
 			if (hasStoreRef && hasQueueRef) {
 				parserContext.getReaderContext().error(
@@ -133,9 +142,18 @@ public class PointToPointChannelParser extends AbstractChannelParser {
 			}
 			// configure either an ExecutorChannel or DirectChannel based on existence of 'task-executor'
 			String taskExecutor = dispatcherElement.getAttribute("task-executor");
-			if (StringUtils.hasText(taskExecutor)) {
+			BeanDefinition virtualThreadExecutor = IntegrationNamespaceUtils.createVirtualThreadTaskExecutorIfEnabled(
+					dispatcherElement, "task-executor", channel + "-", parserContext);
+			if (StringUtils.hasText(taskExecutor) || virtualThreadExecutor != null) {
 				builder = BeanDefinitionBuilder.genericBeanDefinition(ExecutorChannel.class);
-				builder.addConstructorArgReference(taskExecutor);
+				if (virtualThreadExecutor != null) {
+					builder.addConstructorArgValue(virtualThreadExecutor);
+				}
+				else {
+					builder.addConstructorArgReference(taskExecutor);
+				}
+				IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, dispatcherElement,
+						"concurrency-limiter");
 			}
 			else {
 				builder = BeanDefinitionBuilder.genericBeanDefinition(DirectChannel.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.List;
 import org.w3c.dom.Element;
 
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
@@ -84,7 +85,14 @@ public class PollerParser extends AbstractBeanDefinitionParser {
 
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(metadataBuilder, element, "max-messages-per-poll");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(metadataBuilder, element, "receive-timeout");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(metadataBuilder, element, "receive-batch-size");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(metadataBuilder, element, "task-executor");
+		BeanDefinition virtualThreadExecutor = IntegrationNamespaceUtils.createVirtualThreadTaskExecutorIfEnabled(
+				element, "task-executor", "poller-", parserContext);
+		if (virtualThreadExecutor != null) {
+			metadataBuilder.addPropertyValue("taskExecutor", virtualThreadExecutor);
+		}
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(metadataBuilder, element, "concurrency-limiter");
 
 		Element txElement = DomUtils.getChildElementByTagName(element, "transactional");
 		Element adviceChainElement = DomUtils.getChildElementByTagName(element, "advice-chain");
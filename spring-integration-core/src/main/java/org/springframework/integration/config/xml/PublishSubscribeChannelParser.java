@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.integration.config.xml;
 
 import org.w3c.dom.Element;
 
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.integration.channel.PublishSubscribeChannel;
@@ -37,7 +38,12 @@ public class PublishSubscribeChannelParser extends AbstractChannelParser {
 		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(
 				PublishSubscribeChannel.class);
 		String taskExecutorRef = element.getAttribute("task-executor");
-		if (StringUtils.hasText(taskExecutorRef)) {
+		BeanDefinition virtualThreadExecutor = IntegrationNamespaceUtils.createVirtualThreadTaskExecutorIfEnabled(
+				element, "task-executor", element.getAttribute(ID_ATTRIBUTE) + "-", parserContext);
+		if (virtualThreadExecutor != null) {
+			builder.addConstructorArgValue(virtualThreadExecutor);
+		}
+		else if (StringUtils.hasText(taskExecutorRef)) {
 			builder.addConstructorArgReference(taskExecutorRef);
 		}
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "error-handler");
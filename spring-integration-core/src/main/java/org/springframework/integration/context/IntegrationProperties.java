@@ -72,6 +72,20 @@ public final class IntegrationProperties {
 	 */
 	public static final String READ_ONLY_HEADERS = INTEGRATION_PROPERTIES_PREFIX + "readOnly.headers";
 
+	/**
+	 * Specifies the value of {@link org.springframework.integration.support.DefaultMessageBuilderFactory#persistentHeaders}.
+	 * @since 5.1
+	 */
+	public static final String PERSISTENT_HEADERS = INTEGRATION_PROPERTIES_PREFIX + "messageBuilder.persistentHeaders";
+
+	/**
+	 * Specifies the class name of the {@link org.springframework.util.IdGenerator} for message ids,
+	 * when there is no {@code IdGenerator} bean in the application context.
+	 * @since 5.1
+	 * @see org.springframework.integration.config.IdGeneratorConfigurer
+	 */
+	public static final String ID_GENERATOR = INTEGRATION_PROPERTIES_PREFIX + "idGenerator";
+
 	/**
 	 * Specifies the value of {@link org.springframework.integration.endpoint.AbstractEndpoint#autoStartup}.
 	 */
@@ -83,6 +97,23 @@ public final class IntegrationProperties {
 	 */
 	public static final String POST_PROCESS_DYNAMIC_BEANS = INTEGRATION_PROPERTIES_PREFIX + "postProcessDynamicBeans";
 
+	/**
+	 * Specifies the {@link org.springframework.expression.spel.SpelCompilerMode} applied by the
+	 * {@link org.springframework.integration.expression.ExpressionCompilationManager} to the
+	 * SpEL expressions evaluated by the framework components ({@code off}, {@code immediate}
+	 * or {@code mixed}).
+	 * @since 5.1
+	 */
+	public static final String EXPRESSIONS_COMPILER_MODE = INTEGRATION_PROPERTIES_PREFIX + "expressions.compilerMode";
+
+	/**
+	 * Whether the {@link org.springframework.integration.config.dsl.IntegrationFlowBeanPostProcessor}
+	 * should fuse the consecutive endpoints of an {@code IntegrationFlow} by replacing the implicit
+	 * channels between them with {@link org.springframework.integration.channel.FixedSubscriberChannel}s.
+	 * @since 5.1
+	 */
+	public static final String FLOWS_FUSE_ENDPOINTS = INTEGRATION_PROPERTIES_PREFIX + "flows.fuseEndpoints";
+
 
 	private static Properties defaults;
 
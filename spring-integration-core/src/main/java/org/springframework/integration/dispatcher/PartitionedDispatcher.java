@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.dispatcher;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.integration.MessageDispatchingException;
+import org.springframework.integration.util.ErrorHandlingTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link MessageDispatcher} which hashes a partition key of each {@link Message}
+ * onto one of a fixed number of partitions. Each partition is a
+ * {@link UnicastingDispatcher} with its own single-threaded executor, so messages with
+ * the same key are handled in the order they were sent, while messages with different
+ * keys may be handled in parallel. A message with a {@code null} key is rejected with a
+ * {@link MessageDispatchingException}.
+ * <p>
+ * Each partition queues at most {@link #setQueueCapacity(int) queueCapacity} messages
+ * (unbounded by default); a message sent to a full partition is rejected with a
+ * {@link MessageDeliveryException}.
+ * <p>
+ * The partitions (and their threads) are created on the first dispatch; the handlers
+ * are shared by all the partitions. Once {@link #shutdown() shut down}, the dispatcher
+ * rejects any further message.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class PartitionedDispatcher extends AbstractDispatcher {
+
+	private final int partitionCount;
+
+	private final Function<Message<?>, ?> partitionKeyFunction;
+
+	private ThreadFactory threadFactory = new CustomizableThreadFactory("partition-thread-");
+
+	private int queueCapacity = Integer.MAX_VALUE;
+
+	private ErrorHandler errorHandler;
+
+	private boolean failover = true;
+
+	private LoadBalancingStrategy loadBalancingStrategy;
+
+	private MessageHandlingTaskDecorator messageHandlingTaskDecorator = task -> task;
+
+	private volatile Partition[] partitions;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * Create a dispatcher with the provided number of partitions and partition key function.
+	 * @param partitionCount the number of partitions.
+	 * @param partitionKeyFunction the function to obtain the partition key from a message.
+	 */
+	public PartitionedDispatcher(int partitionCount, Function<Message<?>, ?> partitionKeyFunction) {
+		Assert.isTrue(partitionCount > 0, "'partitionCount' must be greater than 0");
+		Assert.notNull(partitionKeyFunction, "'partitionKeyFunction' must not be null");
+		this.partitionCount = partitionCount;
+		this.partitionKeyFunction = partitionKeyFunction;
+	}
+
+	/**
+	 * Set the {@link ThreadFactory} for the partition threads.
+	 * @param threadFactory the thread factory.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		Assert.notNull(threadFactory, "'threadFactory' must not be null");
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Set the maximum number of messages waiting to be handled in each partition.
+	 * When a partition is full, the message is rejected with a
+	 * {@link MessageDeliveryException}. Unbounded by default.
+	 * @param queueCapacity the capacity of each partition queue.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be greater than 0");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set an {@link ErrorHandler} for the exceptions thrown by the handlers on the
+	 * partition threads.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Specify whether the partition dispatchers should failover when a single
+	 * {@link MessageHandler} throws an Exception. The default value is {@code true}.
+	 * @param failover The failover boolean.
+	 * @see UnicastingDispatcher#setFailover(boolean)
+	 */
+	public void setFailover(boolean failover) {
+		this.failover = failover;
+	}
+
+	/**
+	 * Provide a {@link LoadBalancingStrategy} for the partition dispatchers.
+	 * @param loadBalancingStrategy The load balancing strategy implementation.
+	 * @see UnicastingDispatcher#setLoadBalancingStrategy(LoadBalancingStrategy)
+	 */
+	public void setLoadBalancingStrategy(LoadBalancingStrategy loadBalancingStrategy) {
+		this.loadBalancingStrategy = loadBalancingStrategy;
+	}
+
+	public void setMessageHandlingTaskDecorator(MessageHandlingTaskDecorator messageHandlingTaskDecorator) {
+		Assert.notNull(messageHandlingTaskDecorator, "'messageHandlingTaskDecorator' must not be null.");
+		this.messageHandlingTaskDecorator = messageHandlingTaskDecorator;
+	}
+
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+	/**
+	 * Return the number of messages waiting to be handled in the provided partition.
+	 * @param partition the partition index.
+	 * @return the queue size.
+	 */
+	public int getQueueSize(int partition) {
+		Assert.isTrue(partition >= 0 && partition < this.partitionCount, "'partition' is out of range");
+		Partition[] partitions = this.partitions;
+		return partitions == null ? 0 : partitions[partition].executor.getQueue().size();
+	}
+
+	/**
+	 * Return the partition index for the provided message.
+	 * @param message the message.
+	 * @return the partition index.
+	 * @throws MessageDispatchingException if the partition key of the message is {@code null}.
+	 */
+	public int partitionFor(Message<?> message) {
+		Object key = this.partitionKeyFunction.apply(message);
+		if (key == null) {
+			throw new MessageDispatchingException(message, "The partition key of the message is null");
+		}
+		int hash = key.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), this.partitionCount);
+	}
+
+	@Override
+	public boolean dispatch(Message<?> message) {
+		Partition[] partitions = getPartitions();
+		if (partitions == null) {
+			throw new MessageDispatchingException(message, "The dispatcher has been shut down");
+		}
+		int partition = partitionFor(message);
+		try {
+			return partitions[partition].dispatcher.dispatch(message);
+		}
+		catch (RejectedExecutionException e) {
+			if (this.shutdown) {
+				throw new MessageDispatchingException(message, "The dispatcher has been shut down", e);
+			}
+			throw new MessageDeliveryException(message, "The partition " + partition + " is full", e);
+		}
+	}
+
+	@Override
+	public synchronized boolean addHandler(MessageHandler handler) {
+		boolean added = super.addHandler(handler);
+		if (added && this.partitions != null) {
+			for (Partition partition : this.partitions) {
+				partition.dispatcher.addHandler(handler);
+			}
+		}
+		return added;
+	}
+
+	@Override
+	public synchronized boolean removeHandler(MessageHandler handler) {
+		boolean removed = super.removeHandler(handler);
+		if (removed && this.partitions != null) {
+			for (Partition partition : this.partitions) {
+				partition.dispatcher.removeHandler(handler);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Shut down the partition executors; the messages which are not handled yet are
+	 * discarded and no more messages are accepted.
+	 */
+	public synchronized void shutdown() {
+		this.shutdown = true;
+		if (this.partitions != null) {
+			for (Partition partition : this.partitions) {
+				partition.executor.shutdownNow();
+			}
+			this.partitions = null;
+		}
+	}
+
+	private Partition[] getPartitions() {
+		Partition[] partitions = this.partitions;
+		if (partitions == null) {
+			synchronized (this) {
+				partitions = this.partitions;
+				if (partitions == null && !this.shutdown) {
+					partitions = new Partition[this.partitionCount];
+					for (int i = 0; i < this.partitionCount; i++) {
+						partitions[i] = new Partition();
+					}
+					this.partitions = partitions;
+				}
+			}
+		}
+		return partitions;
+	}
+
+	private final class Partition {
+
+		private final ThreadPoolExecutor executor;
+
+		private final UnicastingDispatcher dispatcher;
+
+		Partition() {
+			this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<>(PartitionedDispatcher.this.queueCapacity),
+					PartitionedDispatcher.this.threadFactory);
+			Executor executor = this.executor;
+			if (PartitionedDispatcher.this.errorHandler != null) {
+				executor = new ErrorHandlingTaskExecutor(executor, PartitionedDispatcher.this.errorHandler);
+			}
+			this.dispatcher = new UnicastingDispatcher(executor);
+			this.dispatcher.setFailover(PartitionedDispatcher.this.failover);
+			if (PartitionedDispatcher.this.loadBalancingStrategy != null) {
+				this.dispatcher.setLoadBalancingStrategy(PartitionedDispatcher.this.loadBalancingStrategy);
+			}
+			this.dispatcher.setMessageHandlingTaskDecorator(PartitionedDispatcher.this.messageHandlingTaskDecorator);
+			for (MessageHandler handler : getHandlers()) {
+				this.dispatcher.addHandler(handler);
+			}
+		}
+
+	}
+
+}
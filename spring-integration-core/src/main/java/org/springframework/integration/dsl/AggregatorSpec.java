@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.integration.dsl;
 
+import java.util.stream.Collector;
+
 import org.springframework.integration.aggregator.AggregatingMessageHandler;
 import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
 import org.springframework.integration.aggregator.ExpressionEvaluatingMessageGroupProcessor;
+import org.springframework.integration.aggregator.FoldingMessageGroupProcessor;
 import org.springframework.integration.aggregator.MessageGroupProcessor;
 import org.springframework.integration.aggregator.MethodInvokingMessageGroupProcessor;
 
@@ -85,6 +88,21 @@ public class AggregatorSpec extends CorrelationHandlerSpec<AggregatorSpec, Aggre
 		return _this();
 	}
 
+	/**
+	 * Fold the payloads of the group with the provided {@link Collector} as the messages
+	 * arrive, keeping only the running state in the message store.
+	 * @param collector the collector.
+	 * @param <T> the payload type.
+	 * @param <A> the accumulation type.
+	 * @param <R> the result type.
+	 * @return the aggregator spec.
+	 * @since 5.1
+	 * @see FoldingMessageGroupProcessor
+	 */
+	public <T, A, R> AggregatorSpec fold(Collector<T, A, R> collector) {
+		return this.outputProcessor(new FoldingMessageGroupProcessor<>(collector));
+	}
+
 	/**
 	 * @param expireGroupsUponCompletion the expireGroupsUponCompletion.
 	 * @return the aggregator spec.
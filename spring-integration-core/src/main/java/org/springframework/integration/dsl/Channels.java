@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.springframework.integration.dsl.channel.DirectChannelSpec;
 import org.springframework.integration.dsl.channel.ExecutorChannelSpec;
 import org.springframework.integration.dsl.channel.FluxMessageChannelSpec;
 import org.springframework.integration.dsl.channel.MessageChannels;
+import org.springframework.integration.dsl.channel.PartitionedChannelSpec;
 import org.springframework.integration.dsl.channel.PriorityChannelSpec;
 import org.springframework.integration.dsl.channel.PublishSubscribeChannelSpec;
 import org.springframework.integration.dsl.channel.QueueChannelSpec;
@@ -63,6 +64,14 @@ public class Channels {
 		return MessageChannels.queue(id, capacity);
 	}
 
+	public QueueChannelSpec queue(Integer capacity, boolean lockFree) {
+		return MessageChannels.queue(capacity, lockFree);
+	}
+
+	public QueueChannelSpec queue(String id, Integer capacity, boolean lockFree) {
+		return MessageChannels.queue(id, capacity, lockFree);
+	}
+
 	public QueueChannelSpec queue(Queue<Message<?>> queue) {
 		return MessageChannels.queue(queue);
 	}
@@ -129,6 +138,22 @@ public class Channels {
 		return MessageChannels.executor(id, executor);
 	}
 
+	public ExecutorChannelSpec virtualThreadExecutor() {
+		return MessageChannels.virtualThreadExecutor();
+	}
+
+	public ExecutorChannelSpec virtualThreadExecutor(String id) {
+		return MessageChannels.virtualThreadExecutor(id);
+	}
+
+	public PartitionedChannelSpec partitioned(int partitionCount) {
+		return MessageChannels.partitioned(partitionCount);
+	}
+
+	public PartitionedChannelSpec partitioned(String id, int partitionCount) {
+		return MessageChannels.partitioned(id, partitionCount);
+	}
+
 
 	public FluxMessageChannelSpec flux() {
 		return MessageChannels.flux();
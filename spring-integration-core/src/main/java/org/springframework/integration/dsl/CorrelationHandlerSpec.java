@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -302,7 +302,7 @@ public abstract class CorrelationHandlerSpec<S extends CorrelationHandlerSpec<S,
 	/**
 	 * Used to obtain a {@code Lock} based on the {@code groupId} for concurrent operations
 	 * on the {@code MessageGroup}.
-	 * By default, an internal {@code DefaultLockRegistry} is used.
+	 * By default, an internal {@code StripedLockRegistry} is used.
 	 * Use of a distributed {@link LockRegistry}, such as the {@code RedisLockRegistry},
 	 * ensures only one instance of the aggregator will operate on a group concurrently.
 	 * @param lockRegistry the {@link LockRegistry} to use.
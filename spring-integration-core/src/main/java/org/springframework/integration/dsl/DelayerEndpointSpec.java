@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import org.springframework.integration.expression.FunctionExpression;
 import org.springframework.integration.handler.DelayHandler;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.messaging.Message;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 
 /**
@@ -67,6 +68,22 @@ public final class DelayerEndpointSpec extends ConsumerEndpointSpec<DelayerEndpo
 		return _this();
 	}
 
+	/**
+	 * Set the {@link TaskScheduler} for the endpoint and for the delayed messages
+	 * (e.g. a {@link org.springframework.integration.scheduling.TimingWheelTaskScheduler}).
+	 * @param taskScheduler the task scheduler.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see DelayHandler#setTaskScheduler(TaskScheduler)
+	 */
+	@Override
+	public DelayerEndpointSpec taskScheduler(TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "'taskScheduler' must not be null");
+		super.taskScheduler(taskScheduler);
+		this.handler.setTaskScheduler(taskScheduler);
+		return _this();
+	}
+
 	/**
 	 * @param messageStore the message store.
 	 * @return the endpoint spec.
@@ -76,6 +93,28 @@ public final class DelayerEndpointSpec extends ConsumerEndpointSpec<DelayerEndpo
 		return _this();
 	}
 
+	/**
+	 * @param lookAheadWindow the look-ahead window in milliseconds.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see DelayHandler#setLookAheadWindow(long)
+	 */
+	public DelayerEndpointSpec lookAheadWindow(long lookAheadWindow) {
+		this.handler.setLookAheadWindow(lookAheadWindow);
+		return _this();
+	}
+
+	/**
+	 * @param lookAheadPageSize the maximum number of messages read from the store at once.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see DelayHandler#setLookAheadPageSize(int)
+	 */
+	public DelayerEndpointSpec lookAheadPageSize(int lookAheadPageSize) {
+		this.handler.setLookAheadPageSize(lookAheadPageSize);
+		return _this();
+	}
+
 	/**
 	 * Configure a list of {@link Advice} objects that will be applied, in nested order,
 	 * when delayed messages are sent.
@@ -66,6 +66,8 @@ import org.springframework.integration.handler.LoggingHandler;
 import org.springframework.integration.handler.MessageProcessor;
 import org.springframework.integration.handler.MessageTriggerAction;
 import org.springframework.integration.handler.MethodInvokingMessageProcessor;
+import org.springframework.integration.handler.ReactiveMessageHandler;
+import org.springframework.integration.handler.ReactiveMessageHandlerAdapter;
 import org.springframework.integration.handler.ServiceActivatingHandler;
 import org.springframework.integration.router.AbstractMessageRouter;
 import org.springframework.integration.router.ErrorMessageExceptionTypeRouter;
@@ -129,6 +131,8 @@ public abstract class IntegrationFlowDefinition<B extends IntegrationFlowDefinit
 
 	private boolean implicitChannel;
 
+	private final Set<MessageChannel> implicitInputChannels = new HashSet<>();
+
 	IntegrationFlowDefinition() {
 	}
 
@@ -1104,6 +1108,36 @@ public abstract class IntegrationFlowDefinition<B extends IntegrationFlowDefinit
 		return this.register(new GenericEndpointSpec<>(messageHandler), endpointConfigurer);
 	}
 
+	/**
+	 * Populate a {@link ReactiveMessageHandlerAdapter} for the provided
+	 * {@link ReactiveMessageHandler}. When the current channel is a
+	 * {@link FluxMessageChannel}, the {@link reactor.core.publisher.Mono} returned by the
+	 * handler is composed into the channel's stream instead of blocking on it.
+	 * @param reactiveMessageHandler the {@link ReactiveMessageHandler} to use.
+	 * @return the current {@link IntegrationFlowDefinition}.
+	 * @since 5.1
+	 */
+	public B handleReactive(ReactiveMessageHandler reactiveMessageHandler) {
+		return handleReactive(reactiveMessageHandler, null);
+	}
+
+	/**
+	 * Populate a {@link ReactiveMessageHandlerAdapter} for the provided
+	 * {@link ReactiveMessageHandler}.
+	 * In addition accept options for the integration endpoint using {@link GenericEndpointSpec}.
+	 * @param reactiveMessageHandler the {@link ReactiveMessageHandler} to use.
+	 * @param endpointConfigurer the {@link Consumer} to provide integration endpoint options.
+	 * @return the current {@link IntegrationFlowDefinition}.
+	 * @since 5.1
+	 * @see #handleReactive(ReactiveMessageHandler)
+	 */
+	public B handleReactive(ReactiveMessageHandler reactiveMessageHandler,
+			Consumer<GenericEndpointSpec<ReactiveMessageHandlerAdapter>> endpointConfigurer) {
+
+		Assert.notNull(reactiveMessageHandler, "'reactiveMessageHandler' must not be null");
+		return handle(new ReactiveMessageHandlerAdapter(reactiveMessageHandler), endpointConfigurer);
+	}
+
 	/**
 	 * Populate a {@link BridgeHandler} to the current integration flow position.
 	 * @return the current {@link IntegrationFlowDefinition}.
@@ -2583,7 +2617,7 @@ public abstract class IntegrationFlowDefinition<B extends IntegrationFlowDefinit
 
 		get();
 
-		return new PublisherIntegrationFlow<>(this.integrationComponents, publisher);
+		return new PublisherIntegrationFlow<>(this.integrationComponents, this.implicitInputChannels, publisher);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -2597,6 +2631,7 @@ public abstract class IntegrationFlowDefinition<B extends IntegrationFlowDefinit
 		this.currentMessageChannel = null;
 		if (inputChannel == null) {
 			inputChannel = new DirectChannel();
+			this.implicitInputChannels.add(inputChannel);
 			this.registerOutputChannelIfCan(inputChannel);
 		}
 
@@ -2730,7 +2765,7 @@ public abstract class IntegrationFlowDefinition<B extends IntegrationFlowDefinit
 				}
 			}
 
-			this.integrationFlow = new StandardIntegrationFlow(this.integrationComponents);
+			this.integrationFlow = new StandardIntegrationFlow(this.integrationComponents, this.implicitInputChannels);
 		}
 		return this.integrationFlow;
 	}
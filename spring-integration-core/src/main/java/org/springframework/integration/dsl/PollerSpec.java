@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,8 @@ import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.scheduling.PollerMetadata;
 import org.springframework.integration.transaction.TransactionInterceptorBuilder;
 import org.springframework.integration.transaction.TransactionSynchronizationFactory;
+import org.springframework.integration.util.AdaptiveConcurrencyLimiter;
+import org.springframework.integration.util.VirtualThreadTaskExecutor;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.scheduling.Trigger;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -133,6 +135,21 @@ public final class PollerSpec extends IntegrationComponentSpec<PollerSpec, Polle
 		return this;
 	}
 
+	/**
+	 * Specify the maximum number of messages a polling consumer takes from a
+	 * {@link org.springframework.integration.channel.BatchPollableChannel}
+	 * with a single receive operation.
+	 * Defaults to {@code 1}.
+	 * @param receiveBatchSize the batch size to use.
+	 * @return the spec.
+	 * @since 5.1
+	 * @see PollerMetadata#setReceiveBatchSize(int)
+	 */
+	public PollerSpec receiveBatchSize(int receiveBatchSize) {
+		this.target.setReceiveBatchSize(receiveBatchSize);
+		return this;
+	}
+
 	/**
 	 * Specify AOP {@link Advice}s for the {@code pollingTask}.
 	 * @param advice the {@link Advice}s to use.
@@ -187,6 +204,29 @@ public final class PollerSpec extends IntegrationComponentSpec<PollerSpec, Polle
 		return this;
 	}
 
+	/**
+	 * Perform each {@code pollingTask} on a new virtual thread, when the JVM supports
+	 * virtual threads, or on a new platform thread otherwise.
+	 * @return the spec.
+	 * @since 5.1
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public PollerSpec virtualThreads() {
+		return taskExecutor(new VirtualThreadTaskExecutor("poller-"));
+	}
+
+	/**
+	 * Specify an {@link AdaptiveConcurrencyLimiter} for the polling tasks handed to the
+	 * {@link #taskExecutor(Executor) task executor}.
+	 * @param concurrencyLimiter the concurrency limiter.
+	 * @return the spec.
+	 * @since 5.1
+	 */
+	public PollerSpec concurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.target.setConcurrencyLimiter(concurrencyLimiter);
+		return this;
+	}
+
 	public PollerSpec sendTimeout(long sendTimeout) {
 		this.target.setSendTimeout(sendTimeout);
 		return this;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,13 @@
 package org.springframework.integration.dsl;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
 
 /**
  *
@@ -35,8 +37,10 @@ class PublisherIntegrationFlow<T> extends StandardIntegrationFlow implements Pub
 
 	private final Publisher<Message<T>> delegate;
 
-	PublisherIntegrationFlow(Map<Object, String> integrationComponents, Publisher<Message<T>> publisher) {
-		super(integrationComponents);
+	PublisherIntegrationFlow(Map<Object, String> integrationComponents, Set<MessageChannel> implicitInputChannels,
+			Publisher<Message<T>> publisher) {
+
+		super(integrationComponents, implicitInputChannels);
 		this.delegate = publisher;
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.integration.dsl;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.integration.splitter.AbstractMessageSplitter;
 import org.springframework.integration.splitter.DefaultMessageSplitter;
 
@@ -46,6 +48,42 @@ public final class SplitterEndpointSpec<S extends AbstractMessageSplitter>
 		return _this();
 	}
 
+	/**
+	 * Send the items to the output channel on the provided {@link Executor}.
+	 * @param taskExecutor the executor.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see AbstractMessageSplitter#setTaskExecutor(Executor)
+	 */
+	public SplitterEndpointSpec<S> taskExecutor(Executor taskExecutor) {
+		this.handler.setTaskExecutor(taskExecutor);
+		return _this();
+	}
+
+	/**
+	 * Set the maximum number of items in flight to the task executor per split message.
+	 * @param maxInFlight the maximum number of items in flight.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see AbstractMessageSplitter#setMaxInFlight(int)
+	 */
+	public SplitterEndpointSpec<S> maxInFlight(int maxInFlight) {
+		this.handler.setMaxInFlight(maxInFlight);
+		return _this();
+	}
+
+	/**
+	 * Set to true to send the items handed to the task executor in their sequence order.
+	 * @param ordered true to preserve the sequence order.
+	 * @return the endpoint spec.
+	 * @since 5.1
+	 * @see AbstractMessageSplitter#setOrdered(boolean)
+	 */
+	public SplitterEndpointSpec<S> ordered(boolean ordered) {
+		this.handler.setOrdered(ordered);
+		return _this();
+	}
+
 	/**
 	 * Set delimiters to tokenize String values. The default is
 	 * <code>null</code> indicating that no tokenizing should occur.
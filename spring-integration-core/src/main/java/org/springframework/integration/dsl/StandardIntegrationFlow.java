@@ -17,14 +17,17 @@
 package org.springframework.integration.dsl;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.context.SmartLifecycle;
+import org.springframework.messaging.MessageChannel;
 
 /**
  * The standard implementation of the {@link IntegrationFlow} interface instantiated
@@ -67,12 +70,19 @@ public class StandardIntegrationFlow implements IntegrationFlow, SmartLifecycle
 
 	private final Map<Object, String> integrationComponents;
 
+	private final Set<MessageChannel> implicitInputChannels;
+
 	private final List<SmartLifecycle> lifecycles = new LinkedList<>();
 
 	private boolean running;
 
 	StandardIntegrationFlow(Map<Object, String> integrationComponents) {
+		this(integrationComponents, Collections.emptySet());
+	}
+
+	StandardIntegrationFlow(Map<Object, String> integrationComponents, Set<MessageChannel> implicitInputChannels) {
 		this.integrationComponents = new LinkedHashMap<>(integrationComponents);
+		this.implicitInputChannels = new HashSet<>(implicitInputChannels);
 	}
 
 	public void setIntegrationComponents(Map<Object, String> integrationComponents) {
@@ -84,6 +94,17 @@ public class StandardIntegrationFlow implements IntegrationFlow, SmartLifecycle
 		return Collections.unmodifiableMap(this.integrationComponents);
 	}
 
+	/**
+	 * Return the {@link org.springframework.integration.channel.DirectChannel}s created
+	 * by the flow definition between an endpoint and the previous one, when no channel has
+	 * been declared there. Such a channel can't be referenced from outside of the flow.
+	 * @return the implicit input channels.
+	 * @since 5.1
+	 */
+	public Set<MessageChannel> getImplicitInputChannels() {
+		return Collections.unmodifiableSet(this.implicitInputChannels);
+	}
+
 	@Override
 	public void configure(IntegrationFlowDefinition<?> flow) {
 		throw new UnsupportedOperationException();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.integration.dsl.channel;
 import java.util.concurrent.Executor;
 
 import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.util.AdaptiveConcurrencyLimiter;
 
 /**
  * @author Artem Bilan
@@ -29,10 +30,24 @@ public class ExecutorChannelSpec extends LoadBalancingChannelSpec<ExecutorChanne
 
 	private final Executor executor;
 
+	private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
 	ExecutorChannelSpec(Executor executor) {
 		this.executor = executor;
 	}
 
+	/**
+	 * Limit the messages handed to the executor with the provided
+	 * {@link AdaptiveConcurrencyLimiter}.
+	 * @param concurrencyLimiter the concurrency limiter.
+	 * @return the spec.
+	 * @since 5.1
+	 */
+	public ExecutorChannelSpec concurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+		return this;
+	}
+
 	@Override
 	protected ExecutorChannel doGet() {
 		this.channel = new ExecutorChannel(this.executor, this.loadBalancingStrategy);
@@ -42,6 +57,9 @@ public class ExecutorChannelSpec extends LoadBalancingChannelSpec<ExecutorChanne
 		if (this.maxSubscribers != null) {
 			this.channel.setMaxSubscribers(this.maxSubscribers);
 		}
+		if (this.concurrencyLimiter != null) {
+			this.channel.setConcurrencyLimiter(this.concurrencyLimiter);
+		}
 		return super.doGet();
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.concurrent.Executor;
 
 import org.springframework.integration.store.ChannelMessageStore;
 import org.springframework.integration.store.PriorityCapableChannelMessageStore;
+import org.springframework.integration.util.VirtualThreadTaskExecutor;
 import org.springframework.messaging.Message;
 
 /**
@@ -63,6 +64,31 @@ public final class MessageChannels {
 		return queue(capacity).id(id);
 	}
 
+	/**
+	 * Create a {@link QueueChannelSpec} for a bounded queue with the provided capacity.
+	 * @param capacity the queue capacity.
+	 * @param lockFree true to use a lock-free
+	 * {@link org.springframework.integration.util.MpmcArrayBlockingQueue}.
+	 * @return the {@link QueueChannelSpec}.
+	 * @since 5.1
+	 */
+	public static QueueChannelSpec queue(Integer capacity, boolean lockFree) {
+		return new QueueChannelSpec(capacity, lockFree);
+	}
+
+	/**
+	 * Create a {@link QueueChannelSpec} for a bounded queue with the provided capacity.
+	 * @param id the channel bean name.
+	 * @param capacity the queue capacity.
+	 * @param lockFree true to use a lock-free
+	 * {@link org.springframework.integration.util.MpmcArrayBlockingQueue}.
+	 * @return the {@link QueueChannelSpec}.
+	 * @since 5.1
+	 */
+	public static QueueChannelSpec queue(String id, Integer capacity, boolean lockFree) {
+		return queue(capacity, lockFree).id(id);
+	}
+
 	public static QueueChannelSpec.MessageStoreSpec queue(ChannelMessageStore messageGroupStore, Object groupId) {
 		return new QueueChannelSpec.MessageStoreSpec(messageGroupStore, groupId);
 	}
@@ -80,6 +106,50 @@ public final class MessageChannels {
 		return executor(executor).id(id);
 	}
 
+	/**
+	 * Create an {@link ExecutorChannelSpec} which dispatches each message on a new virtual
+	 * thread, when the JVM supports virtual threads, or on a new platform thread otherwise.
+	 * @return the {@link ExecutorChannelSpec}.
+	 * @since 5.1
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public static ExecutorChannelSpec virtualThreadExecutor() {
+		return executor(new VirtualThreadTaskExecutor());
+	}
+
+	/**
+	 * Create an {@link ExecutorChannelSpec} which dispatches each message on a new virtual
+	 * thread, when the JVM supports virtual threads, or on a new platform thread otherwise.
+	 * @param id the channel bean name.
+	 * @return the {@link ExecutorChannelSpec}.
+	 * @since 5.1
+	 * @see VirtualThreadTaskExecutor
+	 */
+	public static ExecutorChannelSpec virtualThreadExecutor(String id) {
+		return executor(new VirtualThreadTaskExecutor(id + "-")).id(id);
+	}
+
+	/**
+	 * Create a {@link PartitionedChannelSpec} with the provided number of partitions.
+	 * @param partitionCount the number of partitions.
+	 * @return the {@link PartitionedChannelSpec}.
+	 * @since 5.1
+	 */
+	public static PartitionedChannelSpec partitioned(int partitionCount) {
+		return new PartitionedChannelSpec(partitionCount);
+	}
+
+	/**
+	 * Create a {@link PartitionedChannelSpec} with the provided number of partitions.
+	 * @param id the channel bean name.
+	 * @param partitionCount the number of partitions.
+	 * @return the {@link PartitionedChannelSpec}.
+	 * @since 5.1
+	 */
+	public static PartitionedChannelSpec partitioned(String id, int partitionCount) {
+		return partitioned(partitionCount).id(id);
+	}
+
 	public static RendezvousChannelSpec rendezvous() {
 		return new RendezvousChannelSpec();
 	}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.dsl.channel;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import org.springframework.expression.Expression;
+import org.springframework.integration.channel.PartitionedChannel;
+import org.springframework.messaging.Message;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link LoadBalancingChannelSpec} for the {@link PartitionedChannel}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class PartitionedChannelSpec extends LoadBalancingChannelSpec<PartitionedChannelSpec, PartitionedChannel> {
+
+	private final int partitionCount;
+
+	private Function<Message<?>, ?> partitionKeyFunction;
+
+	private String partitionKeyHeader;
+
+	private Expression partitionKeyExpression;
+
+	private ThreadFactory threadFactory;
+
+	private Integer queueCapacity;
+
+	private ErrorHandler errorHandler;
+
+	PartitionedChannelSpec(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	/**
+	 * Obtain the partition key from the message with the provided function.
+	 * @param partitionKeyFunction the function.
+	 * @return the spec.
+	 */
+	public PartitionedChannelSpec partitionKey(Function<Message<?>, ?> partitionKeyFunction) {
+		this.partitionKeyFunction = partitionKeyFunction;
+		return this;
+	}
+
+	/**
+	 * Use the value of the provided header as the partition key.
+	 * @param headerName the header name.
+	 * @return the spec.
+	 */
+	public PartitionedChannelSpec partitionKeyHeader(String headerName) {
+		this.partitionKeyHeader = headerName;
+		return this;
+	}
+
+	/**
+	 * Use the result of the provided SpEL expression as the partition key.
+	 * @param partitionKeyExpression the expression.
+	 * @return the spec.
+	 */
+	public PartitionedChannelSpec partitionKeyExpression(String partitionKeyExpression) {
+		return partitionKeyExpression(PARSER.parseExpression(partitionKeyExpression));
+	}
+
+	/**
+	 * Use the result of the provided expression as the partition key.
+	 * @param partitionKeyExpression the expression.
+	 * @return the spec.
+	 */
+	public PartitionedChannelSpec partitionKeyExpression(Expression partitionKeyExpression) {
+		this.partitionKeyExpression = partitionKeyExpression;
+		return this;
+	}
+
+	public PartitionedChannelSpec threadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of messages waiting to be handled in each partition.
+	 * @param queueCapacity the capacity of each partition queue.
+	 * @return the spec.
+	 * @see PartitionedChannel#setQueueCapacity(int)
+	 */
+	public PartitionedChannelSpec queueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+		return this;
+	}
+
+	public PartitionedChannelSpec errorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+		return this;
+	}
+
+	@Override
+	protected PartitionedChannel doGet() {
+		if (this.partitionKeyFunction != null) {
+			this.channel = new PartitionedChannel(this.partitionCount, this.partitionKeyFunction);
+		}
+		else {
+			this.channel = new PartitionedChannel(this.partitionCount);
+		}
+		if (this.partitionKeyHeader != null) {
+			this.channel.setPartitionKeyHeader(this.partitionKeyHeader);
+		}
+		if (this.partitionKeyExpression != null) {
+			this.channel.setPartitionKeyExpression(this.partitionKeyExpression);
+		}
+		if (this.threadFactory != null) {
+			this.channel.setThreadFactory(this.threadFactory);
+		}
+		if (this.queueCapacity != null) {
+			this.channel.setQueueCapacity(this.queueCapacity);
+		}
+		if (this.errorHandler != null) {
+			this.channel.setErrorHandler(this.errorHandler);
+		}
+		this.channel.setLoadBalancingStrategy(this.loadBalancingStrategy);
+		if (this.failover != null) {
+			this.channel.setFailover(this.failover);
+		}
+		if (this.maxSubscribers != null) {
+			this.channel.setMaxSubscribers(this.maxSubscribers);
+		}
+		return super.doGet();
+	}
+
+}
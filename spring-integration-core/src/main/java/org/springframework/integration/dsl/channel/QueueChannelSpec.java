@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,8 @@ public class QueueChannelSpec extends MessageChannelSpec<QueueChannelSpec, Queue
 
 	protected Integer capacity;
 
+	protected boolean lockFree;
+
 	QueueChannelSpec() {
 		super();
 	}
@@ -47,13 +49,18 @@ public class QueueChannelSpec extends MessageChannelSpec<QueueChannelSpec, Queue
 		this.capacity = capacity;
 	}
 
+	QueueChannelSpec(Integer capacity, boolean lockFree) {
+		this.capacity = capacity;
+		this.lockFree = lockFree;
+	}
+
 	@Override
 	protected QueueChannel doGet() {
 		if (this.queue != null) {
 			this.channel = new QueueChannel(this.queue);
 		}
 		else if (this.capacity != null) {
-			this.channel = new QueueChannel(this.capacity);
+			this.channel = new QueueChannel(this.capacity, this.lockFree);
 		}
 		else {
 			this.channel = new QueueChannel();
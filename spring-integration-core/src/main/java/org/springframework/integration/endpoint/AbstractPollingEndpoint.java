@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,9 @@ import org.springframework.integration.transaction.IntegrationResourceHolder;
 import org.springframework.integration.transaction.IntegrationResourceHolderSynchronization;
 import org.springframework.integration.transaction.PassThroughTransactionSynchronizationFactory;
 import org.springframework.integration.transaction.TransactionSynchronizationFactory;
+import org.springframework.integration.util.AdaptiveConcurrencyLimiter;
+import org.springframework.integration.util.ConcurrencyLimitExceededException;
+import org.springframework.integration.util.ConcurrencyLimitingTaskExecutor;
 import org.springframework.integration.util.ErrorHandlingTaskExecutor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -84,6 +87,8 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 
 	private volatile TransactionSynchronizationFactory transactionSynchronizationFactory;
 
+	private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
 	public AbstractPollingEndpoint() {
 		this.setPhase(Integer.MAX_VALUE / 2);
 	}
@@ -118,6 +123,17 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		this.transactionSynchronizationFactory = transactionSynchronizationFactory;
 	}
 
+	/**
+	 * Limit the number of polling tasks handed to the task executor and not completed
+	 * yet with the provided {@link AdaptiveConcurrencyLimiter}. The scheduler thread never
+	 * waits for a permit: a poll which can't get one at once is skipped.
+	 * @param concurrencyLimiter the concurrency limiter.
+	 * @since 5.1
+	 */
+	public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
 	/**
 	 * Return the default error channel if the error handler is explicitly provided and
 	 * it is a {@link MessagePublishingErrorHandler}.
@@ -171,6 +187,10 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 					}
 					this.taskExecutor = new ErrorHandlingTaskExecutor(this.taskExecutor, this.errorHandler);
 				}
+				if (this.concurrencyLimiter != null) {
+					this.taskExecutor = new ConcurrencyLimitingTaskExecutor(this.taskExecutor, this.concurrencyLimiter,
+							false);
+				}
 			}
 			if (this.transactionSynchronizationFactory == null && this.adviceChain != null) {
 				if (this.adviceChain.stream().anyMatch(TransactionInterceptor.class::isInstance)) {
@@ -246,8 +266,12 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		IntegrationResourceHolder holder = this.bindResourceHolderIfNecessary(
 				this.getResourceKey(), this.getResourceToBind());
 		Message<?> message = null;
+		List<Message<?>> messages = null;
 		try {
-			message = this.receiveMessage();
+			messages = this.receiveMessages();
+			if (messages == null) {
+				message = this.receiveMessage();
+			}
 		}
 		catch (Exception e) {
 			if (Thread.interrupted()) {
@@ -260,6 +284,9 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 				throw (RuntimeException) e;
 			}
 		}
+		if (messages != null) {
+			return doPollBatch(messages, holder);
+		}
 		boolean result;
 		if (message == null) {
 			if (this.logger.isDebugEnabled()) {
@@ -290,6 +317,44 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		return result;
 	}
 
+	private boolean doPollBatch(List<Message<?>> messages, IntegrationResourceHolder holder) {
+		if (messages.isEmpty()) {
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Received no Messages during the poll, returning 'false'");
+			}
+			return false;
+		}
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Poll resulted in Messages: " + messages);
+		}
+		// A failure must not prevent the dispatch of the rest of the batch: the messages are already
+		// taken from the channel. The first failure is thrown at the end, like for a single message.
+		MessagingException failure = null;
+		for (Message<?> message : messages) {
+			if (holder != null) {
+				holder.setMessage(message);
+			}
+			try {
+				this.handleMessage(message);
+			}
+			catch (Exception e) {
+				MessagingException exception = e instanceof MessagingException
+						? new MessagingExceptionWrapper(message, (MessagingException) e)
+						: new MessagingException(message, e);
+				if (failure == null) {
+					failure = exception;
+				}
+				else {
+					failure.addSuppressed(exception);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return true;
+	}
+
 	/**
 	 * Obtain the next message (if one is available). MAY return null
 	 * if no message is immediately available.
@@ -297,6 +362,22 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 	 */
 	protected abstract Message<?> receiveMessage();
 
+	/**
+	 * Obtain the next batch of messages with a single receive operation, for endpoints
+	 * which can receive in batches; each message is then passed to
+	 * {@link #handleMessage(Message)}, even if the handling of a previous one fails.
+	 * Implementations should return null when a transaction is active, since its rollback
+	 * could not restore the rest of a batch taken from an in-memory channel.
+	 * A batch counts as one receive towards the
+	 * {@link #setMaxMessagesPerPoll(long) maxMessagesPerPoll}. Return null (default)
+	 * to receive one message at a time via {@link #receiveMessage()}.
+	 * @return The messages (empty if none are available) or null.
+	 * @since 5.1
+	 */
+	protected List<Message<?>> receiveMessages() {
+		return null;
+	}
+
 	/**
 	 * Handle a message.
 	 * @param message The message.
@@ -370,6 +451,17 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 
 		@Override
 		public void run() {
+			try {
+				pollOnTaskExecutor();
+			}
+			catch (ConcurrencyLimitExceededException e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Poll skipped: " + e.getMessage());
+				}
+			}
+		}
+
+		private void pollOnTaskExecutor() {
 			AbstractPollingEndpoint.this.taskExecutor.execute(() -> {
 				int count = 0;
 				while (AbstractPollingEndpoint.this.initialized
@@ -16,9 +16,13 @@
 
 package org.springframework.integration.endpoint;
 
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.core.AttributeAccessor;
+import org.springframework.integration.channel.ReactiveStreamsSubscribableChannel;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.integration.history.MessageHistory;
@@ -33,6 +37,9 @@ import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import reactor.core.publisher.Flux;
+import reactor.util.concurrent.Queues;
+
 /**
  * A support class for producer endpoints that provides a setter for the
  * output channel and a convenience method for sending Messages.
@@ -58,6 +65,10 @@ public abstract class MessageProducerSupport extends AbstractEndpoint implements
 
 	private volatile boolean shouldTrack = false;
 
+	private volatile int historySamplingRate = 1;
+
+	private volatile Subscription publisherSubscription;
+
 	protected MessageProducerSupport() {
 		this.setPhase(Integer.MAX_VALUE / 2);
 	}
@@ -140,6 +151,11 @@ public abstract class MessageProducerSupport extends AbstractEndpoint implements
 		this.shouldTrack = shouldTrack;
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historySamplingRate = samplingRate;
+	}
+
 	/**
 	 * Set an {@link ErrorMessageStrategy} to use to build an error message when a exception occurs.
 	 * Default is the {@link DefaultErrorMessageStrategy}.
@@ -185,11 +201,47 @@ public abstract class MessageProducerSupport extends AbstractEndpoint implements
 	}
 
 	/**
-	 * Takes no action by default. Subclasses may override this if they
-	 * need lifecycle-managed behavior.
+	 * Cancels the subscription to the {@link #subscribeToPublisher(Publisher) publisher},
+	 * if any. Subclasses may override this if they need lifecycle-managed behavior.
 	 */
 	@Override
 	protected void doStop() {
+		Subscription subscription = this.publisherSubscription;
+		if (subscription != null) {
+			this.publisherSubscription = null;
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * Send the messages emitted by the provided {@link Publisher} to the output channel.
+	 * If the output channel is a {@link ReactiveStreamsSubscribableChannel}, the publisher
+	 * is composed into it, so its messages are requested only as much as the channel's
+	 * subscribers demand; otherwise the messages are requested in batches of
+	 * {@link Queues#SMALL_BUFFER_SIZE} and each one is sent as soon as it is emitted.
+	 * The subscription is cancelled when this endpoint is stopped.
+	 * @param publisher the {@link Publisher} of messages to send.
+	 * @since 5.1
+	 */
+	protected void subscribeToPublisher(Publisher<? extends Message<?>> publisher) {
+		MessageChannel channel = getOutputChannel();
+		Flux<Message<?>> messageFlux =
+				Flux.<Message<?>>from(publisher)
+						.doOnSubscribe(subscription -> this.publisherSubscription = subscription);
+		if (channel instanceof ReactiveStreamsSubscribableChannel) {
+			((ReactiveStreamsSubscribableChannel) channel)
+					.subscribeTo(messageFlux
+							.map(message -> this.shouldTrack
+									? MessageHistory.write(message, this, getMessageBuilderFactory(),
+											this.historySamplingRate)
+									: message));
+		}
+		else {
+			messageFlux
+					.limitRate(Queues.SMALL_BUFFER_SIZE)
+					.subscribe(this::sendMessage,
+							error -> logger.error("Error from the publisher of [" + this + "]", error));
+		}
 	}
 
 	protected void sendMessage(Message<?> message) {
@@ -197,7 +249,7 @@ public abstract class MessageProducerSupport extends AbstractEndpoint implements
 			throw new MessagingException("cannot send a null message");
 		}
 		if (this.shouldTrack) {
-			message = MessageHistory.write(message, this, this.getMessageBuilderFactory());
+			message = MessageHistory.write(message, this, this.getMessageBuilderFactory(), this.historySamplingRate);
 		}
 		try {
 			this.messagingTemplate.send(getOutputChannel(), message);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.springframework.context.Lifecycle;
+import org.springframework.integration.channel.BatchPollableChannel;
 import org.springframework.integration.channel.ExecutorChannelInterceptorAware;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.router.MessageRouter;
@@ -34,6 +35,7 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.PollableChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
@@ -56,6 +58,8 @@ public class PollingConsumer extends AbstractPollingEndpoint implements Integrat
 
 	private volatile long receiveTimeout = 1000;
 
+	private volatile int receiveBatchSize = 1;
+
 	public PollingConsumer(PollableChannel inputChannel, MessageHandler handler) {
 		Assert.notNull(inputChannel, "inputChannel must not be null");
 		Assert.notNull(handler, "handler must not be null");
@@ -74,6 +78,24 @@ public class PollingConsumer extends AbstractPollingEndpoint implements Integrat
 		this.receiveTimeout = receiveTimeout;
 	}
 
+	/**
+	 * Set the maximum number of messages to take from the input channel with a single
+	 * receive operation when it is a {@link BatchPollableChannel}. The messages of a
+	 * batch are then dispatched to the handler one by one; the rest of the batch is still
+	 * dispatched after a handling failure, and then the first failure (with the others
+	 * suppressed) ends the poll the same way as for a single message (e.g. it is sent to
+	 * the error handler). When a transaction is active (e.g. a transactional
+	 * poller), the messages are received one at a time, so a failure rolls back only
+	 * the message it occurred for. Each batch counts as one receive towards the
+	 * {@code maxMessagesPerPoll}. Default 1 (receive one message at a time).
+	 * @param receiveBatchSize the batch size.
+	 * @since 5.1
+	 */
+	public void setReceiveBatchSize(int receiveBatchSize) {
+		Assert.isTrue(receiveBatchSize > 0, "'receiveBatchSize' must be greater than 0");
+		this.receiveBatchSize = receiveBatchSize;
+	}
+
 	@Override
 	public MessageChannel getInputChannel() {
 		return this.inputChannel;
@@ -192,6 +214,15 @@ public class PollingConsumer extends AbstractPollingEndpoint implements Integrat
 				: this.inputChannel.receive();
 	}
 
+	@Override
+	protected List<Message<?>> receiveMessages() {
+		if (this.receiveBatchSize > 1 && this.inputChannel instanceof BatchPollableChannel
+				&& !TransactionSynchronizationManager.isActualTransactionActive()) {
+			return ((BatchPollableChannel) this.inputChannel).receive(this.receiveBatchSize, this.receiveTimeout);
+		}
+		return null;
+	}
+
 	@Override
 	protected Object getResourceToBind() {
 		return this.inputChannel;
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.endpoint;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import org.springframework.integration.core.MessageSource;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A {@link MessageProducerSupport} which receives from a {@link MessageSource} on demand
+ * instead of on a poller's schedule: a message is received only when the output channel
+ * requests one. When the output channel is a
+ * {@link org.springframework.integration.channel.FluxMessageChannel}, the demand
+ * originates from the channel's subscribers, so a slow downstream flow throttles the
+ * source. When the source returns {@code null}, the next receive is delayed by the
+ * {@link #setDelayWhenEmpty(Duration) delayWhenEmpty}.
+ * <p>
+ * The {@link MessageSource#receive()} is called on the {@link #setScheduler(Scheduler)
+ * scheduler} (by default, a dedicated single thread created on start and disposed on
+ * stop), never on the thread starting the endpoint or signalling the demand. When the
+ * output channel is not reactive, the messages are requested in bounded batches and
+ * sent on that thread.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class ReactiveMessageSourceProducer extends MessageProducerSupport {
+
+	private static final Duration DEFAULT_DELAY_WHEN_EMPTY = Duration.ofSeconds(1);
+
+	private final MessageSource<?> messageSource;
+
+	private Duration delayWhenEmpty = DEFAULT_DELAY_WHEN_EMPTY;
+
+	private Scheduler scheduler;
+
+	private volatile Scheduler ownScheduler;
+
+	/**
+	 * Instantiate a producer for the provided {@link MessageSource}.
+	 * @param messageSource the {@link MessageSource} to receive from.
+	 */
+	public ReactiveMessageSourceProducer(MessageSource<?> messageSource) {
+		Assert.notNull(messageSource, "'messageSource' must not be null");
+		this.messageSource = messageSource;
+	}
+
+	/**
+	 * Set the delay before the next receive when the source returns no message.
+	 * Defaults to 1 second.
+	 * @param delayWhenEmpty the delay.
+	 */
+	public void setDelayWhenEmpty(Duration delayWhenEmpty) {
+		Assert.notNull(delayWhenEmpty, "'delayWhenEmpty' must not be null");
+		this.delayWhenEmpty = delayWhenEmpty;
+	}
+
+	/**
+	 * Set the {@link Scheduler} to receive from the {@link MessageSource} on.
+	 * Its threads must allow blocking if the source (or, for a non-reactive output
+	 * channel, the downstream flow) may block. By default, a single-thread scheduler
+	 * is created for this endpoint.
+	 * @param scheduler the scheduler.
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		Assert.notNull(scheduler, "'scheduler' must not be null");
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "reactive-message-source-producer";
+	}
+
+	@Override
+	protected void doStart() {
+		Scheduler schedulerToUse = this.scheduler;
+		if (schedulerToUse == null) {
+			String threadNamePrefix = (getComponentName() != null ? getComponentName() : getComponentType()) + "-";
+			schedulerToUse = Schedulers.fromExecutorService(
+					Executors.newSingleThreadExecutor(new CustomizableThreadFactory(threadNamePrefix)));
+			this.ownScheduler = schedulerToUse;
+		}
+		Scheduler receiveScheduler = schedulerToUse;
+		Flux<Message<?>> messageFlux =
+				Mono.<Message<?>>fromSupplier(this.messageSource::receive)
+						.repeatWhenEmpty(attempts -> attempts.delayElements(this.delayWhenEmpty, receiveScheduler))
+						.repeat()
+						.subscribeOn(receiveScheduler);
+
+		subscribeToPublisher(messageFlux);
+	}
+
+	@Override
+	protected void doStop() {
+		super.doStop();
+		Scheduler schedulerToDispose = this.ownScheduler;
+		if (schedulerToDispose != null) {
+			this.ownScheduler = null;
+			schedulerToDispose.dispose();
+		}
+	}
+
+}
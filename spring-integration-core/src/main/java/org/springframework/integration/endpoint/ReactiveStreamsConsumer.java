@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,17 +26,24 @@ import org.springframework.context.Lifecycle;
 import org.springframework.integration.channel.MessageChannelReactiveUtils;
 import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.core.MessageProducer;
+import org.springframework.integration.handler.ReactiveMessageHandler;
+import org.springframework.integration.handler.ReactiveMessageHandlerAdapter;
 import org.springframework.integration.router.MessageRouter;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
 import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
 
 import reactor.core.CoreSubscriber;
 import reactor.core.Disposable;
 import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
 
 
 /**
@@ -55,10 +62,16 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 
 	private final Lifecycle lifecycleDelegate;
 
+	private final ReactiveMessageHandler reactiveMessageHandler;
+
 	private ErrorHandler errorHandler;
 
+	private int concurrency = Queues.SMALL_BUFFER_SIZE;
+
 	private volatile Subscription subscription;
 
+	private volatile Disposable reactiveSubscription;
+
 	@SuppressWarnings("unchecked")
 	public ReactiveStreamsConsumer(MessageChannel inputChannel, MessageHandler messageHandler) {
 		this(inputChannel,
@@ -81,12 +94,47 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 		else {
 			this.messageHandler = this.subscriber::onNext;
 		}
+		this.reactiveMessageHandler = null;
+	}
+
+	/**
+	 * Instantiate an endpoint composing the {@link Mono}s returned by the provided
+	 * {@link ReactiveMessageHandler} into the stream of messages from the input channel:
+	 * no more than {@link #setConcurrency(int) concurrency} messages are requested from
+	 * the channel until the handling of the previous ones is complete.
+	 * @param inputChannel the channel to consume.
+	 * @param reactiveMessageHandler the {@link ReactiveMessageHandler} to handle messages.
+	 * @since 5.1
+	 */
+	public ReactiveStreamsConsumer(MessageChannel inputChannel, ReactiveMessageHandler reactiveMessageHandler) {
+		Assert.notNull(inputChannel, "'inputChannel' must not be null");
+		Assert.notNull(reactiveMessageHandler, "'reactiveMessageHandler' must not be null");
+		this.inputChannel = inputChannel;
+		this.publisher = MessageChannelReactiveUtils.toPublisher(inputChannel);
+		this.reactiveMessageHandler = reactiveMessageHandler;
+		this.messageHandler = new ReactiveMessageHandlerAdapter(reactiveMessageHandler);
+		this.subscriber = null;
+		this.lifecycleDelegate =
+				reactiveMessageHandler instanceof Lifecycle ? (Lifecycle) reactiveMessageHandler : null;
 	}
 
 	public void setErrorHandler(ErrorHandler errorHandler) {
 		this.errorHandler = errorHandler;
 	}
 
+	/**
+	 * Set the maximum number of messages handled concurrently by the
+	 * {@link ReactiveMessageHandler}; this is also the demand signalled to the input
+	 * channel. Defaults to {@link Queues#SMALL_BUFFER_SIZE}.
+	 * Only applies when a {@link ReactiveMessageHandler} is provided.
+	 * @param concurrency the maximum number of messages in flight.
+	 * @since 5.1
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "'concurrency' must be greater than 0");
+		this.concurrency = concurrency;
+	}
+
 	@Override
 	public MessageChannel getInputChannel() {
 		return this.inputChannel;
@@ -94,11 +142,12 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 
 	@Override
 	public MessageChannel getOutputChannel() {
-		if (this.messageHandler instanceof MessageProducer) {
-			return ((MessageProducer) this.messageHandler).getOutputChannel();
+		Object handler = this.reactiveMessageHandler != null ? this.reactiveMessageHandler : this.messageHandler;
+		if (handler instanceof MessageProducer) {
+			return ((MessageProducer) handler).getOutputChannel();
 		}
-		else if (this.messageHandler instanceof MessageRouter) {
-			return ((MessageRouter) this.messageHandler).getDefaultOutputChannel();
+		else if (handler instanceof MessageRouter) {
+			return ((MessageRouter) handler).getDefaultOutputChannel();
 		}
 		else {
 			return null;
@@ -124,6 +173,13 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 		if (this.lifecycleDelegate != null) {
 			this.lifecycleDelegate.start();
 		}
+		if (this.reactiveMessageHandler != null) {
+			this.reactiveSubscription =
+					Flux.from(this.publisher)
+							.flatMap(this::handleReactive, this.concurrency)
+							.subscribe();
+			return;
+		}
 		this.publisher.subscribe(new BaseSubscriber<Message<?>>() {
 
 			private final Subscriber<Message<?>> delegate = ReactiveStreamsConsumer.this.subscriber;
@@ -154,24 +210,54 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 		});
 	}
 
+	private Mono<Void> handleReactive(Message<?> message) {
+		Mono<Void> result;
+		try {
+			result = this.reactiveMessageHandler.handleMessage(message);
+		}
+		catch (Exception e) {
+			result = Mono.error(e);
+		}
+		return result.onErrorResume(ex -> {
+			this.errorHandler.handleError(ex instanceof MessagingException
+					? ex
+					: new MessageHandlingException(message, ex));
+			return Mono.empty();
+		});
+	}
+
 	@Override
 	protected void doStop() {
 		if (this.subscription != null) {
 			this.subscription.cancel();
 		}
+		if (this.reactiveSubscription != null) {
+			this.reactiveSubscription.dispose();
+			this.reactiveSubscription = null;
+		}
 		if (this.lifecycleDelegate != null) {
 			this.lifecycleDelegate.stop();
 		}
 	}
 
 
+	/**
+	 * Requests the messages in batches of {@link Queues#SMALL_BUFFER_SIZE}, replenished
+	 * when three quarters are handled, instead of an unbounded demand.
+	 */
 	private static final class MessageHandlerSubscriber
 			implements CoreSubscriber<Message<?>>, Disposable, Lifecycle {
 
+		private static final int BATCH_SIZE = Queues.SMALL_BUFFER_SIZE;
+
+		private static final int REPLENISH_THRESHOLD = BATCH_SIZE - (BATCH_SIZE >> 2);
+
 		private final Consumer<Message<?>> consumer;
 
 		private Subscription subscription;
 
+		private int handled;
+
 		private MessageHandler messageHandler;
 
 		MessageHandlerSubscriber(MessageHandler messageHandler) {
@@ -183,12 +269,24 @@ public class ReactiveStreamsConsumer extends AbstractEndpoint implements Integra
 		@Override
 		public void onSubscribe(Subscription s) {
 			this.subscription = s;
-			s.request(Long.MAX_VALUE);
+			s.request(BATCH_SIZE);
 		}
 
 		@Override
 		public void onNext(Message<?> message) {
-			this.consumer.accept(message);
+			try {
+				this.consumer.accept(message);
+			}
+			finally {
+				// onNext signals are serialized
+				if (++this.handled == REPLENISH_THRESHOLD) {
+					this.handled = 0;
+					Subscription s = this.subscription;
+					if (s != null) {
+						s.request(REPLENISH_THRESHOLD);
+					}
+				}
+			}
 		}
 
 		@Override
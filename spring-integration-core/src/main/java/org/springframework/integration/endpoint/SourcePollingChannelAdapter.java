@@ -70,6 +70,8 @@ public class SourcePollingChannelAdapter extends AbstractPollingEndpoint
 
 	private volatile boolean shouldTrack;
 
+	private volatile int historySamplingRate = 1;
+
 	/**
 	 * Specify the source to be polled for Messages.
 	 *
@@ -129,6 +131,11 @@ public class SourcePollingChannelAdapter extends AbstractPollingEndpoint
 		this.shouldTrack = shouldTrack;
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historySamplingRate = samplingRate;
+	}
+
 	@Override
 	public String getComponentType() {
 		return (this.source instanceof NamedComponent) ?
@@ -213,7 +220,7 @@ public class SourcePollingChannelAdapter extends AbstractPollingEndpoint
 	@Override
 	protected void handleMessage(Message<?> message) {
 		if (this.shouldTrack) {
-			message = MessageHistory.write(message, this, getMessageBuilderFactory());
+			message = MessageHistory.write(message, this, getMessageBuilderFactory(), this.historySamplingRate);
 		}
 		AcknowledgmentCallback ackCallback = StaticMessageHeaderAccessor.getAcknowledgmentCallback(message);
 		try {
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compiles the {@link SpelExpression}s evaluated by a framework component, independently of
+ * the {@link SpelCompilerMode} of the parser they have been created with.
+ * <p>
+ * In the {@link SpelCompilerMode#MIXED} mode an expression is compiled after it has been
+ * interpreted {@value #WARM_UP_EVALUATIONS} times; in the {@link SpelCompilerMode#IMMEDIATE}
+ * mode after its first evaluation (SpEL needs at least one interpreted evaluation to
+ * determine the types to compile against). In both modes an expression which can't be
+ * compiled falls back to the interpretation for good. So does an expression whose compiled
+ * form doesn't match the types it is evaluated against later on (a
+ * {@link ClassCastException} or a {@link LinkageError} from the compiled code); the failed
+ * evaluation is then repeated in the interpreted form. Any other exception is thrown
+ * from the compiled expression as is.
+ * <p>
+ * Each component owns its manager, which keeps the compilation state of the expressions it
+ * evaluates for as long as they are referenced.
+ *
+ * @author agent
+ * @since 5.1
+ *
+ * @see org.springframework.integration.context.IntegrationProperties#EXPRESSIONS_COMPILER_MODE
+ */
+public class ExpressionCompilationManager {
+
+	/**
+	 * The number of interpreted evaluations before an expression is compiled
+	 * in the {@link SpelCompilerMode#MIXED} mode.
+	 */
+	public static final int WARM_UP_EVALUATIONS = 100;
+
+	private static final Log logger = LogFactory.getLog(ExpressionCompilationManager.class);
+
+	private static final Field COMPILED_AST_FIELD = ReflectionUtils.findField(SpelExpression.class, "compiledAst");
+
+	static {
+		ReflectionUtils.makeAccessible(COMPILED_AST_FIELD);
+	}
+
+	private final Map<Expression, CompilationState> states =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+	private volatile SpelCompilerMode compilerMode;
+
+	private volatile int warmUpEvaluations;
+
+	public ExpressionCompilationManager() {
+		this(SpelCompilerMode.OFF);
+	}
+
+	public ExpressionCompilationManager(SpelCompilerMode compilerMode) {
+		setCompilerMode(compilerMode);
+	}
+
+	/**
+	 * Parse the compiler mode name (case insensitive); an empty name means
+	 * {@link SpelCompilerMode#OFF}.
+	 * @param compilerMode the compiler mode name.
+	 * @return the compiler mode.
+	 * @throws IllegalArgumentException if the name isn't one of the {@link SpelCompilerMode}s.
+	 */
+	public static SpelCompilerMode parseCompilerMode(String compilerMode) {
+		if (!StringUtils.hasText(compilerMode)) {
+			return SpelCompilerMode.OFF;
+		}
+		String name = compilerMode.trim().toUpperCase();
+		for (SpelCompilerMode mode : SpelCompilerMode.values()) {
+			if (mode.name().equals(name)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Invalid SpEL compiler mode [" + compilerMode + "]; expected one of "
+				+ Arrays.toString(SpelCompilerMode.values()) + " (case insensitive)");
+	}
+
+	/**
+	 * Return whether the expression is currently compiled, either by a manager or by its
+	 * parser.
+	 * @param expression the expression.
+	 * @return true if compiled, false if interpreted and null if the expression isn't a
+	 * {@link SpelExpression}.
+	 */
+	public static Boolean isCompiled(Expression expression) {
+		if (expression instanceof SpelExpression) {
+			return ReflectionUtils.getField(COMPILED_AST_FIELD, expression) != null;
+		}
+		return null;
+	}
+
+	/**
+	 * Set the compiler mode applied by this manager.
+	 * @param compilerMode the compiler mode.
+	 */
+	public final void setCompilerMode(SpelCompilerMode compilerMode) {
+		Assert.notNull(compilerMode, "'compilerMode' must not be null");
+		this.warmUpEvaluations = compilerMode == SpelCompilerMode.MIXED ? WARM_UP_EVALUATIONS : 1;
+		this.compilerMode = compilerMode;
+	}
+
+	public SpelCompilerMode getCompilerMode() {
+		return this.compilerMode;
+	}
+
+	/**
+	 * Exclude the expression from the compilation by this manager; for example, because it
+	 * has been parsed with an explicitly configured {@link SpelCompilerMode}.
+	 * @param expression the expression.
+	 */
+	public void exclude(Expression expression) {
+		if (expression instanceof SpelExpression) {
+			this.states.put(expression, CompilationState.EXCLUDED);
+		}
+	}
+
+	/**
+	 * Evaluate the expression against the root object of the evaluation context, compiling
+	 * the expression as and if needed.
+	 * @param expression the expression.
+	 * @param context the evaluation context.
+	 * @param expectedType the result type (may be null).
+	 * @param <T> the result type.
+	 * @return the evaluation result.
+	 */
+	public <T> T getValue(Expression expression, EvaluationContext context, Class<T> expectedType) {
+		return evaluate(expression, context, false, null, expectedType);
+	}
+
+	/**
+	 * Evaluate the expression against the provided root object, compiling the expression
+	 * as and if needed.
+	 * @param expression the expression.
+	 * @param context the evaluation context.
+	 * @param rootObject the root object.
+	 * @param expectedType the result type (may be null).
+	 * @param <T> the result type.
+	 * @return the evaluation result.
+	 */
+	public <T> T getValue(Expression expression, EvaluationContext context, Object rootObject,
+			Class<T> expectedType) {
+
+		return evaluate(expression, context, true, rootObject, expectedType);
+	}
+
+	private <T> T evaluate(Expression expression, EvaluationContext context, boolean withRoot, Object rootObject,
+			Class<T> expectedType) {
+
+		if (this.compilerMode == SpelCompilerMode.OFF || !(expression instanceof SpelExpression)) {
+			return doGetValue(expression, context, withRoot, rootObject, expectedType);
+		}
+		CompilationState state = this.states.get(expression);
+		if (state == null) {
+			state = new CompilationState();
+			CompilationState existing = this.states.putIfAbsent(expression, state);
+			if (existing != null) {
+				state = existing;
+			}
+		}
+		if (state.interpretedOnly) {
+			return doGetValue(expression, context, withRoot, rootObject, expectedType);
+		}
+		if (state.compiled) {
+			try {
+				return doGetValue(expression, context, withRoot, rootObject, expectedType);
+			}
+			catch (SpelEvaluationException e) {
+				if (!SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION.equals(e.getMessageCode())
+						|| !(e.getCause() instanceof ClassCastException || e.getCause() instanceof LinkageError)) {
+					throw e;
+				}
+				state.revert((SpelExpression) expression, e);
+				return doGetValue(expression, context, withRoot, rootObject, expectedType);
+			}
+		}
+		T result = doGetValue(expression, context, withRoot, rootObject, expectedType);
+		if (state.evaluations.incrementAndGet() >= this.warmUpEvaluations) {
+			state.compile((SpelExpression) expression);
+		}
+		return result;
+	}
+
+	private static <T> T doGetValue(Expression expression, EvaluationContext context, boolean withRoot,
+			Object rootObject, Class<T> expectedType) {
+
+		return withRoot
+				? expression.getValue(context, rootObject, expectedType)
+				: expression.getValue(context, expectedType);
+	}
+
+	private static final class CompilationState {
+
+		private static final CompilationState EXCLUDED = new CompilationState(true);
+
+		private final AtomicInteger evaluations = new AtomicInteger();
+
+		private volatile boolean compiled;
+
+		private volatile boolean interpretedOnly;
+
+		CompilationState() {
+			this(false);
+		}
+
+		private CompilationState(boolean interpretedOnly) {
+			this.interpretedOnly = interpretedOnly;
+		}
+
+		synchronized void compile(SpelExpression expression) {
+			if (!this.compiled && !this.interpretedOnly) {
+				if (expression.compileExpression()) {
+					this.compiled = true;
+				}
+				else {
+					this.interpretedOnly = true;
+					if (logger.isDebugEnabled()) {
+						logger.debug("The expression [" + expression.getExpressionString() +
+								"] can't be compiled; it will be interpreted.");
+					}
+				}
+			}
+		}
+
+		synchronized void revert(SpelExpression expression, SpelEvaluationException e) {
+			if (this.compiled) {
+				expression.revertToInterpreted();
+				this.compiled = false;
+				this.interpretedOnly = true;
+				if (logger.isDebugEnabled()) {
+					logger.debug("The compiled expression [" + expression.getExpressionString() +
+							"] has failed; it will be interpreted from now on.", e);
+				}
+			}
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
@@ -118,6 +119,8 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 
 	private volatile boolean shouldTrack = false;
 
+	private volatile int historySamplingRate = 1;
+
 	private volatile TypeConverter typeConverter = new SimpleTypeConverter();
 
 	private volatile ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
@@ -132,6 +135,8 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 
 	private volatile Class<?> asyncSubmitListenableType;
 
+	private volatile boolean nonBlockingReplies;
+
 	private volatile boolean initialized;
 
 	private final Object initializationMonitor = new Object();
@@ -317,6 +322,16 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 		}
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historySamplingRate = samplingRate;
+		if (!CollectionUtils.isEmpty(this.gatewayMap)) {
+			for (MethodInvocationGateway gateway : this.gatewayMap.values()) {
+				gateway.setHistorySamplingRate(samplingRate);
+			}
+		}
+	}
+
 	/**
 	 * Set the executor for use when the gateway method returns
 	 * {@link java.util.concurrent.Future} or {@link org.springframework.util.concurrent.ListenableFuture}.
@@ -333,6 +348,20 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 				: new TaskExecutorAdapter(executor);
 	}
 
+	/**
+	 * Set to true to implement the {@link CompletableFuture} (or its super types) and
+	 * {@link Mono} method return types without the {@link #setAsyncExecutor(Executor)
+	 * async executor}: the request is sent on the calling thread and the future is
+	 * completed directly when the reply arrives (or by a scheduler when the reply timeout
+	 * elapses), so no thread waits for the reply. Only applies to methods sending a
+	 * request (with arguments or a payload expression). Default false.
+	 * @param nonBlockingReplies true to complete the futures directly from the replies.
+	 * @since 5.1
+	 */
+	public void setNonBlockingReplies(boolean nonBlockingReplies) {
+		this.nonBlockingReplies = nonBlockingReplies;
+	}
+
 	public void setTypeConverter(TypeConverter typeConverter) {
 		Assert.notNull(typeConverter, "typeConverter must not be null");
 		this.typeConverter = typeConverter;
@@ -435,6 +464,9 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 	@Override
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		final Class<?> returnType = invocation.getMethod().getReturnType();
+		if (this.nonBlockingReplies && isNonBlockingReplyCapable(invocation.getMethod())) {
+			return invokeGatewayMethodNonBlocking(invocation);
+		}
 		if (this.asyncExecutor != null && !Object.class.equals(returnType)) {
 			Invoker invoker = new Invoker(invocation);
 			if (returnType.isAssignableFrom(this.asyncSubmitType)) {
@@ -460,6 +492,37 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 		return this.doInvoke(invocation, true);
 	}
 
+	private boolean isNonBlockingReplyCapable(Method method) {
+		Class<?> returnType = method.getReturnType();
+		boolean futureReturnType =
+				(Future.class.isAssignableFrom(returnType) || CompletionStage.class.isAssignableFrom(returnType))
+						&& returnType.isAssignableFrom(CompletableFuture.class);
+		return (futureReturnType || Mono.class.equals(returnType))
+				&& (method.getParameterTypes().length > 0 || hasPayloadExpression(method));
+	}
+
+	private Object invokeGatewayMethodNonBlocking(MethodInvocation invocation) throws Exception {
+		if (!this.initialized) {
+			this.afterPropertiesSet();
+		}
+		Method method = invocation.getMethod();
+		MethodInvocationGateway gateway = this.gatewayMap.get(method);
+		boolean shouldReturnMessage = hasReturnParameterizedWithMessage(method, false);
+		Object[] args = invocation.getArguments();
+		if (Mono.class.equals(method.getReturnType())) {
+			return Mono.defer(() -> Mono.fromFuture(sendAndReceiveAsync(gateway, args, shouldReturnMessage)));
+		}
+		return sendAndReceiveAsync(gateway, args, shouldReturnMessage);
+	}
+
+	private static CompletableFuture<?> sendAndReceiveAsync(MethodInvocationGateway gateway, Object[] args,
+			boolean shouldReturnMessage) {
+
+		return shouldReturnMessage
+				? gateway.sendAndReceiveMessageAsync(args)
+				: gateway.sendAndReceiveAsync(args);
+	}
+
 	protected Object doInvoke(MethodInvocation invocation, boolean runningOnCallerThread) throws Throwable {
 		Method method = invocation.getMethod();
 		if (AopUtils.isToStringMethod(method)) {
@@ -486,13 +549,7 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 		boolean shouldReply = returnType != void.class;
 		int paramCount = method.getParameterTypes().length;
 		Object response = null;
-		boolean hasPayloadExpression = method.isAnnotationPresent(Payload.class);
-		if (!hasPayloadExpression && this.methodMetadataMap != null) {
-			// check for the method metadata next
-			GatewayMethodMetadata metadata = this.methodMetadataMap.get(method.getName());
-			hasPayloadExpression = (metadata != null) && StringUtils.hasText(metadata.getPayloadExpression());
-		}
-		if (paramCount == 0 && !hasPayloadExpression) {
+		if (paramCount == 0 && !hasPayloadExpression(method)) {
 			Long receiveTimeout = null;
 			if (gateway.getReceiveTimeoutExpression() != null) {
 				receiveTimeout = gateway.getReceiveTimeoutExpression().getValue(this.evaluationContext, Long.class);
@@ -527,6 +584,16 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 		return (response != null) ? this.convert(response, returnType) : null;
 	}
 
+	private boolean hasPayloadExpression(Method method) {
+		boolean hasPayloadExpression = method.isAnnotationPresent(Payload.class);
+		if (!hasPayloadExpression && this.methodMetadataMap != null) {
+			// check for the method metadata next
+			GatewayMethodMetadata metadata = this.methodMetadataMap.get(method.getName());
+			hasPayloadExpression = (metadata != null) && StringUtils.hasText(metadata.getPayloadExpression());
+		}
+		return hasPayloadExpression;
+	}
+
 	private void rethrowExceptionCauseIfPossible(Throwable originalException, Method method) throws Throwable {
 		Class<?>[] exceptionTypes = method.getExceptionTypes();
 		Throwable t = originalException;
@@ -723,6 +790,7 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint
 			gateway.setReceiveTimeoutExpression(replyTimeout);
 		}
 		gateway.setShouldTrack(this.shouldTrack);
+		gateway.setHistorySamplingRate(this.historySamplingRate);
 		gateway.afterPropertiesSet();
 		return gateway;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.integration.gateway;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
@@ -256,6 +257,11 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 		this.historyWritingPostProcessor.setShouldTrack(shouldTrack);
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historyWritingPostProcessor.setSamplingRate(samplingRate);
+	}
+
 	@Override
 	public int getMessageCount() {
 		return (int) this.messageCount.get();
@@ -565,12 +571,50 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 
 		registerReplyMessageCorrelatorIfNecessary();
 
-		return doSendAndReceiveMessageReactive(requestChannel, object, false);
+		return doSendAndReceiveMessageReactive(requestChannel, object, false, false);
+	}
+
+	/**
+	 * Send the request and return a {@link CompletableFuture} which is completed with the
+	 * reply payload by the thread sending the reply; no thread waits for the reply.
+	 * The reply timeout is enforced by a scheduler: the future is completed with
+	 * {@code null} (or exceptionally with a {@link MessageTimeoutException} if
+	 * {@code errorOnTimeout} is true) when no reply arrives in time. Failures are
+	 * handled by the error channel flow, if any, as in {@link #sendAndReceive(Object)}.
+	 * @param object the request.
+	 * @return the future reply payload.
+	 * @since 5.1
+	 */
+	protected CompletableFuture<Object> sendAndReceiveAsync(Object object) {
+		return sendAndReceiveMessageAsync(object)
+				.thenApply(reply -> reply != null ? reply.getPayload() : null);
+	}
+
+	/**
+	 * Send the request and return a {@link CompletableFuture} which is completed with the
+	 * reply message by the thread sending the reply; no thread waits for the reply.
+	 * @param object the request.
+	 * @return the future reply message.
+	 * @since 5.1
+	 * @see #sendAndReceiveAsync(Object)
+	 */
+	protected CompletableFuture<Message<?>> sendAndReceiveMessageAsync(Object object) {
+		initializeIfNecessary();
+		Assert.notNull(object, "request must not be null");
+		MessageChannel requestChannel = getRequestChannel();
+		if (requestChannel == null) {
+			throw new MessagingException("No request channel available. Cannot send request message.");
+		}
+
+		registerReplyMessageCorrelatorIfNecessary();
+
+		return doSendAndReceiveMessageReactive(requestChannel, object, false, true)
+				.toFuture();
 	}
 
 	@SuppressWarnings("unchecked")
 	private Mono<Message<?>> doSendAndReceiveMessageReactive(MessageChannel requestChannel, Object object,
-			boolean error) {
+			boolean error, boolean async) {
 
 		return Mono.defer(() -> {
 			Message<?> message;
@@ -588,6 +632,7 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 
 			Object originalReplyChannelHeader = message.getHeaders().getReplyChannel();
 			Object originalErrorChannelHeader = message.getHeaders().getErrorChannel();
+			long replyTimeout = async ? receiveTimeout(message) : -1;
 
 			FutureReplyChannel replyChannel = new FutureReplyChannel();
 
@@ -617,7 +662,23 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 				}
 			}
 
-			return Mono.fromFuture(replyChannel.messageFuture)
+			Mono<Message<?>> replyMono = Mono.fromFuture(replyChannel.messageFuture);
+			if (async) {
+				replyMono = replyMono.flatMap(replyMessage ->
+						replyMessage.getPayload() instanceof Throwable
+								? Mono.<Message<?>>error((Throwable) replyMessage.getPayload())
+								: Mono.just(replyMessage));
+				if (replyTimeout >= 0) {
+					Message<?> timedOutMessage = message;
+					replyMono = replyMono.timeout(Duration.ofMillis(replyTimeout),
+							Mono.defer(() -> this.errorOnTimeout
+									? Mono.<Message<?>>error(new MessageTimeoutException(timedOutMessage,
+											"No reply received within timeout"))
+									: Mono.<Message<?>>empty()));
+				}
+			}
+
+			return replyMono
 					.doOnSubscribe(s -> {
 						if (!error && this.countsEnabled) {
 							this.messageCount.incrementAndGet();
@@ -629,11 +690,11 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 									.setHeader(MessageHeaders.ERROR_CHANNEL, originalErrorChannelHeader)
 									.build())
 
-					.onErrorResume(t -> error ? Mono.error(t) : handleSendError(requestMessage, t));
+					.onErrorResume(t -> error ? Mono.error(t) : handleSendError(requestMessage, t, async));
 		});
 	}
 
-	private Mono<Message<?>> handleSendError(Message<?> requestMessage, Throwable exception) {
+	private Mono<Message<?>> handleSendError(Message<?> requestMessage, Throwable exception, boolean async) {
 		if (logger.isDebugEnabled()) {
 			logger.debug("failure occurred in gateway sendAndReceiveReactive: " + exception.getMessage());
 		}
@@ -641,7 +702,7 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint
 		if (errorChannel != null) {
 			ErrorMessage errorMessage = buildErrorMessage(requestMessage, exception);
 			try {
-				return doSendAndReceiveMessageReactive(errorChannel, errorMessage, true);
+				return doSendAndReceiveMessageReactive(errorChannel, errorMessage, true, async);
 			}
 			catch (Exception errorFlowFailure) {
 				throw new MessagingException(errorMessage, "failure occurred in error-handling flow", errorFlowFailure);
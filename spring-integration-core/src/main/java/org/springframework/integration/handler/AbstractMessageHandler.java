@@ -61,6 +61,8 @@ public abstract class AbstractMessageHandler extends IntegrationObjectSupport
 
 	private volatile boolean shouldTrack = false;
 
+	private volatile int historySamplingRate = 1;
+
 	private volatile int order = Ordered.LOWEST_PRECEDENCE;
 
 	private volatile AbstractMessageHandlerMetrics handlerMetrics = new DefaultMessageHandlerMetrics();
@@ -116,6 +118,11 @@ public abstract class AbstractMessageHandler extends IntegrationObjectSupport
 		this.shouldTrack = shouldTrack;
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.historySamplingRate = samplingRate;
+	}
+
 	@Override
 	public void configureMetrics(AbstractMessageHandlerMetrics metrics) {
 		Assert.notNull(metrics, "'metrics' must not be null");
@@ -151,7 +158,9 @@ public abstract class AbstractMessageHandler extends IntegrationObjectSupport
 		}
 		try {
 			if (this.shouldTrack) {
-				message = MessageHistory.write(message, this, getMessageBuilderFactory());
+				// only message sources sample; a message without a history here is not sampled
+				message = MessageHistory.write(message, this, getMessageBuilderFactory(),
+						this.historySamplingRate > 1 ? 0 : 1);
 			}
 			if (countsEnabled) {
 				start = handlerMetrics.beforeHandle();
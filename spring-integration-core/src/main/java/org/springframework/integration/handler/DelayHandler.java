@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,16 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.aopalliance.aop.Advice;
 
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.expression.EvaluationContext;
@@ -37,6 +41,7 @@ import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.store.TimeIndexedMessageGroupStore;
 import org.springframework.integration.support.management.IntegrationManagedResource;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.messaging.Message;
@@ -71,6 +76,13 @@ import org.springframework.util.CollectionUtils;
  * seconds from the current time). If the value is a Date, it will be
  * delayed at least until that Date occurs (i.e. the delay in that case is
  * equivalent to {@code headerDate.getTime() - new Date().getTime()}).
+ * <p>
+ * With a positive {@link #setLookAheadWindow(long) look-ahead window} and a
+ * {@link TimeIndexedMessageGroupStore}, the delayed Messages are stored indexed by their
+ * release time and the rescheduling of the persisted Messages is lazy: instead of loading
+ * the whole group on startup, only the Messages due within the window are read from the
+ * store, in {@link #setLookAheadPageSize(int) pages}, and scheduled, and the window is
+ * advanced periodically.
  *
  * @author Mark Fisher
  * @author Artem Bilan
@@ -82,7 +94,9 @@ import org.springframework.util.CollectionUtils;
 @ManagedResource
 @IntegrationManagedResource
 public class DelayHandler extends AbstractReplyProducingMessageHandler implements DelayHandlerManagement,
-		ApplicationListener<ContextRefreshedEvent> {
+		ApplicationListener<ContextRefreshedEvent>, DisposableBean {
+
+	public static final int DEFAULT_LOOK_AHEAD_PAGE_SIZE = 1000;
 
 	private final String messageGroupId;
 
@@ -102,6 +116,20 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 
 	private EvaluationContext evaluationContext;
 
+	private volatile long lookAheadWindow;
+
+	private volatile int lookAheadPageSize = DEFAULT_LOOK_AHEAD_PAGE_SIZE;
+
+	private volatile long scheduledUntil = Long.MIN_VALUE;
+
+	private ScheduledFuture<?> lookAheadTask;
+
+	/**
+	 * The release times of the Messages scheduled in the look-ahead mode which the next
+	 * (overlapping) window query may return again.
+	 */
+	private final Map<UUID, Long> lookAheadScheduled = new ConcurrentHashMap<>();
+
 	/**
 	 * Create a DelayHandler with the given 'messageGroupId' that is used as 'key' for {@link MessageGroup}
 	 * to store delayed Messages in the {@link MessageGroupStore}. The sending of Messages after
@@ -205,6 +233,38 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		this.delayedAdviceChain = delayedAdviceChain;
 	}
 
+	/**
+	 * Set the look-ahead window (in milliseconds) for the lazy rescheduling of the
+	 * persisted Messages. When positive, only the Messages to be released within the
+	 * window are scheduled; the others are just kept in the store. The window is
+	 * advanced every half window: the next Messages, ordered by their release time, are
+	 * then read from the store and scheduled. Consecutive queries overlap by a whole window,
+	 * so Messages stored in a transaction which commits after the query of their window
+	 * (but within half a window) are still picked up.
+	 * Requires a {@link TimeIndexedMessageGroupStore}.
+	 * Default 0 - the release time is not stored and all the persisted Messages are
+	 * rescheduled at once on startup.
+	 * @param lookAheadWindow the look-ahead window.
+	 * @since 5.1
+	 * @see #reschedulePersistedMessages()
+	 */
+	public void setLookAheadWindow(long lookAheadWindow) {
+		this.lookAheadWindow = lookAheadWindow;
+	}
+
+	/**
+	 * Set the maximum number of persisted Messages read from the store at once by the
+	 * {@link #setLookAheadWindow(long) look-ahead} rescheduling, e.g. for the Messages
+	 * which became overdue while the application was down.
+	 * Default {@value #DEFAULT_LOOK_AHEAD_PAGE_SIZE}.
+	 * @param lookAheadPageSize the page size.
+	 * @since 5.1
+	 */
+	public void setLookAheadPageSize(int lookAheadPageSize) {
+		Assert.isTrue(lookAheadPageSize > 0, "'lookAheadPageSize' must be greater than 0");
+		this.lookAheadPageSize = lookAheadPageSize;
+	}
+
 	@Override
 	public String getComponentType() {
 		return "delayer";
@@ -218,6 +278,8 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		else {
 			Assert.isInstanceOf(MessageStore.class, this.messageStore);
 		}
+		Assert.state(this.lookAheadWindow <= 0 || this.messageStore instanceof TimeIndexedMessageGroupStore,
+				"The 'lookAheadWindow' requires a TimeIndexedMessageGroupStore");
 		this.evaluationContext = ExpressionUtils.createStandardEvaluationContext(this.getBeanFactory());
 		this.releaseHandler = this.createReleaseMessageTask();
 	}
@@ -329,10 +391,22 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 					.withPayload(messageWrapper)
 					.copyHeaders(message.getHeaders())
 					.build();
-			this.messageStore.addMessageToGroup(this.messageGroupId, delayedMessage);
+			if (this.lookAheadWindow > 0) {
+				long releaseTime = messageWrapper.getRequestDate() + delay;
+				((TimeIndexedMessageGroupStore) this.messageStore)
+						.addMessageToGroup(this.messageGroupId, delayedMessage, releaseTime);
+				if (releaseTime >= this.scheduledUntil
+						|| this.lookAheadScheduled.putIfAbsent(delayedMessage.getHeaders().getId(), releaseTime)
+								!= null) {
+					// Will be scheduled when the look-ahead window reaches it (or has been already)
+					return;
+				}
+			}
+			else {
+				this.messageStore.addMessageToGroup(this.messageGroupId, delayedMessage);
+			}
 		}
 
-
 		Runnable releaseTask;
 
 		if (this.messageStore instanceof SimpleMessageStore) {
@@ -417,9 +491,21 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 	 * The logic is based on iteration over {@code messageGroup.getMessages()}
 	 * and schedules task for 'delay' logic.
 	 * This behavior is dictated by the avoidance of invocation thread overload.
+	 * With a positive {@link #setLookAheadWindow(long) look-ahead window}, starts
+	 * (or restarts) the periodic task which schedules the Messages due within the window instead.
 	 */
 	@Override
 	public synchronized void reschedulePersistedMessages() {
+		if (this.lookAheadWindow > 0) {
+			if (this.lookAheadTask != null) {
+				this.lookAheadTask.cancel(false);
+			}
+			this.scheduledUntil = Long.MIN_VALUE;
+			this.lookAheadScheduled.clear();
+			this.lookAheadTask = getTaskScheduler().scheduleWithFixedDelay(this::rescheduleMessagesWithinWindow,
+					Math.max(this.lookAheadWindow / 2, 1));
+			return;
+		}
 		MessageGroup messageGroup = this.messageStore.getMessageGroup(this.messageGroupId);
 		for (final Message<?> message : messageGroup.getMessages()) {
 			getTaskScheduler().schedule((Runnable) () -> {
@@ -436,6 +522,71 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		}
 	}
 
+	private synchronized void rescheduleMessagesWithinWindow() {
+		long from = this.scheduledUntil;
+		long to = System.currentTimeMillis() + this.lookAheadWindow;
+		// Overlap the previous window: a Message added in a transaction which committed
+		// after the previous query was neither returned by it nor scheduled by its sender
+		long queryFrom = from == Long.MIN_VALUE ? from : from - this.lookAheadWindow;
+		// Advance the window before reading, so a concurrently added Message is either
+		// scheduled by its sender or returned by the query; the ids deduplicate both
+		this.scheduledUntil = to;
+		try {
+			scheduleMessagesWithin(queryFrom, to);
+		}
+		catch (RuntimeException e) {
+			this.scheduledUntil = from;
+			throw e;
+		}
+		// The next query starts one window before 'to'
+		long nextQueryFrom = to - this.lookAheadWindow;
+		this.lookAheadScheduled.values().removeIf(releaseTime -> releaseTime < nextQueryFrom);
+	}
+
+	/*
+	 * Read the Messages of the range page by page, each page starting from the release
+	 * time of the last Message of the previous one; the Messages at that time are read
+	 * again and deduplicated by their ids.
+	 */
+	private void scheduleMessagesWithin(long from, long to) {
+		TimeIndexedMessageGroupStore store = (TimeIndexedMessageGroupStore) this.messageStore;
+		int pageSize = this.lookAheadPageSize;
+		long pageFrom = from;
+		while (pageFrom < to) {
+			Collection<Message<?>> messages = store.getMessagesForGroup(this.messageGroupId, pageFrom, to, pageSize);
+			long lastReleaseTime = scheduleMessages(messages, pageFrom);
+			if (messages.size() < pageSize) {
+				break;
+			}
+			if (lastReleaseTime > pageFrom) {
+				pageFrom = lastReleaseTime;
+			}
+			else {
+				// A whole page released at the same time: read the rest of that millisecond
+				scheduleMessages(store.getMessagesForGroup(this.messageGroupId, pageFrom, pageFrom + 1,
+						Integer.MAX_VALUE), pageFrom);
+				pageFrom++;
+			}
+			// Neither the next page nor the next window can return these again
+			long forgetBefore = Math.min(pageFrom, to - this.lookAheadWindow);
+			this.lookAheadScheduled.values().removeIf(releaseTime -> releaseTime < forgetBefore);
+		}
+	}
+
+	private long scheduleMessages(Collection<Message<?>> messages, long from) {
+		long lastReleaseTime = from;
+		for (Message<?> message : messages) {
+			long delay = determineDelayForMessage(message);
+			long releaseTime = ((DelayedMessageWrapper) message.getPayload()).getRequestDate() + delay;
+			lastReleaseTime = Math.max(lastReleaseTime, releaseTime);
+			if (this.lookAheadScheduled.putIfAbsent(message.getHeaders().getId(), releaseTime) == null) {
+				// A non-positive delay schedules the release immediately
+				releaseMessageAfterDelay(message, delay);
+			}
+		}
+		return lastReleaseTime;
+	}
+
 	/**
 	 * Handles {@link ContextRefreshedEvent} to invoke {@link #reschedulePersistedMessages}
 	 * as late as possible after application context startup.
@@ -455,6 +606,15 @@ public class DelayHandler extends AbstractReplyProducingMessageHandler implement
 		}
 	}
 
+	@Override
+	public synchronized void destroy() {
+		if (this.lookAheadTask != null) {
+			this.lookAheadTask.cancel(false);
+			this.lookAheadTask = null;
+		}
+		this.lookAheadScheduled.clear();
+	}
+
 
 	/**
 	 * Delegate {@link MessageHandler} implementation for 'release Message task'.
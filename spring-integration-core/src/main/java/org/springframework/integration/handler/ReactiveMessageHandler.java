@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.handler;
+
+import org.springframework.messaging.Message;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A non-blocking counterpart of the {@link org.springframework.messaging.MessageHandler}:
+ * instead of handling the message on the calling thread, it returns a {@link Mono}
+ * which completes when the message has been handled.
+ * <p>
+ * When consumed from a {@link org.springframework.integration.channel.FluxMessageChannel}
+ * by a {@link org.springframework.integration.endpoint.ReactiveStreamsConsumer}, the
+ * returned {@link Mono} is composed into the consumer's stream and the next messages
+ * are requested from the channel only when the previous ones are done; for any other
+ * channel type it is adapted via {@link ReactiveMessageHandlerAdapter} and blocks the
+ * calling thread until the returned {@link Mono} completes.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@FunctionalInterface
+public interface ReactiveMessageHandler {
+
+	/**
+	 * Handle the given message.
+	 * @param message the message to be handled.
+	 * @return a {@link Mono} completing when the message is handled.
+	 */
+	Mono<Void> handleMessage(Message<?> message);
+
+}
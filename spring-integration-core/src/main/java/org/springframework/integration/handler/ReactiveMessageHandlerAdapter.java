@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.handler;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.Assert;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A {@link MessageHandler} adapting a {@link ReactiveMessageHandler}: the
+ * {@link #handleMessage(Message)} blocks until the {@link reactor.core.publisher.Mono}
+ * returned by the delegate completes.
+ * <p>
+ * Components which are aware of the reactive contract (such as the
+ * {@link org.springframework.integration.config.ConsumerEndpointFactoryBean} for a
+ * {@link org.reactivestreams.Publisher} input channel) unwrap the
+ * {@link #getDelegate() delegate} and compose it without blocking.
+ * <p>
+ * Since it blocks, the adapter must not be invoked on a Reactor non-blocking thread
+ * (e.g. of the {@link Schedulers#parallel() parallel} scheduler or a Netty event loop);
+ * a {@link MessageHandlingException} is thrown in this case. Use a {@code Publisher}
+ * input channel or hand the message off to another thread (e.g. an
+ * {@code ExecutorChannel}) instead.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class ReactiveMessageHandlerAdapter implements MessageHandler {
+
+	private final ReactiveMessageHandler delegate;
+
+	/**
+	 * Instantiate based on the provided {@link ReactiveMessageHandler}.
+	 * @param reactiveMessageHandler the {@link ReactiveMessageHandler} to delegate to.
+	 */
+	public ReactiveMessageHandlerAdapter(ReactiveMessageHandler reactiveMessageHandler) {
+		Assert.notNull(reactiveMessageHandler, "'reactiveMessageHandler' must not be null");
+		this.delegate = reactiveMessageHandler;
+	}
+
+	public ReactiveMessageHandler getDelegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public void handleMessage(Message<?> message) {
+		if (Schedulers.isInNonBlockingThread()) {
+			throw new MessageHandlingException(message, "The ReactiveMessageHandlerAdapter for [" + this.delegate
+					+ "] cannot block on the non-blocking thread [" + Thread.currentThread().getName()
+					+ "]; consider a Publisher input channel or an ExecutorChannel in front of it");
+		}
+		this.delegate.handleMessage(message).block();
+	}
+
+}
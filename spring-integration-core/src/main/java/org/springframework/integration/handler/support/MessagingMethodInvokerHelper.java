@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,6 +108,11 @@ import org.springframework.util.StringUtils;
  * the method-selection will be dynamic, based on the underlying SpEL method resolution.
  * Alternatively, an annotation type may be provided so that the candidates for SpEL's
  * method resolution are determined by the presence of that annotation rather than the method name.
+ * <p>
+ * Once a handler method is chosen, it is invoked through a {@link java.lang.invoke.MethodHandle}
+ * with the arguments taken directly from the message, when the parameters map unambiguously
+ * to the message, its payload or its headers and no argument conversion is needed; otherwise
+ * the {@link InvocableHandlerMethod} resolves the arguments (or the SpEL invoker is used).
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -155,6 +161,14 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private static final TypeDescriptor messageArrayTypeDescriptor = TypeDescriptor.valueOf(Message[].class);
 
+	/*
+	 * The argument resolvers registered by the framework; the MethodHandleInvoker skips the
+	 * resolvers only when no others (including subclasses of these) are configured.
+	 */
+	private static final Set<Class<?>> KNOWN_ARGUMENT_RESOLVERS =
+			new HashSet<>(Arrays.asList(PayloadExpressionArgumentResolver.class, PayloadsArgumentResolver.class,
+					MapArgumentResolver.class, CollectionArgumentResolver.class));
+
 	static {
 		SPEL_COMPILERS.put(SpelCompilerMode.OFF, EXPRESSION_PARSER_OFF);
 		SPEL_COMPILERS.put(SpelCompilerMode.IMMEDIATE, EXPRESSION_PARSER_IMMEDIATE);
@@ -194,6 +208,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private boolean useSpelInvoker;
 
+	private volatile boolean methodHandleInvocation = true;
+
 	private HandlerMethod defaultHandlerMethod;
 
 	private BeanExpressionResolver resolver = new StandardBeanExpressionResolver();
@@ -481,17 +497,23 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private void initializeHandler(HandlerMethod candidate) {
 		ExpressionParser parser;
+		boolean explicitCompilerMode = false;
 		if (candidate.useSpelInvoker == null) {
 			parser = EXPRESSION_PARSER_DEFAULT;
 		}
 		else {
 			String compilerMode = resolveExpression(candidate.useSpelInvoker.compilerMode(),
 					"UseSpelInvoker.compilerMode:").toUpperCase();
-			parser = !StringUtils.hasText(compilerMode)
+			explicitCompilerMode = StringUtils.hasText(compilerMode);
+			parser = !explicitCompilerMode
 					? EXPRESSION_PARSER_DEFAULT
 					: SPEL_COMPILERS.get(SpelCompilerMode.valueOf(compilerMode));
 		}
 		candidate.expression = parser.parseExpression(candidate.expressionString);
+		if (explicitCompilerMode) {
+			// the UseSpelInvoker.compilerMode takes precedence over the global one
+			getExpressionCompilationManager().exclude(candidate.expression);
+		}
 		candidate.initialized = true;
 	}
 
@@ -516,6 +538,11 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 					this.messageHandlerMethodFactory.setCustomArgumentResolvers(
 							handlerMethodArgumentResolversHolder.getResolvers());
+					// the MethodHandleInvoker doesn't know what an arbitrary resolver would do with a parameter
+					this.methodHandleInvocation =
+							handlerMethodArgumentResolversHolder.getResolvers()
+									.stream()
+									.allMatch(resolver -> KNOWN_ARGUMENT_RESOLVERS.contains(resolver.getClass()));
 				}
 				catch (NoSuchBeanDefinitionException e) {
 					configureLocalMessageHandlerFactory();
@@ -572,7 +599,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 	@SuppressWarnings("unchecked")
 	private T invokeHandlerMethod(HandlerMethod handlerMethod, ParametersWrapper parameters) throws Exception {
 		try {
-			return (T) handlerMethod.invoke(parameters);
+			return (T) handlerMethod.invoke(parameters, this.methodHandleInvocation);
 		}
 		catch (MethodArgumentResolutionException | MessageConversionException | IllegalStateException e) {
 			if (e instanceof MessageConversionException) {
@@ -1020,6 +1047,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 		private final boolean canProcessMessageList;
 
+		private final MethodHandleInvoker methodHandleInvoker;
+
 		private volatile Expression expression;
 
 		private volatile TypeDescriptor targetParameterTypeDescriptor;
@@ -1045,15 +1074,27 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			this.invocableHandlerMethod = invocableHandlerMethod;
 			this.canProcessMessageList = canProcessMessageList;
 			this.expressionString = generateExpression(this.invocableHandlerMethod.getMethod());
+			this.methodHandleInvoker =
+					canProcessMessageList
+							? null
+							: MethodHandleInvoker.forMethod(this.invocableHandlerMethod.getBean(),
+									this.invocableHandlerMethod.getMethod(), PARAMETER_NAME_DISCOVERER);
 		}
 
 
 		@SuppressWarnings("unchecked")
-		public <T> T invoke(ParametersWrapper parameters) throws Exception {
+		public <T> T invoke(ParametersWrapper parameters, boolean methodHandleInvocation) throws Exception {
 			Message<?> message = parameters.getMessage();
 			if (this.canProcessMessageList) {
 				message = new MutableMessage<>(parameters.getMessages(), parameters.getHeaders());
 			}
+			else if (methodHandleInvocation && this.methodHandleInvoker != null) {
+				// the arguments can be taken from the message as is - no resolvers and conversion needed
+				Object[] arguments = this.methodHandleInvoker.extractArguments(message);
+				if (arguments != null) {
+					return (T) this.methodHandleInvoker.invoke(arguments);
+				}
+			}
 			return (T) this.invocableHandlerMethod.invoke(message);
 		}
 
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.handler.support;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.integration.util.MessagingAnnotationUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.ValueConstants;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Invokes a handler method through a {@link MethodHandle} bound to the target object, with
+ * the arguments extracted from the message by functions precomputed for each parameter:
+ * the message itself, its payload, its headers or a specific header.
+ * <p>
+ * An extractor returns {@link #UNRESOLVED} when the value in the message doesn't match
+ * the parameter type as is (e.g. the payload needs a conversion or a required header is
+ * missing); the caller then falls back to the
+ * {@link org.springframework.messaging.handler.invocation.InvocableHandlerMethod},
+ * which applies the argument resolvers and converters and reports errors as usual.
+ * <p>
+ * Only methods whose parameters are all unambiguously mapped by the above rules are
+ * supported; see {@link #forMethod(Object, Method, ParameterNameDiscoverer)}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+final class MethodHandleInvoker {
+
+	static final Object UNRESOLVED = new Object();
+
+	private final MethodHandle methodHandle;
+
+	private final Function<Message<?>, Object>[] argumentExtractors;
+
+	private MethodHandleInvoker(MethodHandle methodHandle, Function<Message<?>, Object>[] argumentExtractors) {
+		this.methodHandle = methodHandle;
+		this.argumentExtractors = argumentExtractors;
+	}
+
+	/**
+	 * Extract the arguments for the method from the message.
+	 * @param message the message.
+	 * @return the arguments or null if any of them can't be extracted as is.
+	 */
+	Object[] extractArguments(Message<?> message) {
+		Object[] arguments = new Object[this.argumentExtractors.length];
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = this.argumentExtractors[i].apply(message);
+			if (argument == UNRESOLVED) {
+				return null;
+			}
+			arguments[i] = argument;
+		}
+		return arguments;
+	}
+
+	Object invoke(Object[] arguments) throws Exception {
+		try {
+			return this.methodHandle.invokeExact(arguments);
+		}
+		catch (Exception | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			throw new IllegalStateException("Invocation failure", t);
+		}
+	}
+
+	/**
+	 * Create an invoker for the method, if each of its parameters is either a
+	 * {@link Message}, an unqualified {@link Payload} (or a parameter without annotations
+	 * which isn't a {@link Map}, {@link Collection}, array, {@link Iterator} or
+	 * {@link Optional}), a {@link Headers} map or a simple (non-expression) {@link Header}.
+	 * @param targetObject the target object.
+	 * @param method the method.
+	 * @param parameterNameDiscoverer the discoverer for header names not specified explicitly.
+	 * @return the invoker or null if the method isn't supported.
+	 */
+	@SuppressWarnings("unchecked")
+	static MethodHandleInvoker forMethod(Object targetObject, Method method,
+			ParameterNameDiscoverer parameterNameDiscoverer) {
+
+		Function<Message<?>, Object>[] argumentExtractors = new Function[method.getParameterCount()];
+		Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+		for (int i = 0; i < argumentExtractors.length; i++) {
+			MethodParameter methodParameter = new MethodParameter(method, i);
+			methodParameter.initParameterNameDiscovery(parameterNameDiscoverer);
+			argumentExtractors[i] = argumentExtractor(methodParameter, parameterAnnotations[i]);
+			if (argumentExtractors[i] == null) {
+				return null;
+			}
+		}
+		try {
+			Method bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
+			ReflectionUtils.makeAccessible(bridgedMethod);
+			MethodHandle methodHandle = MethodHandles.lookup().unreflect(bridgedMethod);
+			if (!Modifier.isStatic(bridgedMethod.getModifiers())) {
+				methodHandle = methodHandle.bindTo(targetObject);
+			}
+			methodHandle =
+					methodHandle.asSpreader(Object[].class, argumentExtractors.length)
+							.asType(MethodType.methodType(Object.class, Object[].class));
+			return new MethodHandleInvoker(methodHandle, argumentExtractors);
+		}
+		catch (IllegalAccessException | RuntimeException e) {
+			// e.g. inaccessible module or a target which isn't an instance of the declaring class
+			return null;
+		}
+	}
+
+	private static Function<Message<?>, Object> argumentExtractor(MethodParameter methodParameter,
+			Annotation[] annotations) {
+
+		for (Annotation annotation : annotations) {
+			if (annotation.annotationType().equals(Validated.class)
+					|| annotation.annotationType().getSimpleName().startsWith("Valid")) {
+				return null;
+			}
+		}
+		Class<?> parameterType = methodParameter.getParameterType();
+		Class<?> argumentType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+		Annotation mappingAnnotation = MessagingAnnotationUtils.findMessagePartAnnotation(annotations, true);
+		if (mappingAnnotation != null) {
+			AnnotationAttributes attributes = AnnotationUtils.getAnnotationAttributes(mappingAnnotation, false, false);
+			Class<? extends Annotation> annotationType = mappingAnnotation.annotationType();
+			if (annotationType.equals(Payload.class)) {
+				if (StringUtils.hasText(attributes.getString(AnnotationUtils.VALUE))
+						|| StringUtils.hasText(attributes.getString("expression"))
+						|| isSpecialType(parameterType)) {
+					return null;
+				}
+				return payloadExtractor(argumentType);
+			}
+			else if (annotationType.equals(Headers.class)) {
+				return parameterType.isAssignableFrom(MessageHeaders.class) ? Message::getHeaders : null;
+			}
+			else if (annotationType.equals(Header.class)) {
+				return headerExtractor(methodParameter, attributes, argumentType);
+			}
+			else {
+				return null;
+			}
+		}
+		else if (Message.class.equals(parameterType)) {
+			Class<?> payloadType = ResolvableType.forMethodParameter(methodParameter).getGeneric().resolve(Object.class);
+			return message -> payloadType.isInstance(message.getPayload()) ? message : UNRESOLVED;
+		}
+		else if (Message.class.isAssignableFrom(parameterType) || isSpecialType(parameterType)
+				|| Map.class.isAssignableFrom(parameterType)) {
+			return null;
+		}
+		else {
+			return payloadExtractor(argumentType);
+		}
+	}
+
+	private static boolean isSpecialType(Class<?> parameterType) {
+		return Collection.class.isAssignableFrom(parameterType)
+				|| parameterType.isArray()
+				|| Iterator.class.isAssignableFrom(parameterType)
+				|| Optional.class.equals(parameterType);
+	}
+
+	private static Function<Message<?>, Object> payloadExtractor(Class<?> argumentType) {
+		return message -> {
+			Object payload = message.getPayload();
+			return argumentType.isInstance(payload) ? payload : UNRESOLVED;
+		};
+	}
+
+	private static Function<Message<?>, Object> headerExtractor(MethodParameter methodParameter,
+			AnnotationAttributes attributes, Class<?> argumentType) {
+
+		String headerName = attributes.getString(AnnotationUtils.VALUE);
+		if (!StringUtils.hasText(headerName)) {
+			headerName = attributes.getString("name");
+		}
+		if (!StringUtils.hasText(headerName)) {
+			headerName = methodParameter.getParameterName();
+		}
+		if (headerName == null || headerName.indexOf('.') != -1 || headerName.contains("${")
+				|| headerName.contains("#{") || Optional.class.equals(methodParameter.getParameterType())
+				|| !ValueConstants.DEFAULT_NONE.equals(attributes.getString("defaultValue"))) {
+			return null;
+		}
+		String name = headerName;
+		// a missing header is left to the HeaderMethodArgumentResolver (native headers, 'required')
+		return message -> {
+			Object value = message.getHeaders().get(name);
+			return argumentType.isInstance(value) ? value : UNRESOLVED;
+		};
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,8 @@ public class HistoryWritingMessagePostProcessor implements MessagePostProcessor
 
 	private volatile boolean shouldTrack;
 
+	private volatile int samplingRate = 1;
+
 	private volatile MessageBuilderFactory messageBuilderFactory = new DefaultMessageBuilderFactory();
 
 	public HistoryWritingMessagePostProcessor() {
@@ -56,10 +58,23 @@ public class HistoryWritingMessagePostProcessor implements MessagePostProcessor
 		this.shouldTrack = shouldTrack;
 	}
 
+	/**
+	 * Start a history for only one in {@code samplingRate} messages (on average).
+	 * @param samplingRate the sampling rate; default 1 (track all messages).
+	 * @since 5.1
+	 * @see MessageHistory#write(org.springframework.messaging.Message,
+	 * org.springframework.integration.support.context.NamedComponent, MessageBuilderFactory, int)
+	 */
+	public void setSamplingRate(int samplingRate) {
+		Assert.isTrue(samplingRate > 0, "'samplingRate' must be greater than 0");
+		this.samplingRate = samplingRate;
+	}
+
 	@Override
 	public Message<?> postProcessMessage(Message<?> message) {
 		if (this.shouldTrack && this.trackableComponent != null) {
-			return MessageHistory.write(message, this.trackableComponent, this.messageBuilderFactory);
+			return MessageHistory.write(message, this.trackableComponent, this.messageBuilderFactory,
+					this.samplingRate);
 		}
 		return message;
 	}
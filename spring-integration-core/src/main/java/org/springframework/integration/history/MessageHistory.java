@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,13 +17,17 @@
 package org.springframework.integration.history;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Properties;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,13 +46,21 @@ import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
+ * The immutable list of the components a message has passed through.
+ * <p>
+ * Starting with version 5.1, the history written for the next component shares the
+ * existing history as its tail and just links the new entry to it, so appending is a
+ * constant time operation regardless of the length of the flow; the list view
+ * is materialized (once) on first access. The serialized form is unchanged.
+ *
  * @author Mark Fisher
  * @author Artem Bilan
  * @since 2.0
  */
-@SuppressWarnings("serial")
 public final class MessageHistory implements List<Properties>, Serializable {
 
+	private static final long serialVersionUID = 1426799817181873282L;
+
 	private static final Log logger = LogFactory.getLog(MessageHistory.class);
 
 	public static final String HEADER_NAME = "history";
@@ -73,18 +85,40 @@ public final class MessageHistory implements List<Properties>, Serializable {
 		return write(message, component, MESSAGE_BUILDER_FACTORY);
 	}
 
-	@SuppressWarnings("unchecked")
 	public static <T> Message<T> write(Message<T> message, NamedComponent component,
 			MessageBuilderFactory messageBuilderFactory) {
+		return write(message, component, messageBuilderFactory, 1);
+	}
+
+	/**
+	 * Add the component to the history of the message. A message without a history
+	 * gets a new one only for one in {@code samplingRate} messages (on average); the
+	 * others are returned as is, without a history header. A message with a history
+	 * is always tracked.
+	 * @param message the message.
+	 * @param component the component.
+	 * @param messageBuilderFactory the factory to build the message with the history.
+	 * @param samplingRate 1 to start a history for every message; 0 to never start
+	 * one, but only add to an existing history.
+	 * @param <T> the payload type.
+	 * @return the message with the history, or the original message.
+	 * @since 5.1
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Message<T> write(Message<T> message, NamedComponent component,
+			MessageBuilderFactory messageBuilderFactory, int samplingRate) {
 		Assert.notNull(message, "Message must not be null");
 		Assert.notNull(component, "Component must not be null");
+		Assert.isTrue(samplingRate >= 0, "'samplingRate' must not be negative");
+		MessageHistory previousHistory = message.getHeaders().get(HEADER_NAME, MessageHistory.class);
+		if (previousHistory == null && !isSampled(samplingRate)) {
+			return message;
+		}
 		Properties metadata = extractMetadata(component);
 		if (!metadata.isEmpty()) {
-			MessageHistory previousHistory = message.getHeaders().get(HEADER_NAME, MessageHistory.class);
-			List<Properties> components = (previousHistory != null) ?
-					new ArrayList<Properties>(previousHistory) : new ArrayList<Properties>();
-			components.add(metadata);
-			MessageHistory history = new MessageHistory(components);
+			MessageHistory history = previousHistory != null
+					? new MessageHistory(new AppendedComponents(previousHistory.components, metadata))
+					: new MessageHistory(Collections.singletonList(metadata));
 
 			if (message instanceof MutableMessage) {
 				message.getHeaders().put(HEADER_NAME, history);
@@ -122,8 +156,13 @@ public final class MessageHistory implements List<Properties>, Serializable {
 	}
 
 
+	private static boolean isSampled(int samplingRate) {
+		return samplingRate == 1 || (samplingRate > 1 && ThreadLocalRandom.current().nextInt(samplingRate) == 0);
+	}
+
+
 	private MessageHistory(List<Properties> components) {
-		Assert.notEmpty(components, "component list must not be empty");
+		Assert.notNull(components, "component list must not be null");
 		this.components = components;
 	}
 
@@ -261,6 +300,13 @@ public final class MessageHistory implements List<Properties>, Serializable {
 	}
 
 
+	private Object writeReplace() {
+		if (this.components instanceof AppendedComponents) {
+			return new MessageHistory(new ArrayList<>(this.components));
+		}
+		return this;
+	}
+
 	private static Properties extractMetadata(NamedComponent component) {
 		Entry entry = new Entry();
 		String name = component.getComponentName();
@@ -278,6 +324,61 @@ public final class MessageHistory implements List<Properties>, Serializable {
 	}
 
 
+	/**
+	 * The components of a history appended with one entry: the previous components are
+	 * shared, not copied; the list is materialized on first access.
+	 */
+	private static final class AppendedComponents extends AbstractList<Properties> implements RandomAccess {
+
+		private final List<Properties> previous;
+
+		private final Properties entry;
+
+		private final int size;
+
+		private volatile List<Properties> components;
+
+		AppendedComponents(List<Properties> previous, Properties entry) {
+			this.previous = previous;
+			this.entry = entry;
+			this.size = previous.size() + 1;
+		}
+
+		@Override
+		public Properties get(int index) {
+			if (index == this.size - 1) {
+				return this.entry;
+			}
+			return getComponents().get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		private List<Properties> getComponents() {
+			List<Properties> components = this.components;
+			if (components == null) {
+				Properties[] entries = new Properties[this.size];
+				int index = this.size;
+				List<Properties> list = this;
+				while (list instanceof AppendedComponents && ((AppendedComponents) list).components == null) {
+					AppendedComponents appended = (AppendedComponents) list;
+					entries[--index] = appended.entry;
+					list = appended.previous;
+				}
+				for (int i = 0; i < index; i++) {
+					entries[i] = list.get(i);
+				}
+				components = Arrays.asList(entries);
+				this.components = components;
+			}
+			return components;
+		}
+
+	}
+
 	/**
 	 * Inner class for each Entry in the history.
 	 */
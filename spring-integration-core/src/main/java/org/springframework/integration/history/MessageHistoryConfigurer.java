@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,6 +65,8 @@ public class MessageHistoryConfigurer implements SmartLifecycle, BeanFactoryAwar
 
 	private volatile boolean autoStartup = true;
 
+	private volatile int samplingRate = 1;
+
 	private final int phase = Integer.MIN_VALUE;
 
 	private final Object lifecycleMonitor = new Object();
@@ -134,6 +136,37 @@ public class MessageHistoryConfigurer implements SmartLifecycle, BeanFactoryAwar
 		}
 	}
 
+	/**
+	 * Track only one in {@code samplingRate} messages (on average): the decision is made
+	 * by the tracked message sources (e.g. inbound channel adapters and gateways) for each
+	 * message they produce; an unsampled message gets no {@link MessageHistory} header and
+	 * the downstream components (channels and handlers) only add to the history of the
+	 * sampled messages. The rate is passed to the components tracked by this configurer.
+	 * Default 1 (track all messages).
+	 * @param samplingRate the sampling rate.
+	 * @since 5.1
+	 * @see TrackableComponent#setHistorySamplingRate(int)
+	 */
+	@ManagedAttribute(description = "track one in 'samplingRate' messages")
+	public void setSamplingRate(int samplingRate) {
+		Assert.isTrue(samplingRate > 0, "'samplingRate' must be greater than 0");
+		synchronized (this.lifecycleMonitor) {
+			this.samplingRate = samplingRate;
+			if (this.running) {
+				for (TrackableComponent component : getTrackableComponents((ListableBeanFactory) this.beanFactory)) {
+					if (this.currentlyTrackedComponentNames.contains(component.getComponentName())) {
+						component.setHistorySamplingRate(samplingRate);
+					}
+				}
+			}
+		}
+	}
+
+	@ManagedAttribute
+	public int getSamplingRate() {
+		return this.samplingRate;
+	}
+
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
 		this.beanFactory = beanFactory;
@@ -173,6 +206,7 @@ public class MessageHistoryConfigurer implements SmartLifecycle, BeanFactoryAwar
 					boolean shouldTrack = PatternMatchUtils.simpleMatch(this.componentNamePatterns, componentName);
 					component.setShouldTrack(shouldTrack);
 					if (shouldTrack) {
+						component.setHistorySamplingRate(this.samplingRate);
 						this.currentlyTrackedComponentNames.add(componentName);
 						if (this.logger.isInfoEnabled()) {
 							this.logger.info("Enabling MessageHistory tracking for component '" + componentName + "'");
@@ -193,6 +227,7 @@ public class MessageHistoryConfigurer implements SmartLifecycle, BeanFactoryAwar
 					String componentName = component.getComponentName();
 					if (this.currentlyTrackedComponentNames.contains(componentName)) {
 						component.setShouldTrack(false);
+						component.setHistorySamplingRate(1);
 						if (this.logger.isInfoEnabled()) {
 							this.logger.info("Disabling MessageHistory tracking for component '" + componentName + "'");
 						}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.aopalliance.aop.Advice;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.transaction.TransactionSynchronizationFactory;
+import org.springframework.integration.util.AdaptiveConcurrencyLimiter;
 import org.springframework.scheduling.Trigger;
 import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
@@ -50,12 +51,16 @@ public class PollerMetadata {
 
 	private volatile long receiveTimeout = 1000;
 
+	private volatile int receiveBatchSize = 1;
+
 	private volatile ErrorHandler errorHandler;
 
 	private volatile List<Advice> adviceChain;
 
 	private volatile Executor taskExecutor;
 
+	private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
 	private volatile long sendTimeout;
 
 	private volatile TransactionSynchronizationFactory transactionSynchronizationFactory;
@@ -114,6 +119,25 @@ public class PollerMetadata {
 		return this.receiveTimeout;
 	}
 
+	/**
+	 * Set the maximum number of messages a polling consumer takes from a
+	 * {@link org.springframework.integration.channel.BatchPollableChannel}
+	 * with a single receive operation. Each batch counts as one receive towards
+	 * the {@link #setMaxMessagesPerPoll(long) maxMessagesPerPoll}.
+	 * <p>The default is 1 (no batching).
+	 * @param receiveBatchSize the receive batch size.
+	 * @since 5.1
+	 * @see org.springframework.integration.endpoint.PollingConsumer#setReceiveBatchSize(int)
+	 */
+	public void setReceiveBatchSize(int receiveBatchSize) {
+		Assert.isTrue(receiveBatchSize > 0, "'receiveBatchSize' must be greater than 0");
+		this.receiveBatchSize = receiveBatchSize;
+	}
+
+	public int getReceiveBatchSize() {
+		return this.receiveBatchSize;
+	}
+
 	public void setAdviceChain(List<Advice> adviceChain) {
 		this.adviceChain = adviceChain;
 	}
@@ -130,6 +154,20 @@ public class PollerMetadata {
 		return this.taskExecutor;
 	}
 
+	/**
+	 * Limit the polling tasks handed to the task executor with the provided
+	 * {@link AdaptiveConcurrencyLimiter}.
+	 * @param concurrencyLimiter the concurrency limiter.
+	 * @since 5.1
+	 */
+	public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+		return this.concurrencyLimiter;
+	}
+
 	public long getSendTimeout() {
 		return this.sendTimeout;
 	}
@@ -0,0 +1,567 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.scheduling;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * A {@link TaskScheduler} based on a hashed timing wheel, intended for a large number of
+ * short-lived timeouts, such as the {@code DelayHandler} delays, the aggregator group
+ * timeouts or the {@code DefaultHeaderChannelRegistry} reaper.
+ * <p>
+ * Unlike a {@code ScheduledThreadPoolExecutor}, whose delay queue is a binary heap guarded
+ * by a single lock, scheduling and canceling a task are O(1) and lock-free: the task is
+ * just added to a concurrent queue, from which a single "tick" thread moves it into the
+ * bucket of the wheel for its deadline (or removes it from there when canceled). Every
+ * {@link #setTickDuration(long) tick}, the tick thread hands the due tasks of the current
+ * bucket over to the {@link #setTaskExecutor(Executor) task executor}; the tasks which
+ * are due in later revolutions of the wheel stay in their bucket.
+ * <p>
+ * The price is the resolution: a task is run up to one tick later than requested; the
+ * tick duration should therefore be chosen according to the precision needed by the
+ * scheduled tasks (default 10 milliseconds).
+ * <p>
+ * The tick thread (and, by default, a fixed thread pool for the tasks) is started when
+ * the first task is scheduled and stopped when this scheduler is {@link #destroy() destroyed}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class TimingWheelTaskScheduler implements TaskScheduler, BeanNameAware, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TimingWheelTaskScheduler.class);
+
+	private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+	private final Queue<WheelTask> pendingTasks = new ConcurrentLinkedQueue<>();
+
+	private final Queue<WheelTask> canceledTasks = new ConcurrentLinkedQueue<>();
+
+	private final Object lifecycleMonitor = new Object();
+
+	private long tickDuration = 10;
+
+	private int wheelSize = 512;
+
+	private int poolSize = 10;
+
+	private Executor taskExecutor;
+
+	private ErrorHandler errorHandler;
+
+	private String beanName = "timingWheelTaskScheduler";
+
+	private ExecutorService defaultExecutor;
+
+	private Bucket[] wheel;
+
+	private long tickNanos;
+
+	private volatile long startTime;
+
+	private volatile Thread tickThread;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * Set the duration of a tick of the wheel in milliseconds (default 10): the resolution
+	 * of this scheduler.
+	 * @param tickDuration the tick duration.
+	 */
+	public void setTickDuration(long tickDuration) {
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be greater than 0");
+		this.tickDuration = tickDuration;
+	}
+
+	/**
+	 * Set the number of buckets (ticks) of the wheel, rounded up to a power of 2 (default 512).
+	 * A task with a delay longer than a revolution of the wheel is visited once per revolution.
+	 * @param wheelSize the wheel size.
+	 */
+	public void setWheelSize(int wheelSize) {
+		Assert.isTrue(wheelSize > 0 && wheelSize <= 1 << 30, "'wheelSize' must be between 1 and 2^30");
+		this.wheelSize = wheelSize;
+	}
+
+	/**
+	 * Set the number of threads of the default task executor (default 10).
+	 * Ignored if a {@link #setTaskExecutor(Executor) task executor} is provided.
+	 * @param poolSize the pool size.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize > 0, "'poolSize' must be greater than 0");
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Set the executor for the tasks; the tick thread itself never runs them.
+	 * By default a fixed thread pool of {@link #setPoolSize(int) poolSize} threads is
+	 * created, and shut down when this scheduler is destroyed.
+	 * @param taskExecutor the task executor.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set the {@link ErrorHandler} for the exceptions thrown by the tasks. By default,
+	 * the exceptions are logged, and propagated to the {@link ScheduledFuture} for the
+	 * one-time tasks.
+	 * @param errorHandler the error handler.
+	 * @see TaskUtils#getDefaultErrorHandler(boolean)
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	@Override
+	public void setBeanName(String name) {
+		this.beanName = name;
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		return new ReschedulingTask(TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, true), trigger)
+				.schedule();
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		return scheduleTask(TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, false),
+				startTime.getTime() - System.currentTimeMillis());
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		return schedule(task, periodicTrigger(period, startTime.getTime() - System.currentTimeMillis(), true));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return schedule(task, periodicTrigger(period, 0, true));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		return schedule(task, periodicTrigger(delay, startTime.getTime() - System.currentTimeMillis(), false));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return schedule(task, periodicTrigger(delay, 0, false));
+	}
+
+	/**
+	 * Stop the tick thread and cancel the tasks which are still scheduled; also shut down
+	 * the default task executor, if any.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this.lifecycleMonitor) {
+			this.shutdown = true;
+			Thread thread = this.tickThread;
+			if (thread != null) {
+				thread.interrupt();
+				try {
+					thread.join(this.tickDuration * 10);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this.defaultExecutor != null) {
+				this.defaultExecutor.shutdownNow();
+			}
+		}
+	}
+
+	private static PeriodicTrigger periodicTrigger(long period, long initialDelay, boolean fixedRate) {
+		PeriodicTrigger trigger = new PeriodicTrigger(period, TimeUnit.MILLISECONDS);
+		trigger.setInitialDelay(Math.max(initialDelay, 0));
+		trigger.setFixedRate(fixedRate);
+		return trigger;
+	}
+
+	private WheelTask scheduleTask(Runnable task, long delay) {
+		start();
+		long deadline = System.nanoTime() - this.startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0));
+		WheelTask wheelTask = new WheelTask(task, deadline);
+		this.pendingTasks.add(wheelTask);
+		return wheelTask;
+	}
+
+	private void start() {
+		if (this.shutdown) {
+			throw new TaskRejectedException("The scheduler [" + this.beanName + "] has been shut down");
+		}
+		if (this.tickThread == null) {
+			synchronized (this.lifecycleMonitor) {
+				if (this.shutdown) {
+					throw new TaskRejectedException("The scheduler [" + this.beanName + "] has been shut down");
+				}
+				if (this.tickThread == null) {
+					int size = Integer.highestOneBit(this.wheelSize);
+					if (size < this.wheelSize) {
+						size <<= 1;
+					}
+					this.wheel = new Bucket[size];
+					for (int i = 0; i < size; i++) {
+						this.wheel[i] = new Bucket();
+					}
+					this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickDuration);
+					if (this.taskExecutor == null) {
+						this.defaultExecutor =
+								Executors.newFixedThreadPool(this.poolSize,
+										new CustomizableThreadFactory(this.beanName + "-"));
+						this.taskExecutor = this.defaultExecutor;
+					}
+					Thread thread = new Thread(this::runWheel, this.beanName + "-tick");
+					thread.setDaemon(true);
+					this.startTime = System.nanoTime();
+					this.tickThread = thread;
+					thread.start();
+				}
+			}
+		}
+	}
+
+	private void runWheel() {
+		int mask = this.wheel.length - 1;
+		long tick = 0;
+		while (!this.shutdown) {
+			long deadline = waitForNextTick(tick);
+			if (deadline < 0) {
+				break;
+			}
+			removeCanceledTasks();
+			transferPendingTasks(tick);
+			this.wheel[(int) (tick & mask)].expireTasks(deadline);
+			tick++;
+		}
+		for (Bucket bucket : this.wheel) {
+			bucket.cancelTasks();
+		}
+		WheelTask task;
+		while ((task = this.pendingTasks.poll()) != null) {
+			task.cancel(false);
+		}
+		this.canceledTasks.clear();
+	}
+
+	private long waitForNextTick(long tick) {
+		long deadline = this.tickNanos * (tick + 1);
+		while (true) {
+			long currentTime = System.nanoTime() - this.startTime;
+			long sleepTime = (deadline - currentTime + 999_999) / 1_000_000;
+			if (sleepTime <= 0) {
+				return currentTime;
+			}
+			try {
+				Thread.sleep(sleepTime);
+			}
+			catch (InterruptedException e) {
+				if (this.shutdown) {
+					return -1;
+				}
+			}
+		}
+	}
+
+	private void removeCanceledTasks() {
+		WheelTask task;
+		while ((task = this.canceledTasks.poll()) != null) {
+			if (task.bucket != null) {
+				task.bucket.remove(task);
+			}
+		}
+	}
+
+	private void transferPendingTasks(long tick) {
+		int mask = this.wheel.length - 1;
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			WheelTask task = this.pendingTasks.poll();
+			if (task == null) {
+				break;
+			}
+			if (!task.isCancelled()) {
+				long ticks = task.deadline / this.tickNanos;
+				task.remainingRounds = (ticks - tick) / this.wheel.length;
+				this.wheel[(int) (Math.max(ticks, tick) & mask)].add(task);
+			}
+		}
+	}
+
+	private void execute(WheelTask task) {
+		try {
+			this.taskExecutor.execute(task);
+		}
+		catch (RejectedExecutionException e) {
+			if (!this.shutdown) {
+				logger.error("The task [" + task + "] has been rejected by the executor", e);
+			}
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * A doubly-linked list of tasks; accessed only by the tick thread.
+	 */
+	private final class Bucket {
+
+		private WheelTask head;
+
+		private WheelTask tail;
+
+		Bucket() {
+			super();
+		}
+
+		void add(WheelTask task) {
+			task.bucket = this;
+			if (this.head == null) {
+				this.head = task;
+				this.tail = task;
+			}
+			else {
+				this.tail.next = task;
+				task.prev = this.tail;
+				this.tail = task;
+			}
+		}
+
+		void remove(WheelTask task) {
+			WheelTask next = task.next;
+			if (task.prev != null) {
+				task.prev.next = next;
+			}
+			if (next != null) {
+				next.prev = task.prev;
+			}
+			if (task == this.head) {
+				this.head = next;
+			}
+			if (task == this.tail) {
+				this.tail = task.prev;
+			}
+			task.prev = null;
+			task.next = null;
+			task.bucket = null;
+		}
+
+		void expireTasks(long deadline) {
+			WheelTask task = this.head;
+			while (task != null) {
+				WheelTask next = task.next;
+				if (task.remainingRounds <= 0 && task.deadline <= deadline) {
+					remove(task);
+					execute(task);
+				}
+				else if (task.isCancelled()) {
+					remove(task);
+				}
+				else {
+					task.remainingRounds--;
+				}
+				task = next;
+			}
+		}
+
+		void cancelTasks() {
+			WheelTask task = this.head;
+			while (task != null) {
+				WheelTask next = task.next;
+				remove(task);
+				task.cancel(false);
+				task = next;
+			}
+		}
+
+	}
+
+	/**
+	 * A one-time task in the wheel.
+	 */
+	private final class WheelTask extends FutureTask<Object> implements ScheduledFuture<Object> {
+
+		private final long deadline;
+
+		private long remainingRounds;
+
+		private Bucket bucket;
+
+		private WheelTask prev;
+
+		private WheelTask next;
+
+		WheelTask(Runnable task, long deadline) {
+			super(task, null);
+			this.deadline = deadline;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - (System.nanoTime() - TimingWheelTaskScheduler.this.startTime),
+					TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean canceled = super.cancel(mayInterruptIfRunning);
+			if (canceled) {
+				TimingWheelTaskScheduler.this.canceledTasks.add(this);
+			}
+			return canceled;
+		}
+
+	}
+
+	/**
+	 * A task rescheduled in the wheel according to a {@link Trigger}, after each execution.
+	 */
+	private final class ReschedulingTask implements Runnable, ScheduledFuture<Object> {
+
+		private final Runnable task;
+
+		private final Trigger trigger;
+
+		private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+
+		private final Object monitor = new Object();
+
+		private WheelTask currentTask;
+
+		private Date scheduledExecutionTime;
+
+		ReschedulingTask(Runnable task, Trigger trigger) {
+			this.task = task;
+			this.trigger = trigger;
+		}
+
+		ScheduledFuture<?> schedule() {
+			synchronized (this.monitor) {
+				this.scheduledExecutionTime = this.trigger.nextExecutionTime(this.triggerContext);
+				if (this.scheduledExecutionTime == null) {
+					return null;
+				}
+				this.currentTask =
+						scheduleTask(this, this.scheduledExecutionTime.getTime() - System.currentTimeMillis());
+				return this;
+			}
+		}
+
+		@Override
+		public void run() {
+			Date actualExecutionTime = new Date();
+			this.task.run();
+			Date completionTime = new Date();
+			synchronized (this.monitor) {
+				this.triggerContext.update(this.scheduledExecutionTime, actualExecutionTime, completionTime);
+				if (!this.currentTask.isCancelled() && !TimingWheelTaskScheduler.this.shutdown) {
+					schedule();
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			synchronized (this.monitor) {
+				return this.currentTask.cancel(mayInterruptIfRunning);
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			synchronized (this.monitor) {
+				return this.currentTask.isCancelled();
+			}
+		}
+
+		@Override
+		public boolean isDone() {
+			synchronized (this.monitor) {
+				return this.currentTask.isDone();
+			}
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			WheelTask current;
+			synchronized (this.monitor) {
+				current = this.currentTask;
+			}
+			return current.get();
+		}
+
+		@Override
+		public Object get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+
+			WheelTask current;
+			synchronized (this.monitor) {
+				current = this.currentTask;
+			}
+			return current.get(timeout, unit);
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			synchronized (this.monitor) {
+				return this.currentTask.getDelay(unit);
+			}
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+	}
+
+}
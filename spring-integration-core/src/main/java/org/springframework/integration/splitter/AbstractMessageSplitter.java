@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,7 +22,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -33,11 +39,22 @@ import org.springframework.integration.handler.AbstractReplyProducingMessageHand
 import org.springframework.integration.support.AbstractIntegrationMessageBuilder;
 import org.springframework.integration.util.FunctionIterator;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.Assert;
 
 import reactor.core.publisher.Flux;
 
 /**
  * Base class for Message-splitting handlers.
+ * <p>
+ * When a {@link #setTaskExecutor(Executor) task executor} is provided, the items are
+ * handed to it for sending to the output channel (and running the downstream flow, when
+ * it is a {@code DirectChannel}), with at most {@link #setMaxInFlight(int) maxInFlight}
+ * items in flight per split message. The splitter still returns only when all the
+ * items have been sent, rethrowing the first failure, if any; no further items are sent
+ * after a failure. If the splitter is {@link #setOrdered(boolean) ordered}, the items
+ * are sent one at a time in sequence order, while the calling thread keeps producing the
+ * next ones; otherwise they are sent concurrently.
  *
  * @author Mark Fisher
  * @author Dave Syer
@@ -45,8 +62,21 @@ import reactor.core.publisher.Flux;
  */
 public abstract class AbstractMessageSplitter extends AbstractReplyProducingMessageHandler {
 
+	/**
+	 * The default maximum number of items in flight per split message
+	 * when a task executor is provided.
+	 * @since 5.1
+	 */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
 	private boolean applySequence = true;
 
+	private Executor taskExecutor;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	private boolean ordered;
+
 	/**
 	 * Set the applySequence flag to the specified value. Defaults to true.
 	 * @param applySequence true to apply sequence information.
@@ -55,6 +85,42 @@ public abstract class AbstractMessageSplitter extends AbstractReplyProducingMess
 		this.applySequence = applySequence;
 	}
 
+	/**
+	 * Set an {@link Executor} to send the items to the output channel in parallel.
+	 * Keep in mind that the thread-bound state of the caller (e.g. a transaction) is
+	 * not propagated to the executor threads.
+	 * Ignored when the output channel is a reactive streams channel.
+	 * @param taskExecutor the executor.
+	 * @since 5.1
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set the maximum number of items of a split message which are handed to the
+	 * {@link #setTaskExecutor(Executor) task executor} and not sent yet; the calling
+	 * thread waits for a slot before producing the next item.
+	 * Default {@value #DEFAULT_MAX_IN_FLIGHT}.
+	 * @param maxInFlight the maximum number of items in flight.
+	 * @since 5.1
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight > 0, "'maxInFlight' must be greater than 0");
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Set to true to send the items handed to the {@link #setTaskExecutor(Executor) task
+	 * executor} in their sequence order, one at a time, instead of concurrently.
+	 * Default false.
+	 * @param ordered true to preserve the sequence order.
+	 * @since 5.1
+	 */
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	protected final Object handleRequestMessage(Message<?> message) {
@@ -227,9 +293,14 @@ public abstract class AbstractMessageSplitter extends AbstractReplyProducingMess
 	protected void produceOutput(Object result, Message<?> requestMessage) {
 		if (result instanceof Iterator<?>) {
 			Iterator<?> iterator = (Iterator<?>) result;
-			while (iterator.hasNext()) {
-				super.produceOutput(iterator.next(), requestMessage);
+			if (this.taskExecutor != null) {
+				produceOutputInParallel(iterator, requestMessage);
+			}
+			else {
+				while (iterator.hasNext()) {
+					super.produceOutput(iterator.next(), requestMessage);
 
+				}
 			}
 		}
 		else {
@@ -237,6 +308,29 @@ public abstract class AbstractMessageSplitter extends AbstractReplyProducingMess
 		}
 	}
 
+	private void produceOutputInParallel(Iterator<?> iterator, Message<?> requestMessage) {
+		ParallelOutput output = new ParallelOutput(requestMessage);
+		try {
+			try {
+				while (iterator.hasNext() && !output.hasFailed()) {
+					output.submit(iterator.next());
+				}
+			}
+			finally {
+				output.await();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while sending the split items", e);
+		}
+		output.rethrowFailure();
+	}
+
+	private void sendItem(Object item, Message<?> requestMessage) {
+		super.produceOutput(item, requestMessage);
+	}
+
 	@Override
 	public String getComponentType() {
 		return "splitter";
@@ -252,4 +346,118 @@ public abstract class AbstractMessageSplitter extends AbstractReplyProducingMess
 	 */
 	protected abstract Object splitMessage(Message<?> message);
 
+	/**
+	 * The items of a split message in flight to the task executor.
+	 * In the ordered mode, a single task at a time drains the queue of pending items.
+	 */
+	private final class ParallelOutput implements Runnable {
+
+		private final Message<?> requestMessage;
+
+		private final int permitCount = AbstractMessageSplitter.this.maxInFlight;
+
+		private final Semaphore permits = new Semaphore(this.permitCount);
+
+		private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		ParallelOutput(Message<?> requestMessage) {
+			this.requestMessage = requestMessage;
+		}
+
+		void submit(Object item) throws InterruptedException {
+			this.permits.acquire();
+			if (AbstractMessageSplitter.this.ordered) {
+				this.pending.add(item);
+				if (this.draining.compareAndSet(false, true)) {
+					execute(this);
+				}
+			}
+			else {
+				execute(() -> send(item));
+			}
+		}
+
+		private void execute(Runnable task) {
+			try {
+				AbstractMessageSplitter.this.taskExecutor.execute(task);
+			}
+			catch (RuntimeException | Error e) {
+				this.failure.compareAndSet(null, e);
+				if (task == this) {
+					abandonPending();
+				}
+				else {
+					this.permits.release();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				do {
+					Object item;
+					while ((item = this.pending.poll()) != null) {
+						send(item);
+					}
+					this.draining.set(false);
+				}
+				while (!this.pending.isEmpty() && this.draining.compareAndSet(false, true));
+			}
+			catch (RuntimeException | Error e) {
+				this.failure.compareAndSet(null, e);
+				abandonPending();
+				throw e;
+			}
+		}
+
+		/*
+		 * Release the permits of the items nobody is going to send any more and let the
+		 * next submitted item start a new drain, so await() can't hang.
+		 */
+		private void abandonPending() {
+			while (this.pending.poll() != null) {
+				this.permits.release();
+			}
+			this.draining.set(false);
+		}
+
+		private void send(Object item) {
+			try {
+				if (this.failure.get() == null) {
+					sendItem(item, this.requestMessage);
+				}
+			}
+			catch (RuntimeException | Error e) {
+				this.failure.compareAndSet(null, e);
+			}
+			finally {
+				this.permits.release();
+			}
+		}
+
+		boolean hasFailed() {
+			return this.failure.get() != null;
+		}
+
+		void await() throws InterruptedException {
+			this.permits.acquire(this.permitCount);
+		}
+
+		void rethrowFailure() {
+			Throwable exception = this.failure.get();
+			if (exception instanceof Error) {
+				throw (Error) exception;
+			}
+			else if (exception != null) {
+				throw (RuntimeException) exception;
+			}
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -42,6 +46,13 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	protected static final String MESSAGE_GROUP_KEY_PREFIX = "MESSAGE_GROUP_";
 
+	/**
+	 * The key prefix for the group membership entries in the
+	 * {@link #setIncrementalGroupMembership(boolean) incremental} layout.
+	 * @since 5.1
+	 */
+	protected static final String GROUP_MEMBERS_KEY_PREFIX = "GROUP_MEMBERS_";
+
 	/**
 	 * Represents the time when the message has been added to the store.
 	 * @deprecated since 5.0. This constant isn't used any more.
@@ -53,6 +64,10 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	private final String groupPrefix;
 
+	private final String groupMembersPrefix;
+
+	private boolean incrementalGroupMembership;
+
 	protected AbstractKeyValueMessageStore() {
 		this("");
 	}
@@ -69,6 +84,33 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		Assert.notNull(prefix, "'prefix' must not be null");
 		this.messagePrefix = prefix + MESSAGE_KEY_PREFIX;
 		this.groupPrefix = prefix + MESSAGE_GROUP_KEY_PREFIX;
+		this.groupMembersPrefix = prefix + GROUP_MEMBERS_KEY_PREFIX;
+	}
+
+	/**
+	 * Set to true to keep the ids of the messages in a group in a separate, append-friendly
+	 * entry (under the {@code prefix + GROUP_MEMBERS_} key) instead of in the
+	 * {@link MessageGroupMetadata} value. With this layout adding a message to the group,
+	 * removing it and the {@link #messageGroupSize(Object)} don't read and rewrite the
+	 * whole list of ids, so their cost doesn't grow with the size of the group; provided
+	 * the store implements the {@code do*GroupMember*} operations natively.
+	 * Groups stored with one layout are not visible to a store configured with the other.
+	 * Default false.
+	 * @param incrementalGroupMembership true to store the group membership incrementally.
+	 * @since 5.1
+	 */
+	public void setIncrementalGroupMembership(boolean incrementalGroupMembership) {
+		this.incrementalGroupMembership = incrementalGroupMembership;
+	}
+
+	/**
+	 * Return true if the group membership is stored incrementally.
+	 * @return the incremental group membership flag.
+	 * @since 5.1
+	 * @see #setIncrementalGroupMembership(boolean)
+	 */
+	public boolean isIncrementalGroupMembership() {
+		return this.incrementalGroupMembership;
 	}
 
 	/**
@@ -174,7 +216,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	 */
 	@Override
 	public MessageGroup getMessageGroup(Object groupId) {
-		MessageGroupMetadata metadata = getGroupMetadata(groupId);
+		MessageGroupMetadata metadata = retrieveGroupMetadata(groupId);
 		if (metadata != null) {
 
 			MessageGroup messageGroup = getMessageGroupFactory()
@@ -190,6 +232,14 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	@Override
 	public MessageGroupMetadata getGroupMetadata(Object groupId) {
+		MessageGroupMetadata metadata = retrieveGroupMetadata(groupId);
+		if (metadata != null && this.incrementalGroupMembership) {
+			metadata.setMessageIds(doListGroupMembers(this.groupMembersPrefix + groupId));
+		}
+		return metadata;
+	}
+
+	private MessageGroupMetadata retrieveGroupMetadata(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Object mgm = this.doRetrieve(this.groupPrefix + groupId);
 		if (mgm != null) {
@@ -204,15 +254,29 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'messages' must not be null");
 
-		MessageGroupMetadata metadata = getGroupMetadata(groupId);
+		MessageGroupMetadata metadata = retrieveGroupMetadata(groupId);
 		SimpleMessageGroup group = null;
 		if (metadata == null) {
 			group = new SimpleMessageGroup(groupId);
 		}
 
+		List<UUID> messageIds = null;
+		if (this.incrementalGroupMembership) {
+			messageIds = new ArrayList<>(messages.length);
+		}
+
+		Map<Object, Object> messagesToStore = new LinkedHashMap<>();
+		for (Message<?> message : messages) {
+			Assert.notNull(message, "'message' must not be null");
+			messagesToStore.put(this.messagePrefix + message.getHeaders().getId(), new MessageHolder(message));
+		}
+		doStoreAllIfAbsent(messagesToStore);
+
 		for (Message<?> message : messages) {
-			doAddMessage(message);
-			if (metadata != null) {
+			if (messageIds != null) {
+				messageIds.add(message.getHeaders().getId());
+			}
+			else if (metadata != null) {
 				metadata.add(message.getHeaders().getId());
 			}
 			else {
@@ -220,6 +284,10 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 			}
 		}
 
+		if (messageIds != null) {
+			doAddGroupMembers(this.groupMembersPrefix + groupId, messageIds);
+		}
+
 		if (group != null) {
 			metadata = new MessageGroupMetadata(group);
 			// When the group is new reuse "create time" as a "last modified"
@@ -239,24 +307,54 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'messages' must not be null");
 
-		Object mgm = doRetrieve(this.groupPrefix + groupId);
-		if (mgm != null) {
-			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
-			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
-			for (Message<?> messageToRemove : messages) {
-				UUID messageId = messageToRemove.getHeaders().getId();
-				messageGroupMetadata.remove(messageId);
-				doRemove(this.messagePrefix + messageId);
-			}
+		MessageGroupMetadata messageGroupMetadata = retrieveGroupMetadata(groupId);
+		if (messageGroupMetadata != null) {
+			removeMessages(groupId, messageGroupMetadata, messages);
 			messageGroupMetadata.setLastModified(System.currentTimeMillis());
 			doStore(this.groupPrefix + groupId, messageGroupMetadata);
 		}
 	}
 
+	/**
+	 * Complete the group and remove the messages from it, storing the group metadata only once.
+	 */
+	@Override
+	public void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+
+		MessageGroupMetadata messageGroupMetadata = retrieveGroupMetadata(groupId);
+		if (messageGroupMetadata != null) {
+			removeMessages(groupId, messageGroupMetadata, messages);
+			messageGroupMetadata.complete();
+			messageGroupMetadata.setLastModified(System.currentTimeMillis());
+			doStore(this.groupPrefix + groupId, messageGroupMetadata);
+		}
+	}
+
+	private void removeMessages(Object groupId, MessageGroupMetadata messageGroupMetadata,
+			Collection<Message<?>> messages) {
+
+		List<UUID> messageIds = new ArrayList<>(messages.size());
+		List<Object> messageKeys = new ArrayList<>(messages.size());
+		for (Message<?> messageToRemove : messages) {
+			UUID messageId = messageToRemove.getHeaders().getId();
+			messageIds.add(messageId);
+			messageKeys.add(this.messagePrefix + messageId);
+		}
+		if (this.incrementalGroupMembership) {
+			doRemoveGroupMembers(this.groupMembersPrefix + groupId, messageIds);
+		}
+		else {
+			messageGroupMetadata.removeAll(messageIds);
+		}
+		doRemoveAll(messageKeys);
+	}
+
 	@Override
 	public void completeGroup(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
-		MessageGroupMetadata metadata = getGroupMetadata(groupId);
+		MessageGroupMetadata metadata = retrieveGroupMetadata(groupId);
 		if (metadata != null) {
 			metadata.complete();
 			metadata.setLastModified(System.currentTimeMillis());
@@ -275,17 +373,27 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
 
-			Iterator<UUID> messageIds = messageGroupMetadata.messageIdIterator();
+			Iterator<UUID> messageIds;
+			if (this.incrementalGroupMembership) {
+				String membersKey = this.groupMembersPrefix + groupId;
+				messageIds = doListGroupMembers(membersKey).iterator();
+				doRemoveAllGroupMembers(membersKey);
+			}
+			else {
+				messageIds = messageGroupMetadata.messageIdIterator();
+			}
+			List<Object> messageKeys = new ArrayList<>();
 			while (messageIds.hasNext()) {
-				removeMessage(messageIds.next());
+				messageKeys.add(this.messagePrefix + messageIds.next());
 			}
+			doRemoveAll(messageKeys);
 		}
 	}
 
 	@Override
 	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
 		Assert.notNull(groupId, "'groupId' must not be null");
-		MessageGroupMetadata metadata = getGroupMetadata(groupId);
+		MessageGroupMetadata metadata = retrieveGroupMetadata(groupId);
 		if (metadata == null) {
 			SimpleMessageGroup messageGroup = new SimpleMessageGroup(groupId);
 			metadata = new MessageGroupMetadata(messageGroup);
@@ -297,9 +405,15 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	@Override
 	public Message<?> pollMessageFromGroup(Object groupId) {
-		MessageGroupMetadata groupMetadata = getGroupMetadata(groupId);
+		MessageGroupMetadata groupMetadata = retrieveGroupMetadata(groupId);
 		if (groupMetadata != null) {
-			UUID firstId = groupMetadata.firstId();
+			UUID firstId;
+			if (this.incrementalGroupMembership) {
+				firstId = doPollGroupMember(this.groupMembersPrefix + groupId);
+			}
+			else {
+				firstId = groupMetadata.firstId();
+			}
 			if (firstId != null) {
 				groupMetadata.remove(firstId);
 				groupMetadata.setLastModified(System.currentTimeMillis());
@@ -312,7 +426,12 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	@Override
 	public Message<?> getOneMessageFromGroup(Object groupId) {
-		MessageGroupMetadata groupMetadata = getGroupMetadata(groupId);
+		if (this.incrementalGroupMembership) {
+			Assert.notNull(groupId, "'groupId' must not be null");
+			UUID messageId = doGetFirstGroupMember(this.groupMembersPrefix + groupId);
+			return messageId != null ? getMessage(messageId) : null;
+		}
+		MessageGroupMetadata groupMetadata = retrieveGroupMetadata(groupId);
 		if (groupMetadata != null) {
 			UUID messageId = groupMetadata.firstId();
 			if (messageId != null) {
@@ -324,8 +443,15 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	@Override
 	public Collection<Message<?>> getMessagesForGroup(Object groupId) {
-		MessageGroupMetadata groupMetadata = getGroupMetadata(groupId);
 		ArrayList<Message<?>> messages = new ArrayList<Message<?>>();
+		if (this.incrementalGroupMembership) {
+			Assert.notNull(groupId, "'groupId' must not be null");
+			for (UUID messageId : doListGroupMembers(this.groupMembersPrefix + groupId)) {
+				messages.add(getMessage(messageId));
+			}
+			return messages;
+		}
+		MessageGroupMetadata groupMetadata = retrieveGroupMetadata(groupId);
 		if (groupMetadata != null) {
 			Iterator<UUID> messageIds = groupMetadata.messageIdIterator();
 			while (messageIds.hasNext()) {
@@ -361,7 +487,11 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	@Override
 	public int messageGroupSize(Object groupId) {
-		MessageGroupMetadata mgm = getGroupMetadata(groupId);
+		if (this.incrementalGroupMembership) {
+			Assert.notNull(groupId, "'groupId' must not be null");
+			return doCountGroupMembers(this.groupMembersPrefix + groupId);
+		}
+		MessageGroupMetadata mgm = retrieveGroupMetadata(groupId);
 		if (mgm != null) {
 			return mgm.size();
 		}
@@ -380,6 +510,138 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 
 	protected abstract Collection<?> doListKeys(String keyPattern);
 
+	/**
+	 * Store the objects which are not present yet under their keys. Stores should
+	 * override to do that in a single round trip (e.g. a batch or a pipeline).
+	 * The default implementation invokes {@link #doStoreIfAbsent(Object, Object)}
+	 * for each entry.
+	 * @param objectsToStore the objects to store by their keys.
+	 * @since 5.1
+	 */
+	protected void doStoreAllIfAbsent(Map<Object, Object> objectsToStore) {
+		for (Map.Entry<Object, Object> entry : objectsToStore.entrySet()) {
+			doStoreIfAbsent(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Remove the objects stored under the keys. Stores should override to do that
+	 * in a single round trip. The default implementation invokes
+	 * {@link #doRemove(Object)} for each key.
+	 * @param ids the keys of the objects to remove.
+	 * @since 5.1
+	 */
+	protected void doRemoveAll(Collection<Object> ids) {
+		for (Object id : ids) {
+			doRemove(id);
+		}
+	}
+
+	/**
+	 * Append the message ids to the group membership entry, ignoring those already present.
+	 * The default implementation (as all the {@code do*GroupMember*} ones) reads and
+	 * rewrites the whole set of ids stored as a single value under the key, so it isn't any
+	 * cheaper than the default layout; stores override these operations with the native
+	 * ones of the target data base.
+	 * @param key the key of the group membership entry.
+	 * @param messageIds the ids to append, in order.
+	 * @since 5.1
+	 */
+	protected void doAddGroupMembers(String key, List<UUID> messageIds) {
+		LinkedHashSet<UUID> members = retrieveGroupMembers(key);
+		if (members.addAll(messageIds)) {
+			doStore(key, members);
+		}
+	}
+
+	/**
+	 * Remove the message ids from the group membership entry.
+	 * @param key the key of the group membership entry.
+	 * @param messageIds the ids to remove.
+	 * @since 5.1
+	 */
+	protected void doRemoveGroupMembers(String key, Collection<UUID> messageIds) {
+		LinkedHashSet<UUID> members = retrieveGroupMembers(key);
+		if (members.removeAll(messageIds)) {
+			storeGroupMembers(key, members);
+		}
+	}
+
+	/**
+	 * Remove the whole group membership entry.
+	 * @param key the key of the group membership entry.
+	 * @since 5.1
+	 */
+	protected void doRemoveAllGroupMembers(String key) {
+		doRemove(key);
+	}
+
+	/**
+	 * Return the message ids of the group membership entry, in order.
+	 * @param key the key of the group membership entry.
+	 * @return the ids; never null.
+	 * @since 5.1
+	 */
+	protected List<UUID> doListGroupMembers(String key) {
+		return new ArrayList<>(retrieveGroupMembers(key));
+	}
+
+	/**
+	 * Return the first message id of the group membership entry.
+	 * @param key the key of the group membership entry.
+	 * @return the id or null if there are no members.
+	 * @since 5.1
+	 */
+	protected UUID doGetFirstGroupMember(String key) {
+		LinkedHashSet<UUID> members = retrieveGroupMembers(key);
+		return members.isEmpty() ? null : members.iterator().next();
+	}
+
+	/**
+	 * Remove and return the first message id of the group membership entry.
+	 * @param key the key of the group membership entry.
+	 * @return the id or null if there are no members.
+	 * @since 5.1
+	 */
+	protected UUID doPollGroupMember(String key) {
+		LinkedHashSet<UUID> members = retrieveGroupMembers(key);
+		if (members.isEmpty()) {
+			return null;
+		}
+		Iterator<UUID> iterator = members.iterator();
+		UUID first = iterator.next();
+		iterator.remove();
+		storeGroupMembers(key, members);
+		return first;
+	}
+
+	/**
+	 * Return the number of message ids in the group membership entry.
+	 * @param key the key of the group membership entry.
+	 * @return the number of members.
+	 * @since 5.1
+	 */
+	protected int doCountGroupMembers(String key) {
+		return retrieveGroupMembers(key).size();
+	}
+
+	@SuppressWarnings("unchecked")
+	private LinkedHashSet<UUID> retrieveGroupMembers(String key) {
+		Object members = doRetrieve(key);
+		return members instanceof Collection
+				? new LinkedHashSet<>((Collection<UUID>) members)
+				: new LinkedHashSet<>();
+	}
+
+	private void storeGroupMembers(String key, LinkedHashSet<UUID> members) {
+		if (members.isEmpty()) {
+			doRemove(key);
+		}
+		else {
+			doStore(key, members);
+		}
+	}
+
 	private final class MessageGroupIterator implements Iterator<MessageGroup> {
 
 		private final Iterator<?> idIterator;
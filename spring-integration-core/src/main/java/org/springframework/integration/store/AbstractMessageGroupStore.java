@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,11 @@ package org.springframework.integration.store;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -51,6 +55,8 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 
 	private boolean lazyLoadMessageGroups = true;
 
+	private int expiryPageSize;
+
 	protected AbstractMessageGroupStore() {
 		super();
 	}
@@ -108,6 +114,24 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 		this.lazyLoadMessageGroups = lazyLoadMessageGroups;
 	}
 
+	/**
+	 * Set the maximum number of expired group ids to fetch at once from the store's time
+	 * index when {@link #expireMessageGroups(long) expiring} message groups. With a
+	 * positive value, and a store which {@link #findExpirableGroupIds(long, long, int)
+	 * maintains such an index}, only the groups older than the timeout are loaded, page by
+	 * page, instead of iterating over all the groups of the store.
+	 * Default 0 - iterate over all the groups.
+	 * @param expiryPageSize the page size.
+	 * @since 5.1
+	 */
+	public void setExpiryPageSize(int expiryPageSize) {
+		this.expiryPageSize = expiryPageSize;
+	}
+
+	public int getExpiryPageSize() {
+		return this.expiryPageSize;
+	}
+
 	@Override
 	public void registerMessageGroupExpiryCallback(MessageGroupCallback callback) {
 		this.expiryCallbacks.add(callback);
@@ -118,14 +142,8 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 	public synchronized int expireMessageGroups(long timeout) {
 		int count = 0;
 		long threshold = System.currentTimeMillis() - timeout;
-		for (MessageGroup group : this) {
-
-			long timestamp = group.getTimestamp();
-			if (this.isTimeoutOnIdle() && group.getLastModified() > 0) {
-				timestamp = group.getLastModified();
-			}
-
-			if (timestamp <= threshold) {
+		for (MessageGroup group : expirableMessageGroups(threshold)) {
+			if (expiryTime(group) <= threshold) {
 				count++;
 				expire(copy(group));
 			}
@@ -133,6 +151,41 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 		return count;
 	}
 
+	/**
+	 * Return the groups to check for the expiry: the groups found in the store's time index
+	 * page by page, when an {@link #setExpiryPageSize(int) expiry page size} is set and the
+	 * store {@link #findExpirableGroupIds(long, long, int) maintains such an index};
+	 * otherwise all the groups of the store.
+	 * @param threshold the time the groups must not be modified (or created) after.
+	 * @return the groups.
+	 * @since 5.1
+	 */
+	protected Iterable<MessageGroup> expirableMessageGroups(long threshold) {
+		if (this.expiryPageSize > 0) {
+			Collection<?> groupIds = findExpirableGroupIds(Long.MIN_VALUE, threshold, this.expiryPageSize);
+			if (groupIds != null) {
+				return () -> new ExpirableMessageGroupIterator(groupIds, threshold);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Return the ids of at most {@code limit} groups, ordered by their creation time (or the
+	 * last modification time when {@link #isTimeoutOnIdle() timeoutOnIdle}), which is in
+	 * the range {@code [fromTime, threshold]}. The ids must be accepted by
+	 * {@link #getMessageGroup(Object)}. Stores which maintain an index for these times
+	 * override this method to avoid a scan of all the groups on each expiry.
+	 * @param fromTime the beginning of the range (inclusive).
+	 * @param threshold the end of the range (inclusive).
+	 * @param limit the maximum number of ids to return.
+	 * @return the group ids, or null if the store has no such index (default).
+	 * @since 5.1
+	 */
+	protected Collection<?> findExpirableGroupIds(long fromTime, long threshold, int limit) {
+		return null;
+	}
+
 	/**
 	 * Used by expireMessageGroups. We need to return a snapshot of the group
 	 * at the time the reaper runs, so we can properly detect if the
@@ -183,6 +236,14 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 		return getMessageGroup(groupId);
 	}
 
+	private long expiryTime(MessageGroup group) {
+		long timestamp = group.getTimestamp();
+		if (isTimeoutOnIdle() && group.getLastModified() > 0) {
+			timestamp = group.getLastModified();
+		}
+		return timestamp;
+	}
+
 	private void expire(MessageGroup group) {
 
 		RuntimeException exception = null;
@@ -204,4 +265,74 @@ public abstract class AbstractMessageGroupStore extends AbstractBatchingMessageG
 		}
 	}
 
+	/**
+	 * Pages through the time index. The next page starts from the time of the last
+	 * expirable group; the groups of the previous pages with that same time, which are
+	 * still in the store (e.g. their expiry callbacks didn't remove them), are skipped.
+	 * The iteration stops when a page contains no group which hasn't been seen yet.
+	 */
+	private final class ExpirableMessageGroupIterator implements Iterator<MessageGroup> {
+
+		private final Set<Object> seen = new HashSet<>();
+
+		private final long threshold;
+
+		private Iterator<?> page;
+
+		private boolean lastPage;
+
+		private boolean progress;
+
+		private long fromTime = Long.MIN_VALUE;
+
+		private MessageGroup next;
+
+		ExpirableMessageGroupIterator(Collection<?> firstPage, long threshold) {
+			this.threshold = threshold;
+			nextPage(firstPage);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.next == null) {
+				if (this.page.hasNext()) {
+					Object groupId = this.page.next();
+					if (this.seen.add(groupId)) {
+						this.progress = true;
+						MessageGroup group = getMessageGroup(groupId);
+						long timestamp = expiryTime(group);
+						if (timestamp <= this.threshold) {
+							this.fromTime = Math.max(this.fromTime, timestamp);
+							this.next = group;
+						}
+					}
+				}
+				else if (this.lastPage || !this.progress) {
+					return false;
+				}
+				else {
+					nextPage(findExpirableGroupIds(this.fromTime, this.threshold, getExpiryPageSize()));
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public MessageGroup next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			MessageGroup group = this.next;
+			this.next = null;
+			return group;
+		}
+
+		private void nextPage(Collection<?> groupIds) {
+			this.page = groupIds.iterator();
+			this.lastPage = groupIds.size() < getExpiryPageSize();
+			this.progress = false;
+		}
+
+	}
+
 }
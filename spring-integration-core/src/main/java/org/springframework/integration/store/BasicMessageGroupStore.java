@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2016 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.integration.store;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.messaging.Message;
 
@@ -64,6 +67,30 @@ public interface BasicMessageGroupStore {
 	 */
 	Message<?> pollMessageFromGroup(Object groupId);
 
+	/**
+	 * Poll up to {@code maxMessages} Messages from this {@link MessageGroup}
+	 * (in FIFO style if supported by the implementation) while also removing them.
+	 * The default implementation invokes {@link #pollMessageFromGroup(Object)} until
+	 * it returns null or {@code maxMessages} have been polled; stores that can fetch
+	 * and remove several messages in one round trip should override it.
+	 *
+	 * @param groupId The group identifier.
+	 * @param maxMessages The maximum number of messages to poll.
+	 * @return The messages; never null.
+	 * @since 5.1
+	 */
+	default List<Message<?>> pollMessagesFromGroup(Object groupId, int maxMessages) {
+		List<Message<?>> messages = new ArrayList<>();
+		while (messages.size() < maxMessages) {
+			Message<?> message = pollMessageFromGroup(groupId);
+			if (message == null) {
+				break;
+			}
+			messages.add(message);
+		}
+		return messages;
+	}
+
 	/**
 	 * Remove the message group with this id.
 	 *
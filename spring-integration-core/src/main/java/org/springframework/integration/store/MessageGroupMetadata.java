@@ -17,6 +17,8 @@
 package org.springframework.integration.store;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -64,14 +66,30 @@ public class MessageGroupMetadata implements Serializable {
 		this.lastModified = messageGroup.getLastModified();
 	}
 
+	MessageGroupMetadata(MessageGroupMetadata metadata) {
+		this.messageIds = new LinkedList<UUID>(metadata.messageIds);
+		this.complete = metadata.complete;
+		this.timestamp = metadata.timestamp;
+		this.lastReleasedMessageSequenceNumber = metadata.lastReleasedMessageSequenceNumber;
+		this.lastModified = metadata.lastModified;
+	}
+
 	public void remove(UUID messageId) {
 		this.messageIds.remove(messageId);
 	}
 
+	void removeAll(Collection<UUID> messageIds) {
+		this.messageIds.removeAll(messageIds.size() > 1 ? new HashSet<UUID>(messageIds) : messageIds);
+	}
+
 	boolean add(UUID messageId) {
 		return !this.messageIds.contains(messageId) && this.messageIds.add(messageId);
 	}
 
+	void setMessageIds(Collection<UUID> messageIds) {
+		this.messageIds = new LinkedList<UUID>(messageIds);
+	}
+
 	void setLastModified(long lastModified) {
 		this.lastModified = lastModified;
 	}
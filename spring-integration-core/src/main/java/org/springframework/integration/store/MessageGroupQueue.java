@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -201,12 +201,15 @@ public class MessageGroupQueue extends AbstractQueue<Message<?>> implements Bloc
 		try {
 			storeLock.lockInterruptibly();
 			try {
-				Message<?> message = this.messageGroupStore.pollMessageFromGroup(this.groupId);
-				for (int i = 0; i < maxElements && message != null; i++) {
-					list.add(message);
-					message = this.messageGroupStore.pollMessageFromGroup(this.groupId);
+				if (maxElements > 0) {
+					list.addAll(this.messageGroupStore.pollMessagesFromGroup(this.groupId, maxElements));
+				}
+				if (list.size() > 1) {
+					this.messageStoreNotFull.signalAll();
+				}
+				else {
+					this.messageStoreNotFull.signal();
 				}
-				this.messageStoreNotFull.signal();
 			}
 			finally {
 				storeLock.unlock();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -142,6 +142,20 @@ public interface MessageGroupStore extends BasicMessageGroupStore {
 	 */
 	Collection<Message<?>> getMessagesForGroup(Object groupId);
 
+	/**
+	 * Complete the group and remove the provided messages from it. Stores which can
+	 * should perform this in as few round trips as possible, e.g. as a batch.
+	 * The default implementation invokes {@link #completeGroup(Object)} and then
+	 * {@link #removeMessagesFromGroup(Object, Collection)}.
+	 * @param groupId The group identifier.
+	 * @param messages The messages to be removed.
+	 * @since 5.1
+	 */
+	default void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		completeGroup(groupId);
+		removeMessagesFromGroup(groupId, messages);
+	}
+
 	/**
 	 * Invoked when a MessageGroupStore expires a group.
 	 */
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.messaging.Message;
+
+/**
+ * Tracks the messages of a {@link SimpleMessageGroup} by their sequence number in a ring
+ * buffer keyed by {@code sequenceNumber - lowestSequenceNumber}, so adding and removing a
+ * message, finding the lowest sequence number and collecting the contiguous run of
+ * sequence numbers which starts with it don't require boxing, hashing or sorting.
+ * <p>
+ * Messages without a (positive) sequence number, with a sequence number which is already
+ * present, or too far from the others to keep the ring compact are not indexed; while any
+ * of them is in the group, {@link #getLowestSequenceNumber()} and
+ * {@link #getContiguousSequence()} report that the index can't answer.
+ *
+ * @author agent
+ * @since 5.1
+ */
+final class MessageSequenceIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static final int MIN_SPAN_LIMIT = 1024;
+
+	private Message<?>[] slots = new Message<?>[0];
+
+	private int head;
+
+	private int lowest;
+
+	private int span;
+
+	private int count;
+
+	private int unindexed;
+
+	private Set<Integer> unindexedSequences;
+
+	synchronized void add(Message<?> message) {
+		Integer sequence = sequenceNumber(message);
+		if (sequence == null || sequence <= 0 || !place(sequence, message)) {
+			this.unindexed++;
+			if (this.unindexedSequences == null) {
+				this.unindexedSequences = new HashSet<>();
+			}
+			this.unindexedSequences.add(sequence != null ? sequence : 0);
+		}
+	}
+
+	synchronized void remove(Message<?> message) {
+		Integer sequence = sequenceNumber(message);
+		if (sequence != null && sequence > 0 && this.count > 0) {
+			long offset = (long) sequence - this.lowest;
+			if (offset >= 0 && offset < this.span) {
+				int index = slot((int) offset);
+				if (message.equals(this.slots[index])) {
+					this.slots[index] = null;
+					if (--this.count == 0) {
+						this.span = 0;
+					}
+					else if (offset == 0) {
+						advanceHead();
+					}
+					return;
+				}
+			}
+		}
+		if (this.unindexed > 0) {
+			this.unindexed--;
+			this.unindexedSequences.remove(sequence != null ? sequence : 0);
+		}
+	}
+
+	synchronized boolean contains(Integer sequence) {
+		if (sequence != null && this.count > 0) {
+			long offset = (long) sequence - this.lowest;
+			if (offset >= 0 && offset < this.span && this.slots[slot((int) offset)] != null) {
+				return true;
+			}
+		}
+		return this.unindexed > 0 && this.unindexedSequences.contains(sequence);
+	}
+
+	synchronized int size() {
+		return this.count + this.unindexed;
+	}
+
+	/**
+	 * Return the lowest sequence number in the group.
+	 * @return the lowest sequence number, or -1 if the group is empty or has messages
+	 * which are not indexed.
+	 */
+	synchronized int getLowestSequenceNumber() {
+		return this.count > 0 && this.unindexed == 0 ? this.lowest : -1;
+	}
+
+	/**
+	 * Return the messages with the contiguous run of sequence numbers which starts with
+	 * the lowest one, in sequence order.
+	 * @return the messages, or null if the group has messages which are not indexed.
+	 */
+	synchronized List<Message<?>> getContiguousSequence() {
+		if (this.unindexed > 0) {
+			return null;
+		}
+		List<Message<?>> messages = new ArrayList<>();
+		for (int offset = 0; offset < this.span; offset++) {
+			Message<?> message = this.slots[slot(offset)];
+			if (message == null) {
+				break;
+			}
+			messages.add(message);
+		}
+		return messages;
+	}
+
+	synchronized void clear() {
+		this.slots = new Message<?>[0];
+		this.head = 0;
+		this.span = 0;
+		this.count = 0;
+		this.unindexed = 0;
+		this.unindexedSequences = null;
+	}
+
+	private boolean place(int sequence, Message<?> message) {
+		if (this.count == 0) {
+			if (this.slots.length == 0) {
+				this.slots = new Message<?>[INITIAL_CAPACITY];
+			}
+			this.head = 0;
+			this.lowest = sequence;
+			this.span = 1;
+			this.slots[0] = message;
+			this.count = 1;
+			return true;
+		}
+		long offset = (long) sequence - this.lowest;
+		if (offset < 0) {
+			long newSpan = this.span - offset;
+			if (newSpan > spanLimit()) {
+				return false;
+			}
+			resize((int) newSpan, (int) -offset);
+			this.lowest = sequence;
+			this.span = (int) newSpan;
+			offset = 0;
+		}
+		else if (offset < this.span) {
+			if (this.slots[slot((int) offset)] != null) {
+				return false;
+			}
+		}
+		else {
+			long newSpan = offset + 1;
+			if (newSpan > spanLimit()) {
+				return false;
+			}
+			if (newSpan > this.slots.length) {
+				resize((int) newSpan, 0);
+			}
+			this.span = (int) newSpan;
+		}
+		this.slots[slot((int) offset)] = message;
+		this.count++;
+		return true;
+	}
+
+	private long spanLimit() {
+		return Math.max(MIN_SPAN_LIMIT, 8L * (this.count + 1));
+	}
+
+	private void resize(int minCapacity, int shift) {
+		int capacity = this.slots.length;
+		while (capacity < minCapacity) {
+			capacity <<= 1;
+		}
+		Message<?>[] newSlots = new Message<?>[capacity];
+		for (int offset = 0; offset < this.span; offset++) {
+			newSlots[offset + shift] = this.slots[slot(offset)];
+		}
+		this.slots = newSlots;
+		this.head = 0;
+	}
+
+	private void advanceHead() {
+		while (this.slots[this.head] == null) {
+			this.head = (this.head + 1) & (this.slots.length - 1);
+			this.lowest++;
+			this.span--;
+		}
+	}
+
+	private int slot(int offset) {
+		return (this.head + offset) & (this.slots.length - 1);
+	}
+
+	private static Integer sequenceNumber(Message<?> message) {
+		return message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER, Integer.class);
+	}
+
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.codec.Codec;
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link MessageStore} and {@link MessageGroupStore} which keeps the messages outside of
+ * the Java heap. Each message is encoded with the {@link Codec} (a Kryo
+ * {@link MessageCodec} by default) and appended to a direct memory segment; only compact
+ * indexes (the message and group keys, the location of each message and the ids of the
+ * messages in each group) and the group metadata remain on the heap. Therefore, large
+ * in-flight aggregations don't increase the heap occupancy and GC pauses.
+ * <p>
+ * When the {@link #setMemoryBudget(long) memory budget} would be exceeded, new messages
+ * are spilled to memory-mapped segment files in the {@link #setSpillDirectory(File) spill
+ * directory}; without a spill directory a {@link MessageStoreException} is thrown instead.
+ * A segment is released when the last message stored in it is removed, so the memory (or
+ * file) occupied by a segment can't be reused while any of its messages is still in the
+ * store.
+ * <p>
+ * Messages are decoded on each retrieval, so the store returns a copy of the stored
+ * message with the same {@code id} and {@code timestamp} headers. The group membership is
+ * kept {@link #setIncrementalGroupMembership(boolean) incrementally} by default.
+ * <p>
+ * This store can be used as a drop-in replacement for the {@link SimpleMessageStore} in
+ * the aggregator, resequencer and delayer, and with a {@link MessageGroupQueue} for a
+ * {@code QueueChannel}. Nothing survives a restart of the application.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class OffHeapMessageStore extends AbstractKeyValueMessageStore implements DisposableBean {
+
+	/**
+	 * The default size of a memory or spill segment - 4 megabytes.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	private final ConcurrentMap<Object, StoredMessage> messages = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Object, MessageGroupMetadata> groups = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Set<UUID>> groupMembers = new ConcurrentHashMap<>();
+
+	private final Set<Segment> segments = new HashSet<>();
+
+	private final Object segmentsMonitor = new Object();
+
+	private final Codec codec;
+
+	private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	private long memoryBudget = Long.MAX_VALUE;
+
+	private File spillDirectory;
+
+	private Segment memorySegment;
+
+	private Segment spillSegment;
+
+	private long memoryInUse;
+
+	private long spillInUse;
+
+	/**
+	 * Construct an instance which encodes messages with a {@link MessageCodec}.
+	 * Requires Kryo on the classpath.
+	 */
+	public OffHeapMessageStore() {
+		this(new MessageCodec());
+	}
+
+	/**
+	 * Construct an instance which encodes messages with the provided {@link Codec}.
+	 * @param codec the codec.
+	 */
+	public OffHeapMessageStore(Codec codec) {
+		Assert.notNull(codec, "'codec' must not be null");
+		this.codec = codec;
+		setIncrementalGroupMembership(true);
+	}
+
+	/**
+	 * Set the size of the memory and spill segments which messages are appended to.
+	 * A message larger than the segment size gets a segment of its own.
+	 * Default {@value #DEFAULT_SEGMENT_SIZE}.
+	 * @param segmentSize the segment size in bytes.
+	 */
+	public void setSegmentSize(int segmentSize) {
+		Assert.isTrue(segmentSize > 0, "'segmentSize' must be greater than 0");
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Set the maximum number of bytes of direct memory the memory segments may occupy.
+	 * Default unlimited.
+	 * @param memoryBudget the memory budget in bytes.
+	 * @see #setSpillDirectory(File)
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		Assert.isTrue(memoryBudget >= 0, "'memoryBudget' must not be negative");
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Set the directory for the memory-mapped segment files used when the
+	 * {@link #setMemoryBudget(long) memory budget} is exhausted.
+	 * The files are deleted when their segments are released and on {@link #destroy()}.
+	 * @param spillDirectory the spill directory.
+	 */
+	public void setSpillDirectory(File spillDirectory) {
+		Assert.notNull(spillDirectory, "'spillDirectory' must not be null");
+		Assert.isTrue(spillDirectory.isDirectory() || spillDirectory.mkdirs(),
+				() -> "Cannot create the spill directory " + spillDirectory);
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * Return the number of bytes of direct memory occupied by the memory segments.
+	 * @return the number of bytes.
+	 */
+	@ManagedAttribute
+	public long getMemoryInUse() {
+		synchronized (this.segmentsMonitor) {
+			return this.memoryInUse;
+		}
+	}
+
+	/**
+	 * Return the number of bytes occupied by the spill segment files.
+	 * @return the number of bytes.
+	 */
+	@ManagedAttribute
+	public long getSpillInUse() {
+		synchronized (this.segmentsMonitor) {
+			return this.spillInUse;
+		}
+	}
+
+	@Override
+	@ManagedAttribute
+	public long getMessageCount() {
+		return this.messages.size();
+	}
+
+	@Override
+	protected Object doRetrieve(Object id) {
+		MessageGroupMetadata metadata = this.groups.get(id);
+		if (metadata != null) {
+			return new MessageGroupMetadata(metadata);
+		}
+		StoredMessage storedMessage = this.messages.get(id);
+		return storedMessage != null ? decode(storedMessage) : null;
+	}
+
+	@Override
+	protected void doStore(Object id, Object objectToStore) {
+		if (objectToStore instanceof MessageGroupMetadata) {
+			this.groups.put(id, new MessageGroupMetadata((MessageGroupMetadata) objectToStore));
+		}
+		else {
+			release(this.messages.put(id, encode(objectToStore)));
+		}
+	}
+
+	@Override
+	protected void doStoreIfAbsent(Object id, Object objectToStore) {
+		if (objectToStore instanceof MessageGroupMetadata) {
+			this.groups.putIfAbsent(id, new MessageGroupMetadata((MessageGroupMetadata) objectToStore));
+		}
+		else if (!this.messages.containsKey(id)) {
+			StoredMessage storedMessage = encode(objectToStore);
+			if (this.messages.putIfAbsent(id, storedMessage) != null) {
+				release(storedMessage);
+			}
+		}
+	}
+
+	@Override
+	protected void doStoreAllIfAbsent(Map<Object, Object> objectsToStore) {
+		for (Map.Entry<Object, Object> entry : objectsToStore.entrySet()) {
+			doStoreIfAbsent(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	protected Object doRemove(Object id) {
+		MessageGroupMetadata metadata = this.groups.remove(id);
+		if (metadata != null) {
+			return metadata;
+		}
+		StoredMessage storedMessage = this.messages.remove(id);
+		if (storedMessage != null) {
+			MessageHolder messageHolder = decode(storedMessage);
+			release(storedMessage);
+			return messageHolder;
+		}
+		return null;
+	}
+
+	@Override
+	protected void doRemoveAll(Collection<Object> ids) {
+		for (Object id : ids) {
+			if (this.groups.remove(id) == null) {
+				release(this.messages.remove(id));
+			}
+		}
+	}
+
+	@Override
+	protected Collection<?> doListKeys(String keyPattern) {
+		Assert.isTrue(keyPattern.endsWith("*"), "Only prefix patterns ending with '*' are supported");
+		String prefix = keyPattern.substring(0, keyPattern.length() - 1);
+		List<Object> keys = new ArrayList<>();
+		collectKeys(this.groups.keySet(), prefix, keys);
+		collectKeys(this.messages.keySet(), prefix, keys);
+		return keys;
+	}
+
+	private static void collectKeys(Set<Object> keys, String prefix, List<Object> result) {
+		for (Object key : keys) {
+			if (key.toString().startsWith(prefix)) {
+				result.add(key);
+			}
+		}
+	}
+
+	@Override
+	protected void doAddGroupMembers(String key, List<UUID> messageIds) {
+		Set<UUID> members = this.groupMembers.computeIfAbsent(key, k -> new LinkedHashSet<>());
+		synchronized (members) {
+			members.addAll(messageIds);
+		}
+	}
+
+	@Override
+	protected void doRemoveGroupMembers(String key, Collection<UUID> messageIds) {
+		Set<UUID> members = this.groupMembers.get(key);
+		if (members != null) {
+			synchronized (members) {
+				members.removeAll(messageIds);
+			}
+		}
+	}
+
+	@Override
+	protected void doRemoveAllGroupMembers(String key) {
+		this.groupMembers.remove(key);
+	}
+
+	@Override
+	protected List<UUID> doListGroupMembers(String key) {
+		Set<UUID> members = this.groupMembers.get(key);
+		if (members == null) {
+			return new ArrayList<>();
+		}
+		synchronized (members) {
+			return new ArrayList<>(members);
+		}
+	}
+
+	@Override
+	protected UUID doGetFirstGroupMember(String key) {
+		Set<UUID> members = this.groupMembers.get(key);
+		if (members != null) {
+			synchronized (members) {
+				if (!members.isEmpty()) {
+					return members.iterator().next();
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected UUID doPollGroupMember(String key) {
+		Set<UUID> members = this.groupMembers.get(key);
+		if (members != null) {
+			synchronized (members) {
+				if (!members.isEmpty()) {
+					UUID first = members.iterator().next();
+					members.remove(first);
+					return first;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected int doCountGroupMembers(String key) {
+		Set<UUID> members = this.groupMembers.get(key);
+		if (members == null) {
+			return 0;
+		}
+		synchronized (members) {
+			return members.size();
+		}
+	}
+
+	/**
+	 * Remove all the messages and groups and release all the segments.
+	 */
+	@Override
+	public void destroy() {
+		this.messages.clear();
+		this.groups.clear();
+		this.groupMembers.clear();
+		synchronized (this.segmentsMonitor) {
+			for (Segment segment : this.segments) {
+				segment.delete();
+			}
+			this.segments.clear();
+			this.memorySegment = null;
+			this.spillSegment = null;
+			this.memoryInUse = 0;
+			this.spillInUse = 0;
+		}
+	}
+
+	private StoredMessage encode(Object object) {
+		Assert.isInstanceOf(MessageHolder.class, object);
+		MessageHolder messageHolder = (MessageHolder) object;
+		Message<?> message = messageHolder.getMessage();
+		byte[] bytes;
+		try {
+			bytes = this.codec.encode(message);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException(message, "Failed to encode the message", e);
+		}
+		StoredMessage storedMessage = allocate(bytes.length, message, messageHolder.getMessageMetadata());
+		ByteBuffer buffer = storedMessage.segment.buffer.duplicate();
+		buffer.position(storedMessage.offset);
+		buffer.put(bytes);
+		return storedMessage;
+	}
+
+	private MessageHolder decode(StoredMessage storedMessage) {
+		byte[] bytes = new byte[storedMessage.length];
+		ByteBuffer buffer = storedMessage.segment.buffer.duplicate();
+		buffer.position(storedMessage.offset);
+		buffer.get(bytes);
+		Message<?> message;
+		try {
+			message = (Message<?>) this.codec.decode(bytes, storedMessage.type);
+		}
+		catch (IOException e) {
+			throw new MessageStoreException("Failed to decode the message with id [" + storedMessage.id + "]", e);
+		}
+		MessageHeaders headers = message.getHeaders();
+		if (!storedMessage.id.equals(headers.getId())) {
+			restoreIdAndTimestamp(headers, storedMessage);
+		}
+		MessageHolder messageHolder = new MessageHolder(message);
+		messageHolder.setTimestamp(storedMessage.storedTimestamp);
+		return messageHolder;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void restoreIdAndTimestamp(MessageHeaders headers, StoredMessage storedMessage) {
+		Map<String, Object> innerMap =
+				(Map<String, Object>) new DirectFieldAccessor(headers).getPropertyValue("headers");
+		// using reflection to set ID and TIMESTAMP since they are immutable through MessageHeaders
+		innerMap.put(MessageHeaders.ID, storedMessage.id);
+		if (storedMessage.timestamp != null) {
+			innerMap.put(MessageHeaders.TIMESTAMP, storedMessage.timestamp);
+		}
+	}
+
+	private StoredMessage allocate(int length, Message<?> message, MessageMetadata messageMetadata) {
+		synchronized (this.segmentsMonitor) {
+			Segment segment;
+			if (this.memorySegment != null && this.memorySegment.remaining() >= length) {
+				segment = this.memorySegment;
+			}
+			else if (this.spillSegment != null && this.spillSegment.remaining() >= length) {
+				segment = this.spillSegment;
+			}
+			else {
+				segment = newSegment(Math.max(this.segmentSize, length), message);
+			}
+			int offset = segment.position;
+			segment.position += length;
+			segment.liveMessages++;
+			return new StoredMessage(segment, offset, length, message.getClass(),
+					message.getHeaders().getId(), message.getHeaders().getTimestamp(),
+					messageMetadata.getTimestamp());
+		}
+	}
+
+	private Segment newSegment(int capacity, Message<?> message) {
+		Segment segment;
+		if (this.memoryInUse + capacity <= this.memoryBudget) {
+			seal(this.memorySegment);
+			segment = new Segment(ByteBuffer.allocateDirect(capacity), null);
+			this.memorySegment = segment;
+			this.memoryInUse += capacity;
+		}
+		else if (this.spillDirectory != null) {
+			seal(this.spillSegment);
+			segment = newSpillSegment(capacity, message);
+			this.spillSegment = segment;
+			this.spillInUse += capacity;
+		}
+		else {
+			throw new MessageStoreException(message,
+					"The memory budget of " + this.memoryBudget + " bytes is exhausted and no spill directory is set");
+		}
+		this.segments.add(segment);
+		return segment;
+	}
+
+	private Segment newSpillSegment(int capacity, Message<?> message) {
+		File file = null;
+		try {
+			file = File.createTempFile("message-store-", ".segment", this.spillDirectory);
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+				randomAccessFile.setLength(capacity);
+				return new Segment(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity),
+						file);
+			}
+		}
+		catch (IOException e) {
+			if (file != null && !file.delete()) {
+				file.deleteOnExit();
+			}
+			throw new MessageStoreException(message, "Failed to create a spill segment", e);
+		}
+	}
+
+	private void seal(Segment segment) {
+		if (segment != null) {
+			segment.sealed = true;
+			if (segment.liveMessages == 0) {
+				releaseSegment(segment);
+			}
+		}
+	}
+
+	private void release(StoredMessage storedMessage) {
+		if (storedMessage != null) {
+			synchronized (this.segmentsMonitor) {
+				Segment segment = storedMessage.segment;
+				if (--segment.liveMessages == 0 && segment.sealed) {
+					releaseSegment(segment);
+				}
+			}
+		}
+	}
+
+	private void releaseSegment(Segment segment) {
+		if (this.segments.remove(segment)) {
+			if (segment.file != null) {
+				this.spillInUse -= segment.buffer.capacity();
+				segment.delete();
+			}
+			else {
+				this.memoryInUse -= segment.buffer.capacity();
+			}
+		}
+	}
+
+	/**
+	 * A region of direct memory or of a memory-mapped file which encoded messages are
+	 * appended to. The buffer itself is never modified; reads and writes are done through
+	 * its duplicates, so a reader which still holds a released segment reads valid bytes.
+	 */
+	private static final class Segment {
+
+		private final ByteBuffer buffer;
+
+		private final File file;
+
+		private int position;
+
+		private int liveMessages;
+
+		private boolean sealed;
+
+		Segment(ByteBuffer buffer, File file) {
+			this.buffer = buffer;
+			this.file = file;
+		}
+
+		int remaining() {
+			return this.buffer.capacity() - this.position;
+		}
+
+		void delete() {
+			if (this.file != null && !this.file.delete()) {
+				this.file.deleteOnExit();
+			}
+		}
+
+	}
+
+	/**
+	 * The on-heap index entry for a stored message.
+	 */
+	private static final class StoredMessage {
+
+		private final Segment segment;
+
+		private final int offset;
+
+		private final int length;
+
+		private final Class<?> type;
+
+		private final UUID id;
+
+		private final Long timestamp;
+
+		private final long storedTimestamp;
+
+		StoredMessage(Segment segment, int offset, int length, Class<?> type, UUID id,
+				Long timestamp, long storedTimestamp) {
+
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.type = type;
+			this.id = id;
+			this.timestamp = timestamp;
+			this.storedTimestamp = storedTimestamp;
+		}
+
+	}
+
+}
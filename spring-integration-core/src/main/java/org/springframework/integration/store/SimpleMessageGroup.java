@@ -18,10 +18,9 @@ package org.springframework.integration.store;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.List;
 
 import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.messaging.Message;
@@ -46,7 +45,7 @@ public class SimpleMessageGroup implements MessageGroup {
 
 	private final Collection<Message<?>> messages;
 
-	private final Set<Integer> sequences = new HashSet<>();
+	private final MessageSequenceIndex sequences = new MessageSequenceIndex();
 
 	private final long timestamp;
 
@@ -119,8 +118,11 @@ public class SimpleMessageGroup implements MessageGroup {
 
 	@Override
 	public boolean remove(Message<?> message) {
-		this.sequences.remove(message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER));
-		return this.messages.remove(message);
+		boolean removed = this.messages.remove(message);
+		if (removed) {
+			this.sequences.remove(message);
+		}
+		return removed;
 	}
 
 	@Override
@@ -129,9 +131,11 @@ public class SimpleMessageGroup implements MessageGroup {
 	}
 
 	private boolean addMessage(Message<?> message) {
-		Integer sequence = message.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER, Integer.class);
-		this.sequences.add(sequence != null ? sequence : 0);
-		return this.messages.add(message);
+		boolean added = this.messages.add(message);
+		if (added) {
+			this.sequences.add(message);
+		}
+		return added;
 	}
 
 	@Override
@@ -197,6 +201,32 @@ public class SimpleMessageGroup implements MessageGroup {
 		return this.sequences.contains(sequence);
 	}
 
+	/**
+	 * Return the lowest sequence number in the group, without sorting its messages.
+	 * @return the lowest sequence number, or -1 if the group is empty or it can't be
+	 * determined without sorting (some messages have no sequence number or share it).
+	 * @since 5.1
+	 */
+	public int getLowestSequenceNumber() {
+		return isIndexed() ? this.sequences.getLowestSequenceNumber() : -1;
+	}
+
+	/**
+	 * Return the messages with the contiguous run of sequence numbers which starts with
+	 * the {@link #getLowestSequenceNumber() lowest} one, in sequence order, without
+	 * sorting the messages of the group.
+	 * @return the messages, or null if they can't be determined without sorting.
+	 * @since 5.1
+	 */
+	public List<Message<?>> getContiguousSequence() {
+		return isIndexed() ? this.sequences.getContiguousSequence() : null;
+	}
+
+	private boolean isIndexed() {
+		// a group created with pre-loaded messages doesn't index them
+		return this.sequences.size() == this.messages.size();
+	}
+
 	@Override
 	public String toString() {
 		return "SimpleMessageGroup{" +
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.util.Collection;
+
+import org.springframework.messaging.Message;
+
+/**
+ * A {@link MessageGroupStore} which can index the messages of a group by a time
+ * (for example, the release time of a delayed message) and return the messages
+ * of a time range in that order, without loading the whole group.
+ * <p>
+ * Messages added to a group without a time (e.g. via
+ * {@link #addMessagesToGroup(Object, Message[])}) are not returned by
+ * {@link #getMessagesForGroup(Object, long, long, int)}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public interface TimeIndexedMessageGroupStore extends MessageGroupStore {
+
+	/**
+	 * Store a message in the group, indexed by the provided time.
+	 * @param groupId the group id to store the message under.
+	 * @param message the message to store.
+	 * @param time the time to index the message by, in milliseconds since the epoch.
+	 */
+	void addMessageToGroup(Object groupId, Message<?> message, long time);
+
+	/**
+	 * Return the first messages of the group indexed by a time in the range
+	 * {@code [fromTime, toTime)}, ordered by that time. Fewer than {@code maxMessages}
+	 * messages are returned only if there are no more in the range, so the next page
+	 * can be read from the time of the last message returned.
+	 * @param groupId the group id.
+	 * @param fromTime the beginning of the range (inclusive).
+	 * @param toTime the end of the range (exclusive).
+	 * @param maxMessages the maximum number of messages to return.
+	 * @return the messages; never null.
+	 */
+	Collection<Message<?>> getMessagesForGroup(Object groupId, long fromTime, long toTime, int maxMessages);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2015 the original author or authors.
+ * Copyright 2013-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.integration.support;
 
+import java.security.SecureRandom;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -78,4 +79,60 @@ public class IdGenerators {
 
 	}
 
+	/**
+	 * A non-cryptographic generator without any state shared between threads.
+	 * <p>
+	 * Each thread gets its own 64-bit {@code topBits} prefix and increments its own
+	 * {@code bottomBits} counter, so generation is just a thread-local increment and scales
+	 * with the number of threads (unlike the default generator which draws from a
+	 * shared {@link java.util.Random} and the {@link SimpleIncrementingIdGenerator} which
+	 * contends on a shared {@link AtomicLong}).
+	 * <p>
+	 * The prefixes are derived from a node seed (drawn once per generator instance from a
+	 * {@link SecureRandom}) and a per-generator thread sequence, through a bijective mix;
+	 * so the threads of the same generator never share a prefix and the prefixes of
+	 * different JVMs (or restarts) collide only with the probability of two random
+	 * 64-bit values colliding. The counters start at the current time (in microseconds),
+	 * so even then the IDs collide only if the counters overlap as well.
+	 * If a counter wraps around, the thread gets a new prefix.
+	 * <p>
+	 * The IDs are unique but easily predictable; don't use them where an unguessable
+	 * value is required.
+	 *
+	 * @since 5.1
+	 */
+	public static class ThreadLocalIdGenerator implements IdGenerator {
+
+		private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+		private final long nodeSeed = new SecureRandom().nextLong();
+
+		private final AtomicLong threadSequence = new AtomicLong();
+
+		private final ThreadLocal<long[]> bits = ThreadLocal.withInitial(this::initialBits);
+
+		@Override
+		public UUID generateId() {
+			long[] bits = this.bits.get();
+			long bottomBits = ++bits[1];
+			if (bottomBits == 0) {
+				bits[0] = nextTopBits();
+			}
+			return new UUID(bits[0], bottomBits);
+		}
+
+		private long[] initialBits() {
+			return new long[] { nextTopBits(), System.currentTimeMillis() * 1000 };
+		}
+
+		private long nextTopBits() {
+			// the SplitMix64 finalizer; a bijection so distinct sequences give distinct prefixes
+			long z = this.nodeSeed + this.threadSequence.incrementAndGet() * GOLDEN_GAMMA;
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,23 +51,28 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 
 	private final T payload;
 
-	private final IntegrationMessageHeaderAccessor headerAccessor;
+	private final HeaderAccessor headerAccessor;
 
 	@Nullable
 	private final Message<T> originalMessage;
 
 	private volatile boolean modified;
 
+	private final boolean persistentHeaders;
+
 	private String[] readOnlyHeaders;
 
 	/**
 	 * Private constructor to be invoked from the static factory methods only.
 	 */
-	private MessageBuilder(T payload, Message<T> originalMessage) {
+	private MessageBuilder(T payload, Message<T> originalMessage, boolean persistentHeaders) {
 		Assert.notNull(payload, "payload must not be null");
 		this.payload = payload;
 		this.originalMessage = originalMessage;
-		this.headerAccessor = new IntegrationMessageHeaderAccessor(originalMessage);
+		this.persistentHeaders = persistentHeaders;
+		this.headerAccessor = persistentHeaders
+				? new PersistentHeaderAccessor(originalMessage)
+				: new DefaultHeaderAccessor(originalMessage);
 		if (originalMessage != null) {
 			this.modified = (!this.payload.equals(originalMessage.getPayload()));
 		}
@@ -92,8 +97,22 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 	 * @return A MessageBuilder.
 	 */
 	public static <T> MessageBuilder<T> fromMessage(Message<T> message) {
+		return fromMessage(message, false);
+	}
+
+	/**
+	 * Create a builder for a new {@link Message} instance pre-populated with all of the headers copied from the
+	 * provided message, optionally in the persistent headers mode.
+	 * @param message the Message from which the payload and all headers will be copied
+	 * @param persistentHeaders true to build the message with {@link PersistentMessageHeaders}.
+	 * @param <T> The type of the payload.
+	 * @return A MessageBuilder.
+	 * @since 5.1
+	 * @see DefaultMessageBuilderFactory#setPersistentHeaders(boolean)
+	 */
+	static <T> MessageBuilder<T> fromMessage(Message<T> message, boolean persistentHeaders) {
 		Assert.notNull(message, "message must not be null");
-		return new MessageBuilder<T>(message.getPayload(), message);
+		return new MessageBuilder<T>(message.getPayload(), message, persistentHeaders);
 	}
 
 	/**
@@ -104,7 +123,21 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 	 * @return A MessageBuilder.
 	 */
 	public static <T> MessageBuilder<T> withPayload(T payload) {
-		return new MessageBuilder<T>(payload, null);
+		return withPayload(payload, false);
+	}
+
+	/**
+	 * Create a builder for a new {@link Message} instance with the provided payload,
+	 * optionally in the persistent headers mode.
+	 * @param payload the payload for the new message
+	 * @param persistentHeaders true to build the message with {@link PersistentMessageHeaders}.
+	 * @param <T> The type of the payload.
+	 * @return A MessageBuilder.
+	 * @since 5.1
+	 * @see DefaultMessageBuilderFactory#setPersistentHeaders(boolean)
+	 */
+	static <T> MessageBuilder<T> withPayload(T payload, boolean persistentHeaders) {
+		return new MessageBuilder<T>(payload, null, persistentHeaders);
 	}
 
 	/**
@@ -319,6 +352,13 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 				&& !containsReadOnly(this.originalMessage.getHeaders())) {
 			return this.originalMessage;
 		}
+		if (this.persistentHeaders) {
+			MessageHeaders headers = this.headerAccessor.toMessageHeaders();
+			if (this.payload instanceof Throwable) {
+				return (Message<T>) new ErrorMessage((Throwable) this.payload, headers);
+			}
+			return new GenericMessage<T>(this.payload, headers);
+		}
 		if (this.payload instanceof Throwable) {
 			return (Message<T>) new ErrorMessage((Throwable) this.payload, this.headerAccessor.toMap());
 		}
@@ -337,4 +377,53 @@ public final class MessageBuilder<T> extends AbstractIntegrationMessageBuilder<T
 	}
 
 
+
+	/**
+	 * The header operations of the builder: implemented by an
+	 * {@link IntegrationMessageHeaderAccessor} or, in the persistent headers mode,
+	 * by a {@link PersistentHeaderAccessor}.
+	 */
+	interface HeaderAccessor {
+
+		@Nullable
+		Object getHeader(String headerName);
+
+		void setHeader(String name, @Nullable Object value);
+
+		void setHeaderIfAbsent(String name, Object value);
+
+		void removeHeader(String headerName);
+
+		void removeHeaders(String... headerPatterns);
+
+		void copyHeaders(@Nullable Map<String, ?> headersToCopy);
+
+		void setReadOnlyHeaders(String... readOnlyHeaders);
+
+		boolean isReadOnly(String headerName);
+
+		@Nullable
+		Object getCorrelationId();
+
+		int getSequenceNumber();
+
+		int getSequenceSize();
+
+		boolean isModified();
+
+		Map<String, Object> toMap();
+
+		MessageHeaders toMessageHeaders();
+
+	}
+
+	private static final class DefaultHeaderAccessor extends IntegrationMessageHeaderAccessor
+			implements HeaderAccessor {
+
+		DefaultHeaderAccessor(@Nullable Message<?> message) {
+			super(message);
+		}
+
+	}
+
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * The {@link MessageBuilder.HeaderAccessor} for the {@link MessageBuilder} persistent
+ * headers mode: the headers are kept in a {@link PersistentHeaderMap} started from the
+ * original message headers (without copying them when those are
+ * {@link PersistentMessageHeaders} already), and each change derives a new map.
+ * <p>
+ * The read-only headers and the header type checks are the same as for the
+ * {@link IntegrationMessageHeaderAccessor}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+final class PersistentHeaderAccessor implements MessageBuilder.HeaderAccessor {
+
+	private static final HeaderTypeVerifier headerTypeVerifier = new HeaderTypeVerifier();
+
+	private PersistentHeaderMap headers;
+
+	private boolean modified;
+
+	private Set<String> readOnlyHeaders = Collections.emptySet();
+
+	PersistentHeaderAccessor(@Nullable Message<?> message) {
+		if (message == null) {
+			this.headers = PersistentHeaderMap.EMPTY;
+		}
+		else if (message.getHeaders() instanceof PersistentMessageHeaders) {
+			this.headers = ((PersistentMessageHeaders) message.getHeaders()).getHeaderMap();
+		}
+		else {
+			this.headers = PersistentHeaderMap.from(message.getHeaders());
+		}
+	}
+
+	@Override
+	public void setReadOnlyHeaders(String... readOnlyHeaders) {
+		Assert.noNullElements(readOnlyHeaders, "'readOnlyHeaders' must not be contain null items.");
+		if (!ObjectUtils.isEmpty(readOnlyHeaders)) {
+			this.readOnlyHeaders = new HashSet<>(Arrays.asList(readOnlyHeaders));
+		}
+	}
+
+	@Override
+	public boolean isReadOnly(String headerName) {
+		return MessageHeaders.ID.equals(headerName) || MessageHeaders.TIMESTAMP.equals(headerName)
+				|| this.readOnlyHeaders.contains(headerName);
+	}
+
+	@Override
+	@Nullable
+	public Object getHeader(String headerName) {
+		return this.headers.get(headerName);
+	}
+
+	@Override
+	@Nullable
+	public Object getCorrelationId() {
+		return getHeader(IntegrationMessageHeaderAccessor.CORRELATION_ID);
+	}
+
+	@Override
+	public int getSequenceNumber() {
+		return intHeader(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER);
+	}
+
+	@Override
+	public int getSequenceSize() {
+		return intHeader(IntegrationMessageHeaderAccessor.SEQUENCE_SIZE);
+	}
+
+	private int intHeader(String headerName) {
+		Object value = getHeader(headerName);
+		if (value == null) {
+			return 0;
+		}
+		Assert.isInstanceOf(Number.class, value, () -> "Incorrect type specified for header '" + headerName + "'");
+		return ((Number) value).intValue();
+	}
+
+	@Override
+	public void setHeader(String name, @Nullable Object value) {
+		if (isReadOnly(name)) {
+			throw new IllegalArgumentException("'" + name + "' header is read-only");
+		}
+		headerTypeVerifier.verify(name, value);
+		PersistentHeaderMap headers = value != null ? this.headers.with(name, value) : this.headers.without(name);
+		if (headers != this.headers) {
+			this.headers = headers;
+			this.modified = true;
+		}
+	}
+
+	@Override
+	public void setHeaderIfAbsent(String name, Object value) {
+		if (getHeader(name) == null) {
+			setHeader(name, value);
+		}
+	}
+
+	@Override
+	public void removeHeader(String headerName) {
+		if (StringUtils.hasLength(headerName) && !isReadOnly(headerName)) {
+			setHeader(headerName, null);
+		}
+	}
+
+	@Override
+	public void removeHeaders(String... headerPatterns) {
+		List<String> headersToRemove = new ArrayList<>();
+		for (String pattern : headerPatterns) {
+			if (StringUtils.hasLength(pattern)) {
+				if (pattern.contains("*")) {
+					for (String headerName : this.headers.keySet()) {
+						if (PatternMatchUtils.simpleMatch(pattern, headerName)) {
+							headersToRemove.add(headerName);
+						}
+					}
+				}
+				else {
+					headersToRemove.add(pattern);
+				}
+			}
+		}
+		for (String headerToRemove : headersToRemove) {
+			removeHeader(headerToRemove);
+		}
+	}
+
+	@Override
+	public void copyHeaders(@Nullable Map<String, ?> headersToCopy) {
+		if (headersToCopy != null) {
+			headersToCopy.forEach((key, value) -> {
+				if (!isReadOnly(key)) {
+					setHeader(key, value);
+				}
+			});
+		}
+	}
+
+	@Override
+	public boolean isModified() {
+		return this.modified;
+	}
+
+	@Override
+	public Map<String, Object> toMap() {
+		return new HashMap<>(withoutReadOnly());
+	}
+
+	@Override
+	public MessageHeaders toMessageHeaders() {
+		return new PersistentMessageHeaders(withoutReadOnly());
+	}
+
+	private PersistentHeaderMap withoutReadOnly() {
+		PersistentHeaderMap headers = this.headers;
+		for (String header : this.readOnlyHeaders) {
+			headers = headers.without(header);
+		}
+		return headers;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [headers=" + this.headers + "]";
+	}
+
+	/**
+	 * Exposes the header type checks of the {@link IntegrationMessageHeaderAccessor};
+	 * it doesn't hold any headers itself.
+	 */
+	private static final class HeaderTypeVerifier extends IntegrationMessageHeaderAccessor {
+
+		HeaderTypeVerifier() {
+			super(null);
+		}
+
+		void verify(String headerName, @Nullable Object headerValue) {
+			verifyType(headerName, headerValue);
+		}
+
+	}
+
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * An immutable, persistent {@code Map<String, Object>} for message headers.
+ * <p>
+ * The entries are kept in a hash array mapped trie (32-way branching on the key hash);
+ * {@link #with(String, Object)} and {@link #without(String)} return a new map which
+ * copies only the path from the root to the changed entry (at most a handful of small
+ * arrays) and shares all the other nodes with the original map. Copying a map with one
+ * changed header is therefore (effectively) constant time regardless of the number of
+ * headers, and an unchanged map is never copied at all.
+ * <p>
+ * All the {@link Map} mutators throw {@link UnsupportedOperationException}.
+ *
+ * @author agent
+ * @since 5.1
+ */
+final class PersistentHeaderMap extends AbstractMap<String, Object> {
+
+	static final PersistentHeaderMap EMPTY = new PersistentHeaderMap(null, 0);
+
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private final Node root;
+
+	private final int size;
+
+	private Set<Map.Entry<String, Object>> entrySet;
+
+	private PersistentHeaderMap(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Return a map with the entries of the provided map; a {@link PersistentHeaderMap}
+	 * is returned as is.
+	 * @param map the map to copy.
+	 * @return the persistent map.
+	 */
+	static PersistentHeaderMap from(Map<String, ?> map) {
+		if (map instanceof PersistentHeaderMap) {
+			return (PersistentHeaderMap) map;
+		}
+		PersistentHeaderMap result = EMPTY;
+		if (map != null) {
+			for (Map.Entry<String, ?> entry : map.entrySet()) {
+				if (entry.getValue() != null) {
+					result = result.with(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return a map with the provided entry added or replaced; this map is returned
+	 * if it already contains an equal value for the key.
+	 * @param key the key.
+	 * @param value the value.
+	 * @return the new map.
+	 */
+	PersistentHeaderMap with(String key, Object value) {
+		Assert.notNull(key, "'key' must not be null");
+		Assert.notNull(value, "'value' must not be null");
+		Leaf leaf = new Leaf(hash(key), key, value);
+		if (this.root == null) {
+			return new PersistentHeaderMap(Node.single(leaf, 0), 1);
+		}
+		Node root = this.root.with(leaf, 0);
+		if (root == this.root) {
+			return this;
+		}
+		int size = this.root.find(leaf.hash, key, 0) != null ? this.size : this.size + 1;
+		return new PersistentHeaderMap(root, size);
+	}
+
+	/**
+	 * Return a map without the entry for the provided key; this map is returned
+	 * if it doesn't contain the key.
+	 * @param key the key.
+	 * @return the new map.
+	 */
+	PersistentHeaderMap without(String key) {
+		if (this.root == null || key == null) {
+			return this;
+		}
+		Node root = this.root.without(hash(key), key, 0);
+		if (root == this.root) {
+			return this;
+		}
+		if (root == null) {
+			return EMPTY;
+		}
+		return new PersistentHeaderMap(root, this.size - 1);
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (this.root == null || !(key instanceof String)) {
+			return null;
+		}
+		Leaf leaf = this.root.find(hash((String) key), (String) key, 0);
+		return leaf != null ? leaf.value : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			return new EntryIterator(PersistentHeaderMap.this.root);
+		}
+
+		@Override
+		public int size() {
+			return PersistentHeaderMap.this.size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			Object value = get(entry.getKey());
+			return value != null && value.equals(entry.getValue());
+		}
+
+	}
+
+	/**
+	 * A depth-first iterator over the trie.
+	 */
+	private static final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+		private final Deque<Object[]> slots = new ArrayDeque<>();
+
+		private final Deque<Integer> positions = new ArrayDeque<>();
+
+		private Leaf next;
+
+		EntryIterator(Node root) {
+			if (root != null) {
+				push(root);
+				advance();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			Leaf leaf = this.next;
+			advance();
+			return leaf;
+		}
+
+		private void push(Node node) {
+			this.slots.push(node.slots);
+			this.positions.push(0);
+		}
+
+		private void advance() {
+			this.next = null;
+			while (!this.slots.isEmpty()) {
+				Object[] slots = this.slots.peek();
+				int position = this.positions.pop();
+				if (position == slots.length) {
+					this.slots.pop();
+					continue;
+				}
+				this.positions.push(position + 1);
+				Object slot = slots[position];
+				if (slot instanceof Leaf) {
+					this.next = (Leaf) slot;
+					return;
+				}
+				push((Node) slot);
+			}
+		}
+
+	}
+
+	/**
+	 * An immutable map entry; also a trie leaf.
+	 */
+	private static final class Leaf extends AbstractMap.SimpleImmutableEntry<String, Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int hash;
+
+		private final Object value;
+
+		Leaf(int hash, String key, Object value) {
+			super(key, value);
+			this.hash = hash;
+			this.value = value;
+		}
+
+	}
+
+	/**
+	 * A trie node: either a bitmap-indexed node whose slots are {@link Leaf}s or child
+	 * nodes, or (when the full hashes of several keys collide) a collision node whose
+	 * slots are the colliding {@link Leaf}s.
+	 */
+	private static final class Node {
+
+		private final int bitmap;
+
+		private final Object[] slots;
+
+		private final boolean collision;
+
+		Node(int bitmap, Object[] slots, boolean collision) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+			this.collision = collision;
+		}
+
+		static Node single(Leaf leaf, int shift) {
+			return new Node(bit(leaf.hash, shift), new Object[] { leaf }, false);
+		}
+
+		static Object merge(Leaf existing, Leaf leaf, int shift) {
+			if (existing.hash == leaf.hash) {
+				return new Node(0, new Object[] { existing, leaf }, true);
+			}
+			int existingBit = bit(existing.hash, shift);
+			int bit = bit(leaf.hash, shift);
+			if (existingBit == bit) {
+				return new Node(bit, new Object[] { merge(existing, leaf, shift + BITS) }, false);
+			}
+			Object[] slots = Integer.compareUnsigned(existingBit, bit) < 0
+					? new Object[] { existing, leaf }
+					: new Object[] { leaf, existing };
+			return new Node(existingBit | bit, slots, false);
+		}
+
+		private static int bit(int hash, int shift) {
+			return 1 << ((hash >>> shift) & MASK);
+		}
+
+		private int index(int bit) {
+			return Integer.bitCount(this.bitmap & (bit - 1));
+		}
+
+		Leaf find(int hash, String key, int shift) {
+			Node node = this;
+			while (true) {
+				if (node.collision) {
+					return node.findCollision(hash, key);
+				}
+				int bit = bit(hash, shift);
+				if ((node.bitmap & bit) == 0) {
+					return null;
+				}
+				Object slot = node.slots[node.index(bit)];
+				if (slot instanceof Leaf) {
+					Leaf leaf = (Leaf) slot;
+					return leaf.hash == hash && leaf.getKey().equals(key) ? leaf : null;
+				}
+				node = (Node) slot;
+				shift += BITS;
+			}
+		}
+
+		private Leaf findCollision(int hash, String key) {
+			if (collisionHash() != hash) {
+				return null;
+			}
+			for (Object slot : this.slots) {
+				Leaf leaf = (Leaf) slot;
+				if (leaf.getKey().equals(key)) {
+					return leaf;
+				}
+			}
+			return null;
+		}
+
+		Node with(Leaf leaf, int shift) {
+			if (this.collision) {
+				return withCollision(leaf, shift);
+			}
+			int bit = bit(leaf.hash, shift);
+			int index = index(bit);
+			if ((this.bitmap & bit) == 0) {
+				Object[] slots = new Object[this.slots.length + 1];
+				System.arraycopy(this.slots, 0, slots, 0, index);
+				slots[index] = leaf;
+				System.arraycopy(this.slots, index, slots, index + 1, this.slots.length - index);
+				return new Node(this.bitmap | bit, slots, false);
+			}
+			Object slot = this.slots[index];
+			Object replacement;
+			if (slot instanceof Leaf) {
+				Leaf existing = (Leaf) slot;
+				if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+					if (ObjectUtils.nullSafeEquals(existing.value, leaf.value)) {
+						return this;
+					}
+					replacement = leaf;
+				}
+				else {
+					replacement = merge(existing, leaf, shift + BITS);
+				}
+			}
+			else {
+				Node child = (Node) slot;
+				replacement = child.with(leaf, shift + BITS);
+				if (replacement == child) {
+					return this;
+				}
+			}
+			return new Node(this.bitmap, replace(index, replacement), false);
+		}
+
+		private Node withCollision(Leaf leaf, int shift) {
+			if (collisionHash() != leaf.hash) {
+				// a collision node one level up the trie gets a sibling
+				int existingBit = bit(collisionHash(), shift);
+				Node parent = new Node(existingBit, new Object[] { this }, false);
+				return parent.with(leaf, shift);
+			}
+			for (int i = 0; i < this.slots.length; i++) {
+				Leaf existing = (Leaf) this.slots[i];
+				if (existing.getKey().equals(leaf.getKey())) {
+					if (ObjectUtils.nullSafeEquals(existing.value, leaf.value)) {
+						return this;
+					}
+					return new Node(0, replace(i, leaf), true);
+				}
+			}
+			Object[] slots = new Object[this.slots.length + 1];
+			System.arraycopy(this.slots, 0, slots, 0, this.slots.length);
+			slots[this.slots.length] = leaf;
+			return new Node(0, slots, true);
+		}
+
+		/**
+		 * Return the node without the key, this node if it doesn't contain the key, or
+		 * null if the node becomes empty.
+		 */
+		Node without(int hash, String key, int shift) {
+			if (this.collision) {
+				Leaf leaf = findCollision(hash, key);
+				if (leaf == null) {
+					return this;
+				}
+				return this.slots.length == 1 ? null : new Node(0, remove(indexOf(leaf)), true);
+			}
+			int bit = bit(hash, shift);
+			if ((this.bitmap & bit) == 0) {
+				return this;
+			}
+			int index = index(bit);
+			Object slot = this.slots[index];
+			if (slot instanceof Leaf) {
+				Leaf leaf = (Leaf) slot;
+				if (leaf.hash != hash || !leaf.getKey().equals(key)) {
+					return this;
+				}
+				return this.slots.length == 1 ? null : new Node(this.bitmap & ~bit, remove(index), false);
+			}
+			Node child = (Node) slot;
+			Node replacement = child.without(hash, key, shift + BITS);
+			if (replacement == child) {
+				return this;
+			}
+			if (replacement == null) {
+				return this.slots.length == 1 ? null : new Node(this.bitmap & ~bit, remove(index), false);
+			}
+			if (replacement.slots.length == 1 && replacement.slots[0] instanceof Leaf) {
+				// pull a lone leaf up to keep the trie compact
+				return new Node(this.bitmap, replace(index, replacement.slots[0]), false);
+			}
+			return new Node(this.bitmap, replace(index, replacement), false);
+		}
+
+		private int indexOf(Leaf leaf) {
+			for (int i = 0; i < this.slots.length; i++) {
+				if (this.slots[i] == leaf) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private Object[] replace(int index, Object slot) {
+			Object[] slots = this.slots.clone();
+			slots[index] = slot;
+			return slots;
+		}
+
+		private Object[] remove(int index) {
+			Object[] slots = new Object[this.slots.length - 1];
+			System.arraycopy(this.slots, 0, slots, 0, index);
+			System.arraycopy(this.slots, index + 1, slots, index, slots.length - index);
+			return slots;
+		}
+
+		private int collisionHash() {
+			return ((Leaf) this.slots[0]).hash;
+		}
+
+	}
+
+}
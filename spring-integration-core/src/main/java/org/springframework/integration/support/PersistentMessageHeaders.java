@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * {@link MessageHeaders} that also keep their headers in a persistent (immutable,
+ * structurally shared) map to derive the headers of the next message from.
+ * <p>
+ * Created by a {@link MessageBuilder} in the
+ * {@link DefaultMessageBuilderFactory#setPersistentHeaders(boolean) persistent headers}
+ * mode: a builder started from such a message works on the persistent map, so a few
+ * changed (or added, or removed) headers share all the unchanged ones with the original
+ * message instead of copying the full header map into the builder.
+ * <p>
+ * The headers are exposed (and compared, hashed and serialized) through the regular
+ * {@link MessageHeaders} state, so {@code equals()} is symmetric with any other
+ * {@link MessageHeaders}; building that state is the one full header copy left per
+ * message.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public final class PersistentMessageHeaders extends MessageHeaders {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient PersistentHeaderMap headers;
+
+	/**
+	 * Construct an instance with the provided headers and a newly generated
+	 * {@link #ID} and {@link #TIMESTAMP}.
+	 * @param headers the headers.
+	 */
+	PersistentMessageHeaders(PersistentHeaderMap headers) {
+		super(headers, null, null);
+		this.headers = headers
+				.with(ID, getId())
+				.with(TIMESTAMP, getTimestamp());
+	}
+
+	/**
+	 * Return the persistent map with these headers; used to derive the headers of
+	 * the next message from.
+	 * @return the map.
+	 */
+	PersistentHeaderMap getHeaderMap() {
+		return this.headers;
+	}
+
+	private Object writeReplace() {
+		return new SerializedMessageHeaders(getRawHeaders());
+	}
+
+	/**
+	 * The serialized form: plain {@link MessageHeaders} with the same id and timestamp.
+	 */
+	private static final class SerializedMessageHeaders extends MessageHeaders {
+
+		private static final long serialVersionUID = 1L;
+
+		SerializedMessageHeaders(Map<String, Object> headers) {
+			super(headers, (UUID) headers.get(ID), (Long) headers.get(TIMESTAMP));
+		}
+
+	}
+
+}
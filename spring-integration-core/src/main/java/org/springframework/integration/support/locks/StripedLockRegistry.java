@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.support.locks;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link LockRegistry} backed by a power-of-two sized array of {@link ReentrantLock}
+ * stripes. Any {@code Object} can be used as a lock key; its {@code hashCode()} is spread
+ * (as in {@link java.util.HashMap}) before masking, so keys which only differ in their
+ * upper bits, such as {@link java.util.UUID}s, don't pile up on the same stripes.
+ * <p>
+ * By default the number of stripes scales with the number of available processors.
+ * <p>
+ * When {@link #setContentionMetricsEnabled(boolean) contention metrics} are enabled,
+ * each stripe counts the acquisitions which had to wait for another thread and the
+ * time spent waiting; uncontended acquisitions are not timed.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public final class StripedLockRegistry implements LockRegistry {
+
+	private static final int STRIPES_PER_PROCESSOR = 64;
+
+	private static final int MIN_STRIPES = 256;
+
+	private static final int MAX_STRIPES = 1 << 30;
+
+	private final Stripe[] stripes;
+
+	private final int mask;
+
+	private volatile boolean contentionMetricsEnabled;
+
+	/**
+	 * Construct an instance with {@value #STRIPES_PER_PROCESSOR} stripes per available
+	 * processor (at least {@value #MIN_STRIPES}), rounded up to a power of two.
+	 */
+	public StripedLockRegistry() {
+		this(Math.max(MIN_STRIPES, Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR));
+	}
+
+	/**
+	 * Construct an instance with the supplied number of stripes, rounded up to a power
+	 * of two.
+	 * @param stripes the minimum number of stripes.
+	 */
+	public StripedLockRegistry(int stripes) {
+		Assert.isTrue(stripes > 0 && stripes <= MAX_STRIPES, "'stripes' must be between 1 and " + MAX_STRIPES);
+		int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+		this.mask = size - 1;
+		this.stripes = new Stripe[size];
+		for (int i = 0; i < size; i++) {
+			this.stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Enable the collection of contention metrics (number of contended acquisitions and
+	 * the time spent waiting for the lock) per stripe. Disabled by default.
+	 * @param contentionMetricsEnabled true to enable.
+	 */
+	public void setContentionMetricsEnabled(boolean contentionMetricsEnabled) {
+		this.contentionMetricsEnabled = contentionMetricsEnabled;
+	}
+
+	public boolean isContentionMetricsEnabled() {
+		return this.contentionMetricsEnabled;
+	}
+
+	/**
+	 * Return the number of stripes.
+	 * @return the stripe count.
+	 */
+	public int getStripeCount() {
+		return this.stripes.length;
+	}
+
+	@Override
+	public Lock obtain(Object lockKey) {
+		Assert.notNull(lockKey, "'lockKey' must not be null");
+		int hash = lockKey.hashCode();
+		return this.stripes[(hash ^ (hash >>> 16)) & this.mask];
+	}
+
+	/**
+	 * Return the total number of lock acquisitions which had to wait since the metrics
+	 * were enabled or last reset.
+	 * @return the count.
+	 */
+	public long getContendedAcquisitionCount() {
+		long count = 0;
+		for (Stripe stripe : this.stripes) {
+			count += stripe.contended.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the total time threads have spent waiting for a lock since the metrics
+	 * were enabled or last reset.
+	 * @param unit the time unit of the result.
+	 * @return the wait time.
+	 */
+	public long getWaitTime(TimeUnit unit) {
+		long nanos = 0;
+		for (Stripe stripe : this.stripes) {
+			nanos += stripe.waitNanos.sum();
+		}
+		return unit.convert(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Return the stripes with the most contended acquisitions.
+	 * @param max the maximum number of stripes to return.
+	 * @return a map of stripe index to contended acquisition count, in descending count
+	 * order; stripes without contention are not included.
+	 */
+	public Map<Integer, Long> getHotStripes(int max) {
+		long[] counts = new long[this.stripes.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = this.stripes[i].contended.sum();
+		}
+		Integer[] indexes = new Integer[counts.length];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, Comparator.comparingLong((Integer i) -> counts[i]).reversed());
+		Map<Integer, Long> hotStripes = new LinkedHashMap<>();
+		for (int i = 0; i < indexes.length && hotStripes.size() < max && counts[indexes[i]] > 0; i++) {
+			hotStripes.put(indexes[i], counts[indexes[i]]);
+		}
+		return hotStripes;
+	}
+
+	/**
+	 * Reset the contention metrics.
+	 */
+	public void resetContentionMetrics() {
+		for (Stripe stripe : this.stripes) {
+			stripe.contended.reset();
+			stripe.waitNanos.reset();
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private final class Stripe extends ReentrantLock {
+
+		private final LongAdder contended = new LongAdder();
+
+		private final LongAdder waitNanos = new LongAdder();
+
+		Stripe() {
+			super();
+		}
+
+		@Override
+		public void lock() {
+			if (!StripedLockRegistry.this.contentionMetricsEnabled) {
+				super.lock();
+			}
+			else if (!tryLock()) {
+				long start = System.nanoTime();
+				super.lock();
+				contended(start);
+			}
+		}
+
+		@Override
+		public void lockInterruptibly() throws InterruptedException {
+			if (!StripedLockRegistry.this.contentionMetricsEnabled) {
+				super.lockInterruptibly();
+			}
+			else if (!tryLock()) {
+				long start = System.nanoTime();
+				super.lockInterruptibly();
+				contended(start);
+			}
+		}
+
+		@Override
+		public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+			if (!StripedLockRegistry.this.contentionMetricsEnabled) {
+				return super.tryLock(timeout, unit);
+			}
+			if (tryLock()) {
+				return true;
+			}
+			long start = System.nanoTime();
+			try {
+				return super.tryLock(timeout, unit);
+			}
+			finally {
+				contended(start);
+			}
+		}
+
+		private void contended(long start) {
+			this.contended.increment();
+			this.waitNanos.add(System.nanoTime() - start);
+		}
+
+	}
+
+}
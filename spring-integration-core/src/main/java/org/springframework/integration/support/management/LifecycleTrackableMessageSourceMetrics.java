@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,4 +52,9 @@ public class LifecycleTrackableMessageSourceMetrics extends LifecycleMessageSour
 		this.trackable.setShouldTrack(shouldTrack);
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.trackable.setHistorySamplingRate(samplingRate);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,4 +30,18 @@ public interface TrackableComponent extends NamedComponent {
 	@ManagedOperation
 	void setShouldTrack(boolean shouldTrack);
 
+	/**
+	 * Set the {@link org.springframework.integration.history.MessageHistory} sampling
+	 * rate: when greater than 1, a message source (e.g. an inbound channel adapter or a
+	 * gateway) starts a history for only one in {@code samplingRate} messages (on
+	 * average) and the other components only add to the history of sampled messages.
+	 * Ignored by default.
+	 * @param samplingRate the sampling rate; 1 to track all messages.
+	 * @since 5.1
+	 * @see org.springframework.integration.history.MessageHistoryConfigurer#setSamplingRate(int)
+	 */
+	default void setHistorySamplingRate(int samplingRate) {
+		// no-op
+	}
+
 }
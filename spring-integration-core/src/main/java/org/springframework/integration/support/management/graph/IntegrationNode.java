@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import org.springframework.expression.Expression;
 import org.springframework.integration.context.ExpressionCapable;
+import org.springframework.integration.expression.ExpressionCompilationManager;
 import org.springframework.integration.support.context.NamedComponent;
 
 /**
@@ -42,18 +43,22 @@ public abstract class IntegrationNode {
 
 	private final Map<String, Object> properties = new HashMap<String, Object>();
 
+	private final Expression expression;
+
 	protected IntegrationNode(int nodeId, String name, Object nodeObject, Stats stats) {
 		this.nodeId = nodeId;
 		this.name = name;
 		this.componentType = nodeObject instanceof NamedComponent ? ((NamedComponent) nodeObject).getComponentType()
 				: nodeObject.getClass().getSimpleName();
 		this.stats = stats;
+		Expression expression = null;
 		if (nodeObject instanceof ExpressionCapable) {
-			Expression expression = ((ExpressionCapable) nodeObject).getExpression();
+			expression = ((ExpressionCapable) nodeObject).getExpression();
 			if (expression != null) {
 				this.properties.put("expression", expression.getExpressionString());
 			}
 		}
+		this.expression = expression;
 	}
 
 	public int getNodeId() {
@@ -73,6 +78,12 @@ public abstract class IntegrationNode {
 	}
 
 	public Map<String, Object> getProperties() {
+		Boolean compiled = ExpressionCompilationManager.isCompiled(this.expression);
+		if (compiled != null) {
+			Map<String, Object> properties = new HashMap<String, Object>(this.properties);
+			properties.put("expressionCompiled", compiled);
+			return properties;
+		}
 		return this.properties.size() == 0 ? null : this.properties;
 	}
 
@@ -23,4 +23,13 @@ package org.springframework.integration.support.management.metrics;
  */
 public interface GaugeFacade {
 
+	/**
+	 * Remove the gauge from the underlying registry; the default implementation
+	 * does nothing.
+	 * @since 5.1
+	 */
+	default void remove() {
+		// no-op
+	}
+
 }
@@ -225,20 +225,27 @@ public class MicrometerMetricsCaptor implements MetricsCaptor {
 
 		@Override
 		public GaugeFacade build() {
-			return new MicroGauge(this.builder.register(this.meterRegistry));
+			return new MicroGauge(this.meterRegistry, this.builder.register(this.meterRegistry));
 		}
 
 	}
 
 	private static class MicroGauge implements GaugeFacade {
 
-		@SuppressWarnings("unused")
+		private final MeterRegistry meterRegistry;
+
 		private final Gauge gauge;
 
-		MicroGauge(Gauge gauge) {
+		MicroGauge(MeterRegistry meterRegistry, Gauge gauge) {
+			this.meterRegistry = meterRegistry;
 			this.gauge = gauge;
 		}
 
+		@Override
+		public void remove() {
+			this.meterRegistry.remove(this.gauge);
+		}
+
 	}
 
 }
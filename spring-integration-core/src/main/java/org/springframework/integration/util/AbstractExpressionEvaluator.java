@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,9 @@ import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.expression.ExpressionCompilationManager;
 import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.support.DefaultMessageBuilderFactory;
 import org.springframework.integration.support.MessageBuilderFactory;
@@ -59,6 +62,10 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware, I
 
 	private volatile MessageBuilderFactory messageBuilderFactory = new DefaultMessageBuilderFactory();
 
+	private final ExpressionCompilationManager expressionCompilationManager =
+			new ExpressionCompilationManager(ExpressionCompilationManager.parseCompilerMode(
+					IntegrationProperties.defaults().getProperty(IntegrationProperties.EXPRESSIONS_COMPILER_MODE)));
+
 	/**
 	 * Specify a BeanFactory in order to enable resolution via <code>@beanName</code> in the expression.
 	 */
@@ -67,6 +74,10 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware, I
 		if (beanFactory != null) {
 			this.beanFactory = beanFactory;
 			this.typeConverter.setBeanFactory(beanFactory);
+			String compilerMode = IntegrationContextUtils.getIntegrationProperties(beanFactory)
+					.getProperty(IntegrationProperties.EXPRESSIONS_COMPILER_MODE);
+			this.expressionCompilationManager
+					.setCompilerMode(ExpressionCompilationManager.parseCompilerMode(compilerMode));
 			if (this.evaluationContext != null && this.evaluationContext.getBeanResolver() == null) {
 				this.evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
 			}
@@ -123,6 +134,17 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware, I
 		return this.evaluationContext;
 	}
 
+	/**
+	 * Return the {@link ExpressionCompilationManager} of this evaluator, applying the
+	 * {@link IntegrationProperties#EXPRESSIONS_COMPILER_MODE} of the application context
+	 * (or the default one if there is no {@link BeanFactory}).
+	 * @return the manager.
+	 * @since 5.1
+	 */
+	protected ExpressionCompilationManager getExpressionCompilationManager() {
+		return this.expressionCompilationManager;
+	}
+
 	protected <T> T evaluateExpression(Expression expression, Message<?> message, Class<T> expectedType) {
 		try {
 			return evaluateExpression(expression, (Object) message, expectedType);
@@ -158,15 +180,16 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware, I
 	}
 
 	protected <T> T evaluateExpression(Expression expression, Class<T> expectedType) {
-		return expression.getValue(this.getEvaluationContext(), expectedType);
+		return this.expressionCompilationManager.getValue(expression, this.getEvaluationContext(), expectedType);
 	}
 
 	protected Object evaluateExpression(Expression expression) {
-		return expression.getValue(this.getEvaluationContext());
+		return this.expressionCompilationManager.getValue(expression, this.getEvaluationContext(), null);
 	}
 
 	protected <T> T evaluateExpression(Expression expression, Object input, Class<T> expectedType) {
-		return expression.getValue(this.getEvaluationContext(), input, expectedType);
+		return this.expressionCompilationManager.getValue(expression, this.getEvaluationContext(), input,
+				expectedType);
 	}
 
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.integration.support.management.IntegrationManagement;
+import org.springframework.integration.support.management.metrics.CounterFacade;
+import org.springframework.integration.support.management.metrics.MetricsCaptor;
+import org.springframework.integration.support.management.metrics.TimerFacade;
+import org.springframework.util.Assert;
+
+/**
+ * A concurrency limit which adapts to the observed task latency with an AIMD
+ * (additive increase, multiplicative decrease) control.
+ * <p>
+ * A task {@link #acquire() acquires} a permit before it is started and
+ * {@link #release(long, boolean) releases} it with its latency when it completes. The
+ * limit grows by one for every {@code limit} tasks completed within the
+ * {@link #setLatencyTolerance(double) latency tolerance} of the baseline (the lowest
+ * observed latency, which slowly follows the observed latency), provided that the limit
+ * is actually in use; it shrinks by the {@link #setBackoffRatio(double) backoff ratio}
+ * (at most once per observed latency) when the smoothed latency exceeds the tolerance.
+ * <p>
+ * When the limit is reached, {@link #acquire()} waits up to the
+ * {@link #setMaxQueueWait(long) maximum queue wait} for a permit; a task which can't get
+ * a permit in time is rejected. {@link #tryAcquire()} never waits and is meant for
+ * callers which must not block, such as scheduler threads.
+ *
+ * @author agent
+ * @since 5.1
+ *
+ * @see ConcurrencyLimitingTaskExecutor
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	public static final int DEFAULT_INITIAL_LIMIT = 10;
+
+	public static final long DEFAULT_MAX_QUEUE_WAIT = 1000;
+
+	public static final String LIMIT_GAUGE_NAME = IntegrationManagement.METER_PREFIX + "concurrency.limit";
+
+	public static final String QUEUE_WAIT_TIMER_NAME = IntegrationManagement.METER_PREFIX + "concurrency.queue.wait";
+
+	public static final String REJECTED_COUNTER_NAME = IntegrationManagement.METER_PREFIX + "concurrency.rejected";
+
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	private static final double BASELINE_DRIFT = 0.001;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = this.lock.newCondition();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private int minLimit = 1;
+
+	private int maxLimit = 1000;
+
+	private double backoffRatio = 0.9;
+
+	private double latencyTolerance = 2.0;
+
+	private long maxQueueWait = DEFAULT_MAX_QUEUE_WAIT;
+
+	private volatile double limit;
+
+	private volatile int inFlight;
+
+	private double latency;
+
+	private double baselineLatency;
+
+	private long lastDecrease;
+
+	private volatile TimerFacade queueWaitTimer;
+
+	private volatile CounterFacade rejectedCounter;
+
+	public AdaptiveConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT);
+	}
+
+	/**
+	 * Create a limiter with the provided initial limit.
+	 * @param initialLimit the initial limit.
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit) {
+		Assert.isTrue(initialLimit > 0, "'initialLimit' must be greater than 0");
+		this.limit = initialLimit;
+		this.lastDecrease = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+	}
+
+	/**
+	 * Set the lower bound of the limit. Default 1.
+	 * @param minLimit the minimum limit.
+	 */
+	public void setMinLimit(int minLimit) {
+		Assert.isTrue(minLimit > 0, "'minLimit' must be greater than 0");
+		this.minLimit = minLimit;
+	}
+
+	/**
+	 * Set the upper bound of the limit. Default 1000.
+	 * @param maxLimit the maximum limit.
+	 */
+	public void setMaxLimit(int maxLimit) {
+		Assert.isTrue(maxLimit > 0, "'maxLimit' must be greater than 0");
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Set the ratio to multiply the limit by when the latency exceeds the tolerance.
+	 * Default 0.9.
+	 * @param backoffRatio the backoff ratio; must be between 0 and 1 (exclusive).
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "'backoffRatio' must be between 0 and 1");
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * Set how many times the baseline latency the smoothed latency may reach before the
+	 * limit is decreased. Default 2.0.
+	 * @param latencyTolerance the latency tolerance; must be greater than 1.
+	 */
+	public void setLatencyTolerance(double latencyTolerance) {
+		Assert.isTrue(latencyTolerance > 1, "'latencyTolerance' must be greater than 1");
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds to wait for a permit when the limit is reached.
+	 * Default {@value #DEFAULT_MAX_QUEUE_WAIT}; 0 means reject immediately and a negative
+	 * value means wait indefinitely.
+	 * @param maxQueueWait the maximum queue wait.
+	 */
+	public void setMaxQueueWait(long maxQueueWait) {
+		this.maxQueueWait = maxQueueWait;
+	}
+
+	/**
+	 * Return the current limit.
+	 * @return the limit.
+	 */
+	public int getLimit() {
+		return (int) this.limit;
+	}
+
+	/**
+	 * Return the number of tasks holding a permit.
+	 * @return the number of tasks in flight.
+	 */
+	public int getInFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * Return the number of tasks rejected because no permit was available in time.
+	 * @return the rejected count.
+	 */
+	public long getRejectedCount() {
+		return this.rejected.get();
+	}
+
+	/**
+	 * Register the limit gauge, the queue wait timer and the rejected counter with
+	 * the provided {@link MetricsCaptor}.
+	 * @param metricsCaptor the metrics captor.
+	 * @param type the type of the component using the limiter (e.g. {@code channel}).
+	 * @param name the name of the component using the limiter.
+	 */
+	public void registerMetricsCaptor(MetricsCaptor metricsCaptor, String type, String name) {
+		String componentName = name == null ? "unknown" : name;
+		metricsCaptor.gaugeBuilder(LIMIT_GAUGE_NAME, this, (l) -> getLimit())
+				.tag("type", type)
+				.tag("name", componentName)
+				.description("The current concurrency limit")
+				.build();
+		this.queueWaitTimer = metricsCaptor.timerBuilder(QUEUE_WAIT_TIMER_NAME)
+				.tag("type", type)
+				.tag("name", componentName)
+				.description("The time waited for a concurrency permit")
+				.build();
+		this.rejectedCounter = metricsCaptor.counterBuilder(REJECTED_COUNTER_NAME)
+				.tag("type", type)
+				.tag("name", componentName)
+				.description("The number of tasks rejected by the concurrency limit")
+				.build();
+	}
+
+	/**
+	 * Acquire a permit, waiting up to the maximum queue wait if the limit is reached.
+	 * @return true if the permit was acquired, false if the task is rejected.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public boolean acquire() throws InterruptedException {
+		long start = System.nanoTime();
+		long maxWait = this.maxQueueWait;
+		this.lock.lockInterruptibly();
+		try {
+			long nanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+			while (this.inFlight >= (int) this.limit) {
+				if (maxWait < 0) {
+					this.available.await();
+				}
+				else if (nanos <= 0) {
+					reject();
+					return false;
+				}
+				else {
+					nanos = this.available.awaitNanos(nanos);
+				}
+			}
+			this.inFlight++;
+		}
+		finally {
+			this.lock.unlock();
+		}
+		TimerFacade timer = this.queueWaitTimer;
+		if (timer != null) {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		return true;
+	}
+
+	/**
+	 * Acquire a permit only if one is available at the time of invocation, regardless
+	 * of the maximum queue wait.
+	 * @return true if the permit was acquired, false if the task is rejected.
+	 */
+	public boolean tryAcquire() {
+		this.lock.lock();
+		try {
+			if (this.inFlight >= (int) this.limit) {
+				reject();
+				return false;
+			}
+			this.inFlight++;
+			return true;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void reject() {
+		this.rejected.incrementAndGet();
+		CounterFacade counter = this.rejectedCounter;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	/**
+	 * Release a permit without a latency sample, e.g. when the task could not be started.
+	 */
+	public void release() {
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			this.available.signal();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Release a permit and adjust the limit according to the task latency.
+	 * @param latencyNanos the task latency in nanoseconds.
+	 * @param success whether the task completed normally; failures never increase the limit.
+	 */
+	public void release(long latencyNanos, boolean success) {
+		this.lock.lock();
+		try {
+			int previousLimit = (int) this.limit;
+			boolean saturated = this.inFlight >= previousLimit / 2;
+			this.inFlight--;
+			adjust(latencyNanos, success && saturated);
+			if ((int) this.limit > previousLimit) {
+				this.available.signalAll();
+			}
+			else {
+				this.available.signal();
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void adjust(long latencyNanos, boolean canIncrease) {
+		double sample = Math.max(latencyNanos, 1);
+		if (this.baselineLatency == 0 || sample < this.baselineLatency) {
+			this.baselineLatency = sample;
+		}
+		else {
+			this.baselineLatency += (sample - this.baselineLatency) * BASELINE_DRIFT;
+		}
+		this.latency = this.latency == 0 ? sample : this.latency + (sample - this.latency) * LATENCY_SMOOTHING;
+		if (this.latency > this.baselineLatency * this.latencyTolerance) {
+			long now = System.nanoTime();
+			if (now - this.lastDecrease > this.latency) {
+				this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+				this.lastDecrease = now;
+			}
+		}
+		else if (canIncrease) {
+			this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * A {@link TaskRejectedException} thrown by a {@link ConcurrencyLimitingTaskExecutor}
+ * when no permit could be obtained from its {@link AdaptiveConcurrencyLimiter}, as
+ * opposed to a rejection by the delegate executor.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@SuppressWarnings("serial")
+public class ConcurrencyLimitExceededException extends TaskRejectedException {
+
+	public ConcurrencyLimitExceededException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link TaskExecutor} which hands the tasks to a delegate {@link Executor} within the
+ * limit of an {@link AdaptiveConcurrencyLimiter}: the caller waits for a permit before
+ * the task is submitted, and the task latency (measured on the delegate thread) adjusts
+ * the limit.
+ * <p>
+ * A task which can't get a permit within the limiter's maximum queue wait (or at once,
+ * when the executor is configured not to wait) is rejected with a
+ * {@link ConcurrencyLimitExceededException}; rejections by the delegate executor are
+ * propagated as is.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class ConcurrencyLimitingTaskExecutor implements TaskExecutor {
+
+	private final Executor executor;
+
+	private final AdaptiveConcurrencyLimiter limiter;
+
+	private final boolean waitForPermit;
+
+	public ConcurrencyLimitingTaskExecutor(Executor executor, AdaptiveConcurrencyLimiter limiter) {
+		this(executor, limiter, true);
+	}
+
+	/**
+	 * Create an executor for the provided delegate and limiter.
+	 * @param executor the delegate executor.
+	 * @param limiter the concurrency limiter.
+	 * @param waitForPermit false to reject a task at once when the limit is reached,
+	 * instead of waiting up to the limiter's maximum queue wait.
+	 */
+	public ConcurrencyLimitingTaskExecutor(Executor executor, AdaptiveConcurrencyLimiter limiter,
+			boolean waitForPermit) {
+
+		Assert.notNull(executor, "'executor' must not be null");
+		Assert.notNull(limiter, "'limiter' must not be null");
+		this.executor = executor;
+		this.limiter = limiter;
+		this.waitForPermit = waitForPermit;
+	}
+
+	public AdaptiveConcurrencyLimiter getLimiter() {
+		return this.limiter;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		try {
+			if (!(this.waitForPermit ? this.limiter.acquire() : this.limiter.tryAcquire())) {
+				throw new ConcurrencyLimitExceededException("Concurrency limit of " + this.limiter.getLimit()
+						+ " reached; task " + task + " rejected");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting for a concurrency permit", e);
+		}
+		try {
+			this.executor.execute(() -> {
+				long start = System.nanoTime();
+				boolean success = false;
+				try {
+					task.run();
+					success = true;
+				}
+				finally {
+					this.limiter.release(System.nanoTime() - start, success);
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			this.limiter.release();
+			throw e;
+		}
+	}
+
+}
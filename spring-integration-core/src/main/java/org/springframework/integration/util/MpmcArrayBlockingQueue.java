@@ -0,0 +1,427 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, array-backed, lock-free multi-producer/multi-consumer {@link BlockingQueue}.
+ * <p>
+ * The non-blocking {@link #offer(Object)} and {@link #poll()} operations are based on the
+ * well-known bounded MPMC algorithm by Dmitry Vyukov: each slot of the ring buffer
+ * carries a sequence number which producers and consumers use to claim the slot with a
+ * single CAS on the tail or head counter. No node is allocated per element and there is
+ * no lock shared between producers and consumers.
+ * <p>
+ * The blocking operations ({@link #put(Object)}, {@link #take()} and the timed
+ * {@code offer}/{@code poll} variants) retry the non-blocking ones and park the calling
+ * thread while the queue is full or empty; the opposite side unparks one waiting thread
+ * after each successful operation.
+ * <p>
+ * The {@link #iterator()} returns a weakly consistent snapshot of the queue contents and
+ * does not support removal. {@link #remove(Object)} replaces the element in its slot with
+ * a marker, which consumers skip; the slot (and so the capacity for {@link #offer(Object)})
+ * is only reclaimed when the consumers reach it.
+ *
+ * @param <E> the element type.
+ *
+ * @author agent
+ * @since 5.1
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private final int capacity;
+
+	private final int length;
+
+	private static final Object REMOVED = new Object();
+
+	private final AtomicReferenceArray<Object> buffer;
+
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong removed = new AtomicLong();
+
+	private final WaitQueue notEmpty = new WaitQueue();
+
+	private final WaitQueue notFull = new WaitQueue();
+
+	/**
+	 * Create a queue with the given (fixed) capacity.
+	 * @param capacity the capacity; must be positive.
+	 */
+	public MpmcArrayBlockingQueue(int capacity) {
+		Assert.isTrue(capacity > 0, "'capacity' must be greater than 0");
+		this.capacity = capacity;
+		// the slot sequences can't tell 'full' from 'empty' in a single-slot ring
+		this.length = Math.max(capacity, 2);
+		this.buffer = new AtomicReferenceArray<>(this.length);
+		this.sequences = new AtomicLongArray(this.length);
+		for (int i = 0; i < this.length; i++) {
+			this.sequences.set(i, i);
+		}
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Assert.notNull(e, "'e' must not be null");
+		long position = this.tail.get();
+		while (true) {
+			int index = index(position);
+			long delta = this.sequences.get(index) - position;
+			if (delta == 0) {
+				if (this.length > this.capacity && position - this.head.get() >= this.capacity) {
+					return false;
+				}
+				if (this.tail.compareAndSet(position, position + 1)) {
+					this.buffer.set(index, e);
+					this.sequences.set(index, position + 1);
+					this.notEmpty.signalIfWaiting();
+					return true;
+				}
+				position = this.tail.get();
+			}
+			else if (delta < 0) {
+				return false;
+			}
+			else {
+				position = this.tail.get();
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long position = this.head.get();
+		while (true) {
+			int index = index(position);
+			long delta = this.sequences.get(index) - (position + 1);
+			if (delta == 0) {
+				if (this.head.compareAndSet(position, position + 1)) {
+					Object e = this.buffer.getAndSet(index, null);
+					this.sequences.set(index, position + this.length);
+					this.notFull.signalIfWaiting();
+					if (e != REMOVED) {
+						return (E) e;
+					}
+					this.removed.decrementAndGet();
+				}
+				position = this.head.get();
+			}
+			else if (delta < 0) {
+				return null;
+			}
+			else {
+				position = this.head.get();
+			}
+		}
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		offer(e, -1, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Insert the element, waiting up to the specified time for space to become available.
+	 * A negative timeout means to wait indefinitely.
+	 * @param e the element.
+	 * @param timeout the time to wait.
+	 * @param unit the time unit.
+	 * @return true if the element was added.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		if (offer(e)) {
+			return true;
+		}
+		long nanos = unit.toNanos(timeout);
+		long deadline = System.nanoTime() + nanos;
+		Thread current = Thread.currentThread();
+		while (true) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			this.notFull.add(current);
+			if (offer(e)) {
+				this.notFull.leave(current, this::hasSpace);
+				return true;
+			}
+			if (timeout >= 0 && nanos <= 0) {
+				this.notFull.leave(current, this::hasSpace);
+				return false;
+			}
+			if (timeout < 0) {
+				LockSupport.park(this);
+			}
+			else {
+				LockSupport.parkNanos(this, nanos);
+				nanos = deadline - System.nanoTime();
+			}
+			// pass on a signal this thread might not consume (e.g. when interrupted)
+			this.notFull.leave(current, this::hasSpace);
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		return poll(-1, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Retrieve and remove the head of this queue, waiting up to the specified time for an
+	 * element to become available. A negative timeout means to wait indefinitely.
+	 * @param timeout the time to wait.
+	 * @param unit the time unit.
+	 * @return the head of the queue or null if the timeout elapsed.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = poll();
+		if (e != null) {
+			return e;
+		}
+		long nanos = unit.toNanos(timeout);
+		long deadline = System.nanoTime() + nanos;
+		Thread current = Thread.currentThread();
+		while (true) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			this.notEmpty.add(current);
+			e = poll();
+			if (e != null) {
+				this.notEmpty.leave(current, this::hasElements);
+				return e;
+			}
+			if (timeout >= 0 && nanos <= 0) {
+				this.notEmpty.leave(current, this::hasElements);
+				return null;
+			}
+			if (timeout < 0) {
+				LockSupport.park(this);
+			}
+			else {
+				LockSupport.parkNanos(this, nanos);
+				nanos = deadline - System.nanoTime();
+			}
+			// pass on a signal this thread might not consume (e.g. when interrupted)
+			this.notEmpty.leave(current, this::hasElements);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long position = this.head.get();
+		while (true) {
+			int index = index(position);
+			long sequence = this.sequences.get(index);
+			if (sequence - (position + 1) < 0) {
+				return null;
+			}
+			if (sequence == position + 1) {
+				Object e = this.buffer.get(index);
+				if (e == REMOVED) {
+					position++;
+					continue;
+				}
+				if (e != null && this.sequences.get(index) == sequence) {
+					return (E) e;
+				}
+			}
+			// the slot has been consumed meanwhile
+			position = Math.max(position + 1, this.head.get());
+		}
+	}
+
+	/**
+	 * Remove a single instance of the element, if present, without moving the other
+	 * elements: its slot is skipped by the consumers.
+	 * @param o the element to remove.
+	 * @return true if the element was removed.
+	 */
+	@Override
+	public boolean remove(Object o) {
+		if (o == null) {
+			return false;
+		}
+		long tail = this.tail.get();
+		for (long position = this.head.get(); position < tail; position++) {
+			int index = index(position);
+			if (this.sequences.get(index) == position + 1) {
+				Object e = this.buffer.get(index);
+				if (e != null && e != REMOVED && o.equals(e) && this.buffer.compareAndSet(index, e, REMOVED)) {
+					this.removed.incrementAndGet();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, occupied() - this.removed.get());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return this.capacity - occupied();
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Assert.notNull(c, "'c' must not be null");
+		Assert.isTrue(c != this, "Cannot drain a queue into itself");
+		int drained = 0;
+		E e;
+		while (drained < maxElements && (e = poll()) != null) {
+			c.add(e);
+			drained++;
+		}
+		return drained;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return Collections.unmodifiableList(snapshot()).iterator();
+	}
+
+	@Override
+	public void clear() {
+		while (poll() != null) {
+			// drain
+		}
+	}
+
+	private List<E> snapshot() {
+		long from = this.head.get();
+		long to = this.tail.get();
+		List<E> elements = new ArrayList<>((int) Math.max(0, Math.min(to - from, this.capacity)));
+		for (long position = from; position < to; position++) {
+			int index = index(position);
+			if (this.sequences.get(index) == position + 1) {
+				Object e = this.buffer.get(index);
+				if (e != null && e != REMOVED) {
+					@SuppressWarnings("unchecked")
+					E element = (E) e;
+					elements.add(element);
+				}
+			}
+		}
+		return elements;
+	}
+
+	private boolean hasElements() {
+		long position = this.head.get();
+		return this.sequences.get(index(position)) == position + 1;
+	}
+
+	private boolean hasSpace() {
+		return occupied() < this.capacity;
+	}
+
+	/**
+	 * The number of slots taken between the consumers and the producers, including the
+	 * ones of removed elements which the consumers have not reached yet.
+	 */
+	private int occupied() {
+		long after = this.head.get();
+		while (true) {
+			long before = after;
+			long tail = this.tail.get();
+			after = this.head.get();
+			if (before == after) {
+				return (int) Math.max(0, Math.min(tail - after, this.capacity));
+			}
+		}
+	}
+
+	private int index(long position) {
+		return (int) (position % this.length);
+	}
+
+	/**
+	 * The threads parked on one side of the queue.
+	 * A thread which has been unparked by {@link #signalIfWaiting()} is already removed
+	 * from the queue, so whenever it leaves (it timed out, obtained its element on the
+	 * re-check, or woke up and may be interrupted before the retry), it passes the
+	 * signal on.
+	 */
+	private static final class WaitQueue {
+
+		private final ConcurrentLinkedQueue<Thread> threads = new ConcurrentLinkedQueue<>();
+
+		void add(Thread thread) {
+			this.threads.add(thread);
+		}
+
+		boolean remove(Thread thread) {
+			return this.threads.remove(thread);
+		}
+
+		void leave(Thread thread, BooleanSupplier condition) {
+			if (!remove(thread) && condition.getAsBoolean()) {
+				signalIfWaiting();
+			}
+		}
+
+		void signalIfWaiting() {
+			if (!this.threads.isEmpty()) {
+				Thread thread = this.threads.poll();
+				if (thread != null) {
+					LockSupport.unpark(thread);
+				}
+			}
+		}
+
+	}
+
+}
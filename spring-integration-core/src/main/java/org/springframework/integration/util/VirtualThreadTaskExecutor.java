@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A {@link SimpleAsyncTaskExecutor} which starts a new virtual thread for each task
+ * when running on a JDK with virtual threads; on older JDKs (or when virtual threads
+ * are not enabled) it falls back to a new platform thread per task.
+ * <p>
+ * The virtual threads are created with {@code Thread.ofVirtual()} via reflection, so
+ * this class can be used regardless of the JDK the application is compiled for. The
+ * inherited {@link #setConcurrencyLimit(int) concurrency limit} can still be applied.
+ *
+ * @author agent
+ * @since 5.1
+ */
+@SuppressWarnings("serial")
+public class VirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor {
+
+	private static final Log logger = LogFactory.getLog(VirtualThreadTaskExecutor.class);
+
+	private final boolean virtual;
+
+	public VirtualThreadTaskExecutor() {
+		this("virtual-");
+	}
+
+	/**
+	 * Create an executor with the provided prefix for the thread names.
+	 * @param threadNamePrefix the thread name prefix.
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		super(threadNamePrefix);
+		ThreadFactory threadFactory = virtualThreadFactory(threadNamePrefix);
+		this.virtual = threadFactory != null;
+		if (this.virtual) {
+			setThreadFactory(threadFactory);
+		}
+		else if (logger.isInfoEnabled()) {
+			logger.info("Virtual threads are not available on this JVM; "
+					+ "falling back to a new platform thread per task.");
+		}
+	}
+
+	/**
+	 * Return true if the tasks are run on virtual threads.
+	 * @return true if virtual threads are used.
+	 */
+	public boolean isVirtual() {
+		return this.virtual;
+	}
+
+	/**
+	 * Return true if the current JVM can create virtual threads.
+	 * @return true if virtual threads are supported.
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return virtualThreadFactory("virtual-") != null;
+	}
+
+	@Nullable
+	private static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+		if (!ClassUtils.isPresent("java.lang.Thread$Builder", null)) {
+			return null;
+		}
+		try {
+			Class<?> builderClass = ClassUtils.forName("java.lang.Thread$Builder", null);
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch (Exception e) {
+			// e.g. virtual threads are a preview feature which is not enabled
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot create virtual threads", e);
+			}
+			return null;
+		}
+	}
+
+}
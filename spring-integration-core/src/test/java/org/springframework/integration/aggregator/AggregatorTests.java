@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.util.ArrayList;
@@ -33,6 +34,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,6 +43,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.handler.AbstractMessageHandler;
@@ -306,6 +309,91 @@ public class AggregatorTests {
 		assertEquals(1, this.store.getMessageGroup("ABC").size());
 	}
 
+	@Test
+	public void testFoldingAggregation() {
+		this.aggregator.setOutputProcessor(
+				new FoldingMessageGroupProcessor<>(Collectors.summingInt((Integer payload) -> payload)));
+		this.aggregator.setExpireGroupsUponCompletion(true);
+		QueueChannel replyChannel = new QueueChannel();
+		this.aggregator.handleMessage(createMessage(3, "ABC", 3, 1, replyChannel, null));
+		this.aggregator.handleMessage(createMessage(5, "ABC", 3, 2, replyChannel, null));
+
+		MessageGroup group = this.store.getMessageGroup("ABC");
+		assertEquals(1, group.size());
+		Object payload = group.getOne().getPayload();
+		assertTrue(payload instanceof FoldingMessageGroupProcessor.Accumulation);
+		assertEquals(2, ((FoldingMessageGroupProcessor.Accumulation) payload).getCount());
+		assertNull(replyChannel.receive(0));
+
+		this.aggregator.handleMessage(createMessage(7, "ABC", 3, 3, replyChannel, null));
+		Message<?> reply = replyChannel.receive(10000);
+		assertNotNull(reply);
+		assertEquals(15, reply.getPayload());
+		assertEquals("ABC", reply.getHeaders().get(IntegrationMessageHeaderAccessor.CORRELATION_ID));
+		assertEquals(0, this.store.getMessageGroupCount());
+	}
+
+	@Test
+	public void testFoldingRejectsDuplicateSequence() {
+		this.aggregator.setOutputProcessor(
+				new FoldingMessageGroupProcessor<>(Collectors.summingInt((Integer payload) -> payload)));
+		this.aggregator.setExpireGroupsUponCompletion(true);
+		QueueChannel discardChannel = new QueueChannel();
+		this.aggregator.setDiscardChannel(discardChannel);
+		QueueChannel replyChannel = new QueueChannel();
+		this.aggregator.handleMessage(createMessage(3, "ABC", 3, 1, replyChannel, null));
+		this.aggregator.handleMessage(createMessage(5, "ABC", 3, 2, replyChannel, null));
+		Message<?> duplicate = createMessage(5, "ABC", 3, 2, replyChannel, null);
+		this.aggregator.handleMessage(duplicate);
+		assertSame(duplicate, discardChannel.receive(0));
+		assertNull(replyChannel.receive(0));
+		assertEquals(2, ((FoldingMessageGroupProcessor.Accumulation) this.store.getMessageGroup("ABC")
+				.getOne().getPayload()).getCount());
+
+		this.aggregator.handleMessage(createMessage(7, "ABC", 3, 3, replyChannel, null));
+		Message<?> reply = replyChannel.receive(10000);
+		assertNotNull(reply);
+		assertEquals(15, reply.getPayload());
+	}
+
+	@Test
+	public void testFoldingSequenceAwareRejectsDuplicateSequence() {
+		this.aggregator.setOutputProcessor(
+				new FoldingMessageGroupProcessor<>(Collectors.summingInt((Integer payload) -> payload)));
+		this.aggregator.setReleaseStrategy(new SequenceSizeReleaseStrategy());
+		this.aggregator.setExpireGroupsUponCompletion(true);
+		QueueChannel discardChannel = new QueueChannel();
+		this.aggregator.setDiscardChannel(discardChannel);
+		QueueChannel replyChannel = new QueueChannel();
+		this.aggregator.handleMessage(createMessage(3, "ABC", 3, 1, replyChannel, null));
+		this.aggregator.handleMessage(createMessage(5, "ABC", 3, 2, replyChannel, null));
+		Message<?> duplicate = createMessage(5, "ABC", 3, 1, replyChannel, null);
+		this.aggregator.handleMessage(duplicate);
+		assertSame(duplicate, discardChannel.receive(0));
+		assertNull(replyChannel.receive(0));
+
+		this.aggregator.handleMessage(createMessage(7, "ABC", 3, 3, replyChannel, null));
+		Message<?> reply = replyChannel.receive(10000);
+		assertNotNull(reply);
+		assertEquals(15, reply.getPayload());
+	}
+
+	@Test
+	public void testFoldingPartialResultOnTimeout() {
+		this.aggregator.setOutputProcessor(
+				new FoldingMessageGroupProcessor<>(Collectors.summingInt((Integer payload) -> payload)));
+		this.aggregator.setSendPartialResultOnExpiry(true);
+		QueueChannel replyChannel = new QueueChannel();
+		this.aggregator.handleMessage(createMessage(3, "ABC", 3, 1, replyChannel, null));
+		this.aggregator.handleMessage(createMessage(5, "ABC", 3, 2, replyChannel, null));
+		this.store.expireMessageGroups(-10000);
+		Message<?> reply = replyChannel.receive(1000);
+		assertNotNull(reply);
+		assertEquals(8, reply.getPayload());
+		assertEquals(1, this.expiryEvents.size());
+		assertEquals(2, this.expiryEvents.get(0).getMessageCount());
+	}
+
 	@Test
 	public void testGroupRemainsAfterTimeout() throws InterruptedException {
 		this.aggregator.setSendPartialResultOnExpiry(true);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import static org.mockito.Mockito.mock;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -107,6 +109,33 @@ public class ResequencerTests {
 		assertNull(replyChannel.receive(0));
 	}
 
+	@Test
+	public void testLargeShuffledPartialResequencing() {
+		SequenceSizeReleaseStrategy releaseStrategy = new SequenceSizeReleaseStrategy();
+		releaseStrategy.setReleasePartialSequences(true);
+		this.resequencer = new ResequencingMessageHandler(processor, store, null, releaseStrategy);
+		this.resequencer.setBeanFactory(mock(BeanFactory.class));
+		this.resequencer.afterPropertiesSet();
+
+		QueueChannel replyChannel = new QueueChannel();
+		int sequenceSize = 10000;
+		List<Message<?>> messages = new ArrayList<>(sequenceSize);
+		for (int i = 1; i <= sequenceSize; i++) {
+			messages.add(createMessage("" + i, "ABC", sequenceSize, i, replyChannel));
+		}
+		Collections.shuffle(messages, new Random(42));
+		for (Message<?> message : messages) {
+			this.resequencer.handleMessage(message);
+		}
+		for (int i = 1; i <= sequenceSize; i++) {
+			Message<?> reply = replyChannel.receive(0);
+			assertNotNull(reply);
+			assertThat(new IntegrationMessageHeaderAccessor(reply).getSequenceNumber(), is(i));
+		}
+		assertNull(replyChannel.receive(0));
+		assertEquals(0, this.store.getMessageGroup("ABC").size());
+	}
+
 	@Test
 	public void testBasicUnboundedResequencing() throws InterruptedException {
 		SequenceSizeReleaseStrategy releaseStrategy = new SequenceSizeReleaseStrategy();
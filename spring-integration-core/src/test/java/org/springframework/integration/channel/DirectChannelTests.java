@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,14 @@
 
 package org.springframework.integration.channel;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,7 +47,9 @@ import org.springframework.integration.endpoint.EventDrivenConsumer;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.ReflectionUtils;
 
@@ -141,6 +146,44 @@ public class DirectChannelTests {
 		}
 	}
 
+	@Test
+	public void testPlainSendHonorsLateConfiguration() {
+		DirectChannel channel = new DirectChannel();
+		AtomicInteger count = new AtomicInteger();
+		channel.subscribe(message -> {
+			if (count.incrementAndGet() > 2) {
+				throw new IllegalStateException("test");
+			}
+		});
+		GenericMessage<String> message = new GenericMessage<String>("test");
+		assertTrue(channel.send(message));
+
+		AtomicInteger preSendCount = new AtomicInteger();
+		channel.addInterceptor(new ChannelInterceptor() {
+
+			@Override
+			public Message<?> preSend(Message<?> message, MessageChannel channel) {
+				preSendCount.incrementAndGet();
+				return message;
+			}
+
+		});
+		assertTrue(channel.send(message));
+		assertEquals(1, preSendCount.get());
+
+		channel.removeInterceptor(0);
+		try {
+			channel.send(message);
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertSame(message, e.getFailedMessage());
+			assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+		}
+		assertEquals(1, preSendCount.get());
+		assertEquals(3, count.get());
+	}
+
 	@Test
 	public void testSendInSeparateThread() throws InterruptedException {
 		CountDownLatch latch = new CountDownLatch(1);
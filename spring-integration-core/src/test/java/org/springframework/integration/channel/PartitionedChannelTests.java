@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.MessageDispatchingException;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.management.micrometer.MicrometerMetricsCaptor;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class PartitionedChannelTests {
+
+	@Test
+	public void testOrderedWithinPartitionKey() throws Exception {
+		PartitionedChannel channel = new PartitionedChannel(4);
+		channel.setPartitionKeyHeader("customer");
+		initialize(channel);
+		Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+		Map<String, String> threads = new ConcurrentHashMap<>();
+		CountDownLatch latch = new CountDownLatch(100);
+		channel.subscribe(m -> {
+			String customer = m.getHeaders().get("customer", String.class);
+			received.computeIfAbsent(customer, k -> Collections.synchronizedList(new ArrayList<>()))
+					.add((Integer) m.getPayload());
+			String previous = threads.putIfAbsent(customer, Thread.currentThread().getName());
+			if (previous != null) {
+				assertEquals(previous, Thread.currentThread().getName());
+			}
+			latch.countDown();
+		});
+		for (int i = 0; i < 100; i++) {
+			channel.send(MessageBuilder.withPayload(i).setHeader("customer", "c" + (i % 5)).build());
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(5, received.size());
+		for (List<Integer> payloads : received.values()) {
+			assertEquals(20, payloads.size());
+			for (int i = 1; i < payloads.size(); i++) {
+				assertTrue(payloads.get(i - 1) < payloads.get(i));
+			}
+		}
+		assertTrue(threads.get("c0").startsWith("testChannel-partition-"));
+		channel.destroy();
+	}
+
+	@Test
+	public void testPartitionKeyExpressionAndQueueSize() throws Exception {
+		PartitionedChannel channel = new PartitionedChannel(2);
+		channel.setPartitionKeyExpression(new SpelExpressionParser().parseExpression("payload % 2"));
+		initialize(channel);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(6);
+		Map<Object, String> threads = new ConcurrentHashMap<>();
+		channel.subscribe(m -> {
+			threads.put(m.getPayload(), Thread.currentThread().getName());
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			latch.countDown();
+		});
+		for (int i = 0; i < 6; i++) {
+			channel.send(MessageBuilder.withPayload(i).build());
+		}
+		Message<Integer> even = MessageBuilder.withPayload(0).build();
+		Message<Integer> odd = MessageBuilder.withPayload(1).build();
+		int evenPartition = channel.getDispatcher().partitionFor(even);
+		int oddPartition = channel.getDispatcher().partitionFor(odd);
+		assertNotEquals(evenPartition, oddPartition);
+		int n = 0;
+		while (n++ < 100 && channel.getQueueSize(evenPartition) + channel.getQueueSize(oddPartition) > 4) {
+			Thread.sleep(50);
+		}
+		assertEquals(2, channel.getQueueSize(evenPartition));
+		assertEquals(2, channel.getQueueSize(oddPartition));
+		release.countDown();
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(threads.get(0), threads.get(4));
+		assertEquals(threads.get(1), threads.get(5));
+		assertNotEquals(threads.get(0), threads.get(1));
+		channel.destroy();
+	}
+
+	@Test
+	public void testRejectAfterDestroy() throws Exception {
+		PartitionedChannel channel = new PartitionedChannel(2);
+		channel.setPartitionKeyHeader("customer");
+		initialize(channel);
+		channel.subscribe(m -> { });
+		channel.send(MessageBuilder.withPayload("foo").setHeader("customer", "c0").build());
+		channel.destroy();
+		try {
+			channel.send(MessageBuilder.withPayload("bar").setHeader("customer", "c0").build());
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertThat(e.getMessage(), containsString("The dispatcher has been shut down"));
+		}
+		assertNull(TestUtils.getPropertyValue(channel, "dispatcher.partitions"));
+	}
+
+	@Test
+	public void testRejectNullPartitionKey() throws Exception {
+		PartitionedChannel channel = new PartitionedChannel(2);
+		initialize(channel);
+		channel.subscribe(m -> { });
+		try {
+			channel.send(MessageBuilder.withPayload("foo").build());
+			fail("MessageDispatchingException expected");
+		}
+		catch (MessageDispatchingException e) {
+			assertThat(e.getMessage(), containsString("The partition key of the message is null"));
+		}
+		channel.destroy();
+	}
+
+	@Test
+	public void testRejectWhenPartitionIsFull() throws Exception {
+		PartitionedChannel channel = new PartitionedChannel(1);
+		channel.setPartitionKeyHeader("customer");
+		channel.setQueueCapacity(2);
+		initialize(channel);
+		CountDownLatch handling = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		channel.subscribe(m -> {
+			handling.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		channel.send(MessageBuilder.withPayload(0).setHeader("customer", "c0").build());
+		assertTrue(handling.await(10, TimeUnit.SECONDS));
+		channel.send(MessageBuilder.withPayload(1).setHeader("customer", "c0").build());
+		channel.send(MessageBuilder.withPayload(2).setHeader("customer", "c0").build());
+		assertEquals(2, channel.getQueueSize(0));
+		try {
+			channel.send(MessageBuilder.withPayload(3).setHeader("customer", "c0").build());
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertThat(e.getMessage(), containsString("The partition 0 is full"));
+		}
+		release.countDown();
+		channel.destroy();
+	}
+
+	@Test
+	public void testPartitionGaugesRemovedOnDestroy() throws Exception {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		PartitionedChannel channel = new PartitionedChannel(2);
+		initialize(channel);
+		channel.registerMetricsCaptor(new MicrometerMetricsCaptor(meterRegistry));
+		assertNotNull(meterRegistry.find(PartitionedChannel.PARTITION_QUEUE_GAUGE_NAME)
+				.tag("partition", "1")
+				.gauge());
+		channel.destroy();
+		assertNull(meterRegistry.find(PartitionedChannel.PARTITION_QUEUE_GAUGE_NAME).gauge());
+	}
+
+	private static void initialize(PartitionedChannel channel) {
+		channel.setBeanName("testChannel");
+		channel.setBeanFactory(mock(BeanFactory.class));
+		channel.afterPropertiesSet();
+	}
+
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -83,6 +84,25 @@ public class PriorityChannelTests {
 		assertEquals("test:-99", channel.receive(0).getPayload());
 	}
 
+	@Test
+	public void testBatchReceive() {
+		PriorityChannel channel = new PriorityChannel(3);
+		channel.send(createPriorityMessage(1));
+		channel.send(createPriorityMessage(5));
+		channel.send(createPriorityMessage(3));
+		assertFalse(channel.send(createPriorityMessage(7), 0));
+		List<Message<?>> messages = channel.receive(2, 0);
+		assertEquals(2, messages.size());
+		assertEquals("test:5", messages.get(0).getPayload());
+		assertEquals("test:3", messages.get(1).getPayload());
+		assertEquals(2, channel.getRemainingCapacity());
+		assertTrue(channel.send(createPriorityMessage(7), 0));
+		messages = channel.receive(5, 0);
+		assertEquals(2, messages.size());
+		assertEquals("test:7", messages.get(0).getPayload());
+		assertEquals("test:1", messages.get(1).getPayload());
+	}
+
 	// although this test has no assertions it results in ConcurrentModificationException
 	// if executed before changes for INT-2508
 	@Test
@@ -19,6 +19,7 @@ package org.springframework.integration.channel;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -35,6 +37,8 @@ import org.junit.rules.TemporaryFolder;
 import org.springframework.integration.selector.UnexpiredMessageSelector;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.GenericMessage;
 
 /**
@@ -94,6 +98,72 @@ public class QueueChannelTests {
 		singleThreadExecutor.shutdownNow();
 	}
 
+	@Test
+	public void testLockFreeQueuePurge() {
+		QueueChannel channel = new QueueChannel(5, true);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(channel.send(new GenericMessage<>(i), 0));
+		}
+		assertFalse(channel.send(new GenericMessage<>(5), 0));
+		List<Message<?>> purged = channel.purge(m -> ((Integer) m.getPayload()) % 2 == 0);
+		assertEquals(2, purged.size());
+		assertEquals(3, channel.getQueueSize());
+		assertEquals(0, channel.receive(0).getPayload());
+		assertEquals(2, channel.receive(0).getPayload());
+		assertEquals(4, channel.receive(0).getPayload());
+		assertNull(channel.receive(10));
+	}
+
+	@Test
+	public void testBatchReceive() throws Exception {
+		final QueueChannel channel = new QueueChannel();
+		assertTrue(channel.receive(3, 0).isEmpty());
+		for (int i = 0; i < 5; i++) {
+			channel.send(new GenericMessage<>(i));
+		}
+		List<Message<?>> messages = channel.receive(3, 0);
+		assertEquals(3, messages.size());
+		assertEquals(0, messages.get(0).getPayload());
+		assertEquals(2, messages.get(2).getPayload());
+		messages = channel.receive(3, 0);
+		assertEquals(2, messages.size());
+		assertEquals(4, messages.get(1).getPayload());
+		assertEquals(0, channel.getQueueSize());
+
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		exec.execute(() -> {
+			List<Message<?>> received = channel.receive(3, 10000);
+			if (received.size() == 1 && "late".equals(received.get(0).getPayload())) {
+				latch.countDown();
+			}
+		});
+		Thread.sleep(100);
+		channel.send(new GenericMessage<>("late"));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		exec.shutdownNow();
+	}
+
+	@Test
+	public void testBatchReceiveWithInterceptor() {
+		final QueueChannel channel = new QueueChannel();
+		AtomicInteger intercepted = new AtomicInteger();
+		channel.addInterceptor(new ChannelInterceptor() {
+
+			@Override
+			public Message<?> postReceive(Message<?> message, MessageChannel channel) {
+				intercepted.incrementAndGet();
+				return message;
+			}
+
+		});
+		for (int i = 0; i < 5; i++) {
+			channel.send(new GenericMessage<>(i));
+		}
+		assertEquals(4, channel.receive(4, 0).size());
+		assertEquals(4, intercepted.get());
+	}
+
 	@Test
 	public void testBlockingReceiveWithNoTimeout() throws Exception {
 		final QueueChannel channel = new QueueChannel();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,6 +49,7 @@ import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.converter.DefaultDatatypeChannelMessageConverter;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.integration.util.ErrorHandlingTaskExecutor;
+import org.springframework.integration.util.MpmcArrayBlockingQueue;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageDeliveryException;
@@ -94,6 +95,19 @@ public class ChannelParserTests {
 		assertFalse(channel.send(new GenericMessage<String>("test"), 3));
 	}
 
+	@Test
+	public void testLockFreeChannelWithCapacity() {
+		QueueChannel channel = context.getBean("lockFreeChannel", QueueChannel.class);
+		assertThat(TestUtils.getPropertyValue(channel, "queue"), instanceOf(MpmcArrayBlockingQueue.class));
+		for (int i = 0; i < 10; i++) {
+			assertTrue(channel.send(new GenericMessage<String>("test"), 10));
+		}
+		assertFalse(channel.send(new GenericMessage<String>("test"), 3));
+		assertEquals(0, channel.getRemainingCapacity());
+		assertNotNull(channel.receive(0));
+		assertEquals(9, channel.getQueueSize());
+	}
+
 	@Test
 	public void testDirectChannelByDefault() throws InterruptedException {
 		MessageChannel channel = (MessageChannel) context.getBean("defaultChannel");
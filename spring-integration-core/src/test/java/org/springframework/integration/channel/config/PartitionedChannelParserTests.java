@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.channel.PartitionedChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+public class PartitionedChannelParserTests {
+
+	@Autowired
+	private PartitionedChannel byHeader;
+
+	@Autowired
+	private PartitionedChannel byExpression;
+
+	@Autowired
+	private ThreadFactory threadFactory;
+
+	@Test
+	public void testPartitionKeyHeader() {
+		assertEquals(3, this.byHeader.getPartitionCount());
+		assertSame(this.threadFactory, TestUtils.getPropertyValue(this.byHeader, "dispatcher.threadFactory"));
+		assertFalse(TestUtils.getPropertyValue(this.byHeader, "dispatcher.failover", Boolean.class));
+		assertEquals(10, TestUtils.getPropertyValue(this.byHeader, "dispatcher.queueCapacity"));
+		AtomicReference<String> thread = new AtomicReference<>();
+		QueueChannel results = new QueueChannel();
+		this.byHeader.subscribe(m -> {
+			thread.set(Thread.currentThread().getName());
+			results.send(m);
+		});
+		this.byHeader.send(MessageBuilder.withPayload("foo").setHeader("customer", "bar").build());
+		Message<?> received = results.receive(10000);
+		assertNotNull(received);
+		assertEquals("foo", received.getPayload());
+		assertTrue(thread.get().startsWith("customer-"));
+	}
+
+	@Test
+	public void testPartitionKeyExpression() {
+		assertEquals(2, this.byExpression.getPartitionCount());
+		QueueChannel results = new QueueChannel();
+		this.byExpression.subscribe(results::send);
+		this.byExpression.send(MessageBuilder.withPayload("foo").build());
+		this.byExpression.send(MessageBuilder.withPayload("ba").build());
+		assertNotNull(results.receive(10000));
+		assertNotNull(results.receive(10000));
+	}
+
+}
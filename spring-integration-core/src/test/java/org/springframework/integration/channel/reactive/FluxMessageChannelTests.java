@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,16 +18,20 @@ package org.springframework.integration.channel.reactive;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.isOneOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -50,6 +54,8 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.concurrent.Queues;
 
 /**
  * @author Artem Bilan
@@ -106,6 +112,74 @@ public class FluxMessageChannelTests {
 		assertThat(results, contains("FOO", "BAR"));
 	}
 
+	@Test
+	public void testDemandIsSplitBetweenPublishers() {
+		FluxMessageChannel channel = new FluxMessageChannel();
+		AtomicLong requested = new AtomicLong();
+
+		channel.subscribeTo(
+				Flux.range(0, 10000)
+						.<Message<?>>map(GenericMessage::new)
+						.doOnRequest(requested::addAndGet));
+		channel.subscribeTo(
+				Flux.range(0, 10000)
+						.<Message<?>>map(GenericMessage::new)
+						.doOnRequest(requested::addAndGet));
+
+		StepVerifier.create(Flux.from(channel).map(Message::getPayload), 3)
+				.expectNextCount(3)
+				.thenCancel()
+				.verify();
+
+		assertThat(requested.get(), lessThanOrEqualTo((long) Queues.SMALL_BUFFER_SIZE));
+	}
+
+	@Test
+	public void testSubscribeToPublisherPropagatesDemand() {
+		FluxMessageChannel channel = new FluxMessageChannel();
+		AtomicLong requested = new AtomicLong();
+
+		channel.subscribeTo(
+				Flux.range(0, 10000)
+						.<Message<?>>map(GenericMessage::new)
+						.doOnRequest(requested::addAndGet));
+
+		StepVerifier.create(Flux.from(channel).map(Message::getPayload), 3)
+				.expectNext(0, 1, 2)
+				.thenCancel()
+				.verify();
+
+		assertThat(requested.get(), lessThan(10000L));
+	}
+
+	@Test
+	public void testSendAndPublisherShareTheDemandOfSlowSubscriber() {
+		FluxMessageChannel channel = new FluxMessageChannel();
+		List<Object> payloads = new ArrayList<>();
+
+		StepVerifier.create(Flux.from(channel).map(Message::getPayload), 1)
+				.recordWith(() -> payloads)
+				.then(() -> {
+					for (int i = 0; i < 10; i++) {
+						channel.send(new GenericMessage<>(-1));
+					}
+					// the upstream publisher is requested the full demand the sends took part of
+					channel.subscribeTo(
+							Flux.range(0, 1000)
+									.<Message<?>>map(GenericMessage::new));
+				})
+				.expectNextCount(1)
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(1009)
+				.thenCancel()
+				.verify(Duration.ofSeconds(10));
+
+		assertEquals(1010, payloads.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, payloads.get(i + 10));
+		}
+	}
+
 	@Configuration
 	@EnableIntegration
 	public static class TestConfiguration {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2017 the original author or authors.
+ * Copyright 2016-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,11 @@
 
 package org.springframework.integration.channel.reactive;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -30,6 +32,8 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -52,10 +56,18 @@ import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.config.ConsumerEndpointFactoryBean;
 import org.springframework.integration.endpoint.ReactiveStreamsConsumer;
 import org.springframework.integration.handler.MethodInvokingMessageHandler;
+import org.springframework.integration.handler.ReactiveMessageHandler;
+import org.springframework.integration.handler.ReactiveMessageHandlerAdapter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.ErrorHandler;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * @author Artem Bilan
@@ -274,4 +286,85 @@ public class ReactiveStreamsConsumerTests {
 		assertThat(result, Matchers.<Message<?>>contains(testMessage, testMessage2, testMessage2));
 	}
 
+	@Test
+	public void testReactiveMessageHandlerLimitsDemand() {
+		FluxMessageChannel testChannel = new FluxMessageChannel();
+
+		List<Object> handled = new ArrayList<>();
+		BlockingQueue<MonoSink<Void>> inFlight = new LinkedBlockingQueue<>();
+
+		ReactiveMessageHandler reactiveMessageHandler = m ->
+				Mono.create(sink -> {
+					handled.add(m.getPayload());
+					inFlight.add(sink);
+				});
+
+		ReactiveStreamsConsumer reactiveConsumer = new ReactiveStreamsConsumer(testChannel, reactiveMessageHandler);
+		reactiveConsumer.setConcurrency(2);
+		reactiveConsumer.setBeanFactory(mock(BeanFactory.class));
+		reactiveConsumer.setErrorHandler(mock(ErrorHandler.class));
+		reactiveConsumer.afterPropertiesSet();
+		reactiveConsumer.start();
+
+		for (int i = 0; i < 5; i++) {
+			testChannel.send(new GenericMessage<>(i));
+		}
+
+		assertThat(handled, contains(0, 1));
+
+		inFlight.poll().success();
+		inFlight.poll().success();
+		assertThat(handled, contains(0, 1, 2, 3));
+
+		MonoSink<Void> sink;
+		while ((sink = inFlight.poll()) != null) {
+			sink.success();
+		}
+		assertThat(handled, contains(0, 1, 2, 3, 4));
+
+		reactiveConsumer.stop();
+	}
+
+	@Test
+	public void testReactiveMessageHandlerAdapterFailsOnNonBlockingThread() {
+		ReactiveMessageHandlerAdapter adapter = new ReactiveMessageHandlerAdapter(m -> Mono.empty());
+		Message<?> message = new GenericMessage<>("foo");
+		try {
+			Mono.fromRunnable(() -> adapter.handleMessage(message))
+					.subscribeOn(Schedulers.parallel())
+					.block(Duration.ofSeconds(10));
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getMessage(), containsString("cannot block on the non-blocking thread"));
+			assertSame(message, e.getFailedMessage());
+		}
+	}
+
+	@Test
+	public void testReactiveMessageHandlerViaConsumerEndpointFactoryBean() throws Exception {
+		FluxMessageChannel testChannel = new FluxMessageChannel();
+
+		List<Object> handled = new ArrayList<>();
+		ReactiveMessageHandler reactiveMessageHandler = m -> Mono.fromRunnable(() -> handled.add(m.getPayload()));
+
+		ConsumerEndpointFactoryBean endpointFactoryBean = new ConsumerEndpointFactoryBean();
+		endpointFactoryBean.setBeanFactory(mock(ConfigurableBeanFactory.class));
+		endpointFactoryBean.setInputChannel(testChannel);
+		endpointFactoryBean.setHandler(new ReactiveMessageHandlerAdapter(reactiveMessageHandler));
+		endpointFactoryBean.setBeanName("reactiveConsumer");
+		endpointFactoryBean.afterPropertiesSet();
+		endpointFactoryBean.start();
+
+		assertThat(endpointFactoryBean.getObject(), instanceOf(ReactiveStreamsConsumer.class));
+
+		testChannel.send(new GenericMessage<>("foo"));
+		testChannel.send(new GenericMessage<>("bar"));
+
+		assertEquals(2, handled.size());
+		assertThat(handled, contains("foo", "bar"));
+
+		endpointFactoryBean.stop();
+	}
+
 }
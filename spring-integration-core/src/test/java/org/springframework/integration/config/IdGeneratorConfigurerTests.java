@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,24 @@
 
 package org.springframework.integration.config;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
@@ -30,8 +41,11 @@ import org.junit.Test;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
 import org.springframework.integration.support.IdGenerators.JdkIdGenerator;
 import org.springframework.integration.support.IdGenerators.SimpleIncrementingIdGenerator;
+import org.springframework.integration.support.IdGenerators.ThreadLocalIdGenerator;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.IdGenerator;
@@ -204,6 +218,55 @@ public class IdGeneratorConfigurerTests {
 		context.close();
 	}
 
+	@Test
+	public void testThreadLocalFromProperties() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(IntegrationProperties.ID_GENERATOR,
+				"org.springframework.integration.support.IdGenerators.ThreadLocalIdGenerator");
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBeanDefinition("bfpp", new RootBeanDefinition(DefaultConfiguringBeanFactoryPostProcessor.class));
+		context.getBeanFactory()
+				.registerSingleton(IntegrationContextUtils.INTEGRATION_GLOBAL_PROPERTIES_BEAN_NAME, properties);
+		context.refresh();
+		Object idGenerator = TestUtils.getPropertyValue(new MessageHeaders(null), "idGenerator");
+		assertThat(idGenerator, instanceOf(ThreadLocalIdGenerator.class));
+
+		Set<UUID> ids = ConcurrentHashMap.newKeySet();
+		Set<Long> topBits = ConcurrentHashMap.newKeySet();
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(exec.submit(() -> {
+				UUID first = new MessageHeaders(null).getId();
+				ids.add(first);
+				topBits.add(first.getMostSignificantBits());
+				for (int j = 1; j < 10000; j++) {
+					UUID id = new MessageHeaders(null).getId();
+					assertEquals(first.getMostSignificantBits(), id.getMostSignificantBits());
+					assertEquals(first.getLeastSignificantBits() + j, id.getLeastSignificantBits());
+					ids.add(id);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		exec.shutdown();
+		assertEquals(40000, ids.size());
+		assertEquals(4, topBits.size());
+
+		@SuppressWarnings("unchecked")
+		ThreadLocal<long[]> bits = TestUtils.getPropertyValue(idGenerator, "bits", ThreadLocal.class);
+		UUID id = ((IdGenerator) idGenerator).generateId();
+		bits.get()[1] = -1;
+		UUID wrapped = ((IdGenerator) idGenerator).generateId();
+		assertEquals(0, wrapped.getLeastSignificantBits());
+		assertNotEquals(id.getMostSignificantBits(), wrapped.getMostSignificantBits());
+
+		context.close();
+		assertNull(TestUtils.getPropertyValue(new MessageHeaders(null), "idGenerator"));
+	}
+
 	public static class MyIdGenerator implements IdGenerator {
 
 		@Override
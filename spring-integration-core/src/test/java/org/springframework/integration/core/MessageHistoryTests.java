@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,21 +18,29 @@ package org.springframework.integration.core;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import org.junit.Test;
 
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.integration.history.MessageHistory;
+import org.springframework.integration.history.MessageHistoryConfigurer;
 import org.springframework.integration.message.AdviceMessage;
+import org.springframework.integration.support.DefaultMessageBuilderFactory;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.MutableMessage;
 import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.integration.support.management.TrackableComponent;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
@@ -58,6 +66,67 @@ public class MessageHistoryTests {
 		assertEquals("testComponent-1,testComponent-2", history2.toString());
 	}
 
+	@Test
+	public void sharedTailAppend() {
+		Message<String> message = new GenericMessage<>("foo");
+		List<MessageHistory> histories = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			message = MessageHistory.write(message, new TestComponent(i));
+			histories.add(MessageHistory.read(message));
+		}
+		for (int i = 0; i < 50; i++) {
+			MessageHistory history = histories.get(i);
+			assertEquals(i + 1, history.size());
+			assertEquals("testComponent-" + i, history.get(i).getProperty(MessageHistory.NAME_PROPERTY));
+			assertEquals("testComponent-0", history.get(0).getProperty(MessageHistory.NAME_PROPERTY));
+		}
+		Message<String> branch = MessageHistory.write(MessageBuilder.fromMessage(message).build(), new TestComponent(99));
+		assertEquals(51, MessageHistory.read(branch).size());
+		assertEquals(50, MessageHistory.read(message).size());
+		assertEquals("testComponent-99", MessageHistory.read(branch).get(50).getProperty(MessageHistory.NAME_PROPERTY));
+		assertEquals("testComponent-49", MessageHistory.read(message).get(49).getProperty(MessageHistory.NAME_PROPERTY));
+	}
+
+	@Test
+	public void sampling() {
+		DefaultMessageBuilderFactory messageBuilderFactory = new DefaultMessageBuilderFactory();
+		int tracked = 0;
+		for (int i = 0; i < 1000; i++) {
+			Message<String> message = MessageHistory.write(new GenericMessage<>("foo"), new TestComponent(1),
+					messageBuilderFactory, 10);
+			message = MessageHistory.write(message, new TestComponent(2), messageBuilderFactory, 0);
+			MessageHistory history = MessageHistory.read(message);
+			if (history != null) {
+				assertEquals("testComponent-1,testComponent-2", history.toString());
+				tracked++;
+			}
+		}
+		assertTrue("Unexpected tracked count: " + tracked, tracked > 20 && tracked < 250);
+		assertNull(MessageHistory.read(
+				MessageHistory.write(new GenericMessage<>("foo"), new TestComponent(1), messageBuilderFactory, 0)));
+		assertEquals(1, MessageHistory.read(
+				MessageHistory.write(new GenericMessage<>("foo"), new TestComponent(1))).size());
+	}
+
+	@Test
+	public void samplingRateIsPassedToTrackedComponents() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		TestTrackableComponent component = new TestTrackableComponent();
+		beanFactory.registerSingleton("component", component);
+		MessageHistoryConfigurer configurer = new MessageHistoryConfigurer();
+		configurer.setBeanFactory(beanFactory);
+		configurer.setSamplingRate(10);
+		assertEquals(1, component.samplingRate);
+		configurer.start();
+		assertTrue(component.shouldTrack);
+		assertEquals(10, component.samplingRate);
+		configurer.setSamplingRate(5);
+		assertEquals(5, component.samplingRate);
+		configurer.stop();
+		assertFalse(component.shouldTrack);
+		assertEquals(1, component.samplingRate);
+	}
+
 	@Test(expected = UnsupportedOperationException.class)
 	public void verifyImmutability() {
 		Message<?> message = MessageHistory.write(MessageBuilder.withPayload("test").build(), new TestComponent(1));
@@ -129,6 +198,34 @@ public class MessageHistoryTests {
 	}
 
 
+	private static class TestTrackableComponent implements TrackableComponent {
+
+		private boolean shouldTrack;
+
+		private int samplingRate = 1;
+
+		@Override
+		public String getComponentName() {
+			return "trackableComponent";
+		}
+
+		@Override
+		public String getComponentType() {
+			return "trackable";
+		}
+
+		@Override
+		public void setShouldTrack(boolean shouldTrack) {
+			this.shouldTrack = shouldTrack;
+		}
+
+		@Override
+		public void setHistorySamplingRate(int samplingRate) {
+			this.samplingRate = samplingRate;
+		}
+
+	}
+
 	private static class TestComponent implements NamedComponent {
 
 		private final int id;
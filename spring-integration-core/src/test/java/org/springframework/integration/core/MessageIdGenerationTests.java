@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,10 @@ import static org.mockito.Mockito.verify;
 
 import java.lang.reflect.Field;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +35,7 @@ import org.mockito.Mockito;
 
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.integration.support.IdGenerators;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.GenericMessage;
@@ -175,6 +180,53 @@ public class MessageIdGenerationTests {
 		logger.info("Time-based ID generator is " + defaultGeneratorElapsedTime / timebasedGeneratorElapsedTime + " times faster");
 	}
 
+	@Test
+	@Ignore
+	public void concurrentPerformanceTest() throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int times = 1000000;
+		Field idGeneratorField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
+		ReflectionUtils.makeAccessible(idGeneratorField);
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		try {
+			double defaultGeneratorElapsedTime = generateConcurrently(exec, threads, times);
+			ReflectionUtils.setField(idGeneratorField, null, new IdGenerators.SimpleIncrementingIdGenerator());
+			double incrementingGeneratorElapsedTime = generateConcurrently(exec, threads, times);
+			ReflectionUtils.setField(idGeneratorField, null, new IdGenerators.ThreadLocalIdGenerator());
+			double threadLocalGeneratorElapsedTime = generateConcurrently(exec, threads, times);
+
+			logger.info("Generated " + times + " messages on each of " + threads + " threads using default UUID generator " +
+					"in " + defaultGeneratorElapsedTime + " seconds");
+			logger.info("Generated " + times + " messages on each of " + threads + " threads using incrementing UUID generator " +
+					"in " + incrementingGeneratorElapsedTime + " seconds");
+			logger.info("Generated " + times + " messages on each of " + threads + " threads using thread-local UUID generator " +
+					"in " + threadLocalGeneratorElapsedTime + " seconds");
+
+			logger.info("Thread-local ID generator is " + defaultGeneratorElapsedTime / threadLocalGeneratorElapsedTime + " times faster");
+		}
+		finally {
+			ReflectionUtils.setField(idGeneratorField, null, null);
+			exec.shutdown();
+		}
+	}
+
+	private static double generateConcurrently(ExecutorService exec, int threads, int times) throws Exception {
+		CountDownLatch latch = new CountDownLatch(threads);
+		StopWatch watch = new StopWatch();
+		watch.start();
+		for (int i = 0; i < threads; i++) {
+			exec.execute(() -> {
+				for (int j = 0; j < times; j++) {
+					new GenericMessage<Integer>(0);
+				}
+				latch.countDown();
+			});
+		}
+		latch.await(10, TimeUnit.MINUTES);
+		watch.stop();
+		return watch.getTotalTimeSeconds();
+	}
+
 	private void assertDestroy() throws Exception {
 		Field idGenField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
 		ReflectionUtils.makeAccessible(idGenField);
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.dsl.flows;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.FixedSubscriberChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.channel.interceptor.GlobalChannelInterceptorWrapper;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.StandardIntegrationFlow;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.PollableChannel;
+import org.springframework.messaging.support.ChannelInterceptorAdapter;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+@RunWith(SpringRunner.class)
+@DirtiesContext
+public class FusedIntegrationFlowTests {
+
+	@Autowired
+	@Qualifier("fusedFlow")
+	private IntegrationFlow fusedFlow;
+
+	@Autowired
+	@Qualifier("fusedFlow.input")
+	private MessageChannel fusedFlowInput;
+
+	@Autowired
+	@Qualifier("fusedResults")
+	private PollableChannel fusedResults;
+
+	@Autowired
+	@Qualifier("tappedFlow")
+	private IntegrationFlow tappedFlow;
+
+	@Autowired
+	@Qualifier("tappedFlow.input")
+	private MessageChannel tappedFlowInput;
+
+	@Autowired
+	@Qualifier("tappedResults")
+	private PollableChannel tappedResults;
+
+	@Autowired
+	@Qualifier("tapChannel")
+	private PollableChannel tapChannel;
+
+	@Test
+	public void testFusedFlow() {
+		assertEquals(3, countComponents(this.fusedFlow, FixedSubscriberChannel.class));
+		assertEquals(1, countComponents(this.fusedFlow, DirectChannel.class));
+
+		this.fusedFlowInput.send(new GenericMessage<>("foo"));
+		Message<?> result = this.fusedResults.receive(10000);
+		assertNotNull(result);
+		assertEquals("FOObar", result.getPayload());
+
+		this.fusedFlowInput.send(new GenericMessage<>("skip"));
+		assertNull(this.fusedResults.receive(0));
+
+		try {
+			this.fusedFlowInput.send(new GenericMessage<>("fail"));
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getMostSpecificCause(), instanceOf(IllegalStateException.class));
+			assertEquals("FAIL", e.getFailedMessage().getPayload());
+			assertEquals("bar", e.getFailedMessage().getHeaders().get("foo"));
+		}
+	}
+
+	@Autowired
+	@Qualifier("lifecycleFlow")
+	private IntegrationFlow lifecycleFlow;
+
+	@Autowired
+	@Qualifier("interceptedFlow")
+	private IntegrationFlow interceptedFlow;
+
+	@Autowired
+	@Qualifier("interceptedFlow.input")
+	private MessageChannel interceptedFlowInput;
+
+	@Autowired
+	@Qualifier("interceptedResults")
+	private PollableChannel interceptedResults;
+
+	@Autowired
+	private AtomicInteger intercepted;
+
+	@Test
+	public void testEndpointsWithOwnLifecycleAreNotFused() {
+		// the channels in front of the endpoints with a role and with autoStartup(false) are kept
+		assertEquals(1, countComponents(this.lifecycleFlow, FixedSubscriberChannel.class));
+		assertEquals(3, countComponents(this.lifecycleFlow, DirectChannel.class));
+	}
+
+	@Test
+	public void testGloballyInterceptedChannelIsNotFused() {
+		assertEquals(1, countComponents(this.interceptedFlow, FixedSubscriberChannel.class));
+
+		this.interceptedFlowInput.send(new GenericMessage<>("foo"));
+		Message<?> result = this.interceptedResults.receive(10000);
+		assertNotNull(result);
+		assertEquals("FOO!?", result.getPayload());
+		assertEquals(1, this.intercepted.get());
+	}
+
+	@Test
+	public void testTappedChannelIsNotFused() {
+		assertEquals(0, countComponents(this.tappedFlow, FixedSubscriberChannel.class));
+
+		this.tappedFlowInput.send(new GenericMessage<>("foo"));
+		Message<?> result = this.tappedResults.receive(10000);
+		assertNotNull(result);
+		assertEquals("FOO!", result.getPayload());
+		result = this.tapChannel.receive(10000);
+		assertNotNull(result);
+		assertEquals("FOO", result.getPayload());
+	}
+
+	private static long countComponents(IntegrationFlow flow, Class<?> type) {
+		return ((StandardIntegrationFlow) flow).getIntegrationComponents()
+				.keySet()
+				.stream()
+				.filter(type::isInstance)
+				.count();
+	}
+
+	@Configuration
+	@EnableIntegration
+	public static class ContextConfiguration {
+
+		@Bean(name = IntegrationContextUtils.INTEGRATION_GLOBAL_PROPERTIES_BEAN_NAME)
+		public static Properties integrationProperties() {
+			Properties properties = new Properties();
+			properties.setProperty(IntegrationProperties.FLOWS_FUSE_ENDPOINTS, "true");
+			return properties;
+		}
+
+		@Bean
+		public IntegrationFlow fusedFlow() {
+			return f -> f
+					.filter(String.class, p -> !p.startsWith("skip"))
+					.<String, String>transform(String::toUpperCase)
+					.enrichHeaders(h -> h.header("foo", "bar"))
+					.<String>handle((p, h) -> {
+						if ("FAIL".equals(p)) {
+							throw new IllegalStateException("intentional");
+						}
+						return p + h.get("foo");
+					})
+					.channel(c -> c.queue("fusedResults"));
+		}
+
+		@Bean
+		public PollableChannel tapChannel() {
+			return new QueueChannel();
+		}
+
+		@Bean
+		public IntegrationFlow tappedFlow() {
+			return f -> f
+					.<String, String>transform(String::toUpperCase)
+					.wireTap("tapChannel")
+					.<String, String>transform(p -> p + "!")
+					.channel(c -> c.queue("tappedResults"));
+		}
+
+		@Bean
+		public IntegrationFlow lifecycleFlow() {
+			return f -> f
+					.<String, String>transform(String::toUpperCase)
+					.<String, String>transform(p -> p + "!", e -> e.role("lifecycleRole"))
+					.<String, String>transform(p -> p + "?", e -> e.autoStartup(false))
+					.<String, String>transform(String::toLowerCase)
+					.channel(c -> c.queue("lifecycleResults"));
+		}
+
+		@Bean
+		public AtomicInteger intercepted() {
+			return new AtomicInteger();
+		}
+
+		@Bean
+		public GlobalChannelInterceptorWrapper globalChannelInterceptor() {
+			GlobalChannelInterceptorWrapper interceptor = new GlobalChannelInterceptorWrapper(new ChannelInterceptorAdapter() {
+
+				@Override
+				public Message<?> preSend(Message<?> message, MessageChannel channel) {
+					intercepted().incrementAndGet();
+					return message;
+				}
+
+			});
+			interceptor.setPatterns(new String[] { "interceptedFlow.channel#0" });
+			return interceptor;
+		}
+
+		@Bean
+		public IntegrationFlow interceptedFlow() {
+			return f -> f
+					.<String, String>transform(String::toUpperCase)
+					.<String, String>transform(p -> p + "!")
+					.<String, String>transform(p -> p + "?")
+					.channel(c -> c.queue("interceptedResults"));
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,19 +17,25 @@
 package org.springframework.integration.endpoint;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.FluxMessageChannel;
 import org.springframework.integration.channel.PublishSubscribeChannel;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.handler.ServiceActivatingHandler;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.integration.test.util.TestUtils.TestApplicationContext;
@@ -38,6 +44,9 @@ import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
 
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
 /**
  * @author Oleg Zhurakousky
  * @author Mark Fisher
@@ -190,4 +199,45 @@ public class MessageProducerSupportTests {
 
 	}
 
+	@Test
+	public void testReactiveMessageSourceProducerReceivesOnItsOwnThread() {
+		AtomicReference<String> receiveThread = new AtomicReference<>();
+		QueueChannel outChannel = new QueueChannel(10);
+		ReactiveMessageSourceProducer producer = new ReactiveMessageSourceProducer(() -> {
+			receiveThread.set(Thread.currentThread().getName());
+			return new GenericMessage<>("foo");
+		});
+		producer.setOutputChannel(outChannel);
+		producer.setBeanFactory(TestUtils.createTestApplicationContext());
+		producer.afterPropertiesSet();
+		// An endless source must not hold the starting thread
+		producer.start();
+
+		assertNotNull(outChannel.receive(10000));
+		producer.stop();
+
+		assertThat(receiveThread.get(), startsWith("reactive-message-source-producer-"));
+	}
+
+	@Test
+	public void testReactiveMessageSourceProducerReceivesOnDemand() {
+		AtomicInteger receives = new AtomicInteger();
+		FluxMessageChannel outChannel = new FluxMessageChannel();
+		ReactiveMessageSourceProducer producer =
+				new ReactiveMessageSourceProducer(() -> new GenericMessage<>(receives.incrementAndGet()));
+		producer.setOutputChannel(outChannel);
+		producer.setBeanFactory(TestUtils.createTestApplicationContext());
+		producer.afterPropertiesSet();
+		producer.start();
+
+		StepVerifier.create(Flux.from(outChannel).map(Message::getPayload), 3)
+				.expectNext(1, 2, 3)
+				.thenCancel()
+				.verify();
+
+		producer.stop();
+
+		assertThat(receives.get(), lessThan(1000));
+	}
+
 }
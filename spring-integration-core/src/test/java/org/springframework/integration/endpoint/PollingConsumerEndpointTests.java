@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.integration.endpoint;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -32,7 +33,9 @@ import org.mockito.Mockito;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.MessageRejectedException;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.support.MessagingExceptionWrapper;
+import org.springframework.integration.transaction.PseudoTransactionManager;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.PollableChannel;
@@ -40,6 +43,8 @@ import org.springframework.messaging.support.GenericMessage;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.TriggerContext;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.interceptor.MatchAlwaysTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -173,6 +178,56 @@ public class PollingConsumerEndpointTests {
 		assertEquals(1, consumer.counter.get());
 	}
 
+	@Test(expected = MessageRejectedException.class)
+	public void batchReceive() throws Throwable {
+		QueueChannel channel = new QueueChannel();
+		for (int i = 0; i < 7; i++) {
+			channel.send(i == 1 ? badMessage : message);
+		}
+		PollingConsumer batchEndpoint = new PollingConsumer(channel, consumer);
+		batchEndpoint.setErrorHandler(errorHandler);
+		batchEndpoint.setTaskScheduler(taskScheduler);
+		batchEndpoint.setTrigger(trigger);
+		batchEndpoint.setBeanFactory(mock(BeanFactory.class));
+		batchEndpoint.setReceiveTimeout(0);
+		batchEndpoint.setReceiveBatchSize(3);
+		batchEndpoint.setMaxMessagesPerPoll(2);
+		batchEndpoint.afterPropertiesSet();
+		batchEndpoint.start();
+		trigger.await();
+		batchEndpoint.stop();
+		// the failure ends the poll after the first batch
+		assertEquals(3, consumer.counter.get());
+		assertEquals(4, channel.getQueueSize());
+		errorHandler.throwLastErrorIfAvailable();
+	}
+
+	@Test(expected = MessageRejectedException.class)
+	public void batchReceiveIsDisabledInTransaction() throws Throwable {
+		QueueChannel channel = new QueueChannel();
+		for (int i = 0; i < 7; i++) {
+			channel.send(i == 1 ? badMessage : message);
+		}
+		PollingConsumer batchEndpoint = new PollingConsumer(channel, consumer);
+		batchEndpoint.setErrorHandler(errorHandler);
+		batchEndpoint.setTaskScheduler(taskScheduler);
+		batchEndpoint.setTrigger(trigger);
+		batchEndpoint.setBeanFactory(mock(BeanFactory.class));
+		batchEndpoint.setReceiveTimeout(0);
+		batchEndpoint.setReceiveBatchSize(3);
+		batchEndpoint.setMaxMessagesPerPoll(2);
+		batchEndpoint.setAdviceChain(Collections.singletonList(
+				new TransactionInterceptor(new PseudoTransactionManager(),
+						new MatchAlwaysTransactionAttributeSource())));
+		batchEndpoint.afterPropertiesSet();
+		batchEndpoint.start();
+		trigger.await();
+		batchEndpoint.stop();
+		// no message of a batch is lost when the poll fails
+		assertEquals(7, consumer.counter.get() + channel.getQueueSize());
+		assertEquals(2, consumer.counter.get());
+		errorHandler.throwLastErrorIfAvailable();
+	}
 
 	private static class TestConsumer implements MessageHandler {
 
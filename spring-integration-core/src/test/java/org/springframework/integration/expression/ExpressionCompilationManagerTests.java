@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.context.IntegrationProperties;
+import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
+import org.springframework.integration.test.util.TestUtils;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class ExpressionCompilationManagerTests {
+
+	private final SpelExpressionParser parser = new SpelExpressionParser();
+
+	private final StandardEvaluationContext context = new StandardEvaluationContext();
+
+	@Test
+	public void testCompiledAfterWarmUp() {
+		ExpressionCompilationManager manager =
+				new ExpressionCompilationManager(ExpressionCompilationManager.parseCompilerMode("mixed"));
+		assertSame(SpelCompilerMode.MIXED, manager.getCompilerMode());
+		Expression expression = this.parser.parseExpression("length()");
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+		for (int i = 0; i < ExpressionCompilationManager.WARM_UP_EVALUATIONS - 1; i++) {
+			assertEquals(Integer.valueOf(3), evaluate(manager, expression, "foo"));
+		}
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+		assertNull(TestUtils.getPropertyValue(expression, "compiledAst"));
+		evaluate(manager, expression, "foo");
+		assertTrue(ExpressionCompilationManager.isCompiled(expression));
+		assertNotNull(TestUtils.getPropertyValue(expression, "compiledAst"));
+		assertEquals(Integer.valueOf(6), evaluate(manager, expression, "foobar"));
+	}
+
+	@Test
+	public void testFallbackOnTypeMismatch() {
+		ExpressionCompilationManager manager = new ExpressionCompilationManager(SpelCompilerMode.IMMEDIATE);
+		Expression expression = this.parser.parseExpression("length()");
+		evaluate(manager, expression, "foo");
+		assertTrue(ExpressionCompilationManager.isCompiled(expression));
+		assertEquals(Integer.valueOf(4), evaluate(manager, expression, new StringBuilder("quux")));
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+		assertNull(TestUtils.getPropertyValue(expression, "compiledAst"));
+		evaluate(manager, expression, "foo");
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+	}
+
+	@Test
+	public void testNotCompilable() {
+		ExpressionCompilationManager manager = new ExpressionCompilationManager(SpelCompilerMode.IMMEDIATE);
+		Expression expression = this.parser.parseExpression("{1, 2, 3}.?[#this > 1].size()");
+		assertEquals(2, evaluate(manager, expression, "foo"));
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+	}
+
+	@Test
+	public void testUserExceptionNotRepeated() {
+		ExpressionCompilationManager manager = new ExpressionCompilationManager(SpelCompilerMode.IMMEDIATE);
+		Expression expression = this.parser.parseExpression("process()");
+		Service service = new Service();
+		evaluate(manager, expression, service);
+		assertTrue(ExpressionCompilationManager.isCompiled(expression));
+		service.fail = true;
+		try {
+			evaluate(manager, expression, service);
+			fail("SpelEvaluationException expected");
+		}
+		catch (SpelEvaluationException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(2, service.invocations);
+		assertTrue(ExpressionCompilationManager.isCompiled(expression));
+	}
+
+	@Test
+	public void testOffAndExcluded() {
+		Expression expression = this.parser.parseExpression("length()");
+		ExpressionCompilationManager manager =
+				new ExpressionCompilationManager(ExpressionCompilationManager.parseCompilerMode(""));
+		assertSame(SpelCompilerMode.OFF, manager.getCompilerMode());
+		evaluate(manager, expression, "foo");
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+		manager.setCompilerMode(SpelCompilerMode.IMMEDIATE);
+		manager.exclude(expression);
+		evaluate(manager, expression, "foo");
+		evaluate(manager, expression, "foo");
+		assertFalse(ExpressionCompilationManager.isCompiled(expression));
+		assertNull(TestUtils.getPropertyValue(expression, "compiledAst"));
+		// the exclusion belongs to the manager which has been told about it
+		evaluate(new ExpressionCompilationManager(SpelCompilerMode.IMMEDIATE), expression, "foo");
+		assertTrue(ExpressionCompilationManager.isCompiled(expression));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCompilerMode() {
+		ExpressionCompilationManager.parseCompilerMode("always");
+	}
+
+	@Test
+	public void testInvalidCompilerModeFailsOnConfiguration() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		Properties properties = new Properties();
+		properties.setProperty(IntegrationProperties.EXPRESSIONS_COMPILER_MODE, "always");
+		beanFactory.registerSingleton(IntegrationContextUtils.INTEGRATION_GLOBAL_PROPERTIES_BEAN_NAME, properties);
+		ExpressionEvaluatingMessageProcessor<Object> processor =
+				new ExpressionEvaluatingMessageProcessor<>(this.parser.parseExpression("payload"));
+		try {
+			processor.setBeanFactory(beanFactory);
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("[always]"));
+		}
+	}
+
+	private Object evaluate(ExpressionCompilationManager manager, Expression expression, Object root) {
+		return manager.getValue(expression, this.context, root, null);
+	}
+
+	public static class Service {
+
+		private int invocations;
+
+		private boolean fail;
+
+		public String process() {
+			this.invocations++;
+			if (this.fail) {
+				throw new IllegalStateException("fail");
+			}
+			return "ok";
+		}
+
+	}
+
+}
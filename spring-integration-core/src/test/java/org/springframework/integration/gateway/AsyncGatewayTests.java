@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,13 @@ package org.springframework.integration.gateway;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -40,6 +42,7 @@ import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.PollableChannel;
 import org.springframework.messaging.support.ChannelInterceptorAdapter;
 import org.springframework.messaging.support.MessageBuilder;
@@ -300,6 +303,77 @@ public class AsyncGatewayTests {
 		assertEquals("foobar", result.get());
 	}
 
+	@Test
+	public void completableFutureWithNonBlockingReplies() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		startResponder(requestChannel);
+		TestEchoService service = createNonBlockingService(requestChannel);
+		CompletableFuture<String> f = service.returnStringCompletable("foo");
+		assertEquals("foobar", f.get(10000, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void monoWithNonBlockingReplies() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		startResponder(requestChannel);
+		TestEchoService service = createNonBlockingService(requestChannel);
+		Mono<Message<?>> mono = service.returnMessagePromise("foo");
+		Message<?> result = mono.block(Duration.ofSeconds(10));
+		assertEquals("foobar", result.getPayload());
+	}
+
+	@Test
+	public void completableFutureWithNonBlockingRepliesTimeout() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultReplyTimeout(100L);
+		TestEchoService service = createNonBlockingService(requestChannel, proxyFactory);
+		CompletableFuture<String> f = service.returnStringCompletable("foo");
+		assertNull(f.get(10000, TimeUnit.MILLISECONDS));
+		assertNotNull(requestChannel.receive(0));
+	}
+
+	@Test
+	public void completableFutureWithNonBlockingRepliesError() throws Exception {
+		final MessagingException exception = new MessagingException("intentional");
+		DirectChannel channel = new DirectChannel() {
+
+			@Override
+			protected boolean doSend(Message<?> message, long timeout) {
+				throw exception;
+			}
+
+		};
+		TestEchoService service = createNonBlockingService(channel);
+		CompletableFuture<String> f = service.returnStringCompletable("foo");
+		try {
+			f.get(10000, TimeUnit.MILLISECONDS);
+			fail("Expected Exception");
+		}
+		catch (ExecutionException e) {
+			assertEquals(exception, e.getCause());
+		}
+	}
+
+	private static TestEchoService createNonBlockingService(MessageChannel requestChannel) throws Exception {
+		return createNonBlockingService(requestChannel, new GatewayProxyFactoryBean());
+	}
+
+	private static TestEchoService createNonBlockingService(MessageChannel requestChannel,
+			GatewayProxyFactoryBean proxyFactory) throws Exception {
+
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.setBeanFactory(mock(BeanFactory.class));
+		proxyFactory.setNonBlockingReplies(true);
+		proxyFactory.setAsyncExecutor(task -> {
+			throw new IllegalStateException("No executor hop expected with non-blocking replies");
+		});
+		proxyFactory.afterPropertiesSet();
+		return (TestEchoService) proxyFactory.getObject();
+	}
+
 	private static void startResponder(final PollableChannel requestChannel) {
 		new Thread(() -> {
 			Message<?> input = requestChannel.receive();
@@ -348,6 +422,8 @@ public class AsyncGatewayTests {
 
 		Mono<?> returnSomethingPromise(String s);
 
+		CompletableFuture<String> returnStringCompletable(String s);
+
 	}
 
 	private static class CustomFuture implements Future<String> {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,10 +25,18 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -48,6 +56,7 @@ import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.store.TimeIndexedMessageGroupStore;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
@@ -483,6 +492,106 @@ public class DelayHandlerTests {
 	}
 
 
+	@Test
+	public void testLookAheadWindow() throws Exception {
+		this.taskScheduler.setRemoveOnCancelPolicy(true);
+		TimeIndexedSimpleMessageStore messageStore = new TimeIndexedSimpleMessageStore();
+		this.delayHandler.setMessageStore(messageStore);
+		this.delayHandler.setLookAheadWindow(200);
+		this.setDelayExpression();
+		QueueChannel results = new QueueChannel();
+		this.delayHandler.setOutputChannel(results);
+		startDelayerHandler();
+
+		this.input.send(MessageBuilder.withPayload("later").setHeader("delay", 60000).build());
+		this.input.send(MessageBuilder.withPayload("soon").setHeader("delay", 500).build());
+		Message<?> message = results.receive(10000);
+		assertNotNull(message);
+		assertEquals("soon", message.getPayload());
+		assertEquals(1, this.delayHandler.getDelayedMessageCount());
+
+		this.delayHandler.destroy();
+		// The 'later' message is kept only in the store: nothing is scheduled for it
+		Queue<?> works = TestUtils.getPropertyValue(this.taskScheduler, "scheduledExecutor.workQueue", Queue.class);
+		assertEquals(0, works.size());
+	}
+
+	@Test
+	public void testNoTimeIndexWithoutLookAheadWindow() throws Exception {
+		TimeIndexedSimpleMessageStore messageStore = new TimeIndexedSimpleMessageStore();
+		this.delayHandler.setMessageStore(messageStore);
+		this.setDelayExpression();
+		startDelayerHandler();
+
+		this.input.send(MessageBuilder.withPayload("later").setHeader("delay", 60000).build());
+		assertEquals(1, this.delayHandler.getDelayedMessageCount());
+		assertTrue(messageStore.times.isEmpty());
+	}
+
+	@Test
+	public void testLookAheadWindowPicksUpLateCommittedMessage() throws Exception {
+		TimeIndexedSimpleMessageStore messageStore = new TimeIndexedSimpleMessageStore();
+		this.delayHandler.setMessageStore(messageStore);
+		this.delayHandler.setLookAheadWindow(200);
+		this.setDelayExpression();
+		QueueChannel results = new QueueChannel();
+		this.delayHandler.setOutputChannel(results);
+		startDelayerHandler();
+
+		int n = 0;
+		while (n++ < 1000
+				&& TestUtils.getPropertyValue(this.delayHandler, "scheduledUntil", Long.class) == Long.MIN_VALUE) {
+			Thread.sleep(10);
+		}
+		// Simulate a Message committed after the query of its window: its sender didn't schedule it
+		long now = System.currentTimeMillis();
+		Message<?> original = MessageBuilder.withPayload("late").setHeader("delay", 50).build();
+		Message<?> delayed = MessageBuilder.withPayload(new DelayHandler.DelayedMessageWrapper(original, now))
+				.copyHeaders(original.getHeaders())
+				.build();
+		messageStore.addMessageToGroup(TestUtils.getPropertyValue(this.delayHandler, "messageGroupId"), delayed,
+				now + 50);
+
+		Message<?> message = results.receive(10000);
+		assertNotNull(message);
+		assertEquals("late", message.getPayload());
+		assertNull(results.receive(500));
+		this.delayHandler.destroy();
+	}
+
+	@Test
+	public void testLookAheadWindowReadsOverdueMessagesInPages() throws Exception {
+		TimeIndexedSimpleMessageStore messageStore = new TimeIndexedSimpleMessageStore();
+		long now = System.currentTimeMillis();
+		Object groupId = TestUtils.getPropertyValue(this.delayHandler, "messageGroupId");
+		for (int i = 0; i < 30; i++) {
+			Message<?> original = MessageBuilder.withPayload(i).setHeader("delay", 50).build();
+			Message<?> delayed = MessageBuilder.withPayload(new DelayHandler.DelayedMessageWrapper(original,
+					// the first 6 messages share the same release time, more than a page
+					now - 10000 + (i < 6 ? 0 : i)))
+					.copyHeaders(original.getHeaders())
+					.build();
+			messageStore.addMessageToGroup(groupId, delayed, now - 10000 + (i < 6 ? 0 : i) + 50);
+		}
+		this.delayHandler.setMessageStore(messageStore);
+		this.delayHandler.setLookAheadWindow(200);
+		this.delayHandler.setLookAheadPageSize(4);
+		this.setDelayExpression();
+		QueueChannel results = new QueueChannel();
+		this.delayHandler.setOutputChannel(results);
+		startDelayerHandler();
+
+		Set<Object> payloads = new HashSet<>();
+		for (int i = 0; i < 30; i++) {
+			Message<?> message = results.receive(10000);
+			assertNotNull(message);
+			assertTrue(payloads.add(message.getPayload()));
+		}
+		assertNull(results.receive(500));
+		assertEquals(4, messageStore.largestPage.get());
+		this.delayHandler.destroy();
+	}
+
 	private void waitForLatch(long timeout) {
 		try {
 			this.latch.await(timeout, TimeUnit.MILLISECONDS);
@@ -515,6 +624,48 @@ public class DelayHandlerTests {
 	}
 
 
+	private static class TimeIndexedSimpleMessageStore extends SimpleMessageStore
+			implements TimeIndexedMessageGroupStore {
+
+		private final Map<Message<?>, Long> times = new ConcurrentHashMap<>();
+
+		private final AtomicInteger largestPage = new AtomicInteger();
+
+		TimeIndexedSimpleMessageStore() {
+			super();
+		}
+
+		@Override
+		public void addMessageToGroup(Object groupId, Message<?> message, long time) {
+			this.times.put(message, time);
+			addMessageToGroup(groupId, message);
+		}
+
+		@Override
+		public void removeMessagesFromGroup(Object groupId, Collection<Message<?>> messages) {
+			super.removeMessagesFromGroup(groupId, messages);
+			messages.forEach(this.times::remove);
+		}
+
+		@Override
+		public Collection<Message<?>> getMessagesForGroup(Object groupId, long fromTime, long toTime,
+				int maxMessages) {
+
+			List<Message<?>> messages = this.times.entrySet()
+					.stream()
+					.filter(e -> e.getValue() >= fromTime && e.getValue() < toTime)
+					.sorted(Map.Entry.comparingByValue())
+					.limit(maxMessages)
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toList());
+			if (maxMessages < Integer.MAX_VALUE) {
+				this.largestPage.accumulateAndGet(messages.size(), Math::max);
+			}
+			return messages;
+		}
+
+	}
+
 	@SuppressWarnings("serial")
 	private static class TestTimedOutException extends RuntimeException {
 
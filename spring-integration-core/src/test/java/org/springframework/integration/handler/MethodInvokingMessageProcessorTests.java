@@ -19,6 +19,7 @@ package org.springframework.integration.handler;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -71,8 +72,11 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.annotation.UseSpelInvoker;
 import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.gateway.GatewayProxyFactoryBean;
 import org.springframework.integration.gateway.RequestReplyExchanger;
+import org.springframework.integration.handler.support.HandlerMethodArgumentResolversHolder;
+import org.springframework.integration.handler.support.MapArgumentResolver;
 import org.springframework.integration.handler.support.MessagingMethodInvokerHelper;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
@@ -82,6 +86,7 @@ import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.StopWatch;
@@ -742,6 +747,8 @@ public class MethodInvokingMessageProcessorTests {
 		stopWatch.stop();
 
 		processor = new MethodInvokingMessageProcessor(service, method);
+		new DirectFieldAccessor(TestUtils.getPropertyValue(processor, "delegate"))
+				.setPropertyValue("methodHandleInvocation", false);
 
 		stopWatch.start("Invocable");
 		for (int i = 0; i < count; i++) {
@@ -749,6 +756,14 @@ public class MethodInvokingMessageProcessorTests {
 		}
 		stopWatch.stop();
 
+		processor = new MethodInvokingMessageProcessor(service, method);
+
+		stopWatch.start("MethodHandle");
+		for (int i = 0; i < count; i++) {
+			processor.processMessage(message);
+		}
+		stopWatch.stop();
+
 		DirectFieldAccessor compilerConfigAccessor = compileImmediate(processor);
 
 		processor = new MethodInvokingMessageProcessor(service, method);
@@ -765,6 +780,80 @@ public class MethodInvokingMessageProcessorTests {
 	}
 
 
+	@Test
+	public void testMethodHandleInvocation() {
+		class A {
+
+			@SuppressWarnings("unused")
+			public String myMethod(@Payload String payload, @Header("foo") int foo,
+					@Headers Map<String, Object> headers) {
+
+				return payload + foo + headers.get("bar");
+			}
+
+		}
+
+		MethodInvokingMessageProcessor processor = new MethodInvokingMessageProcessor(new A(), "myMethod");
+		assertNotNull(TestUtils.getPropertyValue(processor, "delegate.handlerMethod.methodHandleInvoker"));
+
+		assertEquals("foo1baz",
+				processor.processMessage(
+						MessageBuilder.withPayload("foo")
+								.setHeader("foo", 1)
+								.setHeader("bar", "baz")
+								.build()));
+
+		// conversions are left to the InvocableHandlerMethod
+		assertEquals("422null",
+				processor.processMessage(
+						MessageBuilder.withPayload(42)
+								.setHeader("foo", "2")
+								.build()));
+
+		try {
+			processor.processMessage(new GenericMessage<>("foo"));
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getMessage(), Matchers.containsString("Missing header 'foo'"));
+		}
+		assertEquals(0,
+				TestUtils.getPropertyValue(processor, "delegate.handlerMethod.failedAttempts"));
+	}
+
+	@Test
+	public void testMethodHandleInvocationOnlyWithKnownArgumentResolvers() {
+		class A {
+
+			@SuppressWarnings("unused")
+			public String myMethod(@Payload String payload, @Header("foo") int foo) {
+				return payload + foo;
+			}
+
+		}
+
+		AnnotationConfigApplicationContext applicationContext =
+				new AnnotationConfigApplicationContext(TestConfiguration.class);
+		Message<?> message = MessageBuilder.withPayload("foo").setHeader("foo", 1).build();
+
+		MethodInvokingMessageProcessor processor = new MethodInvokingMessageProcessor(new A(), "myMethod");
+		processor.setBeanFactory(applicationContext);
+		assertEquals("foo1", processor.processMessage(message));
+		assertTrue(TestUtils.getPropertyValue(processor, "delegate.methodHandleInvocation", Boolean.class));
+
+		// a subclass of a framework resolver may resolve parameters differently
+		applicationContext.getBean(IntegrationContextUtils.ARGUMENT_RESOLVERS_BEAN_NAME,
+				HandlerMethodArgumentResolversHolder.class)
+				.addResolver(new MapArgumentResolver() { });
+
+		processor = new MethodInvokingMessageProcessor(new A(), "myMethod");
+		processor.setBeanFactory(applicationContext);
+		assertEquals("foo1", processor.processMessage(message));
+		assertFalse(TestUtils.getPropertyValue(processor, "delegate.methodHandleInvocation", Boolean.class));
+
+		applicationContext.close();
+	}
+
 	@Test
 	public void testNoSpElFallbackWhenUserException() {
 		class A {
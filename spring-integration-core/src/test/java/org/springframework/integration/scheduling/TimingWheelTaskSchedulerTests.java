@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.handler.DelayHandler;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class TimingWheelTaskSchedulerTests {
+
+	private TimingWheelTaskScheduler scheduler;
+
+	@Before
+	public void setup() {
+		this.scheduler = new TimingWheelTaskScheduler();
+		this.scheduler.setBeanName("wheel");
+		this.scheduler.setWheelSize(8);
+	}
+
+	@After
+	public void tearDown() {
+		this.scheduler.destroy();
+	}
+
+	@Test
+	public void testOneTimeTasksRunInDeadlineOrder() throws Exception {
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch latch = new CountDownLatch(3);
+		long now = System.currentTimeMillis();
+		// beyond a revolution of the wheel (8 x 10ms)
+		this.scheduler.schedule(() -> {
+			order.add(3);
+			latch.countDown();
+		}, new Date(now + 300));
+		this.scheduler.schedule(() -> {
+			order.add(1);
+			latch.countDown();
+		}, new Date(now + 20));
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {
+			order.add(2);
+			latch.countDown();
+		}, new Date(now + 150));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals("[1, 2, 3]", order.toString());
+		assertTrue(future.isDone());
+		assertNull(future.get());
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<String> result = new AtomicReference<>();
+		ScheduledFuture<?> future =
+				this.scheduler.schedule(() -> result.set("canceled"), new Date(System.currentTimeMillis() + 50));
+		this.scheduler.schedule(latch::countDown, new Date(System.currentTimeMillis() + 100));
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertNull(result.get());
+	}
+
+	@Test
+	public void testErrorIsPropagatedToFuture() throws Exception {
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {
+			throw new IllegalStateException("test");
+		}, new Date());
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (Exception e) {
+			assertEquals("test", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testFixedRate() throws Exception {
+		CountDownLatch latch = new CountDownLatch(5);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(latch::countDown, 20);
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+	}
+
+	@Test
+	public void testRejectedAfterDestroy() {
+		this.scheduler.schedule(() -> { }, new Date());
+		this.scheduler.destroy();
+		try {
+			this.scheduler.schedule(() -> { }, new Date());
+			fail("TaskRejectedException expected");
+		}
+		catch (TaskRejectedException e) {
+			assertEquals("The scheduler [wheel] has been shut down", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDelayHandler() {
+		DelayHandler delayHandler = new DelayHandler("wheelDelayer", this.scheduler);
+		QueueChannel output = new QueueChannel();
+		delayHandler.setOutputChannel(output);
+		delayHandler.setDefaultDelay(50);
+		delayHandler.setBeanFactory(mock(BeanFactory.class));
+		delayHandler.afterPropertiesSet();
+		delayHandler.onApplicationEvent(new ContextRefreshedEvent(TestUtils.createTestApplicationContext()));
+		delayHandler.handleMessage(new GenericMessage<>("foo"));
+		assertNull(output.receive(0));
+		Message<?> received = output.receive(10000);
+		assertEquals("foo", received.getPayload());
+		assertEquals(0, delayHandler.getDelayedMessageCount());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,10 +23,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.junit.Test;
@@ -40,6 +48,7 @@ import org.springframework.integration.endpoint.EventDrivenConsumer;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.support.GenericMessage;
 
 import reactor.core.publisher.Flux;
@@ -227,4 +236,110 @@ public class DefaultSplitterTests {
 				.verifyComplete();
 	}
 
+
+	@Test
+	public void splitInParallelUnordered() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Set<Object> received = ConcurrentHashMap.newKeySet();
+			Set<String> threads = ConcurrentHashMap.newKeySet();
+			DirectChannel outputChannel = new DirectChannel();
+			outputChannel.subscribe(m -> {
+				threads.add(Thread.currentThread().getName());
+				received.add(m.getPayload());
+			});
+			DefaultMessageSplitter splitter = new DefaultMessageSplitter();
+			splitter.setOutputChannel(outputChannel);
+			splitter.setTaskExecutor(executor);
+			splitter.setMaxInFlight(8);
+			List<Integer> payload = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+			splitter.handleMessage(new GenericMessage<>(payload));
+
+			assertEquals(100, received.size());
+			assertTrue(received.containsAll(payload));
+			assertThat(threads.contains(Thread.currentThread().getName()), is(false));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void splitInParallelOrdered() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Integer> sequences = new CopyOnWriteArrayList<>();
+			DirectChannel outputChannel = new DirectChannel();
+			outputChannel.subscribe(m -> sequences.add(new IntegrationMessageHeaderAccessor(m).getSequenceNumber()));
+			DefaultMessageSplitter splitter = new DefaultMessageSplitter();
+			splitter.setOutputChannel(outputChannel);
+			splitter.setTaskExecutor(executor);
+			splitter.setMaxInFlight(3);
+			splitter.setOrdered(true);
+
+			splitter.handleMessage(new GenericMessage<>(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+
+			assertEquals(IntStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()), sequences);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void splitInParallelRethrowsFailure() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			DirectChannel outputChannel = new DirectChannel();
+			outputChannel.subscribe(m -> {
+				if (m.getPayload().equals(5)) {
+					throw new IllegalStateException("planned");
+				}
+			});
+			DefaultMessageSplitter splitter = new DefaultMessageSplitter();
+			splitter.setOutputChannel(outputChannel);
+			splitter.setTaskExecutor(executor);
+			splitter.setOrdered(true);
+			try {
+				splitter.handleMessage(new GenericMessage<>(IntStream.range(0, 10).boxed().collect(Collectors.toList())));
+				fail("MessagingException expected");
+			}
+			catch (MessagingException e) {
+				assertThat(e.getCause().getMessage(), is("planned"));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void splitInParallelOrderedRethrowsError() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			DirectChannel outputChannel = new DirectChannel();
+			outputChannel.subscribe(m -> {
+				if (m.getPayload().equals(5)) {
+					throw new StackOverflowError("planned");
+				}
+			});
+			DefaultMessageSplitter splitter = new DefaultMessageSplitter();
+			splitter.setOutputChannel(outputChannel);
+			splitter.setTaskExecutor(executor);
+			splitter.setMaxInFlight(2);
+			splitter.setOrdered(true);
+			try {
+				splitter.handleMessage(new GenericMessage<>(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+				fail("StackOverflowError expected");
+			}
+			catch (StackOverflowError e) {
+				assertThat(e.getMessage(), is("planned"));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 }
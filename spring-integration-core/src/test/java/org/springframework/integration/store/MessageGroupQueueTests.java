@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,7 +21,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
@@ -52,6 +54,22 @@ public class MessageGroupQueueTests {
 		assertNotNull(result);
 	}
 
+	@Test
+	public void testDrainToWithMaxElements() throws Exception {
+		MessageGroupQueue queue = new MessageGroupQueue(new SimpleMessageStore(), "FOO");
+		for (int i = 0; i < 5; i++) {
+			queue.put(new GenericMessage<>(i));
+		}
+		List<Message<?>> drained = new ArrayList<>();
+		assertEquals(3, queue.drainTo(drained, 3));
+		assertEquals(0, drained.get(0).getPayload());
+		assertEquals(2, drained.get(2).getPayload());
+		assertEquals(2, queue.size());
+		assertEquals(2, queue.drainTo(drained, 3));
+		assertEquals(4, drained.get(4).getPayload());
+		assertEquals(0, queue.size());
+	}
+
 	@Test
 	public void testSize() throws Exception {
 		MessageGroupQueue queue = new MessageGroupQueue(new SimpleMessageStore(), "FOO");
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class OffHeapMessageStoreTests {
+
+	@Rule
+	public final TemporaryFolder spillFolder = new TemporaryFolder();
+
+	@Test
+	public void testMessageRoundTrip() {
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		Message<String> message = MessageBuilder.withPayload("foo").setHeader("bar", 42).build();
+		store.addMessage(message);
+		Message<?> retrieved = store.getMessage(message.getHeaders().getId());
+		assertNotNull(retrieved);
+		assertEquals("foo", retrieved.getPayload());
+		assertEquals(42, retrieved.getHeaders().get("bar"));
+		assertEquals(message.getHeaders().getId(), retrieved.getHeaders().getId());
+		assertEquals(message.getHeaders().getTimestamp(), retrieved.getHeaders().getTimestamp());
+		assertNotNull(store.getMessageMetadata(message.getHeaders().getId()));
+		assertEquals(1, store.getMessageCount());
+
+		assertEquals("foo", store.removeMessage(message.getHeaders().getId()).getPayload());
+		assertNull(store.getMessage(message.getHeaders().getId()));
+		assertEquals(0, store.getMessageCount());
+		store.destroy();
+	}
+
+	@Test
+	public void testMessageGroupOperations() {
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		Message<?> messageA = new GenericMessage<>("A");
+		Message<?> messageB = new GenericMessage<>("B");
+		Message<?> messageC = new GenericMessage<>("C");
+		store.addMessagesToGroup("foo", messageA, messageB);
+		store.addMessagesToGroup("foo", messageB, messageC);
+		assertEquals(3, store.messageGroupSize("foo"));
+		assertEquals(1, store.getMessageGroupCount());
+		assertEquals("A", store.getOneMessageFromGroup("foo").getPayload());
+
+		MessageGroup group = store.getMessageGroup("foo");
+		List<Object> payloads = new ArrayList<>();
+		for (Message<?> message : group.getMessages()) {
+			payloads.add(message.getPayload());
+		}
+		assertEquals(Arrays.asList("A", "B", "C"), payloads);
+
+		assertEquals("A", store.pollMessageFromGroup("foo").getPayload());
+		store.completeGroupAndRemoveMessages("foo", Collections.singletonList(messageB));
+		group = store.getMessageGroup("foo");
+		assertTrue(group.isComplete());
+		assertEquals(1, group.size());
+		assertEquals("C", group.getOne().getPayload());
+
+		store.removeMessageGroup("foo");
+		assertEquals(0, store.messageGroupSize("foo"));
+		assertEquals(0, store.getMessageCount());
+		assertEquals(0, store.getMessageGroupCount());
+		store.destroy();
+	}
+
+	@Test
+	public void testSegmentsReleased() {
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		store.setSegmentSize(16);
+		Message<?>[] messages = new Message<?>[10];
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = new GenericMessage<>("message" + i);
+		}
+		store.addMessagesToGroup("foo", messages);
+		long memoryInUse = store.getMemoryInUse();
+		assertTrue(memoryInUse > 0);
+		store.removeMessageGroup("foo");
+		assertTrue(store.getMemoryInUse() < memoryInUse);
+		store.destroy();
+		assertEquals(0, store.getMemoryInUse());
+	}
+
+	@Test
+	public void testSpillToDisk() throws Exception {
+		File spillDirectory = this.spillFolder.newFolder();
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		store.setMemoryBudget(0);
+		store.setSpillDirectory(spillDirectory);
+		Message<?> message = new GenericMessage<>("foo");
+		store.addMessagesToGroup("bar", message);
+		assertEquals(0, store.getMemoryInUse());
+		assertEquals(OffHeapMessageStore.DEFAULT_SEGMENT_SIZE, store.getSpillInUse());
+		assertEquals(1, spillDirectory.list().length);
+		assertEquals("foo", store.getMessage(message.getHeaders().getId()).getPayload());
+
+		store.destroy();
+		assertEquals(0, store.getSpillInUse());
+		assertEquals(0, spillDirectory.list().length);
+	}
+
+	@Test
+	public void testMemoryBudgetExhausted() {
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		store.setMemoryBudget(0);
+		try {
+			store.addMessagesToGroup("foo", new GenericMessage<>("foo"));
+			fail("MessageStoreException expected");
+		}
+		catch (MessageStoreException e) {
+			assertTrue(e.getMessage().contains("memory budget"));
+		}
+		assertEquals(0, store.getMessageCount());
+	}
+
+	@Test
+	public void testMessageGroupQueue() throws Exception {
+		OffHeapMessageStore store = new OffHeapMessageStore();
+		MessageGroupQueue queue = new MessageGroupQueue(store, "queue");
+		assertTrue(queue.offer(new GenericMessage<>("foo")));
+		assertTrue(queue.offer(new GenericMessage<>("bar")));
+		assertEquals(2, queue.size());
+		assertEquals("foo", queue.poll().getPayload());
+		assertEquals("bar", queue.take().getPayload());
+		assertFalse(queue.iterator().hasNext());
+		store.destroy();
+	}
+
+}
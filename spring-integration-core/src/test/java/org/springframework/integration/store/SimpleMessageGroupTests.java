@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2016 the original author or authors.
+ * Copyright 2009-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.integration.store;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.willReturn;
@@ -25,7 +27,9 @@ import static org.mockito.Mockito.mock;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +65,47 @@ public class SimpleMessageGroupTests {
 		this.sequenceAwareGroup = ctr.newInstance(this.group);
 	}
 
+	@Test
+	public void testSequenceIndex() {
+		Message<?> message1 = MessageBuilder.withPayload("1").setSequenceNumber(1).build();
+		Message<?> message2 = MessageBuilder.withPayload("2").setSequenceNumber(2).build();
+		Message<?> message3 = MessageBuilder.withPayload("3").setSequenceNumber(3).build();
+		Message<?> message5 = MessageBuilder.withPayload("5").setSequenceNumber(5).build();
+		assertEquals(-1, this.group.getLowestSequenceNumber());
+		this.group.add(message5);
+		this.group.add(message3);
+		this.group.add(message2);
+		assertEquals(2, this.group.getLowestSequenceNumber());
+		this.group.add(message1);
+		assertEquals(1, this.group.getLowestSequenceNumber());
+		assertEquals(Arrays.asList(message1, message2, message3), this.group.getContiguousSequence());
+		assertTrue(this.group.containsSequence(5));
+
+		this.group.remove(message1);
+		this.group.remove(message2);
+		assertEquals(3, this.group.getLowestSequenceNumber());
+		assertFalse(this.group.containsSequence(2));
+
+		Message<?> noSequence = MessageBuilder.withPayload("foo").build();
+		this.group.add(noSequence);
+		assertEquals(-1, this.group.getLowestSequenceNumber());
+		assertNull(this.group.getContiguousSequence());
+		this.group.remove(noSequence);
+		assertEquals(Collections.singletonList(message3), this.group.getContiguousSequence());
+
+		Message<?> farAway = MessageBuilder.withPayload("far").setSequenceNumber(1000000).build();
+		this.group.add(farAway);
+		assertTrue(this.group.containsSequence(1000000));
+		assertEquals(-1, this.group.getLowestSequenceNumber());
+		this.group.remove(farAway);
+		this.group.remove(message3);
+		assertEquals(5, this.group.getLowestSequenceNumber());
+
+		this.group.clear();
+		assertEquals(-1, this.group.getLowestSequenceNumber());
+		assertEquals(0, this.group.getContiguousSequence().size());
+	}
+
 	@Test
 	public void shouldFindSupersedingMessagesIfSequenceAware() throws Exception {
 		prepareForSequenceAwareMessageGroup();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 the original author or authors.
+ * Copyright 2017-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,28 @@
 package org.springframework.integration.support;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Test;
 
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
 
 /**
  * @author Gary Russell
@@ -47,4 +63,75 @@ public class MessageBuilderTests {
 		assertNull(message.getHeaders().get("qux"));
 	}
 
+	@Test
+	public void testPersistentHeaders() throws Exception {
+		DefaultMessageBuilderFactory factory = new DefaultMessageBuilderFactory();
+		factory.setPersistentHeaders(true);
+		MessageBuilder<String> builder = factory.withPayload("foo");
+		for (int i = 0; i < 40; i++) {
+			builder.setHeader("header" + i, i);
+		}
+		Message<String> message = builder.setCorrelationId("bar").build();
+		MessageHeaders headers = message.getHeaders();
+		assertThat(headers, instanceOf(PersistentMessageHeaders.class));
+		assertEquals(43, headers.size());
+		assertEquals(Integer.valueOf(7), headers.get("header7", Integer.class));
+		assertEquals("bar", new IntegrationMessageHeaderAccessor(message).getCorrelationId());
+
+		assertSame(message, factory.fromMessage(message).setHeader("header7", 7).build());
+
+		Message<String> derived = factory.fromMessage(message)
+				.setHeader("header7", "seven")
+				.removeHeaders("header1*")
+				.setSequenceNumber(3)
+				.build();
+		assertThat(derived.getHeaders(), instanceOf(PersistentMessageHeaders.class));
+		assertEquals("seven", derived.getHeaders().get("header7"));
+		assertFalse(derived.getHeaders().containsKey("header1"));
+		assertFalse(derived.getHeaders().containsKey("header15"));
+		assertEquals(33, derived.getHeaders().size());
+		assertEquals(3, new IntegrationMessageHeaderAccessor(derived).getSequenceNumber());
+		assertNotEquals(headers.getId(), derived.getHeaders().getId());
+		assertEquals(Integer.valueOf(7), headers.get("header7"));
+		assertEquals(43, headers.size());
+
+		try {
+			factory.fromMessage(message).setHeader(MessageHeaders.ID, "baz");
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("'id' header is read-only", e.getMessage());
+		}
+		try {
+			factory.fromMessage(message).setHeader(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER, "baz");
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("The 'sequenceNumber' header value must be a Number.", e.getMessage());
+		}
+
+		factory.setReadOnlyHeaders("header2");
+		Message<String> readOnly = factory.fromMessage(message).build();
+		assertNull(readOnly.getHeaders().get("header2"));
+		assertEquals(42, readOnly.getHeaders().size());
+
+		Message<?> errorMessage = factory.withPayload(new RuntimeException("error")).copyHeaders(headers).build();
+		assertThat(errorMessage, instanceOf(ErrorMessage.class));
+		assertEquals("bar", errorMessage.getHeaders().get(IntegrationMessageHeaderAccessor.CORRELATION_ID));
+
+		Map<String, Object> copy = new HashMap<>(headers);
+		assertEquals(copy, headers);
+		assertEquals(headers, new MutableMessageHeaders(copy));
+		assertEquals(copy.hashCode(), headers.hashCode());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject(message);
+		Message<?> deserialized = (Message<?>) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))
+				.readObject();
+		assertEquals(headers.getId(), deserialized.getHeaders().getId());
+		assertEquals(headers.getTimestamp(), deserialized.getHeaders().getTimestamp());
+		assertEquals(copy, deserialized.getHeaders());
+		assertEquals(headers, deserialized.getHeaders());
+	}
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.springframework.integration.codec.kryo.MessageCodec;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class PersistentHeaderMapTests {
+
+	@Test
+	public void testHashCollisions() {
+		// all these keys have the same String.hashCode()
+		String[] keys = { "AaAa", "AaBB", "BBAa", "BBBB" };
+		assertEquals(keys[0].hashCode(), keys[3].hashCode());
+		PersistentHeaderMap map = PersistentHeaderMap.EMPTY;
+		for (String key : keys) {
+			map = map.with(key, key.toLowerCase());
+		}
+		assertEquals(4, map.size());
+		for (String key : keys) {
+			assertEquals(key.toLowerCase(), map.get(key));
+		}
+		assertNull(map.get("AaAaAa"));
+
+		PersistentHeaderMap replaced = map.with("BBAa", "foo");
+		assertEquals(4, replaced.size());
+		assertEquals("foo", replaced.get("BBAa"));
+		assertEquals("bbaa", map.get("BBAa"));
+		assertSame(replaced, replaced.with("BBAa", "foo"));
+
+		PersistentHeaderMap removed = replaced.without("AaBB");
+		assertEquals(3, removed.size());
+		assertNull(removed.get("AaBB"));
+		assertEquals("aaaa", removed.get("AaAa"));
+		assertEquals("foo", removed.get("BBAa"));
+		assertEquals("bbbb", removed.get("BBBB"));
+		assertSame(removed, removed.without("AaBB"));
+
+		removed = removed.without("AaAa").without("BBBB").without("BBAa");
+		assertSame(PersistentHeaderMap.EMPTY, removed);
+		assertEquals(4, map.size());
+		assertEquals(toHashMap(keys), new HashMap<>(map));
+	}
+
+	@Test
+	public void testAddAndRemoveInAnyOrder() {
+		List<String> keys = new ArrayList<>();
+		Map<String, Object> expected = new HashMap<>();
+		PersistentHeaderMap map = PersistentHeaderMap.EMPTY;
+		for (int i = 0; i < 2000; i++) {
+			String key = "header" + i;
+			keys.add(key);
+			expected.put(key, i);
+			map = map.with(key, i);
+		}
+		PersistentHeaderMap full = map;
+		assertEquals(expected, full);
+		assertEquals(expected.hashCode(), full.hashCode());
+
+		Collections.shuffle(keys, new Random(42));
+		for (int i = 0; i < keys.size(); i++) {
+			String key = keys.get(i);
+			PersistentHeaderMap next = map.without(key);
+			expected.remove(key);
+			assertEquals(keys.size() - i - 1, next.size());
+			assertFalse(next.containsKey(key));
+			assertTrue(map.containsKey(key));
+			if (i % 100 == 0) {
+				assertEquals(expected, next);
+			}
+			map = next;
+		}
+		assertSame(PersistentHeaderMap.EMPTY, map);
+		assertTrue(map.isEmpty());
+		assertEquals(2000, full.size());
+		assertEquals(Integer.valueOf(1999), full.get("header1999"));
+	}
+
+	@Test
+	public void testUnchangedMapIsNotCopied() {
+		PersistentHeaderMap map = PersistentHeaderMap.EMPTY.with("foo", "bar");
+		assertSame(map, map.with("foo", "bar"));
+		assertSame(map, map.without("baz"));
+		assertSame(map, PersistentHeaderMap.from(map));
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws Exception {
+		DefaultMessageBuilderFactory factory = new DefaultMessageBuilderFactory();
+		factory.setPersistentHeaders(true);
+		MessageBuilder<String> builder = factory.withPayload("foo");
+		for (String key : new String[] { "AaAa", "AaBB", "BBAa", "BBBB" }) {
+			builder.setHeader(key, key.toLowerCase());
+		}
+		for (int i = 0; i < 100; i++) {
+			builder.setHeader("header" + i, i);
+		}
+		Message<String> message = builder.build();
+		MessageHeaders headers = message.getHeaders();
+		assertThat(headers, instanceOf(PersistentMessageHeaders.class));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject(message);
+		Message<?> deserialized = (Message<?>) new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))
+				.readObject();
+		assertEquals("foo", deserialized.getPayload());
+		assertEquals(headers, deserialized.getHeaders());
+		assertEquals(deserialized.getHeaders(), headers);
+		assertEquals(headers.hashCode(), deserialized.getHeaders().hashCode());
+		assertEquals(headers.getId(), deserialized.getHeaders().getId());
+		assertEquals(headers.getTimestamp(), deserialized.getHeaders().getTimestamp());
+
+		MessageCodec codec = new MessageCodec();
+		Message<?> decoded = codec.decode(codec.encode(message), Message.class);
+		assertEquals("foo", decoded.getPayload());
+		assertEquals(headers, decoded.getHeaders());
+		assertEquals(decoded.getHeaders(), headers);
+		assertEquals(headers.getId(), decoded.getHeaders().getId());
+
+		// a decoded message can be derived in the persistent mode again
+		Message<?> derived = factory.fromMessage(decoded).setHeader("AaBB", "baz").build();
+		assertThat(derived.getHeaders(), instanceOf(PersistentMessageHeaders.class));
+		assertEquals("baz", derived.getHeaders().get("AaBB"));
+		assertEquals("bbaa", derived.getHeaders().get("BBAa"));
+		assertEquals(headers.size(), derived.getHeaders().size());
+	}
+
+	private static Map<String, Object> toHashMap(String... keys) {
+		Map<String, Object> map = new HashMap<>();
+		for (String key : keys) {
+			map.put(key, key.toLowerCase());
+		}
+		return map;
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.support.locks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class StripedLockRegistryTests {
+
+	@Test
+	public void testStripeCountRoundedUpToPowerOfTwo() {
+		assertEquals(1, new StripedLockRegistry(1).getStripeCount());
+		assertEquals(4, new StripedLockRegistry(3).getStripeCount());
+		assertEquals(512, new StripedLockRegistry(300).getStripeCount());
+		int defaultCount = new StripedLockRegistry().getStripeCount();
+		assertTrue(defaultCount >= 256);
+		assertEquals(0, defaultCount & (defaultCount - 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadStripes() {
+		new StripedLockRegistry(0);
+	}
+
+	@Test
+	public void testSameKeySameLock() {
+		LockRegistry registry = new StripedLockRegistry();
+		UUID key = UUID.randomUUID();
+		assertSame(registry.obtain(key), registry.obtain(UUID.fromString(key.toString())));
+	}
+
+	@Test
+	public void testUpperBitsAreSpread() {
+		LockRegistry registry = new StripedLockRegistry(256);
+		Lock lock1 = registry.obtain(hashCode(0));
+		Lock lock2 = registry.obtain(hashCode(1 << 16));
+		assertNotSame(lock1, lock2);
+	}
+
+	@Test
+	public void testContentionMetrics() throws Exception {
+		StripedLockRegistry registry = new StripedLockRegistry(16);
+		registry.setContentionMetricsEnabled(true);
+		Lock lock = registry.obtain("foo");
+		lock.lock();
+		lock.lock();
+		lock.unlock();
+		assertEquals(0, registry.getContendedAcquisitionCount());
+		CountDownLatch latch = new CountDownLatch(1);
+		Thread thread = new Thread(() -> {
+			lock.lock();
+			lock.unlock();
+			latch.countDown();
+		});
+		thread.start();
+		Thread.sleep(50);
+		lock.unlock();
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(1, registry.getContendedAcquisitionCount());
+		assertTrue(registry.getWaitTime(TimeUnit.NANOSECONDS) > 0);
+		Map<Integer, Long> hotStripes = registry.getHotStripes(3);
+		assertEquals(1, hotStripes.size());
+		assertEquals(Long.valueOf(1), hotStripes.values().iterator().next());
+		registry.resetContentionMetrics();
+		assertEquals(0, registry.getContendedAcquisitionCount());
+		assertTrue(registry.getHotStripes(3).isEmpty());
+	}
+
+	private static Object hashCode(int hashCode) {
+		return new Object() {
+
+			@Override
+			public int hashCode() {
+				return hashCode;
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class AdaptiveConcurrencyLimiterTests {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testLimitGrowsWhileLatencyIsFlat() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2);
+		limiter.setMaxLimit(5);
+		for (int i = 0; i < 200; i++) {
+			int limit = limiter.getLimit();
+			for (int j = 0; j < limit; j++) {
+				assertTrue(limiter.acquire());
+			}
+			for (int j = 0; j < limit; j++) {
+				limiter.release(MILLIS, true);
+			}
+		}
+		assertEquals(5, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testLimitDoesNotGrowWhenNotInUse() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10);
+		for (int i = 0; i < 200; i++) {
+			assertTrue(limiter.acquire());
+			limiter.release(MILLIS, true);
+		}
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	public void testLimitShrinksWhenLatencyClimbs() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20);
+		limiter.setMinLimit(5);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.acquire());
+			limiter.release(MILLIS, true);
+		}
+		assertEquals(20, limiter.getLimit());
+		for (int i = 0; i < 20; i++) {
+			assertTrue(limiter.acquire());
+			limiter.release(10 * MILLIS, true);
+			Thread.sleep(12);
+		}
+		assertThat(limiter.getLimit(), Matchers.lessThan(20));
+		assertThat(limiter.getLimit(), Matchers.greaterThanOrEqualTo(5));
+	}
+
+	@Test
+	public void testRejectWhenLimitReached() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1);
+		limiter.setMaxQueueWait(0);
+		assertTrue(limiter.acquire());
+		assertFalse(limiter.acquire());
+		assertEquals(1, limiter.getRejectedCount());
+		limiter.release();
+		assertTrue(limiter.acquire());
+	}
+
+	@Test
+	public void testTryAcquireNeverWaits() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1);
+		limiter.setMaxQueueWait(-1);
+		assertTrue(limiter.tryAcquire());
+		long start = System.nanoTime();
+		assertFalse(limiter.tryAcquire());
+		assertThat(System.nanoTime() - start, Matchers.lessThan(TimeUnit.SECONDS.toNanos(1)));
+		assertEquals(1, limiter.getRejectedCount());
+		limiter.release();
+		assertTrue(limiter.tryAcquire());
+	}
+
+	@Test
+	public void testNonWaitingExecutorRejectsWithLimitException() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1);
+		ConcurrencyLimitingTaskExecutor limitingExecutor =
+				new ConcurrencyLimitingTaskExecutor(task -> { }, limiter, false);
+		limitingExecutor.execute(() -> { });
+		try {
+			limitingExecutor.execute(() -> { });
+			fail("ConcurrencyLimitExceededException expected");
+		}
+		catch (ConcurrencyLimitExceededException e) {
+			assertThat(e.getMessage(), Matchers.containsString("Concurrency limit of 1 reached"));
+		}
+		limiter.release();
+		ConcurrencyLimitingTaskExecutor rejectingExecutor =
+				new ConcurrencyLimitingTaskExecutor(task -> {
+					throw new TaskRejectedException("delegate");
+				}, limiter, false);
+		try {
+			rejectingExecutor.execute(() -> { });
+			fail("TaskRejectedException expected");
+		}
+		catch (TaskRejectedException e) {
+			assertFalse(e instanceof ConcurrencyLimitExceededException);
+		}
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testLimitingTaskExecutor() throws Exception {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2);
+			limiter.setMaxQueueWait(100);
+			ConcurrencyLimitingTaskExecutor limitingExecutor = new ConcurrencyLimitingTaskExecutor(executor, limiter);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(2);
+			Runnable task = () -> {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				done.countDown();
+			};
+			limitingExecutor.execute(task);
+			limitingExecutor.execute(task);
+			assertEquals(2, limiter.getInFlight());
+			try {
+				limitingExecutor.execute(task);
+				fail("TaskRejectedException expected");
+			}
+			catch (TaskRejectedException e) {
+				assertThat(e.getMessage(), Matchers.containsString("Concurrency limit of 2 reached"));
+			}
+			assertEquals(1, limiter.getRejectedCount());
+			release.countDown();
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			int n = 0;
+			while (n++ < 100 && limiter.getInFlight() > 0) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, limiter.getInFlight());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
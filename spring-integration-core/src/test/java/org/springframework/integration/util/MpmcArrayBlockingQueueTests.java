@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class MpmcArrayBlockingQueueTests {
+
+	@Test
+	public void testBoundedFifo() throws Exception {
+		MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3);
+		assertTrue(queue.offer(1));
+		assertTrue(queue.offer(2));
+		assertTrue(queue.offer(3));
+		assertFalse(queue.offer(4));
+		assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+		assertEquals(3, queue.size());
+		assertEquals(0, queue.remainingCapacity());
+		assertEquals(Integer.valueOf(1), queue.peek());
+		assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+		assertEquals(Integer.valueOf(1), queue.poll());
+		assertTrue(queue.offer(4));
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, queue.drainTo(drained, 2));
+		assertEquals(Arrays.asList(2, 3), drained);
+		assertEquals(Integer.valueOf(4), queue.take());
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testSingleSlot() {
+		MpmcArrayBlockingQueue<String> queue = new MpmcArrayBlockingQueue<>(1);
+		assertTrue(queue.offer("foo"));
+		assertFalse(queue.offer("bar"));
+		assertEquals("foo", queue.poll());
+		assertTrue(queue.offer("bar"));
+		assertEquals("bar", queue.poll());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testRemoveInPlace() {
+		MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3);
+		assertTrue(queue.offer(1));
+		assertTrue(queue.offer(2));
+		assertTrue(queue.offer(3));
+		assertTrue(queue.remove(2));
+		assertFalse(queue.remove(2));
+		assertFalse(queue.remove(4));
+		assertEquals(2, queue.size());
+		assertEquals(Arrays.asList(1, 3), new ArrayList<>(queue));
+		assertTrue(queue.remove(1));
+		assertEquals(Integer.valueOf(3), queue.peek());
+		assertEquals(Integer.valueOf(3), queue.poll());
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.size());
+		// the slots of the removed elements are reclaimed
+		assertTrue(queue.offer(4));
+		assertTrue(queue.offer(5));
+		assertTrue(queue.offer(6));
+		assertEquals(Arrays.asList(4, 5, 6), new ArrayList<>(queue));
+	}
+
+	@Test
+	public void testBlockingTakeIsReleasedByOffer() throws Exception {
+		MpmcArrayBlockingQueue<String> queue = new MpmcArrayBlockingQueue<>(2);
+		CountDownLatch latch = new CountDownLatch(1);
+		List<String> received = new ArrayList<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				received.add(queue.take());
+				latch.countDown();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		consumer.start();
+		queue.put("foo");
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals("foo", received.get(0));
+	}
+
+	@Test
+	public void testInterruptWhileSignalledPassesTheSignalOn() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			MpmcArrayBlockingQueue<String> queue = new MpmcArrayBlockingQueue<>(1);
+			assertTrue(queue.offer("x"));
+			Thread first = startProducer(queue, "a");
+			Thread second = startProducer(queue, "b");
+			// signals the first producer, which is interrupted before it retries (or not)
+			assertEquals("x", queue.poll());
+			first.interrupt();
+			String value = queue.poll(10, TimeUnit.SECONDS);
+			if ("a".equals(value)) {
+				value = queue.poll(10, TimeUnit.SECONDS);
+			}
+			assertEquals("b", value);
+			first.join(10000);
+			second.join(10000);
+			assertFalse(first.isAlive());
+			assertFalse(second.isAlive());
+		}
+	}
+
+	private static Thread startProducer(MpmcArrayBlockingQueue<String> queue, String value)
+			throws InterruptedException {
+
+		Thread producer = new Thread(() -> {
+			try {
+				queue.put(value);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+		int n = 0;
+		while (n++ < 1000 && producer.getState() != Thread.State.WAITING) {
+			Thread.sleep(10);
+		}
+		assertEquals(Thread.State.WAITING, producer.getState());
+		return producer;
+	}
+
+	@Test
+	public void testMultipleProducersAndConsumers() throws Exception {
+		int producers = 4;
+		int consumers = 4;
+		int perThread = 10000;
+		MpmcArrayBlockingQueue<Long> queue = new MpmcArrayBlockingQueue<>(16);
+		ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+		CountDownLatch done = new CountDownLatch(producers + consumers);
+		AtomicLong sum = new AtomicLong();
+		for (int i = 0; i < producers; i++) {
+			executor.execute(() -> {
+				try {
+					for (long n = 0; n < perThread; n++) {
+						queue.put(n);
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				done.countDown();
+			});
+		}
+		for (int i = 0; i < consumers; i++) {
+			executor.execute(() -> {
+				try {
+					for (int n = 0; n < perThread; n++) {
+						Long value = queue.poll(10, TimeUnit.SECONDS);
+						if (value != null) {
+							sum.addAndGet(value);
+						}
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(60, TimeUnit.SECONDS));
+		executor.shutdownNow();
+		assertEquals((long) producers * perThread * (perThread - 1) / 2, sum.get());
+		assertTrue(queue.isEmpty());
+	}
+
+}
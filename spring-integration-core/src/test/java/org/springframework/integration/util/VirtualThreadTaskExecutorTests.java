@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 5.1
+ */
+public class VirtualThreadTaskExecutorTests {
+
+	@Test
+	public void testTasksRunOnNewThreads() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("vtTest-");
+		assertEquals(VirtualThreadTaskExecutor.isVirtualThreadsSupported(), executor.isVirtual());
+		int tasks = 10;
+		CountDownLatch latch = new CountDownLatch(tasks);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		Set<String> names = ConcurrentHashMap.newKeySet();
+		for (int i = 0; i < tasks; i++) {
+			executor.execute(() -> {
+				threads.add(Thread.currentThread());
+				names.add(Thread.currentThread().getName());
+				latch.countDown();
+			});
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(tasks, threads.size());
+		assertThat(threads, Matchers.not(Matchers.hasItem(Thread.currentThread())));
+		for (String name : names) {
+			assertThat(name, Matchers.startsWith("vtTest-"));
+		}
+	}
+
+	@Test
+	public void testConcurrencyLimitIsApplied() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		executor.setConcurrencyLimit(1);
+		CountDownLatch latch = new CountDownLatch(2);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		for (int i = 0; i < 2; i++) {
+			executor.execute(() -> {
+				threads.add(Thread.currentThread());
+				latch.countDown();
+			});
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(2, threads.size());
+		assertNotSame(Thread.currentThread(), threads.iterator().next());
+	}
+
+}
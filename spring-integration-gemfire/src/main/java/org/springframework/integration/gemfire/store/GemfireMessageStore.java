@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -96,6 +96,13 @@ public class GemfireMessageStore extends AbstractKeyValueMessageStore {
 		return this.messageStoreRegion.remove(id);
 	}
 
+	@Override
+	protected void doRemoveAll(Collection<Object> ids) {
+		if (!ids.isEmpty()) {
+			this.messageStoreRegion.removeAll(ids);
+		}
+	}
+
 	@Override
 	protected Collection<?> doListKeys(String keyPattern) {
 		Assert.hasText(keyPattern, "'keyPattern' must not be empty");
@@ -123,6 +123,36 @@ public class GemfireGroupStoreTests {
 
 	}
 
+	@Test
+	public void testIncrementalGroupMembership() {
+		GemfireMessageStore store = new GemfireMessageStore(region);
+		store.setIncrementalGroupMembership(true);
+		List<Message<?>> messages = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Message<String> message = new GenericMessage<>("foo" + i);
+			store.addMessagesToGroup(1, message);
+			messages.add(message);
+		}
+		store.addMessagesToGroup(1, messages.get(0));
+		assertEquals(5, store.messageGroupSize(1));
+		assertEquals("foo0", store.getOneMessageFromGroup(1).getPayload());
+
+		store.removeMessagesFromGroup(1, messages.subList(1, 3));
+		MessageGroup messageGroup = store.getMessageGroup(1);
+		assertEquals(3, messageGroup.size());
+		Iterator<Message<?>> iterator = messageGroup.getMessages().iterator();
+		assertEquals("foo0", iterator.next().getPayload());
+		assertEquals("foo3", iterator.next().getPayload());
+		assertEquals("foo4", iterator.next().getPayload());
+
+		assertEquals("foo0", store.pollMessageFromGroup(1).getPayload());
+		assertEquals(2, store.messageGroupSize(1));
+
+		store.removeMessageGroup(1);
+		assertEquals(0, store.messageGroupSize(1));
+		assertNull(store.getMessage(messages.get(4).getHeaders().getId()));
+	}
+
 	@Test
 	public void testRemoveMessageGroup() throws Exception {
 		GemfireMessageStore store = new GemfireMessageStore(region);
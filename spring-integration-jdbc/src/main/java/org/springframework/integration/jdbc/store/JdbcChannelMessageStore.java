@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.integration.jdbc.store;
 
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -136,6 +137,8 @@ public class JdbcChannelMessageStore implements PriorityCapableChannelMessageSto
 
 	private JdbcTemplate jdbcTemplate;
 
+	private JdbcTemplate batchJdbcTemplate;
+
 	private WhiteListDeserializingConverter deserializer;
 
 	private SerializingConverter serializer;
@@ -397,6 +400,13 @@ public class JdbcChannelMessageStore implements PriorityCapableChannelMessageSto
 					this.lobHandler);
 		}
 		this.jdbcTemplate.afterPropertiesSet();
+
+		if (this.channelMessageStoreQueryProvider.getPollFromGroupBatchQuery() != null) {
+			// the jdbcTemplate is usually limited to 1 row
+			this.batchJdbcTemplate = new JdbcTemplate(this.jdbcTemplate.getDataSource());
+			this.batchJdbcTemplate.setExceptionTranslator(this.jdbcTemplate.getExceptionTranslator());
+			this.batchJdbcTemplate.setQueryTimeout(this.jdbcTemplate.getQueryTimeout());
+		}
 	}
 
 	/**
@@ -508,6 +518,53 @@ public class JdbcChannelMessageStore implements PriorityCapableChannelMessageSto
 		return polledMessage;
 	}
 
+	/**
+	 * Poll up to {@code maxMessages} messages with a single query and remove them with
+	 * a single JDBC batch. Falls back to polling one message at a time if the
+	 * {@link ChannelMessageStoreQueryProvider} doesn't provide batch queries.
+	 * Messages which could not be deleted (because another consumer removed them
+	 * concurrently) are not returned.
+	 * @param groupId the group id.
+	 * @param maxMessages the maximum number of messages to poll.
+	 * @return the polled messages.
+	 * @since 5.1
+	 */
+	@Override
+	public List<Message<?>> pollMessagesFromGroup(Object groupId, int maxMessages) {
+		if (maxMessages < 2 || this.batchJdbcTemplate == null) {
+			return PriorityCapableChannelMessageStore.super.pollMessagesFromGroup(groupId, maxMessages);
+		}
+
+		final String key = getKey(groupId);
+		final List<Message<?>> polledMessages = doPollForMessages(key, maxMessages);
+		if (polledMessages.isEmpty()) {
+			return polledMessages;
+		}
+
+		List<Object[]> batchArgs = new ArrayList<>(polledMessages.size());
+		for (Message<?> message : polledMessages) {
+			batchArgs.add(new Object[] { getKey(message.getHeaders().getId()), key, this.region });
+		}
+		int[] updated = this.jdbcTemplate.batchUpdate(
+				getQuery(this.channelMessageStoreQueryProvider.getDeleteMessageQuery()), batchArgs,
+				new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR });
+
+		List<Message<?>> removedMessages = new ArrayList<>(polledMessages.size());
+		for (int i = 0; i < polledMessages.size(); i++) {
+			Message<?> message = polledMessages.get(i);
+			UUID id = message.getHeaders().getId();
+			// some drivers report Statement.SUCCESS_NO_INFO (-2) for batched statements
+			if (updated[i] != 0) {
+				removedMessages.add(message);
+				logger.debug(String.format("Message with id '%s' was deleted.", id));
+			}
+			else {
+				logger.warn(String.format("Message with id '%s' was not deleted.", id));
+			}
+		}
+		return removedMessages;
+	}
+
 	/**
 	 * This method executes a call to the DB to get the oldest Message in the
 	 * MessageGroup which in the context of the {@link JdbcChannelMessageStore}
@@ -579,6 +636,69 @@ public class JdbcChannelMessageStore implements PriorityCapableChannelMessageSto
 		return null;
 	}
 
+	private List<Message<?>> doPollForMessages(String groupIdKey, int maxMessages) {
+		final NamedParameterJdbcTemplate namedParameterJdbcTemplate =
+				new NamedParameterJdbcTemplate(this.batchJdbcTemplate);
+		final MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		parameters.addValue("region", this.region);
+		parameters.addValue("group_key", groupIdKey);
+		parameters.addValue("max_rows", maxMessages);
+
+		String query;
+
+		final List<Message<?>> messages;
+
+		this.idCacheReadLock.lock();
+		try {
+			if (this.usingIdCache && !this.idCache.isEmpty()) {
+				if (this.priorityEnabled) {
+					query = getQuery(this.channelMessageStoreQueryProvider.getPriorityPollFromGroupExcludeIdsBatchQuery());
+				}
+				else {
+					query = getQuery(this.channelMessageStoreQueryProvider.getPollFromGroupExcludeIdsBatchQuery());
+				}
+				parameters.addValue("message_ids", this.idCache);
+			}
+			else {
+				if (this.priorityEnabled) {
+					query = getQuery(this.channelMessageStoreQueryProvider.getPriorityPollFromGroupBatchQuery());
+				}
+				else {
+					query = getQuery(this.channelMessageStoreQueryProvider.getPollFromGroupBatchQuery());
+				}
+			}
+			messages = namedParameterJdbcTemplate.query(query, parameters, rs -> {
+				List<Message<?>> result = new ArrayList<>();
+				while (result.size() < maxMessages && rs.next()) {
+					result.add(this.messageRowMapper.mapRow(rs, result.size()));
+				}
+				return result;
+			});
+		}
+		finally {
+			this.idCacheReadLock.unlock();
+		}
+
+		if (this.usingIdCache && !messages.isEmpty()) {
+			this.idCacheWriteLock.lock();
+			try {
+				for (Message<?> message : messages) {
+					String messageId = message.getHeaders().getId().toString();
+					boolean added = this.idCache.add(messageId);
+
+					if (logger.isDebugEnabled()) {
+						logger.debug(String.format("Polled message with id '%s' added: '%s'.", messageId, added));
+					}
+				}
+			}
+			finally {
+				this.idCacheWriteLock.unlock();
+			}
+		}
+		return messages;
+	}
+
 	private boolean doRemoveMessageFromGroup(Object groupId, Message<?> messageToRemove) {
 		final UUID id = messageToRemove.getHeaders().getId();
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.integration.jdbc.store;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -43,6 +44,7 @@ import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageMetadata;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
+import org.springframework.integration.store.TimeIndexedMessageGroupStore;
 import org.springframework.integration.support.converter.WhiteListDeserializingConverter;
 import org.springframework.integration.util.UUIDConverter;
 import org.springframework.jdbc.core.JdbcOperations;
@@ -66,6 +68,10 @@ import org.springframework.util.StringUtils;
  * please consider using the channel-specific {@link JdbcChannelMessageStore} instead.
  * This implementation is intended for correlation components (e.g. {@code <aggregator>}),
  * {@code <delayer>} and similar.
+ * <p>
+ * The time of the messages added via {@link #addMessageToGroup(Object, Message, long)}
+ * is kept in the {@code MESSAGE_TIME} column of the {@code GROUP_TO_MESSAGE} table,
+ * which is indexed together with the group key.
  *
  * @author Dave Syer
  * @author Oleg Zhurakousky
@@ -77,7 +83,8 @@ import org.springframework.util.StringUtils;
  *
  * @since 2.0
  */
-public class JdbcMessageStore extends AbstractMessageGroupStore implements MessageStore {
+public class JdbcMessageStore extends AbstractMessageGroupStore
+		implements MessageStore, TimeIndexedMessageGroupStore {
 
 	private static final Log logger = LogFactory.getLog(JdbcMessageStore.class);
 
@@ -108,6 +115,14 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 				"(SELECT MESSAGE_ID from %PREFIX%GROUP_TO_MESSAGE where GROUP_KEY = ? and REGION = ?) and REGION = ? " +
 				"ORDER BY CREATED_DATE"),
 
+		LIST_MESSAGES_BY_GROUP_KEY_AND_TIME("SELECT %PREFIX%MESSAGE.MESSAGE_ID, MESSAGE_BYTES, CREATED_DATE " +
+				"from %PREFIX%MESSAGE join %PREFIX%GROUP_TO_MESSAGE " +
+				"on %PREFIX%MESSAGE.MESSAGE_ID = %PREFIX%GROUP_TO_MESSAGE.MESSAGE_ID " +
+				"and %PREFIX%MESSAGE.REGION = %PREFIX%GROUP_TO_MESSAGE.REGION " +
+				"where GROUP_KEY = ? and %PREFIX%GROUP_TO_MESSAGE.REGION = ? " +
+				"and MESSAGE_TIME >= ? and MESSAGE_TIME < ? " +
+				"ORDER BY MESSAGE_TIME"),
+
 		POLL_FROM_GROUP("SELECT %PREFIX%MESSAGE.MESSAGE_ID, %PREFIX%MESSAGE.MESSAGE_BYTES from %PREFIX%MESSAGE " +
 				"where %PREFIX%MESSAGE.MESSAGE_ID = " +
 				"(SELECT min(m.MESSAGE_ID) from %PREFIX%MESSAGE m " +
@@ -149,9 +164,19 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 				"(GROUP_KEY, MESSAGE_ID, REGION)"
 				+ " values (?, ?, ?)"),
 
+		CREATE_GROUP_TO_MESSAGE_WITH_TIME("INSERT into %PREFIX%GROUP_TO_MESSAGE" +
+				"(GROUP_KEY, MESSAGE_ID, REGION, MESSAGE_TIME)"
+				+ " values (?, ?, ?, ?)"),
+
 		UPDATE_GROUP("UPDATE %PREFIX%MESSAGE_GROUP set UPDATED_DATE=? where GROUP_KEY=? and REGION=?"),
 
-		LIST_GROUP_KEYS("SELECT distinct GROUP_KEY as CREATED from %PREFIX%MESSAGE_GROUP where REGION=?");
+		LIST_GROUP_KEYS("SELECT distinct GROUP_KEY as CREATED from %PREFIX%MESSAGE_GROUP where REGION=?"),
+
+		LIST_GROUP_KEYS_BY_CREATED_DATE("SELECT GROUP_KEY from %PREFIX%MESSAGE_GROUP " +
+				"where REGION=? and CREATED_DATE>=? and CREATED_DATE<=? ORDER BY CREATED_DATE"),
+
+		LIST_GROUP_KEYS_BY_UPDATED_DATE("SELECT GROUP_KEY from %PREFIX%MESSAGE_GROUP " +
+				"where REGION=? and UPDATED_DATE>=? and UPDATED_DATE<=? ORDER BY UPDATED_DATE");
 
 		private String sql;
 
@@ -352,8 +377,48 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		return message;
 	}
 
+	private void addMessages(Message<?>... messages) {
+		if (messages.length == 1) {
+			addMessage(messages[0]);
+			return;
+		}
+		try {
+			this.jdbcTemplate.batchUpdate(getQuery(Query.CREATE_MESSAGE),
+					Arrays.asList(messages),
+					100,
+					(ps, messageToAdd) -> {
+						String messageId = getKey(messageToAdd.getHeaders().getId());
+						if (logger.isDebugEnabled()) {
+							logger.debug("Inserting message with id key=" + messageId);
+						}
+						ps.setString(1, messageId);
+						ps.setString(2, JdbcMessageStore.this.region);
+						ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+						this.lobHandler.getLobCreator()
+								.setBlobAsBytes(ps, 4, this.serializer.convert(messageToAdd));
+					});
+		}
+		catch (DuplicateKeyException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Some of the messages already exist; inserting them one by one instead of a batch.");
+			}
+			for (Message<?> message : messages) {
+				addMessage(message);
+			}
+		}
+	}
+
 	@Override
 	public void addMessagesToGroup(Object groupId, Message<?>... messages) {
+		doAddMessagesToGroup(groupId, null, messages);
+	}
+
+	@Override
+	public void addMessageToGroup(Object groupId, Message<?> message, long time) {
+		doAddMessagesToGroup(groupId, time, message);
+	}
+
+	private void doAddMessagesToGroup(Object groupId, Long time, Message<?>... messages) {
 		final String groupKey = getKey(groupId);
 		boolean groupNotExist = this.jdbcTemplate.queryForObject(this.getQuery(Query.GROUP_EXISTS),
 				Integer.class, groupKey, this.region) < 1;
@@ -378,10 +443,9 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 			doUpdateMessageGroup(groupKey, updatedDate);
 		}
 
-		for (Message<?> message : messages) {
-			addMessage(message);
-		}
-		this.jdbcTemplate.batchUpdate(getQuery(Query.CREATE_GROUP_TO_MESSAGE),
+		addMessages(messages);
+		this.jdbcTemplate.batchUpdate(
+				getQuery(time == null ? Query.CREATE_GROUP_TO_MESSAGE : Query.CREATE_GROUP_TO_MESSAGE_WITH_TIME),
 				Arrays.asList(messages),
 				100,
 				(ps, messageToAdd) -> {
@@ -393,6 +457,9 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 					ps.setString(1, groupKey);
 					ps.setString(2, messageId);
 					ps.setString(3, JdbcMessageStore.this.region);
+					if (time != null) {
+						ps.setLong(4, time);
+					}
 				});
 	}
 
@@ -452,7 +519,24 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		Assert.notNull(messages, "'messages' must not be null");
 
 		final String groupKey = getKey(groupId);
+		doRemoveMessagesFromGroup(groupKey, messages);
+		this.updateMessageGroup(groupKey);
+	}
+
+	/**
+	 * Remove the messages and complete the group with JDBC batch updates and a single
+	 * update of the group row.
+	 */
+	@Override
+	public void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+
+		doRemoveMessagesFromGroup(getKey(groupId), messages);
+		completeGroup(groupId);
+	}
 
+	private void doRemoveMessagesFromGroup(String groupKey, Collection<Message<?>> messages) {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Removing messages from group with group key=" + groupKey);
 		}
@@ -471,7 +555,6 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 					ps.setString(1, getKey(messageToRemove.getHeaders().getId()));
 					ps.setString(2, JdbcMessageStore.this.region);
 				});
-		this.updateMessageGroup(groupKey);
 	}
 
 	@Override
@@ -557,6 +640,25 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 				this.region, this.region);
 	}
 
+	/**
+	 * Select the messages of the time range with the {@code MESSAGE_TIME} index of the
+	 * {@code GROUP_TO_MESSAGE} table, limiting the result with the
+	 * {@link PreparedStatement#setMaxRows(int) maxRows} of the statement.
+	 */
+	@Override
+	public Collection<Message<?>> getMessagesForGroup(Object groupId, long fromTime, long toTime, int maxMessages) {
+		String query = getQuery(Query.LIST_MESSAGES_BY_GROUP_KEY_AND_TIME);
+		return this.jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(query);
+			ps.setMaxRows(maxMessages);
+			ps.setString(1, getKey(groupId));
+			ps.setString(2, this.region);
+			ps.setLong(3, fromTime);
+			ps.setLong(4, toTime);
+			return ps;
+		}, this.mapper);
+	}
+
 	@Override
 	public Iterator<MessageGroup> iterator() {
 
@@ -583,6 +685,26 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		};
 	}
 
+	/**
+	 * Select the keys of the groups to expire with the {@code CREATED_DATE} (or
+	 * {@code UPDATED_DATE}) index of the {@code MESSAGE_GROUP} table, limiting the result
+	 * with the {@link PreparedStatement#setMaxRows(int) maxRows} of the statement.
+	 */
+	@Override
+	protected Collection<?> findExpirableGroupIds(long fromTime, long threshold, int limit) {
+		String query = getQuery(isTimeoutOnIdle()
+				? Query.LIST_GROUP_KEYS_BY_UPDATED_DATE
+				: Query.LIST_GROUP_KEYS_BY_CREATED_DATE);
+		return this.jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(query);
+			ps.setMaxRows(limit);
+			ps.setString(1, this.region);
+			ps.setTimestamp(2, new Timestamp(Math.max(fromTime, 0)));
+			ps.setTimestamp(3, new Timestamp(threshold));
+			return ps;
+		}, new SingleColumnRowMapper<String>());
+	}
+
 	/**
 	 * Replace patterns in the input to produce a valid SQL query. This implementation lazily initializes a
 	 * simple map-based cache, only replacing the table prefix on the first access to a named query. Further
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -67,6 +67,57 @@ public interface ChannelMessageStoreQueryProvider {
 	 */
 	String getPriorityPollFromGroupQuery();
 
+	/**
+	 * Get the query used to retrieve up to {@code :max_rows} oldest messages for a
+	 * channel excluding messages that match the provided message ids.
+	 * Return null (default) if batch polling is not supported; the
+	 * {@link JdbcChannelMessageStore} then polls one message at a time.
+	 * The store stops reading the result set after {@code :max_rows} rows, so a
+	 * query may also ignore that parameter.
+	 *
+	 * @return Sql Query
+	 * @since 5.1
+	 */
+	default String getPollFromGroupExcludeIdsBatchQuery() {
+		return null;
+	}
+
+	/**
+	 * Get the query used to retrieve up to {@code :max_rows} oldest messages for a
+	 * channel.
+	 *
+	 * @return Sql Query
+	 * @since 5.1
+	 * @see #getPollFromGroupExcludeIdsBatchQuery()
+	 */
+	default String getPollFromGroupBatchQuery() {
+		return null;
+	}
+
+	/**
+	 * Get the query used to retrieve up to {@code :max_rows} oldest messages by
+	 * priority for a channel excluding messages that match the provided message ids.
+	 *
+	 * @return Sql Query
+	 * @since 5.1
+	 * @see #getPollFromGroupExcludeIdsBatchQuery()
+	 */
+	default String getPriorityPollFromGroupExcludeIdsBatchQuery() {
+		return null;
+	}
+
+	/**
+	 * Get the query used to retrieve up to {@code :max_rows} oldest messages by
+	 * priority for a channel.
+	 *
+	 * @return Sql Query
+	 * @since 5.1
+	 * @see #getPollFromGroupExcludeIdsBatchQuery()
+	 */
+	default String getPriorityPollFromGroupBatchQuery() {
+		return null;
+	}
+
 	/**
 	 * Query that retrieves a message for the provided message id, channel and
 	 * region.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,4 +66,29 @@ public class OracleChannelMessageStoreQueryProvider extends AbstractChannelMessa
 				"order by MESSAGE_PRIORITY DESC NULLS LAST, CREATED_DATE, MESSAGE_SEQUENCE FOR UPDATE SKIP LOCKED";
 	}
 
+	/*
+	 * The row limit can't be combined with FOR UPDATE SKIP LOCKED; the JdbcChannelMessageStore
+	 * stops reading the result set after the requested number of rows.
+	 */
+
+	@Override
+	public String getPollFromGroupExcludeIdsBatchQuery() {
+		return getPollFromGroupExcludeIdsQuery();
+	}
+
+	@Override
+	public String getPollFromGroupBatchQuery() {
+		return getPollFromGroupQuery();
+	}
+
+	@Override
+	public String getPriorityPollFromGroupExcludeIdsBatchQuery() {
+		return getPriorityPollFromGroupExcludeIdsQuery();
+	}
+
+	@Override
+	public String getPriorityPollFromGroupBatchQuery() {
+		return getPriorityPollFromGroupQuery();
+	}
+
 }
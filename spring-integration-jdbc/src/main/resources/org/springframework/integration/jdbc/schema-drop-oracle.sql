@@ -1,6 +1,9 @@
 -- Autogenerated: do not edit this file
 
 DROP INDEX  INT_MESSAGE_IX1 ;
+DROP INDEX  INT_GROUP_TO_MSG_TIME_IDX ;
+DROP INDEX  INT_MESSAGE_GROUP_CREATED_IDX ;
+DROP INDEX  INT_MESSAGE_GROUP_UPDATED_IDX ;
 DROP INDEX  INT_CHANNEL_MSG_DATE_IDX ;
 DROP INDEX  INT_CHANNEL_MSG_PRIORITY_IDX ;
 DROP TABLE  INT_MESSAGE ;
@@ -14,9 +14,12 @@ CREATE TABLE INT_GROUP_TO_MESSAGE  (
 	GROUP_KEY CHAR(36),
 	MESSAGE_ID CHAR(36),
 	REGION VARCHAR2(100),
+	MESSAGE_TIME NUMBER(19,0),
 	constraint GROUP_TO_MESSAGE_PK primary key (GROUP_KEY, MESSAGE_ID, REGION)
 );
 
+CREATE INDEX INT_GROUP_TO_MSG_TIME_IDX ON INT_GROUP_TO_MESSAGE (GROUP_KEY, REGION, MESSAGE_TIME);
+
 CREATE TABLE INT_MESSAGE_GROUP  (
 	GROUP_KEY CHAR(36),
 	REGION VARCHAR2(100),
@@ -28,6 +31,9 @@ CREATE TABLE INT_MESSAGE_GROUP  (
 	constraint MESSAGE_GROUP_PK primary key (GROUP_KEY, REGION)
 );
 
+CREATE INDEX INT_MESSAGE_GROUP_CREATED_IDX ON INT_MESSAGE_GROUP (REGION, CREATED_DATE);
+CREATE INDEX INT_MESSAGE_GROUP_UPDATED_IDX ON INT_MESSAGE_GROUP (REGION, UPDATED_DATE);
+
 CREATE TABLE INT_LOCK  (
 	LOCK_KEY CHAR(36),
 	REGION VARCHAR2(100),
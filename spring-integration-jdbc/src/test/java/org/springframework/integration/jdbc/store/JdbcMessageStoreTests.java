@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -237,6 +237,60 @@ public class JdbcMessageStoreTests {
 		assertEquals(0, group.size());
 	}
 
+	@Test
+	public void testAddMessagesToGroupWithExistingMessage() throws Exception {
+		String groupId = "X";
+		Message<String> existing = MessageBuilder.withPayload("foo").setCorrelationId(groupId).build();
+		Message<String> message = MessageBuilder.withPayload("bar").setCorrelationId(groupId).build();
+		this.messageStore.addMessage(existing);
+		this.messageStore.addMessagesToGroup(groupId, existing, message);
+		MessageGroup group = this.messageStore.getMessageGroup(groupId);
+		assertEquals(2, group.size());
+		assertEquals(2, this.messageStore.getMessageCount());
+	}
+
+	@Test
+	public void testMessagesForGroupInTimeRange() throws Exception {
+		String groupId = "X";
+		Message<String> first = new GenericMessage<>("first");
+		Message<String> second = new GenericMessage<>("second");
+		Message<String> third = new GenericMessage<>("third");
+		this.messageStore.addMessageToGroup(groupId, third, 3000);
+		this.messageStore.addMessageToGroup(groupId, first, 1000);
+		this.messageStore.addMessageToGroup(groupId, second, 2000);
+		this.messageStore.addMessagesToGroup(groupId, new GenericMessage<>("noTime"));
+		assertEquals(4, this.messageStore.messageGroupSize(groupId));
+		List<Message<?>> messages = new ArrayList<>(this.messageStore.getMessagesForGroup(groupId, 1000, 3000, 10));
+		assertEquals(2, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+		assertEquals("second", messages.get(1).getPayload());
+		this.messageStore.removeMessage(second.getHeaders().getId());
+		this.messageStore.removeMessagesFromGroup(groupId, second);
+		messages = new ArrayList<>(this.messageStore.getMessagesForGroup(groupId, Long.MIN_VALUE, Long.MAX_VALUE,
+				10));
+		assertEquals(2, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+		assertEquals("third", messages.get(1).getPayload());
+		messages = new ArrayList<>(this.messageStore.getMessagesForGroup(groupId, Long.MIN_VALUE, Long.MAX_VALUE, 1));
+		assertEquals(1, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+	}
+
+	@Test
+	public void testCompleteGroupAndRemoveMessages() throws Exception {
+		String groupId = "X";
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		for (int i = 0; i < 5; i++) {
+			messages.add(MessageBuilder.withPayload("foo").setCorrelationId(groupId).build());
+		}
+		this.messageStore.addMessagesToGroup(groupId, messages.toArray(new Message<?>[messages.size()]));
+		this.messageStore.completeGroupAndRemoveMessages(groupId, messages.subList(0, 3));
+		MessageGroup group = this.messageStore.getMessageGroup(groupId);
+		assertTrue(group.isComplete());
+		assertEquals(2, group.size());
+		assertNull(this.messageStore.getMessage(messages.get(0).getHeaders().getId()));
+	}
+
 	@Test
 	public void testRemoveMessageGroup() throws Exception {
 		JdbcTemplate template = new JdbcTemplate(this.dataSource);
@@ -370,6 +424,32 @@ public class JdbcMessageStoreTests {
 		assertEquals(0, group.size());
 	}
 
+	@Test
+	public void testExpireMessageGroupsInPages() throws Exception {
+		this.messageStore.setExpiryPageSize(2);
+		List<Object> expired = new ArrayList<>();
+		this.messageStore.registerMessageGroupExpiryCallback((messageGroupStore, group) -> {
+			expired.add(group.getGroupId());
+			messageGroupStore.removeMessageGroup(group.getGroupId());
+		});
+		JdbcTemplate template = new JdbcTemplate(this.dataSource);
+		template.afterPropertiesSet();
+		for (int i = 0; i < 5; i++) {
+			String groupId = "X" + i;
+			this.messageStore.addMessagesToGroup(groupId, new GenericMessage<>("foo"));
+			if (i < 4) {
+				template.update("UPDATE INT_MESSAGE_GROUP set CREATED_DATE=? where GROUP_KEY=? and REGION=?",
+						new Timestamp(System.currentTimeMillis() - 10000), UUIDConverter.getUUID(groupId).toString(),
+						"DEFAULT");
+			}
+		}
+
+		assertEquals(4, this.messageStore.expireMessageGroups(2000));
+		assertEquals(4, expired.size());
+		assertEquals(1, this.messageStore.getMessageGroupCount());
+		assertEquals(1, this.messageStore.messageGroupSize("X4"));
+	}
+
 	private void updateMessageGroup(JdbcTemplate template, final String groupId, final long timeout) {
 		template.update("UPDATE INT_MESSAGE_GROUP set UPDATED_DATE=? where GROUP_KEY=? and REGION=?",
 				(PreparedStatementSetter) ps -> {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertNull;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.sql.DataSource;
 
@@ -111,6 +112,36 @@ public abstract class AbstractJdbcChannelMessageStoreTests {
 		assertEquals(message.getHeaders().getId(), messageFromDb.getHeaders().getId());
 	}
 
+	@Test
+	public void testPollMessagesFromGroup() {
+		final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setIsolationLevel(Isolation.READ_COMMITTED.value());
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+		for (int i = 0; i < 5; i++) {
+			Message<Integer> message = MessageBuilder.withPayload(i).build();
+			transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+					messageStore.addMessageToGroup(TEST_MESSAGE_GROUP, message);
+				}
+			});
+		}
+
+		List<Message<?>> messages = messageStore.pollMessagesFromGroup(TEST_MESSAGE_GROUP, 3);
+		assertEquals(3, messages.size());
+		assertEquals(0, messages.get(0).getPayload());
+		assertEquals(2, messages.get(2).getPayload());
+		assertEquals(2, messageStore.messageGroupSize(TEST_MESSAGE_GROUP));
+
+		messages = messageStore.pollMessagesFromGroup(TEST_MESSAGE_GROUP, 3);
+		assertEquals(2, messages.size());
+		assertEquals(3, messages.get(0).getPayload());
+		assertEquals(0, messageStore.messageGroupSize(TEST_MESSAGE_GROUP));
+		assertEquals(0, messageStore.pollMessagesFromGroup(TEST_MESSAGE_GROUP, 3).size());
+	}
+
 	@Test
 	public void testAddAndGetCustomStatementSetter() {
 		messageStore.setPreparedStatementSetter(getMessageGroupPreparedStatementSetter());
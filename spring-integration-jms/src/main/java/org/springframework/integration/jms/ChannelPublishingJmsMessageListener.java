@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -147,6 +147,11 @@ public class ChannelPublishingJmsMessageListener
 		this.gatewayDelegate.setShouldTrack(shouldTrack);
 	}
 
+	@Override
+	public void setHistorySamplingRate(int samplingRate) {
+		this.gatewayDelegate.setHistorySamplingRate(samplingRate);
+	}
+
 	@Override
 	public String getComponentName() {
 		return this.gatewayDelegate.getComponentName();
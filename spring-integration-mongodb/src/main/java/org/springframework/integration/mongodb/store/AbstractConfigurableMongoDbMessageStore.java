@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2017 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,7 +32,9 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
@@ -56,6 +58,8 @@ import org.springframework.integration.support.utils.IntegrationUtils;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
+import com.mongodb.BulkWriteError;
+
 /**
  * The abstract MongoDB {@link BasicMessageGroupStore} implementation to provide configuration for common options
  * for implementations of this class.
@@ -69,6 +73,8 @@ public abstract class AbstractConfigurableMongoDbMessageStore extends AbstractMe
 
 	public final static String SEQUENCE_NAME = "messagesSequence";
 
+	private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
 	/**
 	 * The name of the message header that stores a flag to indicate that the message has been saved. This is an
 	 * optimization for the put method.
@@ -195,13 +201,26 @@ public abstract class AbstractConfigurableMongoDbMessageStore extends AbstractMe
 	 * @return the next sequence value.
 	 */
 	protected int getNextId() {
+		return getNextId(1);
+	}
+
+	/**
+	 * Perform MongoDB {@code INC} operation for the document, which contains the {@link MessageDocument}
+	 * {@code sequence}, reserving the provided number of consecutive sequence values
+	 * with a single round trip.
+	 * @param count the number of sequence values to reserve.
+	 * @return the first of the reserved sequence values.
+	 * @since 5.1
+	 */
+	protected int getNextId(int count) {
 		Query query = Query.query(Criteria.where("_id").is(SEQUENCE_NAME));
 		query.fields().include(MessageDocumentFields.SEQUENCE);
-		return (Integer) this.mongoTemplate.findAndModify(query,
-				new Update().inc(MessageDocumentFields.SEQUENCE, 1),
+		int last = (Integer) this.mongoTemplate.findAndModify(query,
+				new Update().inc(MessageDocumentFields.SEQUENCE, count),
 				FindAndModifyOptions.options().returnNew(true).upsert(true),
 				Map.class, this.collectionName)
 				.get(MessageDocumentFields.SEQUENCE);
+		return last - count + 1;
 	}
 
 	protected void addMessageDocument(final MessageDocument document) {
@@ -220,6 +239,37 @@ public abstract class AbstractConfigurableMongoDbMessageStore extends AbstractMe
 		}
 	}
 
+	/**
+	 * Insert the documents with a single unordered bulk write; the documents which are
+	 * already present in their group are ignored.
+	 * @param documents the documents to insert.
+	 * @since 5.1
+	 */
+	protected void addMessageDocuments(List<MessageDocument> documents) {
+		long now = System.currentTimeMillis();
+		for (MessageDocument document : documents) {
+			if (document.getGroupCreatedTime() == 0) {
+				document.setGroupCreatedTime(now);
+			}
+			document.setCreatedTime(now);
+		}
+		try {
+			this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, this.collectionName)
+					.insert(documents)
+					.execute();
+		}
+		catch (BulkOperationException e) {
+			for (BulkWriteError error : e.getErrors()) {
+				if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+					throw e;
+				}
+			}
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Some of the messages already exist in the group; they are ignored.");
+			}
+		}
+	}
+
 	protected static Query groupIdQuery(Object groupId) {
 		return Query.query(Criteria.where(MessageDocumentFields.GROUP_ID).is(groupId));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2017 the original author or authors.
+ * Copyright 2013-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,10 +24,14 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.UUID;
 
+import org.bson.Document;
+
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -36,6 +40,7 @@ import org.springframework.integration.store.MessageGroupMetadata;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
+import org.springframework.integration.store.TimeIndexedMessageGroupStore;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.messaging.Message;
@@ -46,7 +51,11 @@ import org.springframework.util.Assert;
  * configure the instance of {@link MongoTemplate}. The mechanism of storing the messages/group of messages
  * in the store is and is different from {@link MongoDbMessageStore}. Since the store uses serialization of the
  * messages by default, all the headers, and the payload of the Message must implement {@link java.io.Serializable}
- * interface
+ * interface.
+ * <p>
+ * The time of the messages added via {@link #addMessageToGroup(Object, Message, long)}
+ * is kept in the {@value MessageDocumentFields#MESSAGE_TIME} field of their documents,
+ * which is indexed together with the group id.
  *
  * @author Amol Nayak
  * @author Artem Bilan
@@ -54,7 +63,7 @@ import org.springframework.util.Assert;
  * @since 3.0
  */
 public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDbMessageStore
-		implements MessageStore {
+		implements MessageStore, TimeIndexedMessageGroupStore {
 
 	public final static String DEFAULT_COLLECTION_NAME = "configurableStoreMessages";
 
@@ -114,6 +123,19 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		this.timeoutOnIdle = timeoutOnIdle;
 	}
 
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		super.afterPropertiesSet();
+		this.mongoTemplate.indexOps(this.collectionName)
+				.ensureIndex(new Index(MessageDocumentFields.GROUP_ID, Sort.Direction.ASC)
+						.on(MessageDocumentFields.MESSAGE_TIME, Sort.Direction.ASC)
+						.sparse());
+		this.mongoTemplate.indexOps(this.collectionName)
+				.ensureIndex(new Index(MessageDocumentFields.GROUP_CREATED_TIME, Sort.Direction.ASC));
+		this.mongoTemplate.indexOps(this.collectionName)
+				.ensureIndex(new Index(MessageDocumentFields.LAST_MODIFIED_TIME, Sort.Direction.ASC));
+	}
+
 	@Override
 	public <T> Message<T> addMessage(Message<T> message) {
 		Assert.notNull(message, "'message' must not be null");
@@ -170,6 +192,15 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 
 	@Override
 	public void addMessagesToGroup(Object groupId, Message<?>... messages) {
+		doAddMessagesToGroup(groupId, null, messages);
+	}
+
+	@Override
+	public void addMessageToGroup(Object groupId, Message<?> message, long time) {
+		doAddMessagesToGroup(groupId, time, message);
+	}
+
+	private void doAddMessagesToGroup(Object groupId, Long time, Message<?>... messages) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'message' must not be null");
 
@@ -186,6 +217,8 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 			complete = messageDocument.isComplete();
 		}
 
+		int sequence = messages.length > 0 ? getNextId(messages.length) : 0;
+		List<MessageDocument> documents = new ArrayList<MessageDocument>(messages.length);
 		for (Message<?> message : messages) {
 			MessageDocument document = new MessageDocument(message);
 			document.setGroupId(groupId);
@@ -193,9 +226,16 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 			document.setLastReleasedSequence(lastReleasedSequence);
 			document.setGroupCreatedTime(createdTime);
 			document.setLastModifiedTime(messageDocument == null ? createdTime : System.currentTimeMillis());
-			document.setSequence(getNextId());
+			document.setSequence(sequence++);
+			document.setMessageTime(time);
+			documents.add(document);
+		}
 
-			addMessageDocument(document);
+		if (documents.size() == 1) {
+			addMessageDocument(documents.get(0));
+		}
+		else if (documents.size() > 1) {
+			addMessageDocuments(documents);
 		}
 	}
 
@@ -204,6 +244,23 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'messageToRemove' must not be null");
 
+		doRemoveMessagesFromGroup(groupId, messages);
+		updateGroup(groupId, lastModifiedUpdate());
+	}
+
+	/**
+	 * Remove the messages and complete the group with a single update of the group documents.
+	 */
+	@Override
+	public void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+
+		doRemoveMessagesFromGroup(groupId, messages);
+		updateGroup(groupId, lastModifiedUpdate().set(MessageDocumentFields.COMPLETE, true));
+	}
+
+	private void doRemoveMessagesFromGroup(Object groupId, Collection<Message<?>> messages) {
 		Collection<UUID> ids = new ArrayList<UUID>();
 		for (Message<?> messageToRemove : messages) {
 			ids.add(messageToRemove.getHeaders().getId());
@@ -215,7 +272,6 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		if (ids.size() > 0) {
 			removeMessages(groupId, ids);
 		}
-		updateGroup(groupId, lastModifiedUpdate());
 	}
 
 	private void removeMessages(Object groupId, Collection<UUID> ids) {
@@ -279,7 +335,7 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 	public int expireMessageGroups(long timeout) {
 		int count = 0;
 		long threshold = System.currentTimeMillis() - timeout;
-		for (MessageGroup group : this) {
+		for (MessageGroup group : expirableMessageGroups(threshold)) {
 
 			long timestamp = group.getTimestamp();
 			if (this.isTimeoutOnIdle() && group.getLastModified() > 0) {
@@ -294,6 +350,28 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		return count;
 	}
 
+	/**
+	 * Select the ids of the groups to expire with an aggregation over the indexed
+	 * {@code groupCreatedTime} (or {@code lastModifiedTime}) of the group documents.
+	 */
+	@Override
+	protected Collection<?> findExpirableGroupIds(long fromTime, long threshold, int limit) {
+		String timeField = isTimeoutOnIdle()
+				? MessageDocumentFields.LAST_MODIFIED_TIME
+				: MessageDocumentFields.GROUP_CREATED_TIME;
+		Aggregation aggregation = Aggregation.newAggregation(
+				Aggregation.match(Criteria.where(MessageDocumentFields.GROUP_ID).exists(true)
+						.and(timeField).gte(fromTime).lte(threshold)),
+				Aggregation.group(MessageDocumentFields.GROUP_ID).max(timeField).as("time"),
+				Aggregation.sort(Sort.Direction.ASC, "time"),
+				Aggregation.limit(limit));
+		List<Object> groupIds = new ArrayList<>();
+		for (Document document : this.mongoTemplate.aggregate(aggregation, this.collectionName, Document.class)) {
+			groupIds.add(document.get("_id"));
+		}
+		return groupIds;
+	}
+
 	@Override
 	@ManagedAttribute
 	public int getMessageCountForAllMessageGroups() {
@@ -345,6 +423,21 @@ public class ConfigurableMongoDbMessageStore extends AbstractConfigurableMongoDb
 		return messages;
 	}
 
+	@Override
+	public Collection<Message<?>> getMessagesForGroup(Object groupId, long fromTime, long toTime, int maxMessages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Query query = groupIdQuery(groupId)
+				.addCriteria(Criteria.where(MessageDocumentFields.MESSAGE_TIME).gte(fromTime).lt(toTime))
+				.with(Sort.by(MessageDocumentFields.MESSAGE_TIME))
+				.limit(maxMessages);
+		List<MessageDocument> documents = this.mongoTemplate.find(query, MessageDocument.class, this.collectionName);
+		List<Message<?>> messages = new ArrayList<>(documents.size());
+		for (MessageDocument document : documents) {
+			messages.add(document.getMessage());
+		}
+		return messages;
+	}
+
 	private void expire(MessageGroup group) {
 
 		RuntimeException exception = null;
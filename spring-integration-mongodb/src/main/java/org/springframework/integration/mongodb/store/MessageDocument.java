@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2016 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,8 @@ public class MessageDocument {
 
 	private int sequence;
 
+	private Long messageTime;
+
 	public MessageDocument(Message<?> message) {
 		Assert.notNull(message, "'message' must not be null");
 		this.message = message;
@@ -140,4 +142,22 @@ public class MessageDocument {
 		return this.sequence;
 	}
 
+	/**
+	 * Return the time the message is indexed by in its group, if any.
+	 * @return the time or null.
+	 * @since 5.1
+	 */
+	public Long getMessageTime() {
+		return this.messageTime;
+	}
+
+	/**
+	 * Set the time to index the message by in its group.
+	 * @param messageTime the time.
+	 * @since 5.1
+	 */
+	public void setMessageTime(Long messageTime) {
+		this.messageTime = messageTime;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2014 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,12 +31,24 @@ public final class MessageDocumentFields {
 
 	public static final String LAST_MODIFIED_TIME = "lastModifiedTime";
 
+	/**
+	 * The creation time of the group a message belongs to.
+	 * @since 5.1
+	 */
+	public static final String GROUP_CREATED_TIME = "groupCreatedTime";
+
 	public static final String SEQUENCE = "sequence";
 
 	public static final String LAST_RELEASED_SEQUENCE = "lastReleasedSequence";
 
 	public static final String COMPLETE = "complete";
 
+	/**
+	 * The time a message in a group is indexed by.
+	 * @since 5.1
+	 */
+	public static final String MESSAGE_TIME = "messageTime";
+
 	private MessageDocumentFields() {
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -300,6 +301,8 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 			complete = messageDocument.get_Group_complete();
 		}
 
+		int sequence = messages.length > 0 ? getNextId(messages.length) : 0;
+		List<MessageWrapper> wrappers = new ArrayList<>(messages.length);
 		for (Message<?> message : messages) {
 			MessageWrapper wrapper = new MessageWrapper(message);
 			wrapper.set_GroupId(groupId);
@@ -307,9 +310,41 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 			wrapper.set_Group_update_timestamp(messageDocument == null ? createdTime : System.currentTimeMillis());
 			wrapper.set_Group_complete(complete);
 			wrapper.set_LastReleasedSequenceNumber(lastReleasedSequence);
-			wrapper.set_Sequence(getNextId());
+			wrapper.set_Sequence(sequence++);
+			wrappers.add(wrapper);
+		}
+
+		if (wrappers.size() == 1) {
+			addMessageDocument(wrappers.get(0));
+		}
+		else if (wrappers.size() > 1) {
+			addMessageDocuments(groupId, wrappers);
+		}
+	}
+
+	private void addMessageDocuments(Object groupId, List<MessageWrapper> wrappers) {
+		List<UUID> ids = wrappers.stream()
+				.map(wrapper -> (UUID) wrapper.headers.get(MessageHeaders.ID))
+				.collect(Collectors.toList());
+		Query query = new Query(Criteria.where("headers.id").in(ids).and(GROUP_ID_KEY).is(groupId));
+		// only the ids of the already stored messages are needed, not the messages themselves
+		query.fields().include("headers.id");
+		Set<Object> existingIds = this.template.find(query, Document.class, this.collectionName)
+				.stream()
+				.map(document -> document.get("headers", Document.class).get(MessageHeaders.ID))
+				.collect(Collectors.toSet());
 
-			addMessageDocument(wrapper);
+		BulkOperations bulkOperations = this.template.bulkOps(BulkOperations.BulkMode.ORDERED, this.collectionName);
+		boolean empty = true;
+		for (MessageWrapper wrapper : wrappers) {
+			if (!existingIds.contains(wrapper.headers.get(MessageHeaders.ID))) {
+				wrapper.set_message_timestamp(System.currentTimeMillis());
+				bulkOperations.insert(wrapper);
+				empty = false;
+			}
+		}
+		if (!empty) {
+			bulkOperations.execute();
 		}
 	}
 
@@ -318,6 +353,23 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messages, "'messageToRemove' must not be null");
 
+		doRemoveMessagesFromGroup(groupId, messages);
+		updateGroup(groupId, lastModifiedUpdate());
+	}
+
+	/**
+	 * Remove the messages and complete the group with a single update of the group documents.
+	 */
+	@Override
+	public void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+
+		doRemoveMessagesFromGroup(groupId, messages);
+		updateGroup(groupId, lastModifiedUpdate().set(GROUP_COMPLETE_KEY, true));
+	}
+
+	private void doRemoveMessagesFromGroup(Object groupId, Collection<Message<?>> messages) {
 		Collection<UUID> ids = new ArrayList<>();
 		for (Message<?> messageToRemove : messages) {
 			ids.add(messageToRemove.getHeaders().getId());
@@ -329,7 +381,6 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 		if (ids.size() > 0) {
 			bulkRemove(groupId, ids);
 		}
-		updateGroup(groupId, lastModifiedUpdate());
 	}
 
 	private void bulkRemove(Object groupId, Collection<UUID> ids) {
@@ -466,14 +517,21 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore
 		this.template.updateFirst(query, update, this.collectionName);
 	}
 
-	private int getNextId() {
+	/**
+	 * Reserve the provided number of consecutive sequence values with a single
+	 * {@code INC} operation.
+	 * @param count the number of sequence values to reserve.
+	 * @return the first of the reserved sequence values.
+	 */
+	private int getNextId(int count) {
 		Query query = Query.query(Criteria.where("_id").is(SEQUENCE_NAME));
 		query.fields().include(SEQUENCE);
-		return (Integer) this.template.findAndModify(query,
-				new Update().inc(SEQUENCE, 1),
+		int last = (Integer) this.template.findAndModify(query,
+				new Update().inc(SEQUENCE, count),
 				FindAndModifyOptions.options().returnNew(true).upsert(true),
 				Map.class,
 				this.collectionName).get(SEQUENCE);
+		return last - count + 1;
 	}
 
 	@SuppressWarnings("unchecked")
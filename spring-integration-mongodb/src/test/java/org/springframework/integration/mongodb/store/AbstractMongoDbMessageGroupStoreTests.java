@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -128,6 +128,28 @@ public abstract class AbstractMongoDbMessageGroupStoreTests extends MongoDbAvail
 		assertEquals(2, store.messageGroupSize(1));
 	}
 
+	@Test
+	@MongoDbAvailable
+	public void testBulkAddAndCompleteGroupAndRemoveMessages() throws Exception {
+		this.cleanupCollections(new SimpleMongoDbFactory(new MongoClient(), "test"));
+		MessageGroupStore store = this.getMessageGroupStore();
+		Message<?> messageA = new GenericMessage<String>("A");
+		Message<?> messageB = new GenericMessage<String>("B");
+		Message<?> messageC = new GenericMessage<String>("C");
+		store.addMessagesToGroup(1, messageA);
+		store.addMessagesToGroup(1, messageA, messageB, messageC);
+		assertEquals(3, store.messageGroupSize(1));
+
+		List<Message<?>> toRemove = new ArrayList<Message<?>>();
+		toRemove.add(messageA);
+		toRemove.add(messageB);
+		store.completeGroupAndRemoveMessages(1, toRemove);
+		MessageGroup group = store.getMessageGroup(1);
+		assertTrue(group.isComplete());
+		assertEquals(1, group.size());
+		assertEquals("C", group.getOne().getPayload());
+	}
+
 	@Test
 	@MongoDbAvailable
 	public void testPollMessages() throws Exception {
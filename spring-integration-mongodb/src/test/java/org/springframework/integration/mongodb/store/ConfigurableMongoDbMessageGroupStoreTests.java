@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.bson.Document;
@@ -43,6 +45,7 @@ import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.StopWatch;
 
 import com.mongodb.MongoClient;
@@ -118,6 +121,25 @@ public class ConfigurableMongoDbMessageGroupStoreTests extends AbstractMongoDbMe
 		context.close();
 	}
 
+	@Test
+	@MongoDbAvailable
+	public void testMessagesForGroupInTimeRange() throws Exception {
+		this.cleanupCollections(new SimpleMongoDbFactory(new MongoClient(), "test"));
+		ConfigurableMongoDbMessageStore store = getMessageGroupStore();
+		store.addMessageToGroup("X", new GenericMessage<>("third"), 3000);
+		store.addMessageToGroup("X", new GenericMessage<>("first"), 1000);
+		store.addMessageToGroup("X", new GenericMessage<>("second"), 2000);
+		store.addMessagesToGroup("X", new GenericMessage<>("noTime"));
+		assertEquals(4, store.messageGroupSize("X"));
+		List<Message<?>> messages = new ArrayList<>(store.getMessagesForGroup("X", 1000, 3000, 10));
+		assertEquals(2, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+		assertEquals("second", messages.get(1).getPayload());
+		messages = new ArrayList<>(store.getMessagesForGroup("X", 1000, 3000, 1));
+		assertEquals(1, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+	}
+
 	@Test
 	@MongoDbAvailable
 	public void testWithCustomConverter() throws Exception {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2016 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,17 @@
 
 package org.springframework.integration.redis.store;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -138,6 +142,33 @@ public class RedisChannelMessageStore implements ChannelMessageStore, BeanNameAw
 		return this.redisTemplate.boundListOps(groupId).rightPop();
 	}
 
+	/**
+	 * Pop up to {@code maxMessages} from the group list in a single pipelined round trip.
+	 * @since 5.1
+	 */
+	@Override
+	public List<Message<?>> pollMessagesFromGroup(Object groupId, int maxMessages) {
+		List<Object> results = this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+				for (int i = 0; i < maxMessages; i++) {
+					operations.opsForList().rightPop((K) groupId);
+				}
+				return null;
+			}
+
+		});
+		List<Message<?>> messages = new ArrayList<>(results.size());
+		for (Object result : results) {
+			if (result != null) {
+				messages.add((Message<?>) result);
+			}
+		}
+		return messages;
+	}
+
 	@ManagedAttribute
 	public int getMessageCountForAllMessageGroups() {
 		Set<?> keys = this.redisTemplate.keys(this.beanName + ":*");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2016 the original author or authors.
+ * Copyright 2014-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.integration.redis.store;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -108,6 +109,19 @@ public class RedisChannelPriorityMessageStore extends RedisChannelMessageStore
 		return null;
 	}
 
+	@Override
+	public List<Message<?>> pollMessagesFromGroup(Object groupId, int maxMessages) {
+		Assert.isInstanceOf(String.class, groupId);
+		List<Message<?>> messages = new ArrayList<>();
+		for (String key : sortedKeys((String) groupId)) {
+			messages.addAll(super.pollMessagesFromGroup(key, maxMessages - messages.size()));
+			if (messages.size() >= maxMessages) {
+				break;
+			}
+		}
+		return messages;
+	}
+
 	private List<String> sortedKeys(String groupId) {
 		Set<Object> keys = this.getRedisTemplate().keys(groupId == null ? (this.getBeanName() + ":*") : (groupId + "*"));
 		List<String> list = new LinkedList<String>();
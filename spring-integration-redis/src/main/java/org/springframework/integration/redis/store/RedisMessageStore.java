@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2017 the original author or authors.
+ * Copyright 2007-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,23 +16,50 @@
 
 package org.springframework.integration.redis.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.integration.store.AbstractKeyValueMessageStore;
+import org.springframework.integration.store.MessageGroupMetadata;
 import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.store.MessageHolder;
 import org.springframework.integration.store.MessageStore;
+import org.springframework.integration.store.TimeIndexedMessageGroupStore;
+import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
 /**
  * Redis implementation of the key/value style {@link MessageStore} and {@link MessageGroupStore}
+ * <p>
+ * With the {@link #setIncrementalGroupMembership(boolean) incremental group membership}
+ * the message ids of a group are kept in a Redis {@code ZSET} scored by the order they
+ * were added in, under the {@code prefix + {GROUP_MEMBERS_ + groupId}} key (the braces
+ * form a hash tag, the prefix stays at the start of the key), so adding (duplicates are
+ * ignored), removing and polling a message id cost O(log N) in the size of the group.
+ * <p>
+ * The time of the messages added via {@link #addMessageToGroup(Object, Message, long)}
+ * is kept as the score of their ids in a {@code ZSET} per group, under the
+ * {@code prefix + GROUP_TIME_INDEX_} key.
  *
  * @author Oleg Zhurakousky
  * @author Gary Russell
@@ -40,10 +67,55 @@ import org.springframework.util.Assert;
  *
  * @since 2.1
  */
-public class RedisMessageStore extends AbstractKeyValueMessageStore implements BeanClassLoaderAware {
+public class RedisMessageStore extends AbstractKeyValueMessageStore
+		implements TimeIndexedMessageGroupStore, BeanClassLoaderAware {
+
+	private static final String GROUP_TIME_INDEX_KEY_PREFIX = "GROUP_TIME_INDEX_";
+
+	private static final String GROUP_CREATED_INDEX_KEY = "GROUP_CREATED_INDEX";
+
+	private static final String GROUP_MODIFIED_INDEX_KEY = "GROUP_MODIFIED_INDEX";
+
+	/*
+	 * The new ids are scored after the last one, in the order they are provided;
+	 * 'ZADD NX' ignores the ids which are already in the group.
+	 */
+	private static final String ADD_GROUP_MEMBERS_SCRIPT =
+			"local last = redis.call('ZREVRANGE', KEYS[1], 0, 0, 'WITHSCORES')\n" +
+					"local score = last[2] and tonumber(last[2]) or 0\n" +
+					"for i = 1, #ARGV do\n" +
+					"  if redis.call('ZADD', KEYS[1], 'NX', score + 1, ARGV[i]) == 1 then\n" +
+					"    score = score + 1\n" +
+					"  end\n" +
+					"end\n" +
+					"return redis.call('ZCARD', KEYS[1])";
+
+	private static final String POLL_GROUP_MEMBER_SCRIPT =
+			"local ids = redis.call('ZRANGE', KEYS[1], 0, 0)\n" +
+					"if ids[1] then\n" +
+					"  redis.call('ZREM', KEYS[1], ids[1])\n" +
+					"  return ids[1]\n" +
+					"end\n" +
+					"return false";
 
 	private final RedisTemplate<Object, Object> redisTemplate;
 
+	private final StringRedisTemplate groupMembersTemplate;
+
+	private final RedisScript<Long> addGroupMembersScript =
+			new DefaultRedisScript<>(ADD_GROUP_MEMBERS_SCRIPT, Long.class);
+
+	private final RedisScript<String> pollGroupMemberScript =
+			new DefaultRedisScript<>(POLL_GROUP_MEMBER_SCRIPT, String.class);
+
+	private final String prefix;
+
+	private final String groupTimeIndexPrefix;
+
+	private final String groupCreatedIndexKey;
+
+	private final String groupModifiedIndexKey;
+
 	private boolean valueSerializerSet;
 
 	/**
@@ -71,6 +143,11 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 		this.redisTemplate.setKeySerializer(new StringRedisSerializer());
 		this.redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
 		this.redisTemplate.afterPropertiesSet();
+		this.groupMembersTemplate = new StringRedisTemplate(connectionFactory);
+		this.prefix = prefix;
+		this.groupTimeIndexPrefix = prefix + GROUP_TIME_INDEX_KEY_PREFIX;
+		this.groupCreatedIndexKey = prefix + GROUP_CREATED_INDEX_KEY;
+		this.groupModifiedIndexKey = prefix + GROUP_MODIFIED_INDEX_KEY;
 	}
 
 	@Override
@@ -86,6 +163,118 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 		this.valueSerializerSet = true;
 	}
 
+	@Override
+	public void addMessageToGroup(Object groupId, Message<?> message, long time) {
+		addMessagesToGroup(groupId, message);
+		this.groupMembersTemplate.opsForZSet()
+				.add(this.groupTimeIndexPrefix + groupId, message.getHeaders().getId().toString(), time);
+	}
+
+	/**
+	 * Return the messages of the group indexed by a time in the range, reading a page of
+	 * ids with {@code ZRANGEBYSCORE ... LIMIT} and the messages with a single {@code MGET}.
+	 * The index entries of the messages which are not in the store any more are removed
+	 * and the page is completed from the index.
+	 */
+	@Override
+	public Collection<Message<?>> getMessagesForGroup(Object groupId, long fromTime, long toTime, int maxMessages) {
+		String indexKey = this.groupTimeIndexPrefix + groupId;
+		List<Message<?>> messages = new ArrayList<>();
+		while (messages.size() < maxMessages) {
+			int count = maxMessages - messages.size();
+			// the stale entries of the previous pages are removed, so the offset skips only the messages read
+			Set<String> ids = this.groupMembersTemplate.opsForZSet()
+					.rangeByScore(indexKey, fromTime, toTime - 1, messages.size(), count);
+			if (ids == null || ids.isEmpty()) {
+				break;
+			}
+			List<Object> keys = new ArrayList<>(ids.size());
+			for (String id : ids) {
+				keys.add(getMessagePrefix() + id);
+			}
+			List<Object> values = this.redisTemplate.opsForValue().multiGet(keys);
+			List<Object> staleIds = new ArrayList<>();
+			int i = 0;
+			for (String id : ids) {
+				Object value = values != null ? values.get(i++) : null;
+				if (value instanceof MessageHolder) {
+					messages.add(((MessageHolder) value).getMessage());
+				}
+				else if (value instanceof Message) {
+					messages.add((Message<?>) value);
+				}
+				else {
+					staleIds.add(id);
+				}
+			}
+			if (!staleIds.isEmpty()) {
+				this.groupMembersTemplate.opsForZSet().remove(indexKey, staleIds.toArray());
+			}
+			if (staleIds.isEmpty() || ids.size() < count) {
+				break;
+			}
+		}
+		return messages;
+	}
+
+	@Override
+	public void removeMessagesFromGroup(Object groupId, Collection<Message<?>> messages) {
+		super.removeMessagesFromGroup(groupId, messages);
+		removeFromTimeIndex(groupId, messages);
+	}
+
+	@Override
+	public void completeGroupAndRemoveMessages(Object groupId, Collection<Message<?>> messages) {
+		super.completeGroupAndRemoveMessages(groupId, messages);
+		removeFromTimeIndex(groupId, messages);
+	}
+
+	@Override
+	public Message<?> pollMessageFromGroup(Object groupId) {
+		Message<?> message = super.pollMessageFromGroup(groupId);
+		if (message != null) {
+			removeFromTimeIndex(groupId, Collections.singletonList(message));
+		}
+		return message;
+	}
+
+	@Override
+	public void removeMessageGroup(Object groupId) {
+		super.removeMessageGroup(groupId);
+		this.groupMembersTemplate.delete(this.groupTimeIndexPrefix + groupId);
+	}
+
+	private void removeFromTimeIndex(Object groupId, Collection<Message<?>> messages) {
+		if (!messages.isEmpty()) {
+			Object[] ids = new Object[messages.size()];
+			int i = 0;
+			for (Message<?> message : messages) {
+				ids[i++] = message.getHeaders().getId().toString();
+			}
+			this.groupMembersTemplate.opsForZSet().remove(this.groupTimeIndexPrefix + groupId, ids);
+		}
+	}
+
+	/**
+	 * Select the ids of the groups to expire from the sorted sets (by the creation and
+	 * the last modification time) maintained for the stored group metadata.
+	 * Groups stored before these sets were introduced are indexed on their next update.
+	 */
+	@Override
+	protected Collection<?> findExpirableGroupIds(long fromTime, long threshold, int limit) {
+		String indexKey = isTimeoutOnIdle() ? this.groupModifiedIndexKey : this.groupCreatedIndexKey;
+		Set<String> groupKeys =
+				this.groupMembersTemplate.opsForZSet().rangeByScore(indexKey, fromTime, threshold, 0, limit);
+		List<String> groupIds = new ArrayList<>();
+		if (groupKeys != null) {
+			int prefixLength = getGroupPrefix().length();
+			for (String groupKey : groupKeys) {
+				groupIds.add(groupKey.substring(prefixLength));
+			}
+		}
+		return groupIds;
+	}
+
 	@Override
 	protected Object doRetrieve(Object id) {
 		Assert.notNull(id, "'id' must not be null");
@@ -106,6 +295,12 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 			rethrowAsIllegalArgumentException(e);
 
 		}
+		if (objectToStore instanceof MessageGroupMetadata) {
+			MessageGroupMetadata metadata = (MessageGroupMetadata) objectToStore;
+			ZSetOperations<String, String> zSetOps = this.groupMembersTemplate.opsForZSet();
+			zSetOps.add(this.groupCreatedIndexKey, id.toString(), metadata.getTimestamp());
+			zSetOps.add(this.groupModifiedIndexKey, id.toString(), metadata.getLastModified());
+		}
 	}
 
 	@Override
@@ -131,16 +326,121 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore implements B
 		Object removedObject = this.doRetrieve(id);
 		if (removedObject != null) {
 			this.redisTemplate.delete(id);
+			if (removedObject instanceof MessageGroupMetadata) {
+				this.groupMembersTemplate.opsForZSet().remove(this.groupCreatedIndexKey, id.toString());
+				this.groupMembersTemplate.opsForZSet().remove(this.groupModifiedIndexKey, id.toString());
+			}
 		}
 		return removedObject;
 	}
 
+	/**
+	 * Store the objects with {@code SETNX} commands in a single pipeline.
+	 */
+	@Override
+	protected void doStoreAllIfAbsent(Map<Object, Object> objectsToStore) {
+		try {
+			this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+					for (Map.Entry<Object, Object> entry : objectsToStore.entrySet()) {
+						operations.opsForValue().setIfAbsent((K) entry.getKey(), (V) entry.getValue());
+					}
+					return null;
+				}
+
+			});
+		}
+		catch (SerializationException e) {
+			rethrowAsIllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Remove the objects with a single multi-key {@code DEL} command.
+	 */
+	@Override
+	protected void doRemoveAll(Collection<Object> ids) {
+		if (!ids.isEmpty()) {
+			this.redisTemplate.delete(ids);
+		}
+	}
+
 	@Override
 	protected Collection<?> doListKeys(String keyPattern) {
 		Assert.hasText(keyPattern, "'keyPattern' must not be empty");
 		return this.redisTemplate.keys(keyPattern);
 	}
 
+	@Override
+	protected void doAddGroupMembers(String key, List<UUID> messageIds) {
+		this.groupMembersTemplate.execute(this.addGroupMembersScript,
+				Collections.singletonList(hashTagged(key)), toArgs(messageIds));
+	}
+
+	@Override
+	protected void doRemoveGroupMembers(String key, Collection<UUID> messageIds) {
+		if (!messageIds.isEmpty()) {
+			this.groupMembersTemplate.opsForZSet().remove(hashTagged(key), toArgs(messageIds));
+		}
+	}
+
+	@Override
+	protected void doRemoveAllGroupMembers(String key) {
+		this.groupMembersTemplate.delete(hashTagged(key));
+	}
+
+	@Override
+	protected List<UUID> doListGroupMembers(String key) {
+		Set<String> ids = this.groupMembersTemplate.opsForZSet().range(hashTagged(key), 0, -1);
+		if (ids == null) {
+			return Collections.emptyList();
+		}
+		List<UUID> messageIds = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			messageIds.add(UUID.fromString(id));
+		}
+		return messageIds;
+	}
+
+	@Override
+	protected UUID doGetFirstGroupMember(String key) {
+		Set<String> ids = this.groupMembersTemplate.opsForZSet().range(hashTagged(key), 0, 0);
+		return ids != null && !ids.isEmpty() ? UUID.fromString(ids.iterator().next()) : null;
+	}
+
+	@Override
+	protected UUID doPollGroupMember(String key) {
+		String id = this.groupMembersTemplate.execute(this.pollGroupMemberScript,
+				Collections.singletonList(hashTagged(key)));
+		return id != null ? UUID.fromString(id) : null;
+	}
+
+	@Override
+	protected int doCountGroupMembers(String key) {
+		Long size = this.groupMembersTemplate.opsForZSet().zCard(hashTagged(key));
+		return size != null ? size.intValue() : 0;
+	}
+
+	/**
+	 * Wrap the group membership key, without the store prefix, into a hash tag:
+	 * {@code prefix + {GROUP_MEMBERS_ + groupId}}.
+	 */
+	private String hashTagged(String key) {
+		return this.prefix + "{" + key.substring(this.prefix.length()) + "}";
+	}
+
+	private static Object[] toArgs(Collection<UUID> messageIds) {
+		Object[] args = new Object[messageIds.size()];
+		int i = 0;
+		for (UUID messageId : messageIds) {
+			args[i++] = messageId.toString();
+		}
+		return args;
+	}
+
 	private void rethrowAsIllegalArgumentException(SerializationException e) {
 		throw new IllegalArgumentException("If relying on the default RedisSerializer " +
 				"(JdkSerializationRedisSerializer) the Object must be Serializable. " +
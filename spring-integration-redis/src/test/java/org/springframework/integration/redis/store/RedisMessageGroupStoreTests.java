@@ -19,6 +19,7 @@ package org.springframework.integration.redis.store;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -79,6 +80,11 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 	public void setUpTearDown() {
 		StringRedisTemplate template = createStringRedisTemplate(getConnectionFactoryForTest());
 		template.delete(template.keys("MESSAGE_GROUP_*"));
+		template.delete(template.keys("GROUP_MEMBERS_*"));
+		template.delete(template.keys("{GROUP_MEMBERS_*"));
+		template.delete(template.keys("GROUP_TIME_INDEX_*"));
+		template.delete("GROUP_CREATED_INDEX");
+		template.delete("GROUP_MODIFIED_INDEX");
 	}
 
 	@Test
@@ -148,6 +154,7 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 		assertEquals(1, messageGroup.size());
 
 		store.removeMessageGroup(this.groupId);
+		assertNull(store.getMessage(message.getHeaders().getId()));
 		MessageGroup messageGroupA = store.getMessageGroup(this.groupId);
 		assertNotSame(messageGroup, messageGroupA);
 //		assertEquals(0, messageGroupA.getMarked().size());
@@ -163,6 +170,91 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 		assertEquals(0, messageGroup.size());
 	}
 
+	@Test
+	@RedisAvailable
+	public void testMessagesForGroupInTimeRange() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+
+		Message<?> second = new GenericMessage<>("second");
+		store.addMessageToGroup(this.groupId, new GenericMessage<>("third"), 3000);
+		store.addMessageToGroup(this.groupId, new GenericMessage<>("first"), 1000);
+		store.addMessageToGroup(this.groupId, second, 2000);
+		store.addMessagesToGroup(this.groupId, new GenericMessage<>("noTime"));
+		assertEquals(4, store.messageGroupSize(this.groupId));
+
+		List<Message<?>> messages = new ArrayList<>(store.getMessagesForGroup(this.groupId, 1000, 3000, 10));
+		assertEquals(2, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+		assertEquals("second", messages.get(1).getPayload());
+
+		store.removeMessage(second.getHeaders().getId());
+		store.removeMessagesFromGroup(this.groupId, second);
+		messages = new ArrayList<>(store.getMessagesForGroup(this.groupId, 0, Long.MAX_VALUE, 10));
+		assertEquals(2, messages.size());
+		assertEquals("third", messages.get(1).getPayload());
+
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		assertEquals(Long.valueOf(2), template.opsForZSet().size("GROUP_TIME_INDEX_" + this.groupId));
+		Message<?> polled = store.pollMessageFromGroup(this.groupId);
+		assertNotNull(polled);
+		assertEquals(Long.valueOf(1), template.opsForZSet().size("GROUP_TIME_INDEX_" + this.groupId));
+
+		store.removeMessageGroup(this.groupId);
+		assertEquals(0, store.getMessagesForGroup(this.groupId, 0, Long.MAX_VALUE, 10).size());
+	}
+
+	@Test
+	@RedisAvailable
+	public void testMessagesForGroupInTimeRangePages() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+
+		Message<?> first = new GenericMessage<>("first");
+		Message<?> second = new GenericMessage<>("second");
+		store.addMessageToGroup(this.groupId, first, 1000);
+		store.addMessageToGroup(this.groupId, second, 2000);
+		store.addMessageToGroup(this.groupId, new GenericMessage<>("third"), 3000);
+
+		List<Message<?>> messages = new ArrayList<>(store.getMessagesForGroup(this.groupId, 0, Long.MAX_VALUE, 2));
+		assertEquals(2, messages.size());
+		assertEquals("first", messages.get(0).getPayload());
+		assertEquals("second", messages.get(1).getPayload());
+
+		// stale index entries are skipped and the page is completed
+		store.removeMessage(first.getHeaders().getId());
+		store.removeMessage(second.getHeaders().getId());
+		messages = new ArrayList<>(store.getMessagesForGroup(this.groupId, 0, Long.MAX_VALUE, 1));
+		assertEquals(1, messages.size());
+		assertEquals("third", messages.get(0).getPayload());
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		assertEquals(Long.valueOf(1), template.opsForZSet().size("GROUP_TIME_INDEX_" + this.groupId));
+
+		store.removeMessageGroup(this.groupId);
+	}
+
+	@Test
+	@RedisAvailable
+	public void testExpireMessageGroupsInPages() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+		store.setExpiryPageSize(2);
+		List<Object> expired = new ArrayList<>();
+		store.registerMessageGroupExpiryCallback((messageGroupStore, group) -> {
+			expired.add(group.getGroupId());
+			messageGroupStore.removeMessageGroup(group.getGroupId());
+		});
+		for (int i = 0; i < 5; i++) {
+			store.addMessagesToGroup("group" + i, new GenericMessage<>("foo"));
+		}
+
+		assertEquals(5, store.expireMessageGroups(0));
+		assertEquals(5, expired.size());
+		assertTrue(expired.contains("group4"));
+		assertEquals(0, store.getMessageGroupCount());
+		assertEquals(0, store.expireMessageGroups(0));
+	}
+
 	@Test
 	@RedisAvailable
 	public void testCompleteMessageGroup() {
@@ -433,6 +525,59 @@ public class RedisMessageGroupStoreTests extends RedisAvailableTests {
 		messageStore.removeMessageGroup(this.groupId);
 	}
 
+	@Test
+	@RedisAvailable
+	public void testIncrementalGroupMembership() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore messageStore = new RedisMessageStore(jcf);
+		messageStore.setIncrementalGroupMembership(true);
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		for (int i = 0; i < 5; i++) {
+			Message<String> message = MessageBuilder.withPayload("foo" + i).setCorrelationId(this.groupId).build();
+			messageStore.addMessagesToGroup(this.groupId, message);
+			messages.add(message);
+		}
+		messageStore.addMessagesToGroup(this.groupId, messages.get(0));
+		assertEquals(5, messageStore.messageGroupSize(this.groupId));
+		assertEquals(5, messageStore.getGroupMetadata(this.groupId).size());
+		assertEquals("foo0", messageStore.getOneMessageFromGroup(this.groupId).getPayload());
+
+		messageStore.removeMessagesFromGroup(this.groupId, messages.subList(1, 3));
+		MessageGroup group = messageStore.getMessageGroup(this.groupId);
+		assertEquals(3, group.size());
+		Iterator<Message<?>> iterator = group.getMessages().iterator();
+		assertEquals("foo0", iterator.next().getPayload());
+		assertEquals("foo3", iterator.next().getPayload());
+		assertEquals("foo4", iterator.next().getPayload());
+
+		assertEquals("foo0", messageStore.pollMessageFromGroup(this.groupId).getPayload());
+		assertEquals(2, messageStore.messageGroupSize(this.groupId));
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		assertEquals(Long.valueOf(2), template.opsForZSet().zCard("{GROUP_MEMBERS_" + this.groupId + "}"));
+
+		messageStore.removeMessageGroup(this.groupId);
+		assertEquals(0, messageStore.messageGroupSize(this.groupId));
+		assertNull(messageStore.getMessage(messages.get(4).getHeaders().getId()));
+		assertTrue(template.keys("{GROUP_MEMBERS_*").isEmpty());
+	}
+
+	@Test
+	@RedisAvailable
+	public void testIncrementalGroupMembershipKeyStartsWithPrefix() {
+		RedisConnectionFactory jcf = getConnectionFactoryForTest();
+		RedisMessageStore messageStore = new RedisMessageStore(jcf, "TEST_");
+		messageStore.setIncrementalGroupMembership(true);
+		Message<String> message = MessageBuilder.withPayload("foo").setCorrelationId(this.groupId).build();
+		messageStore.addMessagesToGroup(this.groupId, message);
+		StringRedisTemplate template = createStringRedisTemplate(jcf);
+		assertTrue(template.hasKey("TEST_{GROUP_MEMBERS_" + this.groupId + "}"));
+		assertEquals(1, messageStore.messageGroupSize(this.groupId));
+
+		messageStore.removeMessageGroup(this.groupId);
+		assertFalse(template.hasKey("TEST_{GROUP_MEMBERS_" + this.groupId + "}"));
+		assertNull(messageStore.getMessage(message.getHeaders().getId()));
+	}
+
 	@Test
 	@RedisAvailable
 	public void testJsonSerialization() {